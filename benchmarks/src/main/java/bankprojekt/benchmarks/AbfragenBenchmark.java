@@ -0,0 +1,71 @@
+package bankprojekt.benchmarks;
+
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verwaltung.Bank;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries over all accounts and customers of a bank. Every tenth account is deleted, so the bank has gaps
+ * in its account numbers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AbfragenBenchmark {
+    @Param({"1000", "100000"})
+    int anzahlKonten;
+
+    Bank bank;
+
+    /**
+     * a minimum balance that about a tenth of the accounts reach
+     */
+    double minimum;
+
+    /**
+     * a minimum total that a small part of the customers reach, each customer has up to four accounts
+     */
+    double minimumKunde;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Testbank testbank = new Testbank(anzahlKonten);
+        bank = testbank.bank;
+        for (int i = 0; i < testbank.kontonummern.length; i += 10) {
+            bank.kontoLoeschen(testbank.kontonummern[i]);
+        }
+        minimum = Testbank.STARTGUTHABEN * 0.95;
+        minimumKunde = Testbank.STARTGUTHABEN * 3.2;
+    }
+
+    @Benchmark
+    public List<Kunde> getAlleReichenKunden() {
+        return bank.getAlleReichenKunden(minimumKunde);
+    }
+
+    @Benchmark
+    public List<Kunde> getKundenMitVollemKonto() {
+        return bank.getKundenMitVollemKonto(minimum);
+    }
+
+    @Benchmark
+    public String getKundenadressen() {
+        return bank.getKundenadressen();
+    }
+
+    @Benchmark
+    public List<Long> getKontonummernLuecken() {
+        return bank.getKontonummernLuecken();
+    }
+
+    @Benchmark
+    public String getAlleKonten() {
+        return bank.getAlleKonten();
+    }
+}
@@ -0,0 +1,62 @@
+package bankprojekt.benchmarks;
+
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Bankarchiv;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to write and read a whole bank in the {@link Bankarchiv} format against Java serialization.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArchivBenchmark {
+    @Param({"1000", "100000"})
+    int anzahlKonten;
+
+    Bank bank;
+    byte[] archiv;
+    byte[] serialisiert;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        bank = new Testbank(anzahlKonten).bank;
+        archiv = archivSchreiben();
+        serialisiert = serialisieren();
+    }
+
+    @Benchmark
+    public byte[] archivSchreiben() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Bankarchiv.schreiben(bank, Channels.newChannel(bos));
+        return bos.toByteArray();
+    }
+
+    @Benchmark
+    public Bank archivLesen() throws IOException {
+        return Bankarchiv.lesen(Channels.newChannel(new ByteArrayInputStream(archiv)));
+    }
+
+    @Benchmark
+    public byte[] serialisieren() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(bank);
+        }
+        return bos.toByteArray();
+    }
+
+    @Benchmark
+    public Object deserialisieren() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialisiert))) {
+            return ois.readObject();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package bankprojekt.benchmarks;
+
+import bankprojekt.verarbeitung.GesperrtException;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.KontonummerDoesNotExistException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transactions on single accounts and transfers, by one thread and by four threads at the same time.
+ * The accounts are picked at random, so the parallel variants show how well independent accounts scale
+ * and how much the threads get in each other's way on shared lock stripes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BankBenchmark {
+    @Param({"1000", "100000"})
+    int anzahlKonten;
+
+    Bank bank;
+    long[] kontonummern;
+
+    /**
+     * Sparbuecher do not support transfers and cannot be overdrawn, so only Girokonten are debited
+     */
+    long[] girokonten;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Testbank testbank = new Testbank(anzahlKonten);
+        bank = testbank.bank;
+        kontonummern = testbank.kontonummern;
+        girokonten = testbank.girokonten;
+    }
+
+    private long konto() {
+        return kontonummern[ThreadLocalRandom.current().nextInt(kontonummern.length)];
+    }
+
+    private long girokonto() {
+        return girokonten[ThreadLocalRandom.current().nextInt(girokonten.length)];
+    }
+
+    @Benchmark
+    public void geldEinzahlen() throws KontonummerDoesNotExistException {
+        bank.geldEinzahlen(konto(), 1);
+    }
+
+    @Benchmark
+    public boolean geldAbheben() throws KontonummerDoesNotExistException, GesperrtException {
+        return bank.geldAbheben(girokonto(), 1);
+    }
+
+    @Benchmark
+    public boolean geldUeberweisen() {
+        return bank.geldUeberweisen(girokonto(), girokonto(), 1, "Benchmark");
+    }
+
+    @Benchmark
+    public double getKontostand() throws KontonummerDoesNotExistException {
+        return bank.getKontostand(konto());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void geldEinzahlenParallel() throws KontonummerDoesNotExistException {
+        bank.geldEinzahlen(konto(), 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean geldAbhebenParallel() throws KontonummerDoesNotExistException, GesperrtException {
+        return bank.geldAbheben(girokonto(), 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean geldUeberweisenParallel() {
+        return bank.geldUeberweisen(girokonto(), girokonto(), 1, "Benchmark");
+    }
+}
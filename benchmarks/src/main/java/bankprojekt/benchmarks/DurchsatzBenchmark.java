@@ -0,0 +1,65 @@
+package bankprojekt.benchmarks;
+
+import bankprojekt.verarbeitung.GesperrtException;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.KontonummerDoesNotExistException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a deposit followed by a withdrawal on a random Girokonto, by a growing number of threads.
+ * The accounts are independent, so with striped locks the operations per second should grow with the
+ * number of threads up to the number of processors; compare the scores of the variants to see the speedup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DurchsatzBenchmark {
+    @Param({"1000", "100000"})
+    int anzahlKonten;
+
+    Bank bank;
+    long[] girokonten;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Testbank testbank = new Testbank(anzahlKonten);
+        bank = testbank.bank;
+        girokonten = testbank.girokonten;
+    }
+
+    private boolean einzahlenUndAbheben() throws KontonummerDoesNotExistException, GesperrtException {
+        long nummer = girokonten[ThreadLocalRandom.current().nextInt(girokonten.length)];
+        bank.geldEinzahlen(nummer, 2);
+        return bank.geldAbheben(nummer, 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean einThread() throws KontonummerDoesNotExistException, GesperrtException {
+        return einzahlenUndAbheben();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public boolean zweiThreads() throws KontonummerDoesNotExistException, GesperrtException {
+        return einzahlenUndAbheben();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean vierThreads() throws KontonummerDoesNotExistException, GesperrtException {
+        return einzahlenUndAbheben();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean alleProzessoren() throws KontonummerDoesNotExistException, GesperrtException {
+        return einzahlenUndAbheben();
+    }
+}
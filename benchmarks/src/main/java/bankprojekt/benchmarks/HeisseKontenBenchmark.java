@@ -0,0 +1,64 @@
+package bankprojekt.benchmarks;
+
+import bankprojekt.verwaltung.Bank;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of transfers in both directions between a few hot Girokonten, by a growing number of threads.
+ * Every transfer locks two of the same few accounts, so this measures the contention on a lock stripe rather
+ * than the speedup over independent accounts that {@link DurchsatzBenchmark} measures.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeisseKontenBenchmark {
+    @Param({"2", "4"})
+    int heisseKonten;
+
+    Bank bank;
+    long[] girokonten;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Testbank testbank = new Testbank(1000);
+        bank = testbank.bank;
+        girokonten = testbank.girokonten;
+    }
+
+    private boolean ueberweisen() {
+        ThreadLocalRandom zufall = ThreadLocalRandom.current();
+        int von = zufall.nextInt(heisseKonten);
+        int nach = (von + 1 + zufall.nextInt(heisseKonten - 1)) % heisseKonten;
+        return bank.geldUeberweisen(girokonten[von], girokonten[nach], 1 + zufall.nextInt(100), "Miete");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean einThread() {
+        return ueberweisen();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public boolean zweiThreads() {
+        return ueberweisen();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean vierThreads() {
+        return ueberweisen();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean alleProzessoren() {
+        return ueberweisen();
+    }
+}
@@ -0,0 +1,42 @@
+package bankprojekt.benchmarks;
+
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.factories.GirokontoFactory;
+import bankprojekt.verwaltung.Bank;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating accounts in a bank that already holds the given number of accounts. Every iteration creates
+ * a fixed batch of accounts in a fresh bank, so the size of the bank does not grow with the run time.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = KontoErstellenBenchmark.STAPEL)
+@Measurement(iterations = 10, batchSize = KontoErstellenBenchmark.STAPEL)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KontoErstellenBenchmark {
+    static final int STAPEL = 10_000;
+
+    @Param({"1000", "100000"})
+    int anzahlKonten;
+
+    Bank bank;
+    Kunde kunde;
+    GirokontoFactory factory;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        bank = new Testbank(anzahlKonten).bank;
+        kunde = new Kunde("Max", "Mustermann", "Home", LocalDate.of(2001, 10, 29));
+        factory = new GirokontoFactory();
+    }
+
+    @Benchmark
+    public long kontoErstellen() {
+        return bank.kontoErstellen(factory, kunde);
+    }
+}
@@ -0,0 +1,77 @@
+package bankprojekt.benchmarks;
+
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.factories.GirokontoFactory;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.KontonummerDoesNotExistException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshots of a bank with {@link Bank#clone()}, and serialization of single accounts.
+ * <p>
+ * A snapshot shares all accounts with the original until an account is changed, so the benchmark also
+ * measures the first deposit after a snapshot, which has to copy the account.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchnappschussBenchmark {
+    @Param({"1000", "100000"})
+    int anzahlKonten;
+
+    Bank bank;
+    long kontonummer;
+    Konto konto;
+    byte[] serialisiert;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Testbank testbank = new Testbank(anzahlKonten);
+        bank = testbank.bank;
+        kontonummer = testbank.kontonummern[0];
+        Kunde kunde = new Kunde("Max", "Mustermann", "Home", LocalDate.of(2001, 10, 29));
+        konto = new GirokontoFactory().createKonto(kunde, 4711);
+        konto.einzahlen(1234.5);
+        serialisiert = serialisieren(konto);
+    }
+
+    private static byte[] serialisieren(Object objekt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(objekt);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Bank klonen() throws CloneNotSupportedException {
+        return bank.clone();
+    }
+
+    @Benchmark
+    public Bank klonenUndAendern() throws CloneNotSupportedException, KontonummerDoesNotExistException {
+        Bank schnappschuss = bank.clone();
+        bank.geldEinzahlen(kontonummer, 1);
+        return schnappschuss;
+    }
+
+    @Benchmark
+    public byte[] kontoSerialisieren() throws IOException {
+        return serialisieren(konto);
+    }
+
+    @Benchmark
+    public Object kontoDeserialisieren() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialisiert))) {
+            return ois.readObject();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package bankprojekt.benchmarks;
+
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.factories.GirokontoFactory;
+import bankprojekt.verarbeitung.factories.SparbuchFactory;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.KontonummerDoesNotExistException;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Builds the banks the benchmarks run on. The banks are reproducible: the same number of accounts
+ * always gives the same customers, accounts and balances.
+ */
+final class Testbank {
+    static final long BANKLEITZAHL = 12312L;
+
+    /**
+     * the initial balance of every account, high enough that no withdrawal of a benchmark run fails
+     */
+    static final double STARTGUTHABEN = 1e9;
+
+    private static final String[] VORNAMEN = {"Anna", "Ben", "Clara", "Dieter", "Emil", "Frieda", "Gustav",
+            "Hanna", "Ilse", "Jonas", "Karl", "Lena", "Ömer", "Paula", "Ümit", "Zoe"};
+    private static final String[] NACHNAMEN = {"Müller", "Schmidt", "Schneider", "Fischer", "Weber", "Meyer",
+            "Wagner", "Becker", "Schulz", "Hoffmann", "Koch", "Richter", "Klein", "Wolf", "Schröder", "Neumann"};
+
+    /**
+     * the bank
+     */
+    final Bank bank;
+
+    /**
+     * all account numbers, for picking accounts at random
+     */
+    final long[] kontonummern;
+
+    /**
+     * the numbers of the accounts that support transfers
+     */
+    final long[] girokonten;
+
+    /**
+     * Creates a bank with the given number of accounts, three quarters of them Girokonten, each with
+     * {@link #STARTGUTHABEN}, and one customer per four accounts.
+     *
+     * @param anzahlKonten the number of accounts
+     */
+    Testbank(int anzahlKonten) {
+        bank = new Bank(BANKLEITZAHL);
+        kontonummern = new long[anzahlKonten];
+        girokonten = new long[anzahlKonten - anzahlKonten / 4];
+        SplittableRandom zufall = new SplittableRandom(42);
+        Kunde kunde = null;
+        try {
+            for (int i = 0, g = 0; i < anzahlKonten; i++) {
+                if (i % 4 == 0) {
+                    kunde = new Kunde(VORNAMEN[zufall.nextInt(VORNAMEN.length)],
+                            NACHNAMEN[zufall.nextInt(NACHNAMEN.length)], "Straße " + i,
+                            LocalDate.of(1950 + zufall.nextInt(50), 1 + zufall.nextInt(12), 1 + zufall.nextInt(28)));
+                }
+                boolean sparbuch = i % 4 == 3;
+                long nummer = bank.kontoErstellen(sparbuch ? new SparbuchFactory() : new GirokontoFactory(), kunde);
+                bank.geldEinzahlen(nummer, STARTGUTHABEN * zufall.nextDouble(0.5, 1));
+                kontonummern[i] = nummer;
+                if (!sparbuch) {
+                    girokonten[g++] = nummer;
+                }
+            }
+        } catch (KontonummerDoesNotExistException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package bankprojekt.benchmarks;
+
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.UeberweisungsErgebnis;
+import bankprojekt.verwaltung.Ueberweisungsauftrag;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a payroll file booked as one batch against the same transfers booked one by one.
+ * The scores are per transfer, so the two variants compare directly.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UeberweisungsstapelBenchmark {
+    private static final int ANZAHL_UEBERWEISUNGEN = 10_000;
+
+    @Param({"1000", "100000"})
+    int anzahlKonten;
+
+    Bank bank;
+    List<Ueberweisungsauftrag> auftraege;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Testbank testbank = new Testbank(anzahlKonten);
+        bank = testbank.bank;
+        long[] girokonten = testbank.girokonten;
+        SplittableRandom zufall = new SplittableRandom(4711);
+        auftraege = new ArrayList<>(ANZAHL_UEBERWEISUNGEN);
+        for (int i = 0; i < ANZAHL_UEBERWEISUNGEN; i++) {
+            auftraege.add(new Ueberweisungsauftrag(girokonten[zufall.nextInt(girokonten.length)],
+                    girokonten[zufall.nextInt(girokonten.length)], 1 + zufall.nextInt(10), "Lohn"));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ANZAHL_UEBERWEISUNGEN)
+    public int einzeln() {
+        int ausgefuehrt = 0;
+        for (Ueberweisungsauftrag auftrag : auftraege) {
+            if (bank.geldUeberweisen(auftrag.vonKontonr(), auftrag.nachKontonr(), auftrag.betrag(),
+                    auftrag.verwendungszweck())) {
+                ausgefuehrt++;
+            }
+        }
+        return ausgefuehrt;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ANZAHL_UEBERWEISUNGEN)
+    public UeberweisungsErgebnis[] stapel() {
+        return bank.geldUeberweisenBatch(auftraege);
+    }
+}
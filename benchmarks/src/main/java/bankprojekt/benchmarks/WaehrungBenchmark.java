@@ -0,0 +1,81 @@
+package bankprojekt.benchmarks;
+
+import bankprojekt.verarbeitung.Waehrung;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions of amounts between Euro and all currencies, between two currencies directly,
+ * and of an array of amounts at once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WaehrungBenchmark {
+    private static final Waehrung[] WAEHRUNGEN = Waehrung.values();
+
+    double[] betraege;
+    long[] cent;
+    long[] feld;
+    int naechster;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom zufall = new SplittableRandom(42);
+        betraege = new double[1024];
+        for (int i = 0; i < betraege.length; i++) {
+            betraege[i] = Math.round(zufall.nextDouble(0, 100_000) * 100) / 100.0;
+        }
+        cent = new long[betraege.length];
+        for (int i = 0; i < cent.length; i++) {
+            cent[i] = Math.round(betraege[i] * 100);
+        }
+        feld = new long[cent.length];
+    }
+
+    private double betrag() {
+        naechster = (naechster + 1) & (betraege.length - 1);
+        return betraege[naechster];
+    }
+
+    @Benchmark
+    public void euroInWaehrungUmrechnen(Blackhole ergebnis) {
+        double betrag = betrag();
+        for (Waehrung waehrung : WAEHRUNGEN) {
+            ergebnis.consume(waehrung.euroInWaehrungUmrechnen(betrag));
+        }
+    }
+
+    @Benchmark
+    public void waehrungInEuroUmrechnen(Blackhole ergebnis) {
+        double betrag = betrag();
+        for (Waehrung waehrung : WAEHRUNGEN) {
+            ergebnis.consume(waehrung.waehrungInEuroUmrechnen(betrag));
+        }
+    }
+
+    @Benchmark
+    public void direktUmrechnen(Blackhole ergebnis) {
+        naechster = (naechster + 1) & (cent.length - 1);
+        long betrag = cent[naechster];
+        for (Waehrung waehrung : WAEHRUNGEN) {
+            ergebnis.consume(Waehrung.BGN.umrechnen(betrag, waehrung));
+        }
+    }
+
+    /**
+     * converts all 1024 amounts from BGN to DKK
+     */
+    @Benchmark
+    public long[] feldUmrechnen() {
+        System.arraycopy(cent, 0, feld, 0, cent.length);
+        Waehrung.BGN.umrechnen(feld, Waehrung.DKK);
+        return feld;
+    }
+}
@@ -0,0 +1,84 @@
+package bankprojekt.verarbeitung;
+
+import org.decimal4j.api.DecimalArithmetic;
+import org.decimal4j.scale.Scale2f;
+import org.decimal4j.scale.Scale4f;
+
+import java.math.RoundingMode;
+
+/**
+ * Rechnet mit Geldbeträgen in Cent, d.h. in der kleinsten Einheit einer Währung mit zwei Nachkommastellen.
+ * <p>
+ * Konten speichern Kontostand, Dispo und abgehobene Beträge als long in Cent. Summen und Differenzen
+ * sind damit exakt, es sammeln sich keine Rundungsfehler an. Die Rechnungen übernimmt die
+ * {@link DecimalArithmetic} von decimal4j; sie arbeitet direkt auf den unskalierten long-Werten und
+ * legt keine Objekte an. Überläufe werden erkannt und nicht stillschweigend abgeschnitten.
+ * <p>
+ * Beträge der öffentlichen Schnittstellen bleiben double; sie werden beim Übergang kaufmännisch
+ * auf ganze Cent gerundet.
+ */
+public final class Geldbetrag {
+    /**
+     * Cent, Beträge mit 2 Nachkommastellen
+     */
+    private static final DecimalArithmetic CENT = Scale2f.INSTANCE.getCheckedArithmetic(RoundingMode.HALF_UP);
+
+    private Geldbetrag() {
+    }
+
+    /**
+     * rundet einen Betrag kaufmännisch auf ganze Cent
+     *
+     * @param betrag der Betrag
+     * @return der Betrag in Cent
+     * @throws IllegalArgumentException wenn betrag NaN, unendlich oder zu groß ist
+     */
+    public static long inCent(double betrag) {
+        return CENT.fromDouble(betrag);
+    }
+
+    /**
+     * liefert den Betrag zu einer Anzahl Cent
+     *
+     * @param cent der Betrag in Cent
+     * @return der Betrag, der dem Cent-Betrag am nächsten liegt
+     */
+    public static double alsBetrag(long cent) {
+        return CENT.toDouble(cent);
+    }
+
+    /**
+     * addiert zwei Beträge
+     *
+     * @param cent1 erster Betrag in Cent
+     * @param cent2 zweiter Betrag in Cent
+     * @return die Summe in Cent
+     * @throws ArithmeticException bei einem Überlauf
+     */
+    public static long addieren(long cent1, long cent2) {
+        return CENT.add(cent1, cent2);
+    }
+
+    /**
+     * subtrahiert zwei Beträge
+     *
+     * @param cent1 Betrag in Cent
+     * @param cent2 abzuziehender Betrag in Cent
+     * @return die Differenz in Cent
+     * @throws ArithmeticException bei einem Überlauf
+     */
+    public static long subtrahieren(long cent1, long cent2) {
+        return CENT.subtract(cent1, cent2);
+    }
+
+    /**
+     * liefert einen Kurs mit 4 Nachkommastellen
+     *
+     * @param kurs der Kurs
+     * @return der Kurs in Zehntausendsteln
+     * @see Waehrung
+     */
+    static long kurs(double kurs) {
+        return Scale4f.INSTANCE.getDefaultArithmetic().fromDouble(kurs);
+    }
+}
@@ -1,5 +1,10 @@
 package bankprojekt.verarbeitung;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+
 /**
  * Ein Girokonto, d.h. ein Konto mit einem Dispo und der Fähigkeit,
  * Überweisungen zu senden und zu empfangen.
@@ -10,9 +15,9 @@ package bankprojekt.verarbeitung;
  */
 public class Girokonto extends Konto implements Ueberweisungsfaehig {
     /**
-     * Wert, bis zu dem das Konto überzogen werden darf
+     * Wert in Cent, bis zu dem das Konto überzogen werden darf
      */
-    private double dispo;
+    private transient long dispo;
 
     /**
      * erzeugt ein leeres, nicht gesperrtes Standard-Girokonto
@@ -20,7 +25,7 @@ public class Girokonto extends Konto implements Ueberweisungsfaehig {
      */
     public Girokonto() {
         super(Kunde.MUSTERMANN, 99887766);
-        this.dispo = 500;
+        this.dispo = Geldbetrag.inCent(500);
     }
 
     /**
@@ -36,13 +41,55 @@ public class Girokonto extends Konto implements Ueberweisungsfaehig {
         setDispo(dispo);
     }
 
+    /**
+     * erzeugt ein Girokonto mit den angegebenen Werten, dessen Zustand in einer neuen Zeile
+     * der angegebenen Spalten liegt
+     *
+     * @param inhaber Kontoinhaber
+     * @param nummer  Kontonummer
+     * @param dispo   Dispo
+     * @param spalten Spalten für den Zustand des Kontos
+     * @throws IllegalArgumentException wenn inhaber oder spalten null sind oder der angegebene dispo negativ bzw. NaN ist
+     */
+    public Girokonto(Kunde inhaber, long nummer, double dispo, Kontospalten spalten) {
+        super(inhaber, nummer, pruefen(spalten));
+        setDispo(dispo);
+    }
+
+    private static Kontospalten pruefen(Kontospalten spalten) {
+        if (spalten == null)
+            throw new IllegalArgumentException("Die Spalten dürfen nicht null sein!");
+        return spalten;
+    }
+
     /**
      * liefert den Dispo
      *
      * @return Dispo von this
      */
     public double getDispo() {
-        return dispo;
+        return Geldbetrag.alsBetrag(getDispoCent());
+    }
+
+    /**
+     * liefert den Dispo in Cent
+     */
+    private long getDispoCent() {
+        return spalten() != null ? spalten().dispo(this) : dispo;
+    }
+
+    private void setDispoCent(long dispo) {
+        if (spalten() != null)
+            spalten().setDispo(this, dispo);
+        else
+            this.dispo = dispo;
+    }
+
+    /**
+     * prüft, ob der Kontostand nach Abzug des Betrags den Dispo einhält
+     */
+    private boolean gedeckt(long betrag) {
+        return Geldbetrag.subtrahieren(getKontostandCent(), betrag) >= -getDispoCent();
     }
 
     /**
@@ -54,7 +101,7 @@ public class Girokonto extends Konto implements Ueberweisungsfaehig {
     public void setDispo(double dispo) {
         if (dispo < 0 || Double.isNaN(dispo) || Double.isInfinite(dispo))
             throw new IllegalArgumentException("Der Dispo ist nicht gültig!");
-        this.dispo = dispo;
+        setDispoCent(Geldbetrag.inCent(dispo));
     }
 
     @Override
@@ -66,8 +113,9 @@ public class Girokonto extends Konto implements Ueberweisungsfaehig {
             throw new GesperrtException(this.getKontonummer());
         if (betrag < 0 || Double.isNaN(betrag) || Double.isInfinite(betrag) || empfaenger == null || verwendungszweck == null)
             throw new IllegalArgumentException("Parameter fehlerhaft");
-        if (getKontostand() - betrag >= -dispo) {
-            setKontostand(getKontostand() - betrag);
+        long betragCent = Geldbetrag.inCent(betrag);
+        if (gedeckt(betragCent)) {
+            setKontostandCent(Geldbetrag.subtrahieren(getKontostandCent(), betragCent));
             return true;
         } else
             return false;
@@ -77,26 +125,64 @@ public class Girokonto extends Konto implements Ueberweisungsfaehig {
     public void ueberweisungEmpfangen(double betrag, String vonName, long vonKontonr, long vonBlz, String verwendungszweck) {
         if (betrag < 0 || Double.isNaN(betrag) || Double.isInfinite(betrag) || vonName == null || verwendungszweck == null)
             throw new IllegalArgumentException("Parameter fehlerhaft");
-        setKontostand(getKontostand() + betrag);
+        setKontostandCent(Geldbetrag.addieren(getKontostandCent(), Geldbetrag.inCent(betrag)));
+    }
+
+    @Override
+    public boolean ueberweisungMoeglich(double betrag) {
+        return !this.isGesperrt() && gedeckt(Geldbetrag.inCent(betrag));
+    }
+
+    @Override
+    public void ueberweisungenSaldieren(double belastung, double gutschrift) {
+        if (belastung < 0 || gutschrift < 0 || Double.isNaN(belastung + gutschrift) || Double.isInfinite(belastung + gutschrift))
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        if (belastung != gutschrift)
+            setKontostandCent(Geldbetrag.addieren(
+                    Geldbetrag.subtrahieren(getKontostandCent(), Geldbetrag.inCent(belastung)), Geldbetrag.inCent(gutschrift)));
     }
 
     @Override
     public String toString() {
         return "-- GIROKONTO --" + System.lineSeparator() +
                 super.toString()
-                + "Dispo: " + this.dispo + " " + getAktuelleWaehrung() + System.lineSeparator();
+                + "Dispo: " + getDispo() + " " + getAktuelleWaehrung() + System.lineSeparator();
     }
 
     @Override
     public boolean pruefeAbheben(double betrag) {
-        return getKontostand() - betrag >= -dispo;
+        return gedeckt(Geldbetrag.inCent(betrag));
+    }
+
+    @Override
+    public void waehrungswechsel(Waehrung neu, Wechselkurse kurse) {
+        if (neu == null || kurse == null)
+            throw new IllegalArgumentException("Ungültige Währung oder Wechselkurse");
+        setDispoCent(kurse.umrechnen(getDispoCent(), getAktuelleWaehrung(), neu));
+        super.waehrungswechsel(neu, kurse);
     }
 
     @Override
-    public void waehrungswechsel(Waehrung neu) {
-        double dispoInEUR = getAktuelleWaehrung().waehrungInEuroUmrechnen(getDispo());
-        setDispo(neu.euroInWaehrungUmrechnen(dispoInEUR));
-        super.waehrungswechsel(neu);
+    public Kontozustand zustandSichern() {
+        Kontozustand zustand = super.zustandSichern();
+        return new Kontozustand(Kontoart.GIROKONTO, zustand.nummer(), zustand.kontostand(), zustand.gesperrt(),
+                zustand.waehrung(), getDispo(), 0, null);
+    }
+
+    @Override
+    public Girokonto kopie() {
+        Girokonto kopie = spalten() != null
+                ? new Girokonto(getInhaber(), getKontonummer(), getDispo(), spalten())
+                : new Girokonto(getInhaber(), getKontonummer(), getDispo());
+        kopie.zustandWiederherstellen(zustandSichern());
+        depotKopieren(kopie);
+        return kopie;
+    }
+
+    @Override
+    public void zustandWiederherstellen(Kontozustand zustand) {
+        super.zustandWiederherstellen(zustand);
+        setDispo(zustand.dispo());
     }
 
     @Override
@@ -109,4 +195,16 @@ public class Girokonto extends Konto implements Ueberweisungsfaehig {
         return super.hashCode();
     }
 
+    @Serial
+    private void writeObject(ObjectOutputStream oos) throws IOException {
+        oos.defaultWriteObject();
+        oos.writeDouble(getDispo());
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
+        ois.defaultReadObject();
+        dispo = Geldbetrag.inCent(ois.readDouble());
+    }
+
 }
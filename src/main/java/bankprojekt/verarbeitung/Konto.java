@@ -9,16 +9,38 @@ import javafx.beans.property.SimpleBooleanProperty;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.*;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.*;
 
 /**
  * stellt ein allgemeines Bank-Konto dar
+ * <p>
+ * Ein Konto hält seinen Zustand entweder selbst auf dem Heap oder ist eine leichtgewichtige Sicht
+ * auf eine Zeile in {@link Kontospalten}. Die JavaFX-Properties einer solchen Sicht werden erst angelegt,
+ * wenn sie abgefragt werden.
  */
 public abstract class Konto implements Comparable<Konto>, Serializable {
     @Serial
-    private static final long serialVersionUID = 20240121L;
-    private transient PropertyChangeSupport support = new PropertyChangeSupport(this);
+    private static final long serialVersionUID = 20241101L;
+    /**
+     * Lock für das verzögerte Anlegen der Properties; nicht this, weil Kauf- und Verkaufaufträge
+     * den Monitor des Kontos lange halten können
+     */
+    private static final Object EIGENSCHAFTEN_LOCK = new Object();
+
+    private transient volatile PropertyChangeSupport support;
+
+    /**
+     * die Spalten, in denen der Zustand liegt, oder null, wenn das Konto ihn selbst hält
+     */
+    private final transient Kontospalten spalten;
+
+    /**
+     * die Zeile dieses Kontos in spalten
+     */
+    private final transient int zeile;
+
     /**
      * der Kontoinhaber
      */
@@ -30,39 +52,44 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
     private final long nummer;
 
     /**
-     * der aktuelle Kontostand
+     * der aktuelle Kontostand in Cent, wenn das Konto seinen Zustand selbst hält
      */
-    private transient ReadOnlyDoubleWrapper kontostand;
+    private transient volatile long kontostandCent;
+
+    /**
+     * der aktuelle Kontostand als Property
+     */
+    private transient volatile ReadOnlyDoubleWrapper kontostand;
 
     /**
      * die aktuelle Währung
      */
-    private Waehrung waehrung = Waehrung.EUR;
+    private transient Waehrung waehrung = Waehrung.EUR;
 
     /**
      * Wenn das Konto gesperrt ist (gesperrt = true), können keine Aktionen daran mehr vorgenommen werden,
      * die zum Schaden des Kontoinhabers wären (abheben, Inhaberwechsel)
      */
-    private transient BooleanProperty gesperrt;
+    private transient volatile BooleanProperty gesperrt;
 
     /**
      * Depot is a private ConcurrentHashMap that represents the stock portfolio of an account.
      * The keys in the map are Aktie objects, which represent individual stocks, and the values are
      * integers representing the quantity of each stock in the portfolio.
      */
-    private ConcurrentHashMap<Aktie, Integer> depot = new ConcurrentHashMap<>();
+    private transient volatile ConcurrentHashMap<Aktie, Integer> depot;
 
     /**
-     * An ExecutorService that manages a fixed thread pool of size 10.
+     * An ExecutorService that manages a fixed thread pool of size 10, created with the first order.
      *
      * @see Executors#newFixedThreadPool(int)
      */
-    private transient ExecutorService executorService = Executors.newFixedThreadPool(10);
+    private transient volatile ExecutorService executorService;
 
     /**
      * Represents the read-only property that indicates whether the account balance is positive.
      */
-    private final transient BooleanProperty kontostandPositiv = new SimpleBooleanProperty();
+    private transient volatile BooleanProperty kontostandPositiv;
 
     /**
      * Constructs a new Konto object with the specified owner and account number.
@@ -71,12 +98,56 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @param kontonummer The account number
      */
     Konto(Kunde inhaber, long kontonummer) {
+        this(inhaber, kontonummer, null);
+    }
+
+    /**
+     * Constructs a new Konto object with the specified owner and account number, whose state is held
+     * in a new row of the given columns.
+     *
+     * @param inhaber     The owner of the account
+     * @param kontonummer The account number
+     * @param spalten     the columns holding the state, or null if the account holds its state itself
+     */
+    Konto(Kunde inhaber, long kontonummer, Kontospalten spalten) {
         setInhaber(inhaber);
         this.nummer = kontonummer;
-        this.kontostand = new ReadOnlyDoubleWrapper(0);
-        this.gesperrt = new SimpleBooleanProperty(false);
+        this.spalten = spalten;
+        if (spalten != null) {
+            this.zeile = spalten.zeileAnlegen(this);
+        } else {
+            this.zeile = -1;
+            eigenschaftenAnlegen(0, false);
+        }
+    }
+
+    /**
+     * legt Kontostand, Sperre und die davon abhängigen Properties für ein Konto an, das seinen Zustand selbst hält
+     */
+    private void eigenschaftenAnlegen(long kontostandCent, boolean gesperrt) {
+        this.kontostandCent = kontostandCent;
+        this.kontostandPositiv = new SimpleBooleanProperty();
+        this.kontostand = new ReadOnlyDoubleWrapper(Geldbetrag.alsBetrag(kontostandCent));
+        this.gesperrt = new SimpleBooleanProperty(gesperrt);
+        this.kontostand.addListener((observable, oldValue, newValue) -> kontostandPositiv.set(newValue.doubleValue() >= 0));
+    }
+
+    /**
+     * liefert die Spalten, in denen der Zustand liegt
+     *
+     * @return die Spalten oder null, wenn das Konto seinen Zustand selbst hält
+     */
+    final Kontospalten spalten() {
+        return spalten;
+    }
 
-        kontostand.addListener((observable, oldValue, newValue) -> kontostandPositiv.set(newValue.doubleValue() >= 0));
+    /**
+     * liefert die Zeile des Kontos in {@link #spalten()}
+     *
+     * @return die Zeile
+     */
+    final int zeile() {
+        return zeile;
     }
 
     /**
@@ -104,8 +175,9 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
     public final void setInhaber(Kunde kinh) {
         if (kinh == null)
             throw new IllegalArgumentException("Der Inhaber darf nicht null sein!");
+        Kunde alt = this.inhaber;
         this.inhaber = kinh;
-
+        melden("inhaber", alt, kinh);
     }
 
     /**
@@ -114,19 +186,56 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @return Kontostand
      */
     public final double getKontostand() {
-        return kontostand.getReadOnlyProperty().get();
+        return Geldbetrag.alsBetrag(getKontostandCent());
+    }
+
+    /**
+     * liefert den aktuellen Kontostand in Cent
+     *
+     * @return Kontostand in Cent
+     */
+    public final long getKontostandCent() {
+        return spalten != null ? spalten.kontostand(this) : kontostandCent;
     }
 
     /**
-     * setzt den aktuellen Kontostand.
+     * setzt den aktuellen Kontostand, auf ganze Cent gerundet.
      *
      * @param kontostand neuer Kontostand
+     * @throws IllegalArgumentException wenn kontostand NaN oder unendlich ist
      */
     protected void setKontostand(double kontostand) {
-        double oldKontostand = this.kontostand.get();
-        this.kontostand.set(kontostand);
-        support.firePropertyChange("kontostand", oldKontostand, kontostand);
-        support.firePropertyChange("kontostandPositiv", oldKontostand >= 0, kontostand >= 0);
+        setKontostandCent(Geldbetrag.inCent(kontostand));
+    }
+
+    /**
+     * setzt den aktuellen Kontostand. Wie bei {@link PropertyChangeSupport} werden Ereignisse mit gleichem
+     * altem und neuem Wert nicht gemeldet: "kontostand" nur, wenn sich der Kontostand ändert, und
+     * "kontostandPositiv" nur, wenn sich sein Vorzeichen ändert. Die Prüfung erfolgt hier vorab, damit bei
+     * Massenänderungen wie einer Währungsumstellung keine Ereignisse erzeugt werden, die ohnehin verworfen würden.
+     *
+     * @param kontostandCent neuer Kontostand in Cent
+     */
+    protected final void setKontostandCent(long kontostandCent) {
+        long alt = getKontostandCent();
+        if (alt == kontostandCent) {
+            return;
+        }
+        if (spalten != null) {
+            spalten.setKontostand(this, kontostandCent);
+        } else {
+            this.kontostandCent = kontostandCent;
+        }
+        ReadOnlyDoubleWrapper property = this.kontostand;
+        if (property != null) {
+            property.set(Geldbetrag.alsBetrag(kontostandCent));
+        }
+        if (support != null) {
+            melden("kontostand", Geldbetrag.alsBetrag(alt), Geldbetrag.alsBetrag(kontostandCent));
+            if (alt >= 0 != kontostandCent >= 0) {
+                melden("kontostandPositiv", alt >= 0, kontostandCent >= 0);
+            }
+        }
     }
 
     /**
@@ -135,7 +244,17 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @return the read-only property of the current account balance
      */
     public ReadOnlyDoubleProperty kontostandProperty() {
-        return kontostand.getReadOnlyProperty();
+        ReadOnlyDoubleWrapper property = kontostand;
+        if (property == null) {
+            synchronized (EIGENSCHAFTEN_LOCK) {
+                property = kontostand;
+                if (property == null) {
+                    property = new ReadOnlyDoubleWrapper(getKontostand());
+                    kontostand = property;
+                }
+            }
+        }
+        return property.getReadOnlyProperty();
     }
 
     /**
@@ -144,7 +263,8 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @return true if the account balance is positive, false otherwise
      */
     public boolean isKontostandPositiv() {
-        return kontostandPositiv.get();
+        BooleanProperty property = kontostandPositiv;
+        return property != null ? property.get() : getKontostand() >= 0;
     }
 
     /**
@@ -153,7 +273,20 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @return the BooleanProperty that represents whether the account balance is positive
      */
     public BooleanProperty isKontostandPositivProperty() {
-        return kontostandPositiv;
+        BooleanProperty property = kontostandPositiv;
+        if (property == null) {
+            ReadOnlyDoubleProperty stand = kontostandProperty();
+            synchronized (EIGENSCHAFTEN_LOCK) {
+                property = kontostandPositiv;
+                if (property == null) {
+                    BooleanProperty positiv = new SimpleBooleanProperty(getKontostand() >= 0);
+                    stand.addListener((observable, oldValue, newValue) -> positiv.set(newValue.doubleValue() >= 0));
+                    property = positiv;
+                    kontostandPositiv = property;
+                }
+            }
+        }
+        return property;
     }
 
     /**
@@ -171,7 +304,7 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @return true, wenn das Konto gesperrt ist
      */
     public final boolean isGesperrt() {
-        return gesperrt.get();
+        return spalten != null ? spalten.gesperrt(this) : gesperrt.get();
     }
 
     /**
@@ -180,7 +313,31 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @return the BooleanProperty that represents whether the account is locked or not
      */
     public BooleanProperty gesperrtProperty() {
-        return gesperrt;
+        BooleanProperty property = gesperrt;
+        if (property == null) {
+            synchronized (EIGENSCHAFTEN_LOCK) {
+                property = gesperrt;
+                if (property == null) {
+                    property = new SimpleBooleanProperty(isGesperrt());
+                    property.addListener((observable, oldValue, newValue) -> spalten.setGesperrt(this, newValue));
+                    gesperrt = property;
+                }
+            }
+        }
+        return property;
+    }
+
+    /**
+     * setzt die Sperre in den Spalten und in der Property, soweit vorhanden
+     */
+    private void gesperrtSetzen(boolean wert) {
+        if (spalten != null) {
+            spalten.setGesperrt(this, wert);
+        }
+        BooleanProperty property = gesperrt;
+        if (property != null) {
+            property.set(wert);
+        }
     }
 
     /**
@@ -193,7 +350,7 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
         if (betrag < 0 || !Doubles.isFinite(betrag)) {
             throw new IllegalArgumentException("Ungültiger Betrag");
         }
-        setKontostand(getKontostand() + betrag);
+        setKontostandCent(Geldbetrag.addieren(getKontostandCent(), Geldbetrag.inCent(betrag)));
     }
 
     @Override
@@ -217,13 +374,18 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      */
     public final boolean abheben(double betrag)
             throws GesperrtException {
+        return abheben(betrag, Wechselkurse.aktuell());
+    }
+
+    private boolean abheben(double betrag, Wechselkurse kurse)
+            throws GesperrtException {
         if (betrag < 0 || Double.isNaN(betrag) || Double.isInfinite(betrag)) {
             throw new IllegalArgumentException("Betrag ungültig");
         }
         if (this.isGesperrt())
             throw new GesperrtException(this.getKontonummer());
-        if (pruefeAbheben(betrag)) {
-            setKontostand(getKontostand() - betrag);
+        if (pruefeAbheben(betrag, kurse)) {
+            setKontostandCent(Geldbetrag.subtrahieren(getKontostandCent(), Geldbetrag.inCent(betrag)));
             kontoAenderung(betrag);
             return true;
         } else
@@ -240,6 +402,18 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      */
     protected abstract boolean pruefeAbheben(double betrag);
 
+    /**
+     * Checks if a withdrawal of the specified amount is allowed, converting limits given in another currency
+     * with the given exchange rates. Account types without such limits do not need to override this method.
+     *
+     * @param betrag The amount to withdraw
+     * @param kurse  the exchange rates for the conversion
+     * @return true if the withdrawal is allowed, false otherwise
+     */
+    protected boolean pruefeAbheben(double betrag, Wechselkurse kurse) {
+        return pruefeAbheben(betrag);
+    }
+
     /**
      * Makes additional changes to the account based on the given amount. It is optional to implement this method.
      * <p>
@@ -256,16 +430,16 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * sperrt das Konto, Aktionen zum Schaden des Benutzers sind nicht mehr möglich.
      */
     public final void sperren() {
-        gesperrt.set(true);
-        support.firePropertyChange("gesperrt", false, true);
+        gesperrtSetzen(true);
+        melden("gesperrt", false, true);
     }
 
     /**
      * entsperrt das Konto, alle Kontoaktionen sind wieder möglich.
      */
     public final void entsperren() {
-        gesperrt.set(false);
-        support.firePropertyChange("entsperren", true, false);
+        gesperrtSetzen(false);
+        melden("entsperren", true, false);
     }
 
     /**
@@ -274,7 +448,7 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @return "GESPERRT", wenn das Konto gesperrt ist, ansonsten ""
      */
     public final String getGesperrtText() {
-        if (this.gesperrt.get()) {
+        if (this.isGesperrt()) {
             return "GESPERRT";
         } else {
             return "";
@@ -296,7 +470,7 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @return formatierter Kontostand mit 2 Nachkommastellen und Währungssymbol
      */
     public String getKontostandFormatiert() {
-        return String.format("%10.2f %s", this.getKontostand(), waehrung);
+        return String.format("%10.2f %s", this.getKontostand(), getAktuelleWaehrung());
     }
 
     /**
@@ -335,10 +509,10 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @throws IllegalArgumentException wenn der Betrag negativ oder kein endlicher Wert ist
      */
     public final void einzahlen(double betrag, Waehrung waehrung) {
-        double betragInEUR = waehrung.waehrungInEuroUmrechnen(betrag);
-        double betragInKontoWaehrung = getAktuelleWaehrung().euroInWaehrungUmrechnen(betragInEUR);
-
-        einzahlen(betragInKontoWaehrung);
+        if (betrag < 0 || !Doubles.isFinite(betrag)) {
+            throw new IllegalArgumentException("Ungültiger Betrag");
+        }
+        einzahlen(Geldbetrag.alsBetrag(waehrung.umrechnen(Geldbetrag.inCent(betrag), getAktuelleWaehrung())));
     }
 
     /**
@@ -351,10 +525,28 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @throws IllegalArgumentException wenn der Betrag negativ oder unendlich oder NaN ist
      */
     public boolean abheben(double betrag, Waehrung waehrung) throws GesperrtException {
-        double betragInEUR = waehrung.waehrungInEuroUmrechnen(betrag);
-        double betragInKontoWaehrung = getAktuelleWaehrung().euroInWaehrungUmrechnen(betragInEUR);
+        return abheben(betrag, waehrung, Wechselkurse.aktuell());
+    }
 
-        return abheben(betragInKontoWaehrung);
+    /**
+     * Diese Methode wird verwendet, um einen bestimmten Betrag in einer bestimmten Währung vom Konto abzuheben.
+     * Der Betrag und die Grenzen des Kontos werden mit denselben Wechselkursen umgerechnet.
+     *
+     * @param betrag   der abzuhebende Betrag
+     * @param waehrung die Währung, in der der Betrag angegeben ist
+     * @param kurse    die Wechselkurse für die Umrechnung
+     * @return true, wenn die Rücknahme erfolgreich war, sonst false
+     * @throws GesperrtException        wenn das Konto gesperrt ist
+     * @throws IllegalArgumentException wenn der Betrag negativ oder unendlich oder NaN ist oder kurse null ist
+     */
+    public boolean abheben(double betrag, Waehrung waehrung, Wechselkurse kurse) throws GesperrtException {
+        if (betrag < 0 || Double.isNaN(betrag) || Double.isInfinite(betrag)) {
+            throw new IllegalArgumentException("Betrag ungültig");
+        }
+        if (kurse == null) {
+            throw new IllegalArgumentException("Ungültige Wechselkurse");
+        }
+        return abheben(Geldbetrag.alsBetrag(kurse.umrechnen(Geldbetrag.inCent(betrag), waehrung, getAktuelleWaehrung())), kurse);
     }
 
     /**
@@ -363,21 +555,161 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @return die aktuelle Währung des Kontos
      */
     public Waehrung getAktuelleWaehrung() {
-        return waehrung;
+        return spalten != null ? spalten.waehrung(this) : waehrung;
+    }
+
+    private void waehrungSetzen(Waehrung neu) {
+        if (spalten != null) {
+            spalten.setWaehrung(this, neu);
+        } else {
+            this.waehrung = neu;
+        }
     }
 
     /**
-     * Ändert die mit dem Konto verbundene Währung.
+     * Ändert die mit dem Konto verbundene Währung zu den aktuellen Wechselkursen.
      *
      * @param neu die neue Währung, die mit dem Konto verknüpft werden soll
      */
     public void waehrungswechsel(Waehrung neu) {
-        Waehrung alt = this.waehrung;
-        double kontostandInEUR = getAktuelleWaehrung().waehrungInEuroUmrechnen(getKontostand());
-        setKontostand(neu.euroInWaehrungUmrechnen(kontostandInEUR));
+        waehrungswechsel(neu, Wechselkurse.aktuell());
+    }
+
+    /**
+     * Ändert die mit dem Konto verbundene Währung. Alle Beträge des Kontos werden mit denselben
+     * Wechselkursen umgerechnet.
+     *
+     * @param neu   die neue Währung, die mit dem Konto verknüpft werden soll
+     * @param kurse die Wechselkurse für die Umrechnung
+     * @throws IllegalArgumentException wenn neu oder kurse null ist
+     */
+    public void waehrungswechsel(Waehrung neu, Wechselkurse kurse) {
+        if (neu == null || kurse == null)
+            throw new IllegalArgumentException("Ungültige Währung oder Wechselkurse");
+        Waehrung alt = getAktuelleWaehrung();
+        if (alt == neu)
+            return;
+        setKontostandCent(kurse.umrechnen(getKontostandCent(), alt, neu));
+
+        waehrungSetzen(neu);
+        melden("waehrung", alt, neu);
+    }
+
+    /**
+     * liefert eine Momentaufnahme des Kontozustands
+     *
+     * @return Kontostand, Sperre und Währung von this
+     */
+    public Kontozustand zustandSichern() {
+        return new Kontozustand(null, nummer, getKontostand(), isGesperrt(), getAktuelleWaehrung(), 0, 0, null);
+    }
+
+    /**
+     * setzt Kontostand, Sperre und Währung auf die Werte der Momentaufnahme
+     *
+     * @param zustand eine Momentaufnahme dieses Kontos
+     * @throws IllegalArgumentException wenn zustand null ist oder zu einem anderen Konto gehört
+     */
+    public void zustandWiederherstellen(Kontozustand zustand) {
+        if (zustand == null || zustand.nummer() != nummer || zustand.waehrung() == null)
+            throw new IllegalArgumentException("Ungültiger Kontozustand");
+        Waehrung alt = getAktuelleWaehrung();
+        waehrungSetzen(zustand.waehrung());
+        if (alt != zustand.waehrung())
+            melden("waehrung", alt, zustand.waehrung());
+        setKontostand(zustand.kontostand());
+        if (zustand.gesperrt() && !isGesperrt())
+            sperren();
+        else if (!zustand.gesperrt() && isGesperrt())
+            entsperren();
+    }
+
+    /**
+     * liefert eine unabhängige Kopie dieses Kontos mit demselben Inhaber.
+     * Angemeldete Listener werden nicht übernommen.
+     *
+     * @return die Kopie
+     */
+    public Konto kopie() {
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+             ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(this);
+            oos.flush();
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+                return (Konto) ois.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Das Konto " + nummer + " konnte nicht kopiert werden", e);
+        }
+    }
+
+    /**
+     * liefert den Depotbestand des Kontos
+     *
+     * @return nicht veränderbare Sicht auf die Aktien im Depot und ihre Stückzahl
+     */
+    public Map<Aktie, Integer> getDepot() {
+        Map<Aktie, Integer> aktuell = depot;
+        return aktuell == null ? Collections.emptyMap() : Collections.unmodifiableMap(aktuell);
+    }
+
+    /**
+     * bucht Aktien in das Depot ein, z.B. beim Laden eines Archivs
+     *
+     * @param aktie  die Aktie
+     * @param anzahl die Stückzahl
+     * @throws IllegalArgumentException wenn aktie null oder anzahl nicht positiv ist
+     */
+    public void depotEinbuchen(Aktie aktie, int anzahl) {
+        if (aktie == null || anzahl <= 0)
+            throw new IllegalArgumentException("Ungültige Depotbuchung");
+        depot().merge(aktie, anzahl, Integer::sum);
+    }
+
+    /**
+     * übernimmt den Depotbestand von this in die Kopie
+     *
+     * @param kopie eine Kopie dieses Kontos
+     */
+    protected final void depotKopieren(Konto kopie) {
+        Map<Aktie, Integer> aktuell = depot;
+        if (aktuell != null) {
+            kopie.depot = new ConcurrentHashMap<>(aktuell);
+        }
+    }
+
+    /**
+     * liefert das Depot und legt es beim ersten Zugriff an
+     */
+    private ConcurrentHashMap<Aktie, Integer> depot() {
+        ConcurrentHashMap<Aktie, Integer> aktuell = depot;
+        if (aktuell == null) {
+            synchronized (EIGENSCHAFTEN_LOCK) {
+                aktuell = depot;
+                if (aktuell == null) {
+                    aktuell = new ConcurrentHashMap<>();
+                    depot = aktuell;
+                }
+            }
+        }
+        return aktuell;
+    }
 
-        this.waehrung = neu;
-        support.firePropertyChange("waehrung", alt, neu);
+    /**
+     * liefert den Executor für Kauf- und Verkaufaufträge und erzeugt ihn beim ersten Auftrag
+     */
+    private ExecutorService executor() {
+        ExecutorService executor = executorService;
+        if (executor == null) {
+            synchronized (this) {
+                executor = executorService;
+                if (executor == null) {
+                    executor = Executors.newFixedThreadPool(10);
+                    executorService = executor;
+                }
+            }
+        }
+        return executor;
     }
 
     /**
@@ -389,23 +721,23 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @return a Future representing the cost of the buy order, or 0 if the account balance is insufficient
      */
     public Future<Double> kaufauftrag(Aktie aktie, int anzahl, double maxPreis) {
-        return executorService.submit(() -> {
-            double kosten;
+        return executor().submit(() -> {
+            long kosten;
             synchronized (this) {
                 double kurs = aktie.getKurs();
                 while (kurs > maxPreis) {
                     aktie.awaitKursChange();
                     kurs = aktie.getKurs();
                 }
-                kosten = kurs * anzahl;
-                if (kontostand.get() >= kosten) {
-                    setKontostand(kontostand.get() - kosten);
-                    depot.put(aktie, depot.getOrDefault(aktie, 0) + anzahl);
+                kosten = Geldbetrag.inCent(kurs * anzahl);
+                if (getKontostandCent() >= kosten) {
+                    setKontostandCent(Geldbetrag.subtrahieren(getKontostandCent(), kosten));
+                    depot().merge(aktie, anzahl, Integer::sum);
                 } else {
                     kosten = 0;
                 }
             }
-            return kosten;
+            return Geldbetrag.alsBetrag(kosten);
         });
     }
 
@@ -417,10 +749,10 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
      * @return A future representing the total profit from the selling order.
      */
     public Future<Double> verkaufauftrag(String wertpapierNr, double minimalpreis) {
-        return executorService.submit(() -> {
-            double gesamtErtrag = 0;
+        return executor().submit(() -> {
+            long gesamtErtrag = 0;
             synchronized (this) {
-                for (Map.Entry<Aktie, Integer> entry : depot.entrySet()) {
+                for (Map.Entry<Aktie, Integer> entry : depot().entrySet()) {
                     Aktie aktie = entry.getKey();
                     Integer anzahl = entry.getValue();
 
@@ -431,45 +763,79 @@ public abstract class Konto implements Comparable<Konto>, Serializable {
                             aktie.awaitKursChange();
                             aktienKurs = aktie.getKurs();
                         }
-                        double ertrag = aktienKurs * anzahl;
-                        setKontostand(kontostand.get() + ertrag);
-                        depot.remove(aktie);
-                        gesamtErtrag += ertrag;
+                        long ertrag = Geldbetrag.inCent(aktienKurs * anzahl);
+                        setKontostandCent(Geldbetrag.addieren(getKontostandCent(), ertrag));
+                        depot().remove(aktie);
+                        gesamtErtrag = Geldbetrag.addieren(gesamtErtrag, ertrag);
                     }
                 }
             }
-            return gesamtErtrag;
+            return Geldbetrag.alsBetrag(gesamtErtrag);
         });
     }
 
     public void anmelden(PropertyChangeListener listener) {
-        support.addPropertyChangeListener(listener);
+        PropertyChangeSupport aktuell = support;
+        if (aktuell == null) {
+            synchronized (EIGENSCHAFTEN_LOCK) {
+                aktuell = support;
+                if (aktuell == null) {
+                    aktuell = new PropertyChangeSupport(this);
+                    support = aktuell;
+                }
+            }
+        }
+        aktuell.addPropertyChangeListener(listener);
     }
 
     public void abmelden(PropertyChangeListener listener) {
-        support.removePropertyChangeListener(listener);
+        PropertyChangeSupport aktuell = support;
+        if (aktuell != null) {
+            aktuell.removePropertyChangeListener(listener);
+        }
+    }
+
+    /**
+     * benachrichtigt die angemeldeten Listener, falls es welche gibt
+     */
+    private void melden(String eigenschaft, Object alt, Object neu) {
+        PropertyChangeSupport aktuell = support;
+        if (aktuell != null) {
+            aktuell.firePropertyChange(eigenschaft, alt, neu);
+        }
     }
 
     @Serial
     private void writeObject(ObjectOutputStream oos) throws IOException {
         oos.defaultWriteObject();
-        oos.writeObject(kontostand.get());
-        oos.writeObject(gesperrt.get());
-        oos.writeObject(depot);
+        oos.writeDouble(getKontostand());
+        oos.writeBoolean(isGesperrt());
+        oos.writeObject(getAktuelleWaehrung());
+        Map<Aktie, Integer> bestand = getDepot();
+        oos.writeInt(bestand.size());
+        for (Map.Entry<Aktie, Integer> eintrag : bestand.entrySet()) {
+            oos.writeObject(eintrag.getKey());
+            oos.writeInt(eintrag.getValue());
+        }
     }
 
     @Serial
     private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
         ois.defaultReadObject();
-        kontostand = new ReadOnlyDoubleWrapper((double) ois.readObject());
-        gesperrt = new SimpleBooleanProperty((boolean) ois.readObject());
-        Object obj = ois.readObject();
-        if (obj instanceof ConcurrentHashMap) {
-            depot = (ConcurrentHashMap<Aktie, Integer>) obj;
-        } else {
-            throw new InvalidObjectException("Expected ConcurrentHashMap for 'depot', got " + obj.getClass().getName());
+        eigenschaftenAnlegen(Geldbetrag.inCent(ois.readDouble()), ois.readBoolean());
+        if (!(ois.readObject() instanceof Waehrung gelesen)) {
+            throw new InvalidObjectException("Währung erwartet");
+        }
+        waehrung = gelesen;
+        int anzahl = ois.readInt();
+        if (anzahl < 0) {
+            throw new InvalidObjectException("Ungültige Depotgröße " + anzahl);
+        }
+        for (int i = 0; i < anzahl; i++) {
+            if (!(ois.readObject() instanceof Aktie aktie)) {
+                throw new InvalidObjectException("Aktie im Depot erwartet");
+            }
+            depot().put(aktie, ois.readInt());
         }
-        support = new PropertyChangeSupport(this);
-        executorService = Executors.newFixedThreadPool(10);
     }
 }
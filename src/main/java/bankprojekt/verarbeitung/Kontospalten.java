@@ -0,0 +1,254 @@
+package bankprojekt.verarbeitung;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Speichert die Zustände vieler Konten spaltenweise außerhalb des Java-Heaps.
+ * <p>
+ * Jedes Konto, das mit einem Kontospalten-Objekt erzeugt wird, belegt eine Zeile und hält selbst nur
+ * Inhaber, Kontonummer und seine Zeilennummer. Kontostand, Dispo, Sperre, Währung und die Abhebungen
+ * eines Sparbuchs liegen in Abschnitten von je {@value #ZEILEN} Zeilen, die als direkte Puffer angelegt werden;
+ * Beträge werden als long in Cent gespeichert.
+ * Innerhalb eines Abschnitts liegt jede Spalte zusammenhängend, so dass Auswertungen über viele Konten
+ * den Speicher sequentiell lesen. Der Garbage Collector muss diese Daten weder kopieren noch durchsuchen.
+ * <p>
+ * Eine Zeile wird erst frei, wenn ihr Konto nicht mehr erreichbar ist, denn ein gelöschtes oder durch
+ * {@link Konto#kopie()} ersetztes Konto kann noch von einem Schnappschuss der Bank verwendet werden.
+ * Freie Zeilen werden für neue Konten wiederverwendet; die Abschnitte selbst bleiben angelegt.
+ * Der Kontostand wird mit Speicherbarrieren gelesen und geschrieben, damit Auswertungen ohne Sperre
+ * stets einen vollständig geschriebenen Wert sehen. Im Übrigen ist das Lesen und Schreiben einer Zeile nicht
+ * synchronisiert; Änderungen eines Kontos müssen wie bei Konten auf dem Heap von außen serialisiert werden.
+ */
+public final class Kontospalten {
+    private static final int ZEILEN_BITS = 14;
+    private static final int ZEILEN = 1 << ZEILEN_BITS;
+    private static final int MASKE = ZEILEN - 1;
+
+    private static final int KONTOSTAND = 0;
+    private static final int DISPO = 8 * ZEILEN;
+    private static final int BEREITS_ABGEHOBEN = 16 * ZEILEN;
+    private static final int ZEITPUNKT = 24 * ZEILEN;
+    private static final int GESPERRT = 32 * ZEILEN;
+    private static final int WAEHRUNG = 33 * ZEILEN;
+    private static final int ABSCHNITTSGROESSE = 34 * ZEILEN;
+
+    private static final Waehrung[] WAEHRUNGEN = Waehrung.values();
+
+    /**
+     * Zugriff auf die long-Spalten; der Kontostand wird ohne Sperre von Auswertungen gelesen und deshalb
+     * mit getVolatile gelesen und mit setRelease geschrieben
+     */
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /**
+     * gibt die Zeile eines Kontos frei, sobald das Konto nicht mehr erreichbar ist
+     */
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private volatile ByteBuffer[] abschnitte = new ByteBuffer[0];
+    private final AtomicInteger naechsteZeile = new AtomicInteger();
+    private final AtomicInteger anzahl = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Integer> freieZeilen = new ConcurrentLinkedQueue<>();
+
+    /**
+     * legt einen leeren Spaltenspeicher an
+     */
+    public Kontospalten() {
+    }
+
+    /**
+     * belegt eine Zeile mit Kontostand 0, nicht gesperrt, in EUR. Eine frei gewordene Zeile wird wiederverwendet,
+     * sonst wird eine neue angelegt. Die Zeile wird wieder frei, sobald das Konto nicht mehr erreichbar ist.
+     *
+     * @param konto das Konto, dem die Zeile gehört
+     * @return die Nummer der Zeile
+     * @throws IllegalStateException wenn keine Zeile mehr frei ist
+     */
+    int zeileAnlegen(Konto konto) {
+        Integer frei = freieZeilen.poll();
+        int zeile;
+        if (frei != null) {
+            zeile = frei;
+            zeileLeeren(zeile);
+        } else {
+            zeile = naechsteZeile.getAndIncrement();
+            if (zeile < 0) {
+                throw new IllegalStateException("Der Spaltenspeicher ist voll");
+            }
+            abschnittAnlegen(zeile >>> ZEILEN_BITS);
+        }
+        setWaehrung(zeile, Waehrung.EUR);
+        anzahl.incrementAndGet();
+        CLEANER.register(konto, new Freigabe(this, zeile));
+        return zeile;
+    }
+
+    private void abschnittAnlegen(int abschnitt) {
+        if (abschnitt >= abschnitte.length) {
+            synchronized (this) {
+                ByteBuffer[] alt = abschnitte;
+                if (abschnitt >= alt.length) {
+                    ByteBuffer[] neu = new ByteBuffer[Math.max(abschnitt + 1, 2 * alt.length)];
+                    System.arraycopy(alt, 0, neu, 0, alt.length);
+                    for (int i = alt.length; i < neu.length; i++) {
+                        // auf 8 Bytes ausgerichtet, sonst unterstützt LONGS kein getVolatile/setRelease
+                        neu[i] = ByteBuffer.allocateDirect(ABSCHNITTSGROESSE + 7).alignedSlice(8).order(ByteOrder.nativeOrder());
+                    }
+                    abschnitte = neu;
+                }
+            }
+        }
+    }
+
+    private void zeileLeeren(int zeile) {
+        ByteBuffer abschnitt = abschnitt(zeile);
+        int versatz = (zeile & MASKE) << 3;
+        LONGS.setRelease(abschnitt, KONTOSTAND + versatz, 0L);
+        abschnitt.putLong(DISPO + versatz, 0);
+        abschnitt.putLong(BEREITS_ABGEHOBEN + versatz, 0);
+        abschnitt.putLong(ZEITPUNKT + versatz, 0);
+        abschnitt.put(GESPERRT + (zeile & MASKE), (byte) 0);
+    }
+
+    /**
+     * nimmt die Zeile eines nicht mehr erreichbaren Kontos in die Liste der freien Zeilen auf
+     */
+    private record Freigabe(Kontospalten spalten, int zeile) implements Runnable {
+        @Override
+        public void run() {
+            spalten.anzahl.decrementAndGet();
+            spalten.freieZeilen.add(zeile);
+        }
+    }
+
+    private ByteBuffer abschnitt(int zeile) {
+        return abschnitte[zeile >>> ZEILEN_BITS];
+    }
+
+    // Jeder Zugriff hält das Konto bis zu seinem Ende erreichbar, sonst könnte seine Zeile während
+    // des Zugriffs freigegeben und von einem neuen Konto belegt werden.
+
+    long kontostand(Konto konto) {
+        try {
+            int zeile = konto.zeile();
+            return (long) LONGS.getVolatile(abschnitt(zeile), KONTOSTAND + ((zeile & MASKE) << 3));
+        } finally {
+            Reference.reachabilityFence(konto);
+        }
+    }
+
+    void setKontostand(Konto konto, long kontostand) {
+        try {
+            int zeile = konto.zeile();
+            LONGS.setRelease(abschnitt(zeile), KONTOSTAND + ((zeile & MASKE) << 3), kontostand);
+        } finally {
+            Reference.reachabilityFence(konto);
+        }
+    }
+
+    long dispo(Konto konto) {
+        return getLong(konto, DISPO);
+    }
+
+    void setDispo(Konto konto, long dispo) {
+        putLong(konto, DISPO, dispo);
+    }
+
+    long bereitsAbgehoben(Konto konto) {
+        return getLong(konto, BEREITS_ABGEHOBEN);
+    }
+
+    void setBereitsAbgehoben(Konto konto, long betrag) {
+        putLong(konto, BEREITS_ABGEHOBEN, betrag);
+    }
+
+    long zeitpunkt(Konto konto) {
+        return getLong(konto, ZEITPUNKT);
+    }
+
+    void setZeitpunkt(Konto konto, long epochentag) {
+        putLong(konto, ZEITPUNKT, epochentag);
+    }
+
+    boolean gesperrt(Konto konto) {
+        try {
+            int zeile = konto.zeile();
+            return abschnitt(zeile).get(GESPERRT + (zeile & MASKE)) != 0;
+        } finally {
+            Reference.reachabilityFence(konto);
+        }
+    }
+
+    void setGesperrt(Konto konto, boolean gesperrt) {
+        try {
+            int zeile = konto.zeile();
+            abschnitt(zeile).put(GESPERRT + (zeile & MASKE), (byte) (gesperrt ? 1 : 0));
+        } finally {
+            Reference.reachabilityFence(konto);
+        }
+    }
+
+    Waehrung waehrung(Konto konto) {
+        try {
+            int zeile = konto.zeile();
+            return WAEHRUNGEN[abschnitt(zeile).get(WAEHRUNG + (zeile & MASKE))];
+        } finally {
+            Reference.reachabilityFence(konto);
+        }
+    }
+
+    void setWaehrung(Konto konto, Waehrung waehrung) {
+        try {
+            setWaehrung(konto.zeile(), waehrung);
+        } finally {
+            Reference.reachabilityFence(konto);
+        }
+    }
+
+    private void setWaehrung(int zeile, Waehrung waehrung) {
+        abschnitt(zeile).put(WAEHRUNG + (zeile & MASKE), (byte) waehrung.ordinal());
+    }
+
+    private long getLong(Konto konto, int spalte) {
+        try {
+            int zeile = konto.zeile();
+            return abschnitt(zeile).getLong(spalte + ((zeile & MASKE) << 3));
+        } finally {
+            Reference.reachabilityFence(konto);
+        }
+    }
+
+    private void putLong(Konto konto, int spalte, long wert) {
+        try {
+            int zeile = konto.zeile();
+            abschnitt(zeile).putLong(spalte + ((zeile & MASKE) << 3), wert);
+        } finally {
+            Reference.reachabilityFence(konto);
+        }
+    }
+
+    /**
+     * liefert die Anzahl der belegten Zeilen
+     *
+     * @return Anzahl der Zeilen
+     */
+    public int getAnzahl() {
+        return anzahl.get();
+    }
+
+    /**
+     * liefert die Größe des außerhalb des Heaps angelegten Speichers
+     *
+     * @return Speicher in Bytes
+     */
+    public long getBelegterSpeicher() {
+        return (long) abschnitte.length * ABSCHNITTSGROESSE;
+    }
+}
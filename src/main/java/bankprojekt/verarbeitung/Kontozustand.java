@@ -0,0 +1,21 @@
+package bankprojekt.verarbeitung;
+
+import java.time.LocalDate;
+
+/**
+ * Momentaufnahme des veränderlichen Zustands eines Kontos, aus der das Konto
+ * mit {@link Konto#zustandWiederherstellen(Kontozustand)} wiederhergestellt werden kann.
+ * Felder, die es bei einer Kontoart nicht gibt, sind 0 bzw. null.
+ *
+ * @param art              die Kontoart, null wenn das Konto keine der angebotenen Kontoarten ist
+ * @param nummer           die Kontonummer
+ * @param kontostand       der Kontostand
+ * @param gesperrt         true, wenn das Konto gesperrt ist
+ * @param waehrung         die aktuelle Währung
+ * @param dispo            der Dispo eines Girokontos
+ * @param bereitsAbgehoben der im aktuellen Monat bereits abgehobene Betrag eines Sparbuchs
+ * @param zeitpunkt        der Zeitpunkt der letzten Abhebung von einem Sparbuch
+ */
+public record Kontozustand(Kontoart art, long nummer, double kontostand, boolean gesperrt, Waehrung waehrung,
+                           double dispo, double bereitsAbgehoben, LocalDate zeitpunkt) {
+}
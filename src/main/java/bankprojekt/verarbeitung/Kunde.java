@@ -3,6 +3,8 @@ package bankprojekt.verarbeitung;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
 import java.io.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -33,6 +35,11 @@ public class Kunde implements Comparable<Kunde>, Serializable {
      */
     private static final String ANREDE;   //von der Idee her final, wegen der Verwendung des static-Blocks leider nicht möglich.
 
+    /**
+     * schützt das verzögerte Anlegen der Beobachterliste
+     */
+    private static final Object BEOBACHTER_LOCK = new Object();
+
     /**
      * liefert die systemspezifische Anrede
      *
@@ -58,6 +65,10 @@ public class Kunde implements Comparable<Kunde>, Serializable {
      * Geburtstag
      */
     private final LocalDate geburtstag;
+    /**
+     * die angemeldeten Beobachter, null solange sich niemand angemeldet hat
+     */
+    private transient volatile PropertyChangeSupport support;
 
     /**
      * erzeugt den Standardkunden Max Mustermann
@@ -173,7 +184,9 @@ public class Kunde implements Comparable<Kunde>, Serializable {
     public void setNachname(String nachname) {
         if (nachname == null)
             throw new IllegalArgumentException("Nachname darf nicht null sein");
+        String alt = this.nachname;
         this.nachname = nachname;
+        melden("nachname", alt, nachname);
     }
 
     /**
@@ -194,7 +207,9 @@ public class Kunde implements Comparable<Kunde>, Serializable {
     public void setVorname(String vorname) {
         if (vorname == null)
             throw new IllegalArgumentException("Vorname darf nicht null sein");
+        String alt = this.vorname;
         this.vorname = vorname;
+        melden("vorname", alt, vorname);
     }
 
     /**
@@ -206,6 +221,49 @@ public class Kunde implements Comparable<Kunde>, Serializable {
         return geburtstag;
     }
 
+    /**
+     * meldet einen Beobachter an, der bei jeder Änderung von Vorname, Nachname oder Adresse benachrichtigt wird.
+     * Die Adresse wird auch gemeldet, wenn sie über {@link #adresseProperty()} geändert wird.
+     *
+     * @param listener der Beobachter
+     */
+    public void anmelden(PropertyChangeListener listener) {
+        PropertyChangeSupport aktuell = support;
+        if (aktuell == null) {
+            synchronized (BEOBACHTER_LOCK) {
+                aktuell = support;
+                if (aktuell == null) {
+                    aktuell = new PropertyChangeSupport(this);
+                    adresse.addListener((eigenschaft, alt, neu) -> melden("adresse", alt, neu));
+                    support = aktuell;
+                }
+            }
+        }
+        aktuell.addPropertyChangeListener(listener);
+    }
+
+    /**
+     * meldet einen Beobachter ab
+     *
+     * @param listener der Beobachter
+     */
+    public void abmelden(PropertyChangeListener listener) {
+        PropertyChangeSupport aktuell = support;
+        if (aktuell != null) {
+            aktuell.removePropertyChangeListener(listener);
+        }
+    }
+
+    /**
+     * benachrichtigt die angemeldeten Beobachter, falls es welche gibt
+     */
+    private void melden(String eigenschaft, Object alt, Object neu) {
+        PropertyChangeSupport aktuell = support;
+        if (aktuell != null) {
+            aktuell.firePropertyChange(eigenschaft, alt, neu);
+        }
+    }
+
     @Override
     public int compareTo(Kunde arg0) {
         return this.getName().compareTo(arg0.getName());
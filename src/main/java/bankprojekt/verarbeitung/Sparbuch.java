@@ -1,5 +1,9 @@
 package bankprojekt.verarbeitung;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
 import java.time.LocalDate;
 
 /**
@@ -25,10 +29,13 @@ public class Sparbuch extends Konto {
      */
     public static final double MIN_KONTOSTAND = 0.50;
 
+    private static final long ABHEBESUMME_CENT = Geldbetrag.inCent(ABHEBESUMME);
+    private static final long MIN_KONTOSTAND_CENT = Geldbetrag.inCent(MIN_KONTOSTAND);
+
     /**
-     * Betrag, der im aktuellen Monat bereits abgehoben wurde
+     * Betrag in Cent, der im aktuellen Monat bereits abgehoben wurde
      */
-    private double bereitsAbgehoben = 0;
+    private transient long bereitsAbgehoben = 0;
 
     /**
      * Monat und Jahr der letzten Abhebung
@@ -55,13 +62,62 @@ public class Sparbuch extends Konto {
         zinssatz = 0.03;
     }
 
+    /**
+     * ein Standard-Sparbuch, das inhaber gehört, die angegebene Kontonummer hat und dessen Zustand
+     * in einer neuen Zeile der angegebenen Spalten liegt
+     *
+     * @param inhaber     der Kontoinhaber
+     * @param kontonummer die Wunsch-Kontonummer
+     * @param spalten     Spalten für den Zustand des Kontos
+     * @throws IllegalArgumentException wenn inhaber oder spalten null sind
+     */
+    public Sparbuch(Kunde inhaber, long kontonummer, Kontospalten spalten) {
+        super(inhaber, kontonummer, pruefen(spalten));
+        zinssatz = 0.03;
+        zeitpunkt = null;
+        setAbhebungen(0, LocalDate.now());
+    }
+
+    private static Kontospalten pruefen(Kontospalten spalten) {
+        if (spalten == null)
+            throw new IllegalArgumentException("Die Spalten dürfen nicht null sein!");
+        return spalten;
+    }
+
+    /**
+     * liefert Monat und Jahr der letzten Abhebung
+     */
+    private LocalDate getZeitpunkt() {
+        return spalten() != null ? LocalDate.ofEpochDay(spalten().zeitpunkt(this)) : zeitpunkt;
+    }
+
+    /**
+     * setzt den im Monat bereits abgehobenen Betrag und den Zeitpunkt der letzten Abhebung
+     */
+    private void setAbhebungen(long bereitsAbgehoben, LocalDate zeitpunkt) {
+        if (spalten() != null) {
+            spalten().setBereitsAbgehoben(this, bereitsAbgehoben);
+            spalten().setZeitpunkt(this, zeitpunkt.toEpochDay());
+        } else {
+            this.bereitsAbgehoben = bereitsAbgehoben;
+            this.zeitpunkt = zeitpunkt;
+        }
+    }
+
     /**
      * Gibt den Geldbetrag zurück, der bereits von dem Konto abgehoben wurde.
      *
      * @return der Geldbetrag, der bereits abgehoben wurde
      */
     public double getBereitsAbgehoben() {
-        return bereitsAbgehoben;
+        return Geldbetrag.alsBetrag(getBereitsAbgehobenCent());
+    }
+
+    /**
+     * liefert den im Monat bereits abgehobenen Betrag in Cent
+     */
+    private long getBereitsAbgehobenCent() {
+        return spalten() != null ? spalten().bereitsAbgehoben(this) : bereitsAbgehoben;
     }
 
     @Override
@@ -73,36 +129,68 @@ public class Sparbuch extends Konto {
 
     @Override
     protected boolean pruefeAbheben(double betrag) {
+        return pruefeAbheben(betrag, Wechselkurse.aktuell());
+    }
+
+    @Override
+    protected boolean pruefeAbheben(double betrag, Wechselkurse kurse) {
         LocalDate heute = LocalDate.now();
-        double bereits = this.bereitsAbgehoben;
+        long bereits = getBereitsAbgehobenCent();
+        LocalDate zeitpunkt = getZeitpunkt();
         if (heute.getMonth() != zeitpunkt.getMonth() || heute.getYear() != zeitpunkt.getYear()) {
             bereits = 0;
         }
 
-        return getKontostand() - betrag >= this.getAktuelleWaehrung().euroInWaehrungUmrechnen(Sparbuch.MIN_KONTOSTAND) &&
-                bereits + betrag <= this.getAktuelleWaehrung().euroInWaehrungUmrechnen(Sparbuch.ABHEBESUMME);
+        long betragCent = Geldbetrag.inCent(betrag);
+        Waehrung waehrung = this.getAktuelleWaehrung();
+        return Geldbetrag.subtrahieren(getKontostandCent(), betragCent) >= kurse.umrechnen(MIN_KONTOSTAND_CENT, Waehrung.EUR, waehrung) &&
+                Geldbetrag.addieren(bereits, betragCent) <= kurse.umrechnen(ABHEBESUMME_CENT, Waehrung.EUR, waehrung);
     }
 
     @Override
     protected void kontoAenderung(double betrag) {
         LocalDate heute = LocalDate.now();
 
-        this.bereitsAbgehoben += betrag;
-        this.zeitpunkt = heute;
+        setAbhebungen(Geldbetrag.addieren(getBereitsAbgehobenCent(), Geldbetrag.inCent(betrag)), heute);
     }
 
     /**
      * Konvertiert den Kontostand und den bereits abgehobenen Betrag in die neue Währung.
      * Ändert die Kontowährung in die neue Währung.
      *
-     * @param neu Währung, die festgelegt werden soll
+     * @param neu   Währung, die festgelegt werden soll
+     * @param kurse die Wechselkurse für die Umrechnung
      */
     @Override
-    public void waehrungswechsel(Waehrung neu) {
-        double bereitsAbgehobenInEUR = getAktuelleWaehrung().waehrungInEuroUmrechnen(bereitsAbgehoben);
-        bereitsAbgehoben = neu.euroInWaehrungUmrechnen(bereitsAbgehobenInEUR);
+    public void waehrungswechsel(Waehrung neu, Wechselkurse kurse) {
+        if (neu == null || kurse == null)
+            throw new IllegalArgumentException("Ungültige Währung oder Wechselkurse");
+        setAbhebungen(kurse.umrechnen(getBereitsAbgehobenCent(), getAktuelleWaehrung(), neu), getZeitpunkt());
+
+        super.waehrungswechsel(neu, kurse);
+    }
+
+    @Override
+    public Kontozustand zustandSichern() {
+        Kontozustand zustand = super.zustandSichern();
+        return new Kontozustand(Kontoart.SPARBUCH, zustand.nummer(), zustand.kontostand(), zustand.gesperrt(),
+                zustand.waehrung(), 0, getBereitsAbgehoben(), getZeitpunkt());
+    }
+
+    @Override
+    public Sparbuch kopie() {
+        Sparbuch kopie = spalten() != null
+                ? new Sparbuch(getInhaber(), getKontonummer(), spalten())
+                : new Sparbuch(getInhaber(), getKontonummer());
+        kopie.zustandWiederherstellen(zustandSichern());
+        depotKopieren(kopie);
+        return kopie;
+    }
 
-        super.waehrungswechsel(neu);
+    @Override
+    public void zustandWiederherstellen(Kontozustand zustand) {
+        super.zustandWiederherstellen(zustand);
+        setAbhebungen(Geldbetrag.inCent(zustand.bereitsAbgehoben()), zustand.zeitpunkt() == null ? LocalDate.now() : zustand.zeitpunkt());
     }
 
     @Override
@@ -115,4 +203,17 @@ public class Sparbuch extends Konto {
         return super.hashCode();
     }
 
+    @Serial
+    private void writeObject(ObjectOutputStream oos) throws IOException {
+        zeitpunkt = getZeitpunkt();
+        oos.defaultWriteObject();
+        oos.writeDouble(getBereitsAbgehoben());
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
+        ois.defaultReadObject();
+        bereitsAbgehoben = Geldbetrag.inCent(ois.readDouble());
+    }
+
 }
@@ -42,4 +42,23 @@ public interface Ueberweisungsfaehig {
      * 									vonName oder verwendungszweck null ist
      */
     public void ueberweisungEmpfangen(double betrag, String vonName, long vonKontonr, long vonBlz, String verwendungszweck);
+
+    /**
+     * prüft, ob von this Überweisungen in Höhe von insgesamt betrag abgebucht werden dürften,
+     * ohne dass kontospezifische Regeln verletzt werden. Der Kontostand wird nicht verändert.
+     * @param betrag double
+     * @return boolean true, wenn die Abbuchung zulässig wäre,
+     *                 false, wenn this gesperrt ist oder kontospezifische Regeln verletzt würden
+     */
+    public boolean ueberweisungMoeglich(double betrag);
+
+    /**
+     * bucht den Saldo mehrerer Überweisungen in einem Schritt, der Kontostand von this
+     * ändert sich um gutschrift - belastung.
+     * Die Zulässigkeit der Belastung muss vorher mit ueberweisungMoeglich geprüft worden sein.
+     * @param belastung double Summe der ausgehenden Überweisungen
+     * @param gutschrift double Summe der eingehenden Überweisungen
+     * @throws IllegalArgumentException wenn einer der Beträge negativ bzw. NaN bzw. unendlich ist
+     */
+    public void ueberweisungenSaldieren(double belastung, double gutschrift);
 }
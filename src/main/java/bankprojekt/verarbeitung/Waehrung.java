@@ -1,13 +1,13 @@
 package bankprojekt.verarbeitung;
 
-
-import org.decimal4j.util.DoubleRounder;
-
-import java.math.RoundingMode;
-
 /**
  * The Waehrung class represents a currency with its exchange rate to Euros.
  * It provides methods to convert amounts between Euros and the currency defined by the instance of the class.
+ * The exchange rate is kept with 4 decimal places, amounts are converted in cents and truncated to whole cents.
+ * <p>
+ * The rates given here are only the initial ones: all conversions use the current {@link Wechselkurse}, which
+ * precompute the cross rates between all pairs of currencies, so an amount is converted directly from one
+ * currency to another without going through Euros. Arrays of amounts can be converted in one pass.
  */
 public enum Waehrung {
     /**
@@ -27,7 +27,10 @@ public enum Waehrung {
      */
     MKD(61.62);
 
-    private final double euroKurs;
+    /**
+     * the built-in exchange rate in ten-thousandths
+     */
+    private final long euroKurs;
 
     /**
      * Creates a new currency with the specified exchange rate to Euros.
@@ -35,7 +38,17 @@ public enum Waehrung {
      * @param euroKurs the exchange rate of the currency to Euros
      */
     Waehrung(double euroKurs) {
-        this.euroKurs = euroKurs;
+        this.euroKurs = Geldbetrag.kurs(euroKurs);
+    }
+
+    /**
+     * Returns the built-in exchange rate, which is used until other rates are published.
+     *
+     * @return the rate in ten-thousandths
+     * @see Wechselkurse
+     */
+    long standardkurs() {
+        return euroKurs;
     }
 
     /**
@@ -49,8 +62,21 @@ public enum Waehrung {
         if (betrag < 0 || Double.isNaN(betrag) || Double.isInfinite(betrag)) {
             throw new IllegalArgumentException("Betrag ungültig");
         }
+        return Geldbetrag.alsBetrag(euroCentInWaehrungUmrechnen(Geldbetrag.inCent(betrag)));
+    }
 
-        return DoubleRounder.round(betrag * this.euroKurs, 2, RoundingMode.DOWN);
+    /**
+     * Converts the given amount in Euro cents to cents of the currency defined by the instance of the class.
+     *
+     * @param cent the amount in Euro cents
+     * @return the converted amount in cents of the currency, truncated to whole cents
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public long euroCentInWaehrungUmrechnen(long cent) throws IllegalArgumentException {
+        if (cent < 0) {
+            throw new IllegalArgumentException("Betrag ungültig");
+        }
+        return EUR.umrechnen(cent, this);
     }
 
     /**
@@ -64,6 +90,62 @@ public enum Waehrung {
         if (betrag < 0 || Double.isNaN(betrag) || Double.isInfinite(betrag)) {
             throw new IllegalArgumentException("Betrag ungültig");
         }
-        return DoubleRounder.round(betrag / this.euroKurs, 2, RoundingMode.DOWN);
+        return Geldbetrag.alsBetrag(waehrungCentInEuroUmrechnen(Geldbetrag.inCent(betrag)));
+    }
+
+    /**
+     * Converts the given amount in cents of the currency defined by the instance of the class to Euro cents.
+     *
+     * @param cent the amount in cents of the currency
+     * @return the converted amount in Euro cents, truncated to whole cents
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public long waehrungCentInEuroUmrechnen(long cent) throws IllegalArgumentException {
+        if (cent < 0) {
+            throw new IllegalArgumentException("Betrag ungültig");
+        }
+        return umrechnen(cent, EUR);
+    }
+
+    /**
+     * Converts the given amount in cents of the currency defined by the instance of the class directly to cents
+     * of another currency with the current rates.
+     *
+     * @param cent the amount in cents of this currency, may be negative
+     * @param nach the target currency
+     * @return the converted amount in cents of the target currency, truncated towards zero
+     * @throws ArithmeticException if the converted amount does not fit into a long
+     */
+    public long umrechnen(long cent, Waehrung nach) {
+        return Wechselkurse.aktuell().umrechnen(cent, this, nach);
+    }
+
+    /**
+     * Converts the amounts in cents of the currency defined by the instance of the class in the given range of
+     * an array directly to cents of another currency, in place, all with the same rates.
+     * See {@link Wechselkurse#umrechnen(long[], int, int, Waehrung, Waehrung)}.
+     *
+     * @param cent   the amounts in cents of this currency, may be negative
+     * @param anfang the index of the first amount to convert
+     * @param ende   the index after the last amount to convert
+     * @param nach   the target currency
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     * @throws ArithmeticException       if a converted amount does not fit into a long; the array is unchanged then
+     */
+    public void umrechnen(long[] cent, int anfang, int ende, Waehrung nach) {
+        Wechselkurse.aktuell().umrechnen(cent, anfang, ende, this, nach);
+    }
+
+    /**
+     * Converts the amounts in cents of the currency defined by the instance of the class in an array directly
+     * to cents of another currency, in place.
+     *
+     * @param cent the amounts in cents of this currency, may be negative
+     * @param nach the target currency
+     * @throws ArithmeticException if a converted amount does not fit into a long; the array is unchanged then
+     * @see #umrechnen(long[], int, int, Waehrung)
+     */
+    public void umrechnen(long[] cent, Waehrung nach) {
+        umrechnen(cent, 0, cent.length, nach);
     }
 }
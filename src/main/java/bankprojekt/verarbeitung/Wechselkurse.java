@@ -0,0 +1,264 @@
+package bankprojekt.verarbeitung;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * An immutable, versioned table of the exchange rates of all currencies to Euros.
+ * <p>
+ * There is always exactly one current table. A feed publishes new rates with {@link #veroeffentlichen(Map)}
+ * or {@link #laden(Path)}; this creates a new table with the next version and replaces the current one,
+ * the old table stays unchanged for everybody still using it. Getting the current table is a single volatile
+ * read, so conversions take no lock and create no garbage however often the rates change. Publishing is
+ * serialized, so the versions of the published tables strictly increase.
+ * <p>
+ * A conversion uses one table from start to end. Whoever needs to know which rates were used, or needs to
+ * convert several amounts with the same rates, gets the table once with {@link #aktuell()}, converts with it
+ * and records its {@link #getVersion() version}.
+ * <p>
+ * Like {@link Waehrung} the table keeps every rate with 4 decimal places and precomputes the cross rate
+ * of every pair of currencies as a reduced fraction; amounts are converted in cents and truncated towards zero.
+ */
+public final class Wechselkurse {
+    private static final Waehrung[] WAEHRUNGEN = Waehrung.values();
+    private static final int ANZAHL = WAEHRUNGEN.length;
+    private static final long EINS = Geldbetrag.kurs(1);
+
+    private static final Object VEROEFFENTLICHEN_LOCK = new Object();
+    private static volatile Wechselkurse aktuell = new Wechselkurse(1, standardkurse());
+
+    private final long version;
+
+    /**
+     * the rates to Euros in ten-thousandths, by ordinal of the currency
+     */
+    private final long[] euroKurse;
+
+    /**
+     * the cross rates, at index from * number of currencies + to: the amount in cents of the target currency is
+     * cents * zaehler / nenner, which cannot overflow for amounts up to grenze
+     */
+    private final long[] zaehler = new long[ANZAHL * ANZAHL];
+    private final long[] nenner = new long[ANZAHL * ANZAHL];
+    private final long[] grenze = new long[ANZAHL * ANZAHL];
+
+    private Wechselkurse(long version, long[] euroKurse) {
+        this.version = version;
+        this.euroKurse = euroKurse;
+        for (int von = 0; von < ANZAHL; von++) {
+            for (int nach = 0; nach < ANZAHL; nach++) {
+                long teiler = ggT(euroKurse[nach], euroKurse[von]);
+                int index = von * ANZAHL + nach;
+                zaehler[index] = euroKurse[nach] / teiler;
+                nenner[index] = euroKurse[von] / teiler;
+                grenze[index] = Long.MAX_VALUE / zaehler[index];
+            }
+        }
+    }
+
+    private static long[] standardkurse() {
+        long[] kurse = new long[ANZAHL];
+        for (Waehrung waehrung : WAEHRUNGEN) {
+            kurse[waehrung.ordinal()] = waehrung.standardkurs();
+        }
+        return kurse;
+    }
+
+    private static long ggT(long a, long b) {
+        while (b != 0) {
+            long rest = a % b;
+            a = b;
+            b = rest;
+        }
+        return a;
+    }
+
+    /**
+     * Returns the current exchange rates.
+     *
+     * @return the most recently published table
+     */
+    public static Wechselkurse aktuell() {
+        return aktuell;
+    }
+
+    /**
+     * Publishes new exchange rates. Currencies without a new rate keep their current rate.
+     *
+     * @param kurse the new rates to Euros, by currency
+     * @return the new table, which is now the current one
+     * @throws IllegalArgumentException if kurse is null or contains null, a rate that is not positive or too small
+     *                                  for 4 decimal places, or a rate for Euros other than 1
+     */
+    public static Wechselkurse veroeffentlichen(Map<Waehrung, Double> kurse) {
+        if (kurse == null) {
+            throw new IllegalArgumentException("Ungültige Kurse");
+        }
+        long[] neu = new long[ANZAHL];
+        for (Map.Entry<Waehrung, Double> eintrag : kurse.entrySet()) {
+            Waehrung waehrung = eintrag.getKey();
+            Double kurs = eintrag.getValue();
+            if (waehrung == null || kurs == null || !(kurs > 0) || Double.isInfinite(kurs)) {
+                throw new IllegalArgumentException("Ungültiger Kurs für " + waehrung + ": " + kurs);
+            }
+            long skaliert = Geldbetrag.kurs(kurs);
+            if (skaliert <= 0 || waehrung == Waehrung.EUR && skaliert != EINS) {
+                throw new IllegalArgumentException("Ungültiger Kurs für " + waehrung + ": " + kurs);
+            }
+            neu[waehrung.ordinal()] = skaliert;
+        }
+        synchronized (VEROEFFENTLICHEN_LOCK) {
+            Wechselkurse alt = aktuell;
+            for (int i = 0; i < ANZAHL; i++) {
+                if (neu[i] == 0) {
+                    neu[i] = alt.euroKurse[i];
+                }
+            }
+            Wechselkurse tabelle = new Wechselkurse(alt.version + 1, neu);
+            aktuell = tabelle;
+            return tabelle;
+        }
+    }
+
+    /**
+     * Publishes the rates built into {@link Waehrung} again, e.g. when the feed has failed.
+     *
+     * @return the new table, which is now the current one
+     */
+    public static Wechselkurse standardkurseVeroeffentlichen() {
+        Map<Waehrung, Double> kurse = new EnumMap<>(Waehrung.class);
+        for (Waehrung waehrung : WAEHRUNGEN) {
+            kurse.put(waehrung, waehrung.standardkurs() / (double) EINS);
+        }
+        return veroeffentlichen(kurse);
+    }
+
+    /**
+     * Reads exchange rates from a file and publishes them. Every line of the file has the form
+     * {@code BGN=1.9558}; empty lines and lines starting with # are ignored.
+     *
+     * @param datei the file
+     * @return the new table, which is now the current one
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if datei is null or the file contains an unknown currency or an invalid rate
+     */
+    public static Wechselkurse laden(Path datei) throws IOException {
+        if (datei == null) {
+            throw new IllegalArgumentException("Ungültige Datei");
+        }
+        Properties eintraege = new Properties();
+        try (Reader leser = Files.newBufferedReader(datei, StandardCharsets.UTF_8)) {
+            eintraege.load(leser);
+        }
+        Map<Waehrung, Double> kurse = new EnumMap<>(Waehrung.class);
+        for (String name : eintraege.stringPropertyNames()) {
+            String wert = eintraege.getProperty(name).trim();
+            try {
+                kurse.put(Waehrung.valueOf(name.trim()), Double.valueOf(wert));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Ungültiger Eintrag " + name + "=" + wert + " in " + datei, e);
+            }
+        }
+        return veroeffentlichen(kurse);
+    }
+
+    /**
+     * Returns the version of this table. The first table has version 1, every published table
+     * has a version one higher than the table it replaced.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the exchange rate of a currency in this table.
+     *
+     * @param waehrung the currency
+     * @return the rate to Euros, with 4 decimal places
+     */
+    public double getEuroKurs(Waehrung waehrung) {
+        return euroKurse[waehrung.ordinal()] / (double) EINS;
+    }
+
+    /**
+     * Converts an amount directly from one currency to another.
+     *
+     * @param cent the amount in cents of the currency von, may be negative
+     * @param von  the currency of the amount
+     * @param nach the target currency
+     * @return the converted amount in cents of the target currency, truncated towards zero
+     * @throws ArithmeticException if the converted amount does not fit into a long
+     */
+    public long umrechnen(long cent, Waehrung von, Waehrung nach) {
+        int index = von.ordinal() * ANZAHL + nach.ordinal();
+        long z = zaehler[index];
+        long n = nenner[index];
+        long g = grenze[index];
+        if (cent >= -g && cent <= g) {
+            return cent * z / n;
+        }
+        // cent = q * n + r, also cent * z / n = q * z + r * z / n
+        return Math.addExact(Math.multiplyExact(cent / n, z), cent % n * z / n);
+    }
+
+    /**
+     * Converts the amounts in the given range of an array directly from one currency to another, in place.
+     * The result is the same as converting each amount with {@link #umrechnen(long, Waehrung, Waehrung)},
+     * but the range is checked for overflow once and then converted in a single loop.
+     *
+     * @param cent   the amounts in cents of the currency von, may be negative
+     * @param anfang the index of the first amount to convert
+     * @param ende   the index after the last amount to convert
+     * @param von    the currency of the amounts
+     * @param nach   the target currency
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     * @throws ArithmeticException       if a converted amount does not fit into a long; the array is unchanged then
+     */
+    public void umrechnen(long[] cent, int anfang, int ende, Waehrung von, Waehrung nach) {
+        Objects.checkFromToIndex(anfang, ende, cent.length);
+        int index = von.ordinal() * ANZAHL + nach.ordinal();
+        long z = zaehler[index];
+        long n = nenner[index];
+        if (z == n) {
+            return;
+        }
+        long g = grenze[index];
+        boolean passt = true;
+        for (int i = anfang; i < ende; i++) {
+            passt &= cent[i] >= -g & cent[i] <= g;
+        }
+        if (!passt) {
+            long[] ergebnis = new long[ende - anfang];
+            for (int i = anfang; i < ende; i++) {
+                ergebnis[i - anfang] = umrechnen(cent[i], von, nach);
+            }
+            System.arraycopy(ergebnis, 0, cent, anfang, ergebnis.length);
+        } else if (n == 1) {
+            for (int i = anfang; i < ende; i++) {
+                cent[i] *= z;
+            }
+        } else {
+            for (int i = anfang; i < ende; i++) {
+                cent[i] = cent[i] * z / n;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("Wechselkurse ").append(version).append(':');
+        for (Waehrung waehrung : WAEHRUNGEN) {
+            text.append(' ').append(waehrung).append('=').append(getEuroKurs(waehrung));
+        }
+        return text.toString();
+    }
+}
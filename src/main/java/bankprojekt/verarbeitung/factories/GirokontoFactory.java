@@ -2,6 +2,7 @@ package bankprojekt.verarbeitung.factories;
 
 import bankprojekt.verarbeitung.Girokonto;
 import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kontospalten;
 import bankprojekt.verarbeitung.Kunde;
 
 /**
@@ -10,8 +11,31 @@ import bankprojekt.verarbeitung.Kunde;
 public class GirokontoFactory extends KontoFactory {
     private static final double STANDARD_DISPO = 1000;
 
+    private final Kontospalten spalten;
+
+    /**
+     * creates a factory for Girokonten that keep their state on the heap
+     */
+    public GirokontoFactory() {
+        this.spalten = null;
+    }
+
+    /**
+     * creates a factory for Girokonten that keep their state in the given columns
+     *
+     * @param spalten columns for the state of the created accounts
+     * @throws IllegalArgumentException if spalten is null
+     */
+    public GirokontoFactory(Kontospalten spalten) {
+        if (spalten == null)
+            throw new IllegalArgumentException("Die Spalten dürfen nicht null sein!");
+        this.spalten = spalten;
+    }
+
     @Override
     public Konto createKonto(Kunde inhaber, long kontonummer) {
+        if (spalten != null)
+            return new Girokonto(inhaber, kontonummer, STANDARD_DISPO, spalten);
         return new Girokonto(inhaber, kontonummer, STANDARD_DISPO);
     }
 }
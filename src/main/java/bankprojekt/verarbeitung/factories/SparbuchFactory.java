@@ -1,6 +1,7 @@
 package bankprojekt.verarbeitung.factories;
 
 import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kontospalten;
 import bankprojekt.verarbeitung.Kunde;
 import bankprojekt.verarbeitung.Sparbuch;
 
@@ -9,8 +10,31 @@ import bankprojekt.verarbeitung.Sparbuch;
  *
  */
 public class SparbuchFactory extends KontoFactory {
+    private final Kontospalten spalten;
+
+    /**
+     * creates a factory for Sparbücher that keep their state on the heap
+     */
+    public SparbuchFactory() {
+        this.spalten = null;
+    }
+
+    /**
+     * creates a factory for Sparbücher that keep their state in the given columns
+     *
+     * @param spalten columns for the state of the created accounts
+     * @throws IllegalArgumentException if spalten is null
+     */
+    public SparbuchFactory(Kontospalten spalten) {
+        if (spalten == null)
+            throw new IllegalArgumentException("Die Spalten dürfen nicht null sein!");
+        this.spalten = spalten;
+    }
+
     @Override
     public Konto createKonto(Kunde inhaber, long nummer) {
+        if (spalten != null)
+            return new Sparbuch(inhaber, nummer, spalten);
         return new Sparbuch(inhaber, nummer);
     }
 }
@@ -0,0 +1,253 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Waehrung;
+import bankprojekt.verarbeitung.factories.KontoFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Asynchronous access to a bank: every operation runs on a virtual thread of its own and returns
+ * a {@link CompletableFuture}.
+ * <p>
+ * A virtual thread that waits for the lock of an account or for the journal does not occupy a platform thread,
+ * so thousands of pending operations cost little more than their futures. The number of operations that
+ * work on the bank at the same time can be bounded; operations beyond the bound wait, on their virtual thread,
+ * until another one has finished.
+ * <p>
+ * The futures complete with the result of the corresponding method of {@link Bank}, or exceptionally with
+ * the exception it throws, including the {@link IllegalArgumentException} for invalid arguments.
+ */
+public final class AsynchroneBank implements AutoCloseable {
+    private final Bank bank;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * bounds the operations working on the bank at the same time, null if unbounded
+     */
+    private final Semaphore gleichzeitig;
+
+    /**
+     * An operation on a bank.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface Bankoperation<T> {
+        /**
+         * Executes the operation.
+         *
+         * @param bank the bank
+         * @return the result
+         * @throws Exception if the operation fails
+         */
+        T ausfuehren(Bank bank) throws Exception;
+    }
+
+    /**
+     * Creates asynchronous access to the given bank without a bound on concurrent operations.
+     *
+     * @param bank the bank
+     * @throws IllegalArgumentException if bank is null
+     */
+    public AsynchroneBank(Bank bank) {
+        this(bank, 0);
+    }
+
+    /**
+     * Creates asynchronous access to the given bank with at most the given number of operations
+     * working on it at the same time.
+     *
+     * @param bank            the bank
+     * @param maxGleichzeitig the maximum number of concurrent operations, 0 for no bound
+     * @throws IllegalArgumentException if bank is null or maxGleichzeitig is negative
+     */
+    public AsynchroneBank(Bank bank, int maxGleichzeitig) {
+        if (bank == null) {
+            throw new IllegalArgumentException("Invalid bank");
+        }
+        if (maxGleichzeitig < 0) {
+            throw new IllegalArgumentException("Invalid number of concurrent operations");
+        }
+        this.bank = bank;
+        this.gleichzeitig = maxGleichzeitig == 0 ? null : new Semaphore(maxGleichzeitig);
+    }
+
+    /**
+     * Returns the bank.
+     *
+     * @return the bank
+     */
+    public Bank getBank() {
+        return bank;
+    }
+
+    /**
+     * Executes an operation on the bank on a virtual thread, within the bound on concurrent operations.
+     *
+     * @param operation the operation
+     * @param <T>       the result type
+     * @return the result of the operation
+     * @throws IllegalArgumentException                      if operation is null
+     * @throws java.util.concurrent.RejectedExecutionException if this facade is closed
+     */
+    public <T> CompletableFuture<T> ausfuehren(Bankoperation<T> operation) {
+        if (operation == null) {
+            throw new IllegalArgumentException("Invalid operation");
+        }
+        CompletableFuture<T> ergebnis = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                if (gleichzeitig != null) {
+                    gleichzeitig.acquire();
+                }
+                try {
+                    ergebnis.complete(operation.ausfuehren(bank));
+                } finally {
+                    if (gleichzeitig != null) {
+                        gleichzeitig.release();
+                    }
+                }
+            } catch (Throwable e) {
+                // auch Errors beenden die Zukunft, sonst wartet der Aufrufer ewig
+                ergebnis.completeExceptionally(e);
+            }
+        });
+        return ergebnis;
+    }
+
+    /**
+     * Combines the futures of many operations into one.
+     *
+     * @param operationen the futures
+     * @param <T>         the result type
+     * @return the results in the order of the futures; fails as soon as one of the futures fails
+     * @throws IllegalArgumentException if operationen is null
+     */
+    public static <T> CompletableFuture<List<T>> alle(List<CompletableFuture<T>> operationen) {
+        if (operationen == null) {
+            throw new IllegalArgumentException("Invalid operations");
+        }
+        List<CompletableFuture<T>> kopie = List.copyOf(operationen);
+        CompletableFuture<Void> fertig = CompletableFuture.allOf(kopie.toArray(new CompletableFuture<?>[0]));
+        // beim ersten Fehler abbrechen, ohne auf die uebrigen Operationen zu warten
+        for (CompletableFuture<T> operation : kopie) {
+            operation.whenComplete((wert, fehler) -> {
+                if (fehler != null) {
+                    fertig.completeExceptionally(fehler);
+                }
+            });
+        }
+        return fertig.thenApply(v -> {
+            List<T> ergebnisse = new ArrayList<>(kopie.size());
+            for (CompletableFuture<T> operation : kopie) {
+                ergebnisse.add(operation.join());
+            }
+            return ergebnisse;
+        });
+    }
+
+    /**
+     * See {@link Bank#kontoErstellen(KontoFactory, Kunde)}.
+     *
+     * @param factory the factory to create the account
+     * @param inhaber the owner of the account
+     * @return the account number of the new account
+     */
+    public CompletableFuture<Long> kontoErstellenAsync(KontoFactory factory, Kunde inhaber) {
+        return ausfuehren(b -> b.kontoErstellen(factory, inhaber));
+    }
+
+    /**
+     * See {@link Bank#getKontostand(long)}.
+     *
+     * @param nummer the account number
+     * @return the balance of the account
+     */
+    public CompletableFuture<Double> getKontostandAsync(long nummer) {
+        return ausfuehren(b -> b.getKontostand(nummer));
+    }
+
+    /**
+     * See {@link Bank#geldEinzahlen(long, double)}.
+     *
+     * @param auf    the account number
+     * @param betrag the amount
+     * @return completed when the money is deposited
+     */
+    public CompletableFuture<Void> geldEinzahlenAsync(long auf, double betrag) {
+        return ausfuehren(b -> {
+            b.geldEinzahlen(auf, betrag);
+            return null;
+        });
+    }
+
+    /**
+     * See {@link Bank#geldAbheben(long, double)}.
+     *
+     * @param nummer the account number
+     * @param betrag the amount
+     * @return whether the money was withdrawn
+     */
+    public CompletableFuture<Boolean> geldAbhebenAsync(long nummer, double betrag) {
+        return ausfuehren(b -> b.geldAbheben(nummer, betrag));
+    }
+
+    /**
+     * See {@link Bank#geldUeberweisen(long, long, double, String)}.
+     *
+     * @param vonKontonr       the account number of the sender
+     * @param nachKontonr      the account number of the recipient
+     * @param betrag           the amount
+     * @param verwendungszweck the purpose of the transfer
+     * @return whether the money was transferred
+     */
+    public CompletableFuture<Boolean> geldUeberweisenAsync(long vonKontonr, long nachKontonr, double betrag,
+                                                           String verwendungszweck) {
+        return ausfuehren(b -> b.geldUeberweisen(vonKontonr, nachKontonr, betrag, verwendungszweck));
+    }
+
+    /**
+     * See {@link Bank#geldUeberweisenBatch(List)}.
+     *
+     * @param auftraege the transfers
+     * @return the outcome of every transfer, at the same index as in the batch
+     */
+    public CompletableFuture<UeberweisungsErgebnis[]> geldUeberweisenBatchAsync(List<Ueberweisungsauftrag> auftraege) {
+        return ausfuehren(b -> b.geldUeberweisenBatch(auftraege));
+    }
+
+    /**
+     * See {@link Bank#waehrungswechsel(long, Waehrung)}.
+     *
+     * @param nummer the account number
+     * @param neu    the new currency
+     * @return the version of the exchange rates used
+     */
+    public CompletableFuture<Long> waehrungswechselAsync(long nummer, Waehrung neu) {
+        return ausfuehren(b -> b.waehrungswechsel(nummer, neu));
+    }
+
+    /**
+     * See {@link Bank#kontoLoeschen(long)}.
+     *
+     * @param nummer the account number
+     * @return whether the account was deleted
+     */
+    public CompletableFuture<Boolean> kontoLoeschenAsync(long nummer) {
+        return ausfuehren(b -> b.kontoLoeschen(nummer));
+    }
+
+    /**
+     * Stops accepting operations and waits until all submitted operations are finished.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -4,25 +4,119 @@ import bankprojekt.verarbeitung.*;
 import bankprojekt.verarbeitung.factories.KontoFactory;
 
 import java.io.*;
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
 import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 /**
  * The Bank class represents a bank with a given bank code (Bankleitzahl). It provides methods for creating accounts,
  * performing transactions, and retrieving account information.
+ * <p>
+ * A Bank can be used by several threads at the same time. Looking up an account does not lock,
+ * balance mutations are serialized per account by striped locks, so independent accounts
+ * can be debited and credited in parallel.
+ * <p>
+ * {@link #clone()} takes a copy-on-write snapshot: the clone shares all accounts with this bank,
+ * an account is copied only when one of the two banks changes it for the first time.
  */
 public class Bank implements Cloneable, Serializable {
     private final long bankleitzahl;
-    private final Map<Long, Konto> kontoMap = new HashMap<>();
-    private long kontonummerZaehler = 10000000L;
     private static final long MINIMUM_KONTONUMMER = 10000000L;
+    /**
+     * unregisters the indexes of a bank from its accounts once the bank is no longer reachable
+     */
+    private static final Cleaner CLEANER = Cleaner.create();
+    /**
+     * The maximum number of accounts {@link #waehrungUmstellen(Waehrung, Waehrung)} converts under one set of locks.
+     */
+    static final int UMSTELLUNG_STAPELGROESSE = 256;
+    private final KontoVerzeichnis konten;
+    private final KontonummernVergabe kontonummernVergabe;
+    private transient KontoLocks locks = new KontoLocks();
+
+    /**
+     * the snapshots taken of this bank that still share accounts with it
+     */
+    private transient CopyOnWriteArrayList<WeakReference<Bank>> schnappschuesse = new CopyOnWriteArrayList<>();
+
+    /**
+     * compressed set of all account numbers in use, for fast gap queries
+     */
+    private transient KontonummernBitmap belegteNummern = new KontonummernBitmap();
+
+    /**
+     * write-ahead journal of all mutations, null if the bank is not journaled
+     */
+    private transient Journal journal;
+
+    /**
+     * accounts ordered by balance, built on the first threshold query, null before
+     */
+    private transient volatile KontostandIndex kontostandIndex;
+
+    /**
+     * running totals per customer, built on the first query for them, null before
+     */
+    private transient volatile KundenSummen kundenSummen;
+
+    /**
+     * the customers sorted for address listings, built on the first listing, null before
+     */
+    private transient volatile Kundenverzeichnis kundenverzeichnis;
+
+    /**
+     * locks accounts falling below a threshold, null until continuous locking is switched on for the first time
+     */
+    private transient volatile Sperrwaechter sperrwaechter;
+
+    /**
+     * latencies of the operations of this bank, not part of its state
+     */
+    private transient Bankmetriken metriken = new Bankmetriken();
 
     /**
      * Represents a bank with a specific bank code.
      */
     public Bank(long bankleitzahl) {
+        this(bankleitzahl, new KontonummernVergabe(MINIMUM_KONTONUMMER));
+    }
+
+    /**
+     * Represents a bank with a specific bank code that hands out account numbers with the given allocator.
+     *
+     * @param bankleitzahl        the bank code
+     * @param kontonummernVergabe the allocator for new account numbers
+     * @throws IllegalArgumentException if kontonummernVergabe is null
+     */
+    public Bank(long bankleitzahl, KontonummernVergabe kontonummernVergabe) {
+        if (kontonummernVergabe == null) {
+            throw new IllegalArgumentException("Invalid allocator");
+        }
         this.bankleitzahl = bankleitzahl;
+        this.konten = new KontoVerzeichnis(MINIMUM_KONTONUMMER);
+        this.kontonummernVergabe = kontonummernVergabe;
+    }
+
+    /**
+     * Creates a snapshot of the given bank. Must be called with all locks of the original held.
+     *
+     * @param original the bank to take the snapshot of
+     */
+    private Bank(Bank original) {
+        this.bankleitzahl = original.bankleitzahl;
+        this.konten = original.konten.schnappschuss();
+        this.kontonummernVergabe = original.kontonummernVergabe.kopie();
+        this.belegteNummern = original.belegteNummern.kopie();
     }
 
     /**
@@ -35,6 +129,17 @@ public class Bank implements Cloneable, Serializable {
     }
 
 
+    /**
+     * Returns the latencies of the operations of this bank, recorded since it was created or loaded.
+     * A snapshot taken by {@link #clone()} records its own latencies.
+     *
+     * @return the metrics of this bank
+     */
+    public Bankmetriken getMetriken() {
+        return metriken;
+    }
+
+
     /*
      * ###############################################
      * Methods for creating bank accounts
@@ -49,13 +154,33 @@ public class Bank implements Cloneable, Serializable {
      * @throws IllegalArgumentException if the factory or the owner is null
      */
     public long kontoErstellen(KontoFactory factory, Kunde inhaber) {
-        if (factory == null) {
-            throw new IllegalArgumentException("Invalid factory");
+        long beginn = metriken.beginn();
+        try {
+            if (factory == null) {
+                throw new IllegalArgumentException("Invalid factory");
+            }
+            while (true) {
+                long neueKontonummer = generiereEindeutigeKontonummer();
+                Konto neuesKonto = factory.createKonto(inhaber, neueKontonummer);
+                long position;
+                ReentrantLock lock = locks.lockFuer(neueKontonummer);
+                lock.lock();
+                try {
+                    if (konten.putIfAbsent(neueKontonummer, neuesKonto) != null) {
+                        continue;
+                    }
+                    belegteNummern.hinzufuegen(neueKontonummer);
+                    indexeHinzufuegen(neueKontonummer, neuesKonto);
+                    position = journal == null ? 0 : journal.erstellt(neuesKonto);
+                } finally {
+                    lock.unlock();
+                }
+                sichern(position);
+                return neueKontonummer;
+            }
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.KONTO_ERSTELLEN, beginn);
         }
-        long neueKontonummer = generiereEindeutigeKontonummer();
-        Konto neuesKonto = factory.createKonto(inhaber, neueKontonummer);
-        kontoMap.put(neueKontonummer, neuesKonto);
-        return neueKontonummer;
     }
 
     /**
@@ -63,11 +188,11 @@ public class Bank implements Cloneable, Serializable {
      *
      * @return the generated unique account number
      */
-    private synchronized long generiereEindeutigeKontonummer() {
-        long kontonummer = kontonummerZaehler++;
+    private long generiereEindeutigeKontonummer() {
+        long kontonummer = kontonummernVergabe.naechste();
 
-        while (kontoMap.containsKey(kontonummer)) {
-            kontonummerZaehler++;
+        while (konten.enthaelt(kontonummer)) {
+            kontonummer = kontonummernVergabe.naechste();
         }
         return kontonummer;
     }
@@ -80,38 +205,112 @@ public class Bank implements Cloneable, Serializable {
 
     /**
      * Retrieves a string representation of all bank accounts in the bank.
+     * For large banks, {@link #kontenSchreiben(Appendable, long, int)} writes the same lines page by page.
      *
      * @return a string with the information of all bank accounts
      */
     public String getAlleKonten() {
-        StringBuilder stringBuilder = new StringBuilder();
+        long beginn = metriken.beginn();
+        try {
+            StringBuilder stringBuilder = new StringBuilder();
 
-        stringBuilder.append("------------------------------");
-        stringBuilder.append(System.lineSeparator());
-        stringBuilder.append("Liste aller Konten:");
-        stringBuilder.append(System.lineSeparator());
+            stringBuilder.append("------------------------------");
+            stringBuilder.append(System.lineSeparator());
+            stringBuilder.append("Liste aller Konten:");
+            stringBuilder.append(System.lineSeparator());
 
-        for (Map.Entry<Long, Konto> entry : kontoMap.entrySet()) {
-            Konto konto = entry.getValue();
+            try {
+                kontenAnhaengen(stringBuilder, 0, Integer.MAX_VALUE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            stringBuilder.append("------------------------------");
+            return stringBuilder.toString();
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.ALLE_KONTEN, beginn);
+        }
+    }
 
-            stringBuilder.append(formatKontoInformationen(konto));
-            stringBuilder.append(System.lineSeparator());
+    /**
+     * Writes one line per bank account, in the form of {@link #getAlleKonten()}, for at most anzahl accounts
+     * with an account number of at least ab, in ascending order of the account number.
+     * <p>
+     * The lines are written digit by digit without creating strings, so the memory used does not depend
+     * on the number of accounts. To write all accounts page by page, start with ab = 0 and pass the returned
+     * cursor as ab for the next page until it is -1.
+     *
+     * @param ziel   where to write the lines to
+     * @param ab     the smallest account number to write
+     * @param anzahl the maximum number of accounts to write
+     * @return the account number to continue with for the next page, -1 if all accounts have been written
+     * @throws IOException              if ziel fails
+     * @throws IllegalArgumentException if ziel is null or ab or anzahl is negative
+     */
+    public long kontenSchreiben(Appendable ziel, long ab, int anzahl) throws IOException {
+        long beginn = metriken.beginn();
+        try {
+            if (ziel == null) {
+                throw new IllegalArgumentException("Invalid target");
+            }
+            if (ab < 0 || anzahl < 0) {
+                throw new IllegalArgumentException("Invalid page");
+            }
+            return kontenAnhaengen(ziel, ab, anzahl);
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.KONTEN_SCHREIBEN, beginn);
+        }
+    }
+
+    private long kontenAnhaengen(Appendable ziel, long ab, int anzahl) throws IOException {
+        try {
+            return konten.forEachAb(ab, anzahl, (nummer, konto) -> {
+                try {
+                    kontoInformationenSchreiben(konto, ziel);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        stringBuilder.append("------------------------------");
-        return stringBuilder.toString();
     }
 
     /**
-     * Formats the given account information into a string.
+     * Writes the lines of {@link #kontenSchreiben(Appendable, long, int)} as UTF-8 to a channel,
+     * through a buffer of fixed size.
      *
-     * @param konto the account whose information should be formatted
-     * @return the formatted account information
+     * @param kanal  the channel
+     * @param ab     the smallest account number to write
+     * @param anzahl the maximum number of accounts to write
+     * @return the account number to continue with for the next page, -1 if all accounts have been written
+     * @throws IOException              if the channel fails
+     * @throws IllegalArgumentException if kanal is null or ab or anzahl is negative
      */
-    private String formatKontoInformationen(Konto konto) {
-        return String.format("Kontonummer: %s, Kontostand: %s %s",
-                konto.getKontonummer(),
-                konto.getKontostand(),
-                konto.getAktuelleWaehrung());
+    public long kontenSchreiben(WritableByteChannel kanal, long ab, int anzahl) throws IOException {
+        if (kanal == null) {
+            throw new IllegalArgumentException("Invalid channel");
+        }
+        Kanalausgabe ausgabe = new Kanalausgabe(kanal);
+        long weiter = kontenSchreiben(ausgabe, ab, anzahl);
+        ausgabe.leeren();
+        return weiter;
+    }
+
+    /**
+     * Writes the information of the given account as one line.
+     *
+     * @param konto the account whose information should be written
+     * @param ziel  where to write the line to
+     * @throws IOException if ziel fails
+     */
+    private void kontoInformationenSchreiben(Konto konto, Appendable ziel) throws IOException {
+        ziel.append("Kontonummer: ");
+        Zahlenformat.zahl(konto.getKontonummer(), ziel);
+        ziel.append(", Kontostand: ");
+        Zahlenformat.betrag(konto.getKontostand(), ziel);
+        ziel.append(' ');
+        ziel.append(konto.getAktuelleWaehrung().toString());
+        ziel.append(System.lineSeparator());
     }
 
     /**
@@ -120,7 +319,16 @@ public class Bank implements Cloneable, Serializable {
      * @return a list of all account numbers in the bank
      */
     public List<Long> getAlleKontonummern() {
-        return new LinkedList<>(kontoMap.keySet());
+        long beginn = metriken.beginn();
+        try {
+            List<Long> nummern = new ArrayList<>(konten.size());
+            for (long nummer : konten.nummern()) {
+                nummern.add(nummer);
+            }
+            return nummern;
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.ALLE_KONTONUMMERN, beginn);
+        }
     }
 
     /**
@@ -131,26 +339,41 @@ public class Bank implements Cloneable, Serializable {
      * @throws KontonummerDoesNotExistException if the account number does not exist
      */
     public double getKontostand(long nummer) throws KontonummerDoesNotExistException {
-        validiereKonto(nummer);
-        return kontoMap.get(nummer).getKontostand();
+        long beginn = metriken.beginn();
+        try {
+            return validiereKonto(nummer).getKontostand();
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.KONTOSTAND, beginn);
+        }
     }
 
     /**
      * Retrieves a list of customers with a bank account balance equal to or greater than the specified minimum amount.
+     * Only the matching accounts are visited, using the balance index of the bank.
      *
      * @param minimum the minimum balance to filter by
-     * @return a list of customers with a balance equal to or greater than the minimum amount
+     * @return a list of customers with a balance equal to or greater than the minimum amount,
+     * in ascending order of the account number
      * @throws IllegalArgumentException if the minimum amount is NaN or infinite
      */
     public List<Kunde> getKundenMitVollemKonto(double minimum) {
-        if (Double.isNaN(minimum) || Double.isInfinite(minimum)) {
-            throw new IllegalArgumentException("Unguelitge Einfage von minimum");
-        }
+        long beginn = metriken.beginn();
+        try {
+            if (Double.isNaN(minimum) || Double.isInfinite(minimum)) {
+                throw new IllegalArgumentException("Unguelitge Einfage von minimum");
+            }
 
-        return kontoMap.values().stream()
-                .filter(konto -> konto.getKontostand() >= minimum)
-                .map(Konto::getInhaber)
-                .toList();
+            LongStream.Builder treffer = LongStream.builder();
+            kontostandIndex().abBesuchen(minimum, treffer);
+            return treffer.build()
+                    .sorted()
+                    .mapToObj(konten::get)
+                    .filter(konto -> konto != null && konto.getKontostand() >= minimum)
+                    .map(Konto::getInhaber)
+                    .toList();
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.KUNDEN_MIT_VOLLEM_KONTO, beginn);
+        }
     }
 
     /**
@@ -159,49 +382,191 @@ public class Bank implements Cloneable, Serializable {
      * @return a string containing the addresses of all customers, separated by a new line
      */
     public String getKundenadressen() {
-        return kontoMap.values().stream()
-                .map(Konto::getInhaber)
-                .distinct()
-                .sorted(Comparator.comparing(Kunde::getVorname))
-                .map(kunde -> kunde.getName() + ": " + kunde.getAdresse())
-                .collect(Collectors.joining(System.lineSeparator()));
+        long beginn = metriken.beginn();
+        try {
+            StringWriter adressen = new StringWriter();
+            try {
+                kundenverzeichnis().schreiben(adressen);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return adressen.toString();
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.KUNDENADRESSEN, beginn);
+        }
+    }
+
+    /**
+     * Writes the name and address of all customers associated with bank accounts in this bank to the writer,
+     * in the same form as {@link #getKundenadressen()}. Customers are listed once each, sorted by first name
+     * in German collation order. The writer is flushed page by page, so the list is never built in memory.
+     *
+     * @param ziel the writer
+     * @throws IOException              if the writer fails
+     * @throws IllegalArgumentException if ziel is null
+     */
+    public void kundenadressenSchreiben(Writer ziel) throws IOException {
+        long beginn = metriken.beginn();
+        try {
+            if (ziel == null) {
+                throw new IllegalArgumentException("Invalid writer");
+            }
+            kundenverzeichnis().schreiben(ziel);
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.KUNDENADRESSEN_SCHREIBEN, beginn);
+        }
     }
 
     /**
      * Retrieves a list of account numbers with gaps in the range of existing account numbers.
+     * Numbers the allocator has leased but not handed out yet are not gaps, nor are numbers in the blocks
+     * of other nodes if the number space is partitioned.
      *
      * @return a list of account numbers with gaps
      */
     public List<Long> getKontonummernLuecken() {
-        long upperBound = kontonummerZaehler - 1;
-        return LongStream.rangeClosed(MINIMUM_KONTONUMMER, upperBound)
-                .boxed()
-                .filter(num -> !kontoMap.containsKey(num))
-                .toList();
+        long beginn = metriken.beginn();
+        try {
+            long hoechste = kontonummernVergabe.getHoechsteVergebene();
+            long[] offen = kontonummernVergabe.offeneBereiche();
+            List<Long> luecken = new ArrayList<>();
+            kontonummernVergabe.eigeneBereicheBesuchen(hoechste, (anfang, ende) ->
+                    belegteNummern.lueckenBesuchen(Math.max(anfang, MINIMUM_KONTONUMMER), ende, (long nummer) -> {
+                        if (!inBereichen(offen, nummer)) {
+                            luecken.add(nummer);
+                        }
+                    }));
+            return luecken;
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.KONTONUMMERN_LUECKEN, beginn);
+        }
     }
 
     /**
-     * Retrieves a list of customers with a bank account balance equal to or greater than the specified minimum amount.
+     * Counts the account numbers that have been handed out but are not in use (anymore).
      *
-     * @param minimum the minimum balance to filter by
-     * @return a list of customers with a balance equal to or greater than the minimum amount
+     * @return the number of gaps in the range of existing account numbers
+     */
+    public long getAnzahlKontonummernLuecken() {
+        long beginn = metriken.beginn();
+        try {
+            long hoechste = kontonummernVergabe.getHoechsteVergebene();
+            long[] offen = kontonummernVergabe.offeneBereiche();
+            long[] anzahl = {0};
+            kontonummernVergabe.eigeneBereicheBesuchen(hoechste, (anfang, ende) ->
+                    anzahl[0] += belegteNummern.anzahlLuecken(Math.max(anfang, MINIMUM_KONTONUMMER), ende));
+            for (int i = 0; i < offen.length; i += 2) {
+                long anfang = Math.max(offen[i], MINIMUM_KONTONUMMER);
+                long ende = Math.min(offen[i + 1] - 1, hoechste);
+                if (anfang <= ende) {
+                    anzahl[0] -= belegteNummern.anzahlLuecken(anfang, ende);
+                }
+            }
+            return anzahl[0];
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.ANZAHL_KONTONUMMERN_LUECKEN, beginn);
+        }
+    }
+
+    private static boolean inBereichen(long[] bereiche, long nummer) {
+        for (int i = 0; i < bereiche.length; i += 2) {
+            if (nummer >= bereiche[i] && nummer < bereiche[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the smallest account number that is not in use.
+     *
+     * @return the smallest free account number
+     */
+    public long getNaechsteFreieKontonummer() {
+        long beginn = metriken.beginn();
+        try {
+            return belegteNummern.naechsteFreie(MINIMUM_KONTONUMMER);
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.NAECHSTE_FREIE_KONTONUMMER, beginn);
+        }
+    }
+
+    /**
+     * Retrieves a list of customers whose accounts have a total balance greater than the specified minimum amount.
+     * The totals are kept up to date per customer, so only the matching customers are visited.
+     *
+     * @param minimum the minimum total balance to filter by
+     * @return a list of customers with a total balance greater than the minimum amount, the richest first
      * @throws IllegalArgumentException if the minimum amount is NaN or infinite
      */
     public List<Kunde> getAlleReichenKunden(double minimum) {
-        if (Double.isNaN(minimum) || Double.isInfinite(minimum)) {
-            throw new IllegalArgumentException("Invalid minimum value");
+        long beginn = metriken.beginn();
+        try {
+            if (Double.isNaN(minimum) || Double.isInfinite(minimum)) {
+                throw new IllegalArgumentException("Invalid minimum value");
+            }
+            return kundenSummen().ueber(minimum);
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.REICHE_KUNDEN, beginn);
         }
+    }
 
-        return kontoMap.values().stream()
-                .collect(Collectors.groupingBy(Konto::getInhaber))
-                .entrySet().stream()
-                .map(e -> new AbstractMap.SimpleEntry<>(e.getKey(),
-                        e.getValue().stream()
-                                .mapToDouble(Konto::getKontostand)
-                                .sum()))
-                .filter(e -> e.getValue() > minimum)
-                .map(Map.Entry::getKey)
-                .toList();
+    /**
+     * Retrieves the customers with the highest total balance of their accounts.
+     *
+     * @param anzahl the maximum number of customers
+     * @return at most anzahl customers, the richest first
+     * @throws IllegalArgumentException if anzahl is negative
+     */
+    public List<Kunde> getReichsteKunden(int anzahl) {
+        long beginn = metriken.beginn();
+        try {
+            if (anzahl < 0) {
+                throw new IllegalArgumentException("Invalid number of customers");
+            }
+            return kundenSummen().reichste(anzahl);
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.REICHSTE_KUNDEN, beginn);
+        }
+    }
+
+    /**
+     * Retrieves the total balance of all accounts of a customer.
+     *
+     * @param kunde the customer
+     * @return the total balance, 0 if the customer has no account in this bank
+     * @throws IllegalArgumentException if the customer is null
+     */
+    public double getKundensaldo(Kunde kunde) {
+        long beginn = metriken.beginn();
+        try {
+            if (kunde == null) {
+                throw new IllegalArgumentException("Invalid customer");
+            }
+            return kundenSummen().kontostand(kunde);
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.KUNDENSALDO, beginn);
+        }
+    }
+
+    /**
+     * Retrieves the overdraft exposure of a customer: the amount by which all Girokonten of the customer
+     * are overdrawn together.
+     *
+     * @param kunde the customer
+     * @return the sum of the negative balances of the Girokonten of the customer, as a positive amount
+     * @throws IllegalArgumentException if the customer is null
+     */
+    public double getUeberziehung(Kunde kunde) {
+        long beginn = metriken.beginn();
+        try {
+            if (kunde == null) {
+                throw new IllegalArgumentException("Invalid customer");
+            }
+            return kundenSummen().ueberziehung(kunde);
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.UEBERZIEHUNG, beginn);
+        }
     }
 
 
@@ -215,12 +580,44 @@ public class Bank implements Cloneable, Serializable {
      * Validates the existence of a specified bank account number.
      *
      * @param nummer the bank account number to be validated
+     * @return the bank account with the given number
      * @throws KontonummerDoesNotExistException if the bank account number does not exist
      */
-    private void validiereKonto(long nummer) throws KontonummerDoesNotExistException {
-        if (!kontoMap.containsKey(nummer)) {
+    private Konto validiereKonto(long nummer) throws KontonummerDoesNotExistException {
+        Konto konto = konten.get(nummer);
+        if (konto == null) {
             throw new KontonummerDoesNotExistException(nummer);
         }
+        return konto;
+    }
+
+    /**
+     * Returns the account with the given number so that it can be changed, while holding the lock of the account.
+     * An account still shared with a snapshot is copied first: an inherited account is replaced by a copy in this bank,
+     * the snapshots of this bank get their own copy of an account that belongs to this bank.
+     *
+     * @param nummer the bank account number
+     * @return the account, or null if it does not exist (anymore)
+     */
+    private Konto zumAendern(long nummer) {
+        Konto konto = konten.get(nummer);
+        if (konto == null) {
+            return null;
+        }
+        switch (konten.besitz(nummer)) {
+            case GEERBT -> {
+                konto = konto.kopie();
+                konten.ersetzen(nummer, konto);
+                indexeErsetzt(konto);
+            }
+            case GETEILT -> {
+                schnappschuesseAbkoppeln(nummer, konto);
+                konten.ersetzen(nummer, konto);
+            }
+            default -> {
+            }
+        }
+        return konto;
     }
 
     /**
@@ -246,9 +643,31 @@ public class Bank implements Cloneable, Serializable {
      * @throws GesperrtException                if the account is locked
      */
     public boolean geldAbheben(long nummer, double betrag) throws KontonummerDoesNotExistException, GesperrtException {
-        validiereKonto(nummer);
-        validiereBetrag(betrag);
-        return kontoMap.get(nummer).abheben(betrag);
+        long beginn = metriken.beginn();
+        try {
+            validiereKonto(nummer);
+            validiereBetrag(betrag);
+
+            long position = 0;
+            ReentrantLock lock = locks.lockFuer(nummer);
+            lock.lock();
+            try {
+                Konto konto = zumAendern(nummer);
+                if (konto == null) {
+                    throw new KontonummerDoesNotExistException(nummer);
+                }
+                if (!konto.abheben(betrag)) {
+                    return false;
+                }
+                position = protokollieren(Journal.Operation.ABHEBEN, konto);
+            } finally {
+                lock.unlock();
+            }
+            sichern(position);
+            return true;
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.GELD_ABHEBEN, beginn);
+        }
     }
 
     /**
@@ -259,9 +678,28 @@ public class Bank implements Cloneable, Serializable {
      * @throws KontonummerDoesNotExistException if the account number does not exist
      */
     public void geldEinzahlen(long auf, double betrag) throws KontonummerDoesNotExistException {
-        validiereKonto(auf);
-        validiereBetrag(betrag);
-        kontoMap.get(auf).einzahlen(betrag);
+        long beginn = metriken.beginn();
+        try {
+            validiereKonto(auf);
+            validiereBetrag(betrag);
+
+            long position;
+            ReentrantLock lock = locks.lockFuer(auf);
+            lock.lock();
+            try {
+                Konto konto = zumAendern(auf);
+                if (konto == null) {
+                    throw new KontonummerDoesNotExistException(auf);
+                }
+                konto.einzahlen(betrag);
+                position = protokollieren(Journal.Operation.EINZAHLEN, konto);
+            } finally {
+                lock.unlock();
+            }
+            sichern(position);
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.GELD_EINZAHLEN, beginn);
+        }
     }
 
     /**
@@ -271,15 +709,34 @@ public class Bank implements Cloneable, Serializable {
      * @return true if the bank account was successfully deleted, false otherwise
      */
     public boolean kontoLoeschen(long nummer) {
-        if (kontoMap.containsKey(nummer)) {
-            kontoMap.remove(nummer);
+        long beginn = metriken.beginn();
+        try {
+            long position;
+            ReentrantLock lock = locks.lockFuer(nummer);
+            lock.lock();
+            try {
+                Konto geloescht = konten.remove(nummer);
+                if (geloescht == null) {
+                    return false;
+                }
+                belegteNummern.entfernen(nummer);
+                indexeEntfernen(nummer, geloescht);
+                position = journal == null ? 0 : journal.geloescht(nummer);
+            } finally {
+                lock.unlock();
+            }
+            sichern(position);
+            kontonummernVergabe.freigeben(nummer);
             return true;
-        } else
-            return false;
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.KONTO_LOESCHEN, beginn);
+        }
     }
 
     /**
      * Transfers the specified amount of money from one account to another.
+     * The transfer is atomic: both accounts are locked for its whole duration, and if the recipient
+     * cannot be credited the sender's debit is reversed.
      *
      * @param vonKontonr       the account number for the sender
      * @param nachKontonr      the account number for the recipient
@@ -289,35 +746,308 @@ public class Bank implements Cloneable, Serializable {
      * @throws IllegalArgumentException if the amount is negative, zero, infinit or NaN, or if the purpose is blank
      */
     public boolean geldUeberweisen(long vonKontonr, long nachKontonr, double betrag, String verwendungszweck) throws IllegalArgumentException {
-        Konto sender = kontoMap.get(vonKontonr);
-        Konto empfaenger = kontoMap.get(nachKontonr);
+        long beginn = metriken.beginn();
+        try {
+            Konto sender = konten.get(vonKontonr);
+            Konto empfaenger = konten.get(nachKontonr);
+
+            if (sender == null || empfaenger == null) {
+                return false;
+            }
+
+            validiereBetrag(betrag);
+            if (verwendungszweck.isBlank()) {
+                throw new IllegalArgumentException("Bitte geben Sie einen Verwendungszweck an!");
+            }
+
+            if (sender instanceof Ueberweisungsfaehig && empfaenger instanceof Ueberweisungsfaehig) {
 
-        if (sender == null || empfaenger == null) {
+                long position;
+                locks.beideSperren(vonKontonr, nachKontonr);
+                try {
+                    // die Konten koennen inzwischen geloescht oder fuer einen Schnappschuss kopiert worden sein
+                    if (!(konten.get(vonKontonr) instanceof Ueberweisungsfaehig)
+                            || !(konten.get(nachKontonr) instanceof Ueberweisungsfaehig)) {
+                        return false;
+                    }
+                    sender = zumAendern(vonKontonr);
+                    empfaenger = zumAendern(nachKontonr);
+                    Ueberweisungsfaehig ueberweisungsfaehigSender = (Ueberweisungsfaehig) sender;
+                    Ueberweisungsfaehig ueberweisungsfaehigEmpfaenger = (Ueberweisungsfaehig) empfaenger;
+                    String empfaengerName = empfaenger.getInhaber().getName();
+                    if (!sendeUeberweisung(ueberweisungsfaehigSender, betrag, empfaengerName,
+                            empfaenger.getKontonummer(), getBankleitzahl(), verwendungszweck)) {
+                        return false;
+                    }
+                    try {
+                        empfangeUeberweisung(ueberweisungsfaehigEmpfaenger,
+                                betrag, sender.getInhaber().getName(),
+                                sender.getKontonummer(), getBankleitzahl(), verwendungszweck);
+                    } catch (RuntimeException e) {
+                        // Gutschrift fehlgeschlagen: Belastung des Senders zuruecknehmen
+                        empfangeUeberweisung(ueberweisungsfaehigSender, betrag, empfaengerName,
+                                empfaenger.getKontonummer(), getBankleitzahl(), "Rueckbuchung: " + verwendungszweck);
+                        return false;
+                    }
+                    position = protokollieren(Journal.Operation.UEBERWEISEN, sender, empfaenger);
+                } finally {
+                    locks.beideEntsperren(vonKontonr, nachKontonr);
+                }
+                sichern(position);
+                return true;
+            }
             return false;
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.GELD_UEBERWEISEN, beginn);
         }
+    }
 
-        validiereBetrag(betrag);
-        if (verwendungszweck.isBlank()) {
-            throw new IllegalArgumentException("Bitte geben Sie einen Verwendungszweck an!");
+    /**
+     * Returns the partition an account belongs to when the bank is split into the given number of partitions.
+     * Partitions are made of whole lock stripes, so accounts of different partitions never share a lock.
+     *
+     * @param nummer      the account number
+     * @param partitionen the number of partitions
+     * @return the index of the partition
+     */
+    int partition(long nummer, int partitionen) {
+        return Math.floorMod(locks.streifen(nummer), partitionen);
+    }
+
+    /**
+     * The names of the parties of a transfer whose sender has been debited.
+     *
+     * @param senderName     the name of the owner of the sender account
+     * @param empfaengerName the name of the owner of the recipient account
+     */
+    record Abbuchung(String senderName, String empfaengerName) {
+    }
+
+    /**
+     * Debits the sender of a transfer whose recipient is credited in a separate step,
+     * see {@link #ueberweisungGutschreiben(long, long, String, double, String)}. Only the sender is locked.
+     *
+     * @param vonKontonr       the account number of the sender
+     * @param nachKontonr      the account number of the recipient
+     * @param betrag           the amount of money to transfer, already validated
+     * @param verwendungszweck the purpose of the money transfer, already validated
+     * @return the names of sender and recipient if the sender was debited, null otherwise
+     */
+    Abbuchung ueberweisungAbbuchen(long vonKontonr, long nachKontonr, double betrag, String verwendungszweck) {
+        String empfaengerName = inhaberName(nachKontonr);
+        if (empfaengerName == null) {
+            return null;
         }
+        String senderName = ueberweisungAbbuchen(vonKontonr, empfaengerName, nachKontonr, getBankleitzahl(),
+                betrag, verwendungszweck);
+        return senderName == null ? null : new Abbuchung(senderName, empfaengerName);
+    }
 
-        if (sender instanceof Ueberweisungsfaehig ueberweisungsfaehigSender &&
-                empfaenger instanceof Ueberweisungsfaehig ueberweisungsfaehigEmpfaenger) {
+    /**
+     * Debits the sender of a transfer to the given recipient, which may be an account of another bank.
+     * Only the sender is locked.
+     *
+     * @param vonKontonr       the account number of the sender
+     * @param empfaengerName   the name of the recipient
+     * @param nachKontonr      the account number of the recipient
+     * @param nachBlz          the bank code of the recipient's bank
+     * @param betrag           the amount of money to transfer, already validated
+     * @param verwendungszweck the purpose of the money transfer, already validated
+     * @return the name of the sender if the sender was debited, null otherwise
+     */
+    String ueberweisungAbbuchen(long vonKontonr, String empfaengerName, long nachKontonr, long nachBlz,
+                                double betrag, String verwendungszweck) {
+        long position;
+        String senderName;
+        ReentrantLock lock = locks.lockFuer(vonKontonr);
+        lock.lock();
+        try {
+            if (!(konten.get(vonKontonr) instanceof Ueberweisungsfaehig)) {
+                return null;
+            }
+            Konto sender = zumAendern(vonKontonr);
+            if (!sendeUeberweisung((Ueberweisungsfaehig) sender, betrag, empfaengerName,
+                    nachKontonr, nachBlz, verwendungszweck)) {
+                return null;
+            }
+            position = protokollieren(Journal.Operation.UEBERWEISEN, sender);
+            senderName = sender.getInhaber().getName();
+        } finally {
+            lock.unlock();
+        }
+        sichern(position);
+        return senderName;
+    }
 
-            boolean ueberweisungErfolgt = sendeUeberweisung(ueberweisungsfaehigSender,
-                    betrag, empfaenger.getInhaber().getName(),
-                    empfaenger.getKontonummer(), getBankleitzahl(), verwendungszweck);
+    /**
+     * Returns the name of the owner of an account that can receive transfers.
+     *
+     * @param nummer the account number
+     * @return the name of the owner, null if the account does not exist or cannot receive transfers
+     */
+    String inhaberName(long nummer) {
+        Konto konto = konten.get(nummer);
+        return konto instanceof Ueberweisungsfaehig ? konto.getInhaber().getName() : null;
+    }
 
-            if (ueberweisungErfolgt) {
-                empfangeUeberweisung(ueberweisungsfaehigEmpfaenger,
-                        betrag, sender.getInhaber().getName(),
-                        sender.getKontonummer(), getBankleitzahl(), verwendungszweck);
-                return true;
+    /**
+     * Credits the recipient of a transfer whose sender was debited in a separate step,
+     * see {@link #ueberweisungAbbuchen(long, long, double, String)}. Only the recipient is locked.
+     * Also used to reverse the debit if the recipient cannot be credited.
+     *
+     * @param nachKontonr      the account number of the recipient
+     * @param vonKontonr       the account number of the sender
+     * @param vonName          the name of the sender
+     * @param betrag           the amount of money transferred
+     * @param verwendungszweck the purpose of the money transfer
+     * @return true if the recipient was credited, false if it does not exist (anymore) or refused the transfer
+     */
+    boolean ueberweisungGutschreiben(long nachKontonr, long vonKontonr, String vonName,
+                                     double betrag, String verwendungszweck) {
+        long position;
+        ReentrantLock lock = locks.lockFuer(nachKontonr);
+        lock.lock();
+        try {
+            if (!(konten.get(nachKontonr) instanceof Ueberweisungsfaehig)) {
+                return false;
             }
+            Konto empfaenger = zumAendern(nachKontonr);
+            try {
+                empfangeUeberweisung((Ueberweisungsfaehig) empfaenger, betrag, vonName,
+                        vonKontonr, getBankleitzahl(), verwendungszweck);
+            } catch (RuntimeException e) {
+                return false;
+            }
+            position = protokollieren(Journal.Operation.UEBERWEISEN, empfaenger);
+        } finally {
+            lock.unlock();
+        }
+        sichern(position);
+        return true;
+    }
 
-            return false;
+    /**
+     * Credits the recipients of a batch of transfers from other banks. All credits of an account are netted,
+     * so every account gets a single balance update, and the whole batch gets a single journal record.
+     *
+     * @param zahlungen the transfers, all of them to this bank
+     * @return for every transfer, at the same index, whether its recipient was credited;
+     * false if the recipient does not exist (anymore) or cannot receive transfers
+     * @throws ArithmeticException if a balance would overflow; nothing is booked then
+     */
+    boolean[] gutschriftenBuchen(List<Clearingstelle.Zahlung> zahlungen) {
+        int n = zahlungen.size();
+        KontoIndex index = new KontoIndex(Math.min(n, konten.size()));
+        int[] nach = new int[n];
+        for (int i = 0; i < n; i++) {
+            nach[i] = index.index(zahlungen.get(i).nachKontonr());
+        }
+        long[] beteiligte = index.nummern();
+
+        boolean[] gebucht = new boolean[n];
+        long position = 0;
+        int[] gesperrteStreifen = locks.alleSperren(beteiligte);
+        try {
+            long[] gutschrift = new long[beteiligte.length];
+            boolean[] empfangsbereit = new boolean[beteiligte.length];
+            for (int k = 0; k < beteiligte.length; k++) {
+                empfangsbereit[k] = konten.get(beteiligte[k]) instanceof Ueberweisungsfaehig;
+            }
+            for (int i = 0; i < n; i++) {
+                if (empfangsbereit[nach[i]]) {
+                    gutschrift[nach[i]] = Geldbetrag.addieren(gutschrift[nach[i]], Geldbetrag.inCent(zahlungen.get(i).betrag()));
+                    gebucht[i] = true;
+                }
+            }
+            // Ueberlaeufe vor der ersten Buchung erkennen, damit der Stapel ganz oder gar nicht gebucht wird
+            for (int k = 0; k < beteiligte.length; k++) {
+                if (gutschrift[k] != 0) {
+                    Geldbetrag.addieren(konten.get(beteiligte[k]).getKontostandCent(), gutschrift[k]);
+                }
+            }
+            List<Konto> geaendert = new ArrayList<>();
+            for (int k = 0; k < beteiligte.length; k++) {
+                if (gutschrift[k] != 0) {
+                    Konto konto = zumAendern(beteiligte[k]);
+                    ((Ueberweisungsfaehig) konto).ueberweisungenSaldieren(0, Geldbetrag.alsBetrag(gutschrift[k]));
+                    geaendert.add(konto);
+                }
+            }
+            if (!geaendert.isEmpty()) {
+                position = protokollieren(Journal.Operation.UEBERWEISEN, geaendert.toArray(new Konto[0]));
+            }
+        } finally {
+            locks.entsperren(gesperrteStreifen);
+        }
+        sichern(position);
+        return gebucht;
+    }
+
+    /**
+     * Executes a batch of transfers between accounts of this bank.
+     * <p>
+     * The whole batch is validated before anything is booked. All movements of an account are netted,
+     * so every account gets a single balance update. The outgoing transfers of a sender are checked
+     * in the order of the batch against its balance before the batch; incoming transfers of the same batch
+     * do not cover outgoing ones. The checks run in parallel before the accounts are locked; while they are
+     * locked only the checks invalidated in the meantime are repeated and the balances are updated, so no
+     * parallel work is done while holding account locks. The update writes one netted balance per account,
+     * which costs less than handing the disjoint stripes to other threads.
+     *
+     * @param auftraege the transfers
+     * @return the outcome of every transfer, at the same index as in the batch
+     * @throws IllegalArgumentException if the batch is null, or if any transfer is null, has an amount that is
+     *                                  negative, zero, infinite or NaN, or has a blank purpose
+     */
+    public UeberweisungsErgebnis[] geldUeberweisenBatch(List<Ueberweisungsauftrag> auftraege) {
+        long beginn = metriken.beginn();
+        try {
+            if (auftraege == null) {
+                throw new IllegalArgumentException("Invalid batch");
+            }
+            int n = auftraege.size();
+            Ueberweisungsauftrag[] auftrag = auftraege.toArray(new Ueberweisungsauftrag[0]);
+            for (int i = 0; i < n; i++) {
+                if (auftrag[i] == null) {
+                    throw new IllegalArgumentException("Ueberweisung " + i + " fehlt");
+                }
+                validiereBetrag(auftrag[i].betrag());
+                if (auftrag[i].verwendungszweck() == null || auftrag[i].verwendungszweck().isBlank()) {
+                    throw new IllegalArgumentException("Bitte geben Sie einen Verwendungszweck an! (Ueberweisung " + i + ")");
+                }
+            }
+
+            // Pruefung ohne Sperren, nur was sich bis zum Sperren geaendert hat wird wiederholt
+            Ueberweisungsstapel stapel = new Ueberweisungsstapel(auftrag, konten.size());
+            stapel.pruefen(konten, true);
+            long[] beteiligte = stapel.nummern();
+
+            long position = 0;
+            int[] gesperrteStreifen = locks.alleSperren(beteiligte);
+            try {
+                stapel.nachpruefen(konten);
+                stapel.gutschriftenSummieren();
+
+                List<Konto> geaendert = new ArrayList<>();
+                for (int k = 0; k < beteiligte.length; k++) {
+                    if (stapel.betroffen(k)) {
+                        Konto konto = zumAendern(beteiligte[k]);
+                        ((Ueberweisungsfaehig) konto).ueberweisungenSaldieren(
+                                Geldbetrag.alsBetrag(stapel.belastung(k)), Geldbetrag.alsBetrag(stapel.gutschrift(k)));
+                        geaendert.add(konto);
+                    }
+                }
+                if (!geaendert.isEmpty()) {
+                    position = protokollieren(Journal.Operation.UEBERWEISEN, geaendert.toArray(new Konto[0]));
+                }
+            } finally {
+                locks.entsperren(gesperrteStreifen);
+            }
+            sichern(position);
+            return stapel.ergebnisse();
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.UEBERWEISUNGEN_BATCH, beginn);
         }
-        return false;
     }
 
     /**
@@ -358,40 +1088,652 @@ public class Bank implements Cloneable, Serializable {
     /**
      * Locks all bank accounts with a negative account balance.
      * Once locked, the account cannot be accessed or modified.
-     * This method iterates over all bank accounts in the bank and filters out
-     * the ones with a negative account balance. It then calls the {@link Konto#sperren()} method
-     * for each filtered account to lock it.
+     * This method looks up the accounts with a negative account balance in the balance index
+     * of the bank, so it visits only the overdrawn accounts. It then calls the {@link Konto#sperren()} method
+     * for each of them to lock it.
      */
     public void pleitegeierSperren() {
-        kontoMap.values().stream()
-                .filter(konto -> konto.getKontostand() < 0)
-                .forEach(Konto::sperren);
+        long beginn = metriken.beginn();
+        try {
+            sperrenUnter(0);
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.PLEITEGEIER_SPERREN, beginn);
+        }
+    }
+
+    /**
+     * Switches on continuous locking: from now on every account is locked in the moment its balance falls
+     * below the given threshold, as part of the operation that changes the balance. Accounts that are below
+     * the threshold already are locked immediately. Calling this method again changes the threshold.
+     * <p>
+     * Continuous locking is not part of the state of the bank: it is neither journaled nor serialized,
+     * and snapshots do not inherit it.
+     *
+     * @param grenze the threshold, e.g. 0 to lock every account that becomes overdrawn
+     * @throws IllegalArgumentException if grenze is NaN or infinite
+     */
+    public void pleitegeierLaufendSperren(double grenze) {
+        if (Double.isNaN(grenze) || Double.isInfinite(grenze)) {
+            throw new IllegalArgumentException("Invalid threshold");
+        }
+        sperrwaechter().setGrenze(grenze);
+        sperrenUnter(grenze);
+    }
+
+    /**
+     * Switches off continuous locking. Accounts locked so far stay locked.
+     */
+    public void pleitegeierLaufendSperrenBeenden() {
+        Sperrwaechter waechter = sperrwaechter;
+        if (waechter != null) {
+            waechter.setGrenze(Double.NEGATIVE_INFINITY);
+        }
+    }
+
+    /**
+     * Locks all bank accounts with a balance below the given threshold, visiting only these accounts.
+     *
+     * @param grenze the threshold
+     */
+    private void sperrenUnter(double grenze) {
+        LongStream.Builder kandidaten = LongStream.builder();
+        kontostandIndex().unterBesuchen(grenze, kandidaten);
+        long[] position = {0};
+        kandidaten.build().sorted().forEach(nummer -> {
+            ReentrantLock lock = locks.lockFuer(nummer);
+            lock.lock();
+            try {
+                Konto aktuell = konten.get(nummer);
+                if (aktuell != null && aktuell.getKontostand() < grenze && !aktuell.isGesperrt()) {
+                    aktuell = zumAendern(nummer);
+                    aktuell.sperren();
+                    position[0] = protokollieren(Journal.Operation.SPERREN, aktuell);
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+        sichern(position[0]);
+    }
+
+    /**
+     * Changes the currency of the account with the given account number at the current exchange rates.
+     *
+     * @param nummer the account number
+     * @param neu    the new currency
+     * @return the version of the {@link Wechselkurse} used for the conversion
+     * @throws KontonummerDoesNotExistException if the account number does not exist
+     * @throws IllegalArgumentException         if the currency is null
+     */
+    public long waehrungswechsel(long nummer, Waehrung neu) throws KontonummerDoesNotExistException {
+        long beginn = metriken.beginn();
+        try {
+            if (neu == null) {
+                throw new IllegalArgumentException("Invalid currency");
+            }
+            validiereKonto(nummer);
+
+            long position;
+            Wechselkurse kurse = Wechselkurse.aktuell();
+            ReentrantLock lock = locks.lockFuer(nummer);
+            lock.lock();
+            try {
+                Konto konto = zumAendern(nummer);
+                if (konto == null) {
+                    throw new KontonummerDoesNotExistException(nummer);
+                }
+                konto.waehrungswechsel(neu, kurse);
+                position = protokollieren(Journal.Operation.WAEHRUNGSWECHSEL, konto);
+            } finally {
+                lock.unlock();
+            }
+            sichern(position);
+            return kurse.getVersion();
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.WAEHRUNGSWECHSEL, beginn);
+        }
+    }
+
+    /**
+     * Changes the currency of all accounts in the currency alt to the currency neu, e.g. when a currency is replaced
+     * by the Euro. All accounts are converted with the same exchange rates.
+     * <p>
+     * The accounts are split into one partition per processor along the lock stripes, so no two partitions share
+     * a stripe, and the partitions are migrated in parallel on threads of their own, not on the common pool.
+     * A partition works through its accounts in batches of at most {@value #UMSTELLUNG_STAPELGROESSE}: it locks
+     * the stripes of a batch, converts its accounts, writes a single journal record for them and releases the locks
+     * again, so other transactions are held up for one batch at most. Accounts opened in the currency alt while the
+     * migration runs may keep it.
+     *
+     * @param alt the currency of the accounts to migrate
+     * @param neu the new currency
+     * @return the number of migrated accounts and the version of the {@link Wechselkurse} used
+     * @throws IllegalArgumentException if a currency is null
+     */
+    public Waehrungsumstellung waehrungUmstellen(Waehrung alt, Waehrung neu) {
+        long beginn = metriken.beginn();
+        try {
+            if (alt == null || neu == null) {
+                throw new IllegalArgumentException("Invalid currency");
+            }
+            Wechselkurse kurse = Wechselkurse.aktuell();
+            if (alt == neu) {
+                return new Waehrungsumstellung(0, kurse.getVersion());
+            }
+
+            long[] kandidaten = konten.stream().parallel()
+                    .filter(konto -> konto.getAktuelleWaehrung() == alt)
+                    .mapToLong(Konto::getKontonummer)
+                    .toArray();
+
+            // Partitionen ueber die Streifen bilden, damit sich parallele Partitionen nie gegenseitig blockieren
+            int partitionen = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), kandidaten.length));
+            int[] anfang = new int[partitionen + 1];
+            for (long nummer : kandidaten) {
+                anfang[locks.streifen(nummer) % partitionen + 1]++;
+            }
+            for (int p = 0; p < partitionen; p++) {
+                anfang[p + 1] += anfang[p];
+            }
+            long[] nummern = new long[kandidaten.length];
+            int[] naechster = Arrays.copyOf(anfang, partitionen);
+            for (long nummer : kandidaten) {
+                nummern[naechster[locks.streifen(nummer) % partitionen]++] = nummer;
+            }
+
+            int[] umgestellt = new int[partitionen];
+            long[] position = new long[partitionen];
+            List<Future<?>> laeufe = new ArrayList<>(partitionen);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int p = 0; p < partitionen; p++) {
+                    int partition = p;
+                    laeufe.add(executor.submit(() -> {
+                        for (int von = anfang[partition]; von < anfang[partition + 1]; von += UMSTELLUNG_STAPELGROESSE) {
+                            long[] stapel = Arrays.copyOfRange(nummern, von, Math.min(von + UMSTELLUNG_STAPELGROESSE, anfang[partition + 1]));
+                            Konto[] geaendert = new Konto[stapel.length];
+                            int n = 0;
+                            int[] gesperrteStreifen = locks.alleSperren(stapel);
+                            try {
+                                for (long nummer : stapel) {
+                                    Konto konto = konten.get(nummer);
+                                    if (konto != null && konto.getAktuelleWaehrung() == alt) {
+                                        konto = zumAendern(nummer);
+                                        konto.waehrungswechsel(neu, kurse);
+                                        geaendert[n++] = konto;
+                                    }
+                                }
+                            } finally {
+                                try {
+                                    if (n > 0) {
+                                        position[partition] = protokollieren(Journal.Operation.WAEHRUNGSWECHSEL, Arrays.copyOf(geaendert, n));
+                                    }
+                                } finally {
+                                    locks.entsperren(gesperrteStreifen);
+                                    umgestellt[partition] += n;
+                                }
+                            }
+                        }
+                    }));
+                }
+            }
+            sichern(Arrays.stream(position).max().orElse(0));
+            for (Future<?> lauf : laeufe) {
+                try {
+                    lauf.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException fehler) {
+                        throw fehler;
+                    }
+                    if (e.getCause() instanceof Error fehler) {
+                        throw fehler;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+            return new Waehrungsumstellung(Arrays.stream(umgestellt).sum(), kurse.getVersion());
+        } finally {
+            metriken.erfassen(Bankmetriken.Operation.WAEHRUNGSUMSTELLUNG, beginn);
+        }
+    }
+
+    /**
+     * Returns the balance index of the bank. The index is built on first use, with all accounts locked,
+     * and then kept up to date by the accounts themselves.
+     *
+     * @return the balance index
+     */
+    private KontostandIndex kontostandIndex() {
+        KontostandIndex index = kontostandIndex;
+        if (index == null) {
+            int[] streifen = locks.allesSperren();
+            try {
+                index = kontostandIndex;
+                if (index == null) {
+                    KontostandIndex neu = new KontostandIndex(konten, new WeakReference<>(this));
+                    konten.forEach(neu::hinzufuegen);
+                    CLEANER.register(this, neu::abmelden);
+                    kontostandIndex = index = neu;
+                }
+            } finally {
+                locks.entsperren(streifen);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the running totals per customer. They are built on first use, with all accounts locked,
+     * and then kept up to date by the accounts themselves.
+     *
+     * @return the totals per customer
+     */
+    private KundenSummen kundenSummen() {
+        KundenSummen summen = kundenSummen;
+        if (summen == null) {
+            int[] streifen = locks.allesSperren();
+            try {
+                summen = kundenSummen;
+                if (summen == null) {
+                    KundenSummen neu = new KundenSummen(konten, new WeakReference<>(this));
+                    konten.forEach(neu::hinzufuegen);
+                    CLEANER.register(this, neu::abmelden);
+                    kundenSummen = summen = neu;
+                }
+            } finally {
+                locks.entsperren(streifen);
+            }
+        }
+        return summen;
+    }
+
+    /**
+     * Returns the customer directory of the bank. It is built on first use, with all accounts locked,
+     * and then kept up to date by the accounts and customers themselves.
+     *
+     * @return the customer directory
+     */
+    private Kundenverzeichnis kundenverzeichnis() {
+        Kundenverzeichnis verzeichnis = kundenverzeichnis;
+        if (verzeichnis == null) {
+            int[] streifen = locks.allesSperren();
+            try {
+                verzeichnis = kundenverzeichnis;
+                if (verzeichnis == null) {
+                    Kundenverzeichnis neu = new Kundenverzeichnis(konten, new WeakReference<>(this));
+                    konten.forEach(neu::hinzufuegen);
+                    CLEANER.register(this, neu::abmelden);
+                    kundenverzeichnis = verzeichnis = neu;
+                }
+            } finally {
+                locks.entsperren(streifen);
+            }
+        }
+        return verzeichnis;
+    }
+
+    /**
+     * Returns the watcher for continuous locking. It is registered with all accounts on first use,
+     * with all accounts locked, and switched off until a threshold is set.
+     *
+     * @return the watcher
+     */
+    private Sperrwaechter sperrwaechter() {
+        Sperrwaechter waechter = sperrwaechter;
+        if (waechter == null) {
+            int[] streifen = locks.allesSperren();
+            try {
+                waechter = sperrwaechter;
+                if (waechter == null) {
+                    Sperrwaechter neu = new Sperrwaechter(konten, new WeakReference<>(this));
+                    konten.forEach(neu::hinzufuegen);
+                    CLEANER.register(this, neu::abmelden);
+                    sperrwaechter = waechter = neu;
+                }
+            } finally {
+                locks.entsperren(streifen);
+            }
+        }
+        return waechter;
+    }
+
+    /**
+     * Adds an account to the indexes built so far. Called with the lock of the account held.
+     */
+    private void indexeHinzufuegen(long nummer, Konto konto) {
+        KontostandIndex index = kontostandIndex;
+        if (index != null) {
+            index.hinzufuegen(nummer, konto);
+        }
+        KundenSummen summen = kundenSummen;
+        if (summen != null) {
+            summen.hinzufuegen(nummer, konto);
+        }
+        Kundenverzeichnis verzeichnis = kundenverzeichnis;
+        if (verzeichnis != null) {
+            verzeichnis.hinzufuegen(nummer, konto);
+        }
+        Sperrwaechter waechter = sperrwaechter;
+        if (waechter != null) {
+            waechter.hinzufuegen(nummer, konto);
+        }
+    }
+
+    /**
+     * Removes an account from the indexes built so far. Called with the lock of the account held.
+     */
+    private void indexeEntfernen(long nummer, Konto konto) {
+        KontostandIndex index = kontostandIndex;
+        if (index != null) {
+            index.entfernen(nummer, konto);
+        }
+        KundenSummen summen = kundenSummen;
+        if (summen != null) {
+            summen.entfernen(nummer, konto);
+        }
+        Kundenverzeichnis verzeichnis = kundenverzeichnis;
+        if (verzeichnis != null) {
+            verzeichnis.entfernen(nummer, konto);
+        }
+        Sperrwaechter waechter = sperrwaechter;
+        if (waechter != null) {
+            waechter.entfernen(nummer, konto);
+        }
+    }
+
+    /**
+     * Tells the indexes built so far that an account was replaced by an equal copy.
+     * Called with the lock of the account held.
+     */
+    private void indexeErsetzt(Konto kopie) {
+        KontostandIndex index = kontostandIndex;
+        if (index != null) {
+            index.ersetzt(kopie);
+        }
+        KundenSummen summen = kundenSummen;
+        if (summen != null) {
+            summen.ersetzt(kopie);
+        }
+        Kundenverzeichnis verzeichnis = kundenverzeichnis;
+        if (verzeichnis != null) {
+            verzeichnis.ersetzt(kopie);
+        }
+        Sperrwaechter waechter = sperrwaechter;
+        if (waechter != null) {
+            waechter.ersetzt(kopie);
+        }
+    }
+
+    /*
+     * ###############################################
+     * Methods for journaling and recovery
+     * ###############################################
+     */
+
+    /**
+     * Appends the state of the given accounts to the journal. Called with the locks of the accounts held,
+     * so the records of an account are in the same order as its mutations.
+     *
+     * @param operation the mutation
+     * @param geaendert the changed accounts
+     * @return the position of the record in the journal, 0 if the bank is not journaled
+     */
+    private long protokollieren(Journal.Operation operation, Konto... geaendert) {
+        return journal == null ? 0 : journal.geaendert(operation, geaendert);
+    }
+
+    /**
+     * Waits until the journal records up to the given position are on disk.
+     * Called after the locks are released, so other threads can append in the meantime and share the flush.
+     *
+     * @param position the position returned by {@link #protokollieren(Journal.Operation, Konto...)}
+     */
+    private void sichern(long position) {
+        if (journal != null && position > 0) {
+            journal.abwarten(position);
+        }
+    }
+
+    /**
+     * Restores a bank from the given journal and journals all further mutations to it.
+     * <p>
+     * The records are partitioned by account number and the partitions are replayed in parallel.
+     * Every record holds the complete state of the account, so the replay does not depend on records of other accounts.
+     * The owners are restored first, one per id in the journal, with their last journaled name and address.
+     *
+     * @param bankleitzahl the bank code
+     * @param journal      the journal of the bank, may be empty
+     * @return the restored bank
+     * @throws IOException              if the journal cannot be read
+     * @throws IllegalArgumentException if journal is null
+     */
+    public static Bank wiederherstellen(long bankleitzahl, Journal journal) throws IOException {
+        if (journal == null) {
+            throw new IllegalArgumentException("Invalid journal");
+        }
+        Bank bank = new Bank(bankleitzahl);
+        List<Journal.Eintrag> eintraege = journal.lesen();
+
+        Map<Long, Journal.Inhaber> inhaber = new HashMap<>();
+        for (Journal.Eintrag eintrag : eintraege) {
+            if (eintrag.inhaber() != null) {
+                inhaber.put(eintrag.inhaber().id(), eintrag.inhaber());
+            }
+        }
+        Map<Long, Kunde> kunden = new HashMap<>();
+        for (Journal.Inhaber daten : inhaber.values()) {
+            Kunde kunde = new Kunde(daten.vorname(), daten.nachname(), daten.adresse(), daten.geburtstag());
+            kunden.put(daten.id(), kunde);
+            journal.kundeZuordnen(kunde, daten.id());
+        }
+
+        int partitionen = Runtime.getRuntime().availableProcessors();
+        List<List<Journal.Eintrag>> partition = new ArrayList<>(partitionen);
+        for (int i = 0; i < partitionen; i++) {
+            partition.add(new ArrayList<>());
+        }
+        for (Journal.Eintrag eintrag : eintraege) {
+            if (eintrag.operation() == Journal.Operation.KUNDE_AENDERN) {
+                continue;
+            }
+            partition.get(Math.floorMod(bank.locks.streifen(eintrag.nummer()), partitionen)).add(eintrag);
+        }
+
+        partition.parallelStream().forEach(teil -> {
+            for (Journal.Eintrag eintrag : teil) {
+                bank.wiederholen(eintrag, kunden);
+            }
+        });
+        bank.belegteNummern.optimieren();
+        bank.journal = journal;
+        return bank;
+    }
+
+    /**
+     * Applies a single journal entry during recovery.
+     */
+    private void wiederholen(Journal.Eintrag eintrag, Map<Long, Kunde> kunden) {
+        long nummer = eintrag.nummer();
+        Kontozustand zustand = eintrag.zustand();
+        if (zustand == null) {
+            Konto geloescht = konten.remove(nummer);
+            if (geloescht != null) {
+                belegteNummern.entfernen(nummer);
+                indexeEntfernen(nummer, geloescht);
+            }
+            return;
+        }
+        if (eintrag.operation() == Journal.Operation.ERSTELLEN) {
+            kontoEinfuegen(kontoErzeugen(zustand, kunden.get(eintrag.inhaber().id())));
+            return;
+        }
+        Konto konto = konten.get(nummer);
+        if (konto != null) {
+            konto.zustandWiederherstellen(zustand);
+        }
+    }
+
+    /**
+     * Creates an account in the given state, e.g. while restoring the bank.
+     *
+     * @param zustand the state of the account
+     * @param inhaber the owner of the account
+     * @return the account
+     * @throws IllegalArgumentException if the kind of account cannot be restored
+     */
+    static Konto kontoErzeugen(Kontozustand zustand, Kunde inhaber) {
+        Konto konto = switch (zustand.art()) {
+            case GIROKONTO -> new Girokonto(inhaber, zustand.nummer(), zustand.dispo());
+            case SPARBUCH -> new Sparbuch(inhaber, zustand.nummer());
+            default -> throw new IllegalArgumentException("Kontoart " + zustand.art() + " kann nicht wiederhergestellt werden");
+        };
+        konto.zustandWiederherstellen(zustand);
+        return konto;
+    }
+
+    /**
+     * Adds an account with a known number, e.g. while restoring the bank. Replaces an existing account
+     * with the same number.
+     *
+     * @param konto the account
+     */
+    void kontoEinfuegen(Konto konto) {
+        long nummer = konto.getKontonummer();
+        Konto ersetzt = konten.remove(nummer);
+        konten.putIfAbsent(nummer, konto);
+        belegteNummern.hinzufuegen(nummer);
+        if (ersetzt != null) {
+            indexeEntfernen(nummer, ersetzt);
+        }
+        indexeHinzufuegen(nummer, konto);
+        kontonummernVergabe.reservieren(nummer);
+    }
+
+    /*
+     * ###############################################
+     * Methods for snapshots
+     * ###############################################
+     */
+
+    /**
+     * Gives every snapshot of this bank that still shares the given account its own copy,
+     * so this bank can change the account in place. Called with the lock of the account held.
+     *
+     * @param nummer the account number
+     * @param konto  the account of this bank
+     */
+    private void schnappschuesseAbkoppeln(long nummer, Konto konto) {
+        for (WeakReference<Bank> referenz : schnappschuesse) {
+            Bank schnappschuss = referenz.get();
+            if (schnappschuss == null) {
+                schnappschuesse.remove(referenz);
+            } else {
+                schnappschuss.abkoppeln(nummer, konto);
+            }
+        }
+    }
+
+    /**
+     * Replaces the given account of the bank this is a snapshot of by a copy, in this bank
+     * and in all snapshots of this bank. Locks are always taken from the original to the snapshot,
+     * so this cannot deadlock.
+     *
+     * @param nummer the account number
+     * @param konto  the account of the original bank
+     */
+    private void abkoppeln(long nummer, Konto konto) {
+        ReentrantLock lock = locks.lockFuer(nummer);
+        lock.lock();
+        try {
+            schnappschuesseAbkoppeln(nummer, konto);
+            if (konten.get(nummer) == konto) {
+                Konto kopie = konto.kopie();
+                konten.ersetzen(nummer, kopie);
+                indexeErsetzt(kopie);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks all account numbers up to the given one as handed out and compacts the set of numbers in use,
+     * after the accounts of a restored bank have been added.
+     *
+     * @param hoechsteVergebene the highest account number handed out by the restored bank
+     */
+    void wiederherstellenAbschliessen(long hoechsteVergebene) {
+        kontonummernVergabe.reservieren(hoechsteVergebene);
+        belegteNummern.optimieren();
+    }
+
+    /**
+     * Returns the highest account number handed out so far.
+     *
+     * @return the highest account number
+     */
+    long getHoechsteVergebeneKontonummer() {
+        return kontonummernVergabe.getHoechsteVergebene();
+    }
+
+    /**
+     * Calls the visitor for every account of the bank in ascending order of the account number.
+     *
+     * @param besucher the visitor
+     */
+    void kontenBesuchen(KontoVerzeichnis.Besucher besucher) {
+        konten.forEach(besucher);
+    }
+
+    /**
+     * Returns a stream of all accounts of the bank in ascending order of the account number.
+     * The stream splits along the chunks of the account directory, so it can be processed in parallel.
+     *
+     * @return the accounts
+     */
+    Stream<Konto> kontenStream() {
+        return konten.stream();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
+        ois.defaultReadObject();
+        locks = new KontoLocks();
+        metriken = new Bankmetriken();
+        schnappschuesse = new CopyOnWriteArrayList<>();
+        belegteNummern = new KontonummernBitmap();
+        for (long nummer : konten.nummern()) {
+            belegteNummern.hinzufuegen(nummer);
+        }
+        belegteNummern.optimieren();
     }
 
     /**
      * Creates a clone of the current Bank object.
+     * <p>
+     * The clone is a copy-on-write snapshot: it takes time proportional to the number of lock stripes and chunks,
+     * not to the number of accounts. Both banks share the accounts and their owners until an account is changed
+     * in one of them. The clone is not journaled.
+     * <p>
+     * The indexes the clone builds for its queries listen to the shared accounts only as long as the clone is
+     * reachable, and the bank forgets a clone that is gone the next time it is cloned.
      *
      * @return a clone of the current Bank object
      * @throws CloneNotSupportedException if cloning is not supported for the Bank object
      */
     @Override
     public Bank clone() throws CloneNotSupportedException {
-        byte[] byteData;
-
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-             ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-            oos.writeObject(this);
-            oos.flush();
-            byteData = bos.toByteArray();
-        } catch (IOException e) {
-            throw new CloneNotSupportedException("Bank could not be cloned");
-        }
-
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(byteData);
-             ObjectInputStream ois = new ObjectInputStream(bais)) {
-            return (Bank) ois.readObject();
-        } catch (ClassNotFoundException | IOException e) {
-            throw new CloneNotSupportedException("Bank could not be cloned");
+        int[] streifen = locks.allesSperren();
+        try {
+            Bank schnappschuss = new Bank(this);
+            // Verweise auf nicht mehr erreichbare Schnappschuesse nicht ansammeln
+            schnappschuesse.removeIf(referenz -> referenz.get() == null);
+            schnappschuesse.add(new WeakReference<>(schnappschuss));
+            return schnappschuss;
+        } finally {
+            locks.entsperren(streifen);
         }
     }
 }
@@ -0,0 +1,503 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Aktie;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kontoart;
+import bankprojekt.verarbeitung.Kontozustand;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Waehrung;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Compact binary archive of a whole {@link Bank}, written to and read from NIO channels as a stream.
+ * <p>
+ * The archive starts with a header (magic number, format version, bank code, highest account number handed out)
+ * followed by tagged records. Every text is stored once in a dictionary and referred to by its index,
+ * every customer and every stock is stored once and referred to by its index as well. Accounts are stored
+ * with fixed-width primitive fields and a tag for their kind; account numbers are stored as the distance to the
+ * previous account, indices and counts as variable-length integers. The archive ends with the number of accounts
+ * and a CRC32C checksum of everything before.
+ * <p>
+ * Layout of version 1, fixed-width numbers big-endian, var = unsigned LEB128, zvar = zigzag LEB128:
+ * <pre>
+ * header:     int MAGIE, short VERSION, long bankleitzahl, long hoechsteVergebene
+ * TEXT:       byte tag, var laenge, laenge bytes UTF-8
+ * KUNDE:      byte tag, var vorname, var nachname, var adresse (text indices), long geburtstag (epoch day)
+ * AKTIE:      byte tag, var name, var wertpapierNr (text indices), double kurs
+ * GIROKONTO:  byte tag, konto, double dispo, depot
+ * SPARBUCH:   byte tag, konto, double bereitsAbgehoben, long zeitpunkt (epoch day), depot
+ * ENDE:       byte tag, long anzahlKonten, int crc32c
+ * konto:      zvar nummer minus previous nummer, var kunde, double kontostand, byte gesperrt, byte waehrung
+ * depot:      var anzahl, anzahl times (var aktie, var stueck)
+ * </pre>
+ */
+public final class Bankarchiv {
+    /**
+     * "BKAR"
+     */
+    private static final int MAGIE = 0x424B4152;
+    private static final short VERSION = 1;
+
+    private static final byte ENDE = 0;
+    private static final byte TEXT = 1;
+    private static final byte KUNDE = 2;
+    private static final byte AKTIE = 3;
+    private static final byte GIROKONTO = 4;
+    private static final byte SPARBUCH = 5;
+
+    private static final int PUFFERGROESSE = 1 << 16;
+    private static final int STAPELGROESSE = 1 << 14;
+    private static final long KEIN_DATUM = Long.MIN_VALUE;
+
+    private Bankarchiv() {
+    }
+
+    /**
+     * Writes the given bank to the channel. The bank is archived from a snapshot,
+     * so it can be used by other threads while it is written.
+     *
+     * @param bank  the bank
+     * @param kanal the channel to write to, is not closed
+     * @throws IOException              if the channel cannot be written
+     * @throws IllegalArgumentException if bank or kanal is null, or if the bank holds a kind of account
+     *                                  that cannot be archived
+     */
+    public static void schreiben(Bank bank, WritableByteChannel kanal) throws IOException {
+        if (bank == null || kanal == null) {
+            throw new IllegalArgumentException("Bank und Kanal duerfen nicht null sein");
+        }
+        Bank schnappschuss;
+        try {
+            schnappschuss = bank.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IOException("Von der Bank konnte kein Schnappschuss erstellt werden", e);
+        }
+        Schreiber schreiber = new Schreiber(kanal);
+        schreiber.kopf(schnappschuss.getBankleitzahl(), schnappschuss.getHoechsteVergebeneKontonummer());
+        try {
+            schnappschuss.kontenBesuchen((nummer, konto) -> {
+                try {
+                    schreiber.konto(konto);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        schreiber.ende();
+    }
+
+    /**
+     * Reads a bank from the channel.
+     *
+     * @param kanal the channel to read from, is not closed
+     * @return the bank, not journaled
+     * @throws IOException              if the channel cannot be read, the archive is damaged or has an unknown version
+     * @throws IllegalArgumentException if kanal is null
+     */
+    public static Bank lesen(ReadableByteChannel kanal) throws IOException {
+        if (kanal == null) {
+            throw new IllegalArgumentException("Der Kanal darf nicht null sein");
+        }
+        Leser leser = new Leser(kanal);
+        leser.fordern(22);
+        if (leser.b.getInt() != MAGIE) {
+            throw new StreamCorruptedException("Kein Bankarchiv");
+        }
+        short version = leser.b.getShort();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unbekannte Archivversion " + version);
+        }
+        Bank bank = new Bank(leser.b.getLong());
+        long hoechsteVergebene = leser.b.getLong();
+
+        List<String> texte = new ArrayList<>();
+        List<Kunde> kunden = new ArrayList<>();
+        List<Aktie> aktien = new ArrayList<>();
+        Stapel stapel = new Stapel();
+        long anzahlKonten = 0;
+        long nummer = 0;
+        while (true) {
+            leser.fordern(1);
+            byte tag = leser.b.get();
+            switch (tag) {
+                case TEXT -> texte.add(leser.text());
+                case KUNDE -> {
+                    String vorname = eintrag(texte, leser.varint());
+                    String nachname = eintrag(texte, leser.varint());
+                    String adresse = eintrag(texte, leser.varint());
+                    leser.fordern(8);
+                    kunden.add(new Kunde(vorname, nachname, adresse, LocalDate.ofEpochDay(leser.b.getLong())));
+                }
+                case AKTIE -> {
+                    String name = eintrag(texte, leser.varint());
+                    String wertpapierNr = eintrag(texte, leser.varint());
+                    leser.fordern(8);
+                    aktien.add(new Aktie(name, wertpapierNr, leser.b.getDouble()));
+                }
+                case GIROKONTO, SPARBUCH -> {
+                    long abstand = leser.varlong();
+                    nummer += (abstand >>> 1) ^ -(abstand & 1);
+                    Kunde inhaber = eintrag(kunden, leser.varint());
+                    leser.fordern(10);
+                    double kontostand = leser.b.getDouble();
+                    boolean gesperrt = leser.b.get() != 0;
+                    Waehrung waehrung = waehrung(leser.b.get());
+                    Kontozustand zustand;
+                    if (tag == GIROKONTO) {
+                        leser.fordern(8);
+                        zustand = new Kontozustand(Kontoart.GIROKONTO, nummer, kontostand, gesperrt, waehrung,
+                                leser.b.getDouble(), 0, null);
+                    } else {
+                        leser.fordern(16);
+                        double bereitsAbgehoben = leser.b.getDouble();
+                        long zeitpunkt = leser.b.getLong();
+                        zustand = new Kontozustand(Kontoart.SPARBUCH, nummer, kontostand, gesperrt, waehrung,
+                                0, bereitsAbgehoben, zeitpunkt == KEIN_DATUM ? null : LocalDate.ofEpochDay(zeitpunkt));
+                    }
+                    int positionen = leser.varint();
+                    int[] depot = positionen == 0 ? null : new int[2 * positionen];
+                    for (int i = 0; i < 2 * positionen; i += 2) {
+                        depot[i] = leser.varint();
+                        eintrag(aktien, depot[i]);
+                        depot[i + 1] = leser.varint();
+                    }
+                    if (stapel.hinzufuegen(zustand, inhaber, depot)) {
+                        stapel.einfuegen(bank, aktien);
+                    }
+                    anzahlKonten++;
+                }
+                case ENDE -> {
+                    leser.fordern(8);
+                    if (leser.b.getLong() != anzahlKonten) {
+                        throw new StreamCorruptedException("Anzahl der Konten stimmt nicht");
+                    }
+                    int erwartet = leser.pruefsumme();
+                    leser.fordern(4);
+                    if (leser.b.getInt() != erwartet) {
+                        throw new StreamCorruptedException("Pruefsumme des Bankarchivs stimmt nicht");
+                    }
+                    stapel.einfuegen(bank, aktien);
+                    bank.wiederherstellenAbschliessen(hoechsteVergebene);
+                    return bank;
+                }
+                default -> throw new StreamCorruptedException("Unbekannter Datensatz " + tag);
+            }
+        }
+    }
+
+    private static <T> T eintrag(List<T> liste, int index) throws StreamCorruptedException {
+        if (index < 0 || index >= liste.size()) {
+            throw new StreamCorruptedException("Verweis auf unbekannten Eintrag " + index);
+        }
+        return liste.get(index);
+    }
+
+    private static Waehrung waehrung(byte ordinal) throws StreamCorruptedException {
+        if (ordinal < 0 || ordinal >= Waehrung.values().length) {
+            throw new StreamCorruptedException("Unbekannte Waehrung " + ordinal);
+        }
+        return Waehrung.values()[ordinal];
+    }
+
+    /**
+     * Decoded accounts that are created in parallel and then added to the bank,
+     * so the sequential decoding does not have to wait for the construction of the accounts.
+     */
+    private static final class Stapel {
+        private final Kontozustand[] zustand = new Kontozustand[STAPELGROESSE];
+        private final Kunde[] inhaber = new Kunde[STAPELGROESSE];
+        private final int[][] depot = new int[STAPELGROESSE][];
+        private final Konto[] konten = new Konto[STAPELGROESSE];
+        private int anzahl;
+
+        /**
+         * Adds a decoded account.
+         *
+         * @return true if the batch is full
+         */
+        boolean hinzufuegen(Kontozustand zustand, Kunde inhaber, int[] depot) {
+            this.zustand[anzahl] = zustand;
+            this.inhaber[anzahl] = inhaber;
+            this.depot[anzahl] = depot;
+            anzahl++;
+            return anzahl == STAPELGROESSE;
+        }
+
+        void einfuegen(Bank bank, List<Aktie> aktien) {
+            IntStream.range(0, anzahl).parallel().forEach(i -> {
+                Konto konto = Bank.kontoErzeugen(zustand[i], inhaber[i]);
+                int[] positionen = depot[i];
+                if (positionen != null) {
+                    for (int p = 0; p < positionen.length; p += 2) {
+                        konto.depotEinbuchen(aktien.get(positionen[p]), positionen[p + 1]);
+                    }
+                }
+                konten[i] = konto;
+            });
+            for (int i = 0; i < anzahl; i++) {
+                bank.kontoEinfuegen(konten[i]);
+                konten[i] = null;
+                zustand[i] = null;
+                inhaber[i] = null;
+                depot[i] = null;
+            }
+            anzahl = 0;
+        }
+    }
+
+    /**
+     * Encodes the records into a buffer that is written to the channel whenever it is full.
+     */
+    private static final class Schreiber {
+        private final WritableByteChannel kanal;
+        private ByteBuffer b = ByteBuffer.allocateDirect(PUFFERGROESSE);
+        private final CRC32C pruefsumme = new CRC32C();
+        private final Map<String, Integer> texte = new HashMap<>();
+        private final Map<Kunde, Integer> kunden = new IdentityHashMap<>();
+        private final Map<Aktie, Integer> aktien = new IdentityHashMap<>();
+        private long anzahlKonten;
+        private long letzteNummer;
+
+        Schreiber(WritableByteChannel kanal) {
+            this.kanal = kanal;
+        }
+
+        private void platz(int bytes) throws IOException {
+            if (b.remaining() < bytes) {
+                leeren();
+                if (b.capacity() < bytes) {
+                    b = ByteBuffer.allocateDirect(bytes);
+                }
+            }
+        }
+
+        private void leeren() throws IOException {
+            b.flip();
+            pruefsumme.update(b.duplicate());
+            while (b.hasRemaining()) {
+                kanal.write(b);
+            }
+            b.clear();
+        }
+
+        /**
+         * Writes an unsigned variable-length integer, seven bits per byte.
+         */
+        private void varlong(long wert) {
+            while ((wert & ~0x7FL) != 0) {
+                b.put((byte) ((wert & 0x7F) | 0x80));
+                wert >>>= 7;
+            }
+            b.put((byte) wert);
+        }
+
+        void kopf(long bankleitzahl, long hoechsteVergebene) throws IOException {
+            platz(22);
+            b.putInt(MAGIE);
+            b.putShort(VERSION);
+            b.putLong(bankleitzahl);
+            b.putLong(hoechsteVergebene);
+        }
+
+        private int text(String text) throws IOException {
+            Integer index = texte.get(text);
+            if (index != null) {
+                return index;
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            platz(6 + bytes.length);
+            b.put(TEXT);
+            varlong(bytes.length);
+            b.put(bytes);
+            index = texte.size();
+            texte.put(text, index);
+            return index;
+        }
+
+        private int kunde(Kunde kunde) throws IOException {
+            Integer index = kunden.get(kunde);
+            if (index != null) {
+                return index;
+            }
+            int vorname = text(kunde.getVorname());
+            int nachname = text(kunde.getNachname());
+            int adresse = text(kunde.getAdresse());
+            platz(24);
+            b.put(KUNDE);
+            varlong(vorname);
+            varlong(nachname);
+            varlong(adresse);
+            b.putLong(kunde.getGeburtstag().toEpochDay());
+            index = kunden.size();
+            kunden.put(kunde, index);
+            return index;
+        }
+
+        private int aktie(Aktie aktie) throws IOException {
+            Integer index = aktien.get(aktie);
+            if (index != null) {
+                return index;
+            }
+            int name = text(aktie.getName());
+            int wertpapierNr = text(aktie.getWertpapierNr());
+            platz(19);
+            b.put(AKTIE);
+            varlong(name);
+            varlong(wertpapierNr);
+            b.putDouble(aktie.getKurs());
+            index = aktien.size();
+            aktien.put(aktie, index);
+            return index;
+        }
+
+        void konto(Konto konto) throws IOException {
+            Kontozustand zustand = konto.zustandSichern();
+            if (zustand.art() != Kontoart.GIROKONTO && zustand.art() != Kontoart.SPARBUCH) {
+                throw new IllegalArgumentException("Konto " + zustand.nummer() + " kann nicht archiviert werden");
+            }
+            int kunde = kunde(konto.getInhaber());
+            Map<Aktie, Integer> depot = konto.getDepot();
+            int[] positionen = new int[2 * depot.size()];
+            int n = 0;
+            for (Map.Entry<Aktie, Integer> eintrag : depot.entrySet()) {
+                if (n == positionen.length) {
+                    break;
+                }
+                positionen[n++] = aktie(eintrag.getKey());
+                positionen[n++] = eintrag.getValue();
+            }
+
+            platz(1 + 10 + 5 + 10 + 16 + 5 + 5 * n);
+            b.put(zustand.art() == Kontoart.GIROKONTO ? GIROKONTO : SPARBUCH);
+            long abstand = zustand.nummer() - letzteNummer;
+            varlong((abstand << 1) ^ (abstand >> 63));
+            letzteNummer = zustand.nummer();
+            varlong(kunde);
+            b.putDouble(zustand.kontostand());
+            b.put((byte) (zustand.gesperrt() ? 1 : 0));
+            b.put((byte) zustand.waehrung().ordinal());
+            if (zustand.art() == Kontoart.GIROKONTO) {
+                b.putDouble(zustand.dispo());
+            } else {
+                b.putDouble(zustand.bereitsAbgehoben());
+                b.putLong(zustand.zeitpunkt() == null ? KEIN_DATUM : zustand.zeitpunkt().toEpochDay());
+            }
+            varlong(n / 2);
+            for (int i = 0; i < n; i++) {
+                varlong(positionen[i]);
+            }
+            anzahlKonten++;
+        }
+
+        void ende() throws IOException {
+            platz(13);
+            b.put(ENDE);
+            b.putLong(anzahlKonten);
+            leeren();
+            b.putInt((int) pruefsumme.getValue());
+            b.flip();
+            while (b.hasRemaining()) {
+                kanal.write(b);
+            }
+        }
+    }
+
+    /**
+     * Reads the channel into a buffer that is refilled whenever a record needs more bytes than are left.
+     */
+    private static final class Leser {
+        private final ReadableByteChannel kanal;
+        private ByteBuffer b = ByteBuffer.allocateDirect(PUFFERGROESSE);
+        private final CRC32C pruefsumme = new CRC32C();
+
+        /**
+         * start of the bytes in the buffer that are not yet part of the checksum
+         */
+        private int geprueft;
+
+        Leser(ReadableByteChannel kanal) {
+            this.kanal = kanal;
+            b.flip();
+        }
+
+        /**
+         * Makes sure that at least the given number of bytes can be read from the buffer.
+         */
+        void fordern(int bytes) throws IOException {
+            if (b.remaining() >= bytes) {
+                return;
+            }
+            pruefsumme.update(b.duplicate().position(geprueft).limit(b.position()));
+            if (b.capacity() < bytes) {
+                ByteBuffer groesser = ByteBuffer.allocateDirect(bytes);
+                groesser.put(b);
+                b = groesser;
+            } else {
+                b.compact();
+            }
+            geprueft = 0;
+            while (b.position() < bytes) {
+                if (kanal.read(b) < 0) {
+                    throw new EOFException("Das Bankarchiv ist unvollstaendig");
+                }
+            }
+            b.flip();
+        }
+
+        /**
+         * Returns the checksum of all bytes read so far.
+         */
+        int pruefsumme() {
+            pruefsumme.update(b.duplicate().position(geprueft).limit(b.position()));
+            geprueft = b.position();
+            return (int) pruefsumme.getValue();
+        }
+
+        long varlong() throws IOException {
+            long wert = 0;
+            for (int verschiebung = 0; verschiebung < 64; verschiebung += 7) {
+                fordern(1);
+                byte teil = b.get();
+                wert |= (long) (teil & 0x7F) << verschiebung;
+                if (teil >= 0) {
+                    return wert;
+                }
+            }
+            throw new StreamCorruptedException("Zahl zu lang");
+        }
+
+        int varint() throws IOException {
+            long wert = varlong();
+            if (wert < 0 || wert > Integer.MAX_VALUE) {
+                throw new StreamCorruptedException("Zahl ausserhalb des Wertebereichs: " + wert);
+            }
+            return (int) wert;
+        }
+
+        String text() throws IOException {
+            int laenge = varint();
+            fordern(laenge);
+            byte[] bytes = new byte[laenge];
+            b.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
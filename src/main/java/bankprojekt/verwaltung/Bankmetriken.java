@@ -0,0 +1,218 @@
+package bankprojekt.verwaltung;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Latency and throughput of the operations of a bank.
+ * <p>
+ * The bank records the latency of every execution of its operations in a {@link Latenzhistogramm},
+ * one per operation. Recording costs two reads of the clock and a few uncontended atomic increments,
+ * so the metrics are always on. They can be read through {@link Bank#getMetriken()} or, once
+ * {@link #registrieren(long) registered}, through JMX as {@link BankmetrikenMXBean}.
+ * <p>
+ * The histogram of an operation is only created when the operation is recorded for the first time,
+ * so a bank or a snapshot pays memory only for the operations actually used.
+ */
+public final class Bankmetriken implements BankmetrikenMXBean {
+    /**
+     * The measured operations of a bank.
+     */
+    public enum Operation {
+        KONTO_ERSTELLEN,
+        KONTO_LOESCHEN,
+        GELD_EINZAHLEN,
+        GELD_ABHEBEN,
+        GELD_UEBERWEISEN,
+        UEBERWEISUNGEN_BATCH,
+        WAEHRUNGSWECHSEL,
+        WAEHRUNGSUMSTELLUNG,
+        KONTOSTAND,
+        ALLE_KONTEN,
+        ALLE_KONTONUMMERN,
+        KONTONUMMERN_LUECKEN,
+        ANZAHL_KONTONUMMERN_LUECKEN,
+        NAECHSTE_FREIE_KONTONUMMER,
+        KUNDEN_MIT_VOLLEM_KONTO,
+        REICHE_KUNDEN,
+        REICHSTE_KUNDEN,
+        KUNDENSALDO,
+        UEBERZIEHUNG,
+        KONTEN_SCHREIBEN,
+        KUNDENADRESSEN,
+        KUNDENADRESSEN_SCHREIBEN,
+        PLEITEGEIER_SPERREN
+    }
+
+    private static final Operation[] OPERATIONEN = Operation.values();
+
+    private static final Latenzstatistik LEER = new Latenzstatistik(0, 0, 0, 0, 0, 0);
+
+    private final AtomicReferenceArray<Latenzhistogramm> histogramme = new AtomicReferenceArray<>(OPERATIONEN.length);
+    private final long erstellt = System.nanoTime();
+    private volatile ObjectName name;
+
+    /**
+     * Creates empty metrics.
+     */
+    Bankmetriken() {
+    }
+
+    /**
+     * Returns the start time of an operation, to be passed to {@link #erfassen(Operation, long)} when it ends.
+     *
+     * @return the current value of the clock
+     */
+    long beginn() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the end of an operation.
+     *
+     * @param operation the operation
+     * @param beginn    the value returned by {@link #beginn()} when the operation started
+     */
+    void erfassen(Operation operation, long beginn) {
+        long dauer = System.nanoTime() - beginn;
+        int i = operation.ordinal();
+        Latenzhistogramm histogramm = histogramme.get(i);
+        if (histogramm == null) {
+            Latenzhistogramm neu = new Latenzhistogramm();
+            histogramm = histogramme.compareAndExchange(i, null, neu);
+            if (histogramm == null) {
+                histogramm = neu;
+            }
+        }
+        histogramm.erfassen(dauer);
+    }
+
+    private Latenzstatistik auswerten(Operation operation) {
+        Latenzhistogramm histogramm = histogramme.get(operation.ordinal());
+        return histogramm == null ? LEER : histogramm.auswerten();
+    }
+
+    /**
+     * Returns the latencies of an operation.
+     *
+     * @param operation the operation
+     * @return the latencies recorded so far
+     * @throws IllegalArgumentException if operation is null
+     */
+    public Latenzstatistik getStatistik(Operation operation) {
+        if (operation == null) {
+            throw new IllegalArgumentException("Invalid operation");
+        }
+        return auswerten(operation);
+    }
+
+    /**
+     * Returns the latencies of all operations.
+     *
+     * @return the latencies recorded so far, per operation
+     */
+    public Map<Operation, Latenzstatistik> getStatistiken() {
+        Map<Operation, Latenzstatistik> statistiken = new EnumMap<>(Operation.class);
+        for (Operation operation : OPERATIONEN) {
+            statistiken.put(operation, auswerten(operation));
+        }
+        return statistiken;
+    }
+
+    /**
+     * Returns the throughput of an operation.
+     *
+     * @param operation the operation
+     * @return the executions per second, averaged since the metrics were created
+     * @throws IllegalArgumentException if operation is null
+     */
+    public double getDurchsatz(Operation operation) {
+        return durchsatz(getStatistik(operation));
+    }
+
+    private double durchsatz(Latenzstatistik statistik) {
+        double sekunden = (System.nanoTime() - erstellt) / 1e9;
+        return sekunden <= 0 ? 0 : statistik.anzahl() / sekunden;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under the name
+     * {@code bankprojekt:type=Bank,bankleitzahl=<bankleitzahl>}.
+     *
+     * @param bankleitzahl the bank code of the bank
+     * @return the name of the MBean
+     * @throws JMException if the metrics cannot be registered, e.g. because the name is taken
+     */
+    public ObjectName registrieren(long bankleitzahl) throws JMException {
+        ObjectName objektname = new ObjectName("bankprojekt:type=Bank,bankleitzahl=" + bankleitzahl);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objektname);
+        name = objektname;
+        return objektname;
+    }
+
+    /**
+     * Unregisters the metrics from the platform MBean server, if they are registered.
+     *
+     * @throws JMException if the metrics cannot be unregistered
+     */
+    public void abmelden() throws JMException {
+        ObjectName objektname = name;
+        if (objektname != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objektname)) {
+                server.unregisterMBean(objektname);
+            }
+            name = null;
+        }
+    }
+
+    private <T> Map<String, T> jeOperation(Function<Latenzstatistik, T> wert) {
+        Map<String, T> werte = new LinkedHashMap<>();
+        for (Operation operation : OPERATIONEN) {
+            werte.put(operation.name(), wert.apply(auswerten(operation)));
+        }
+        return werte;
+    }
+
+    @Override
+    public Map<String, Long> getAnzahl() {
+        return jeOperation(Latenzstatistik::anzahl);
+    }
+
+    @Override
+    public Map<String, Double> getDurchsatz() {
+        return jeOperation(this::durchsatz);
+    }
+
+    @Override
+    public Map<String, Double> getMittelwert() {
+        return jeOperation(Latenzstatistik::mittelwert);
+    }
+
+    @Override
+    public Map<String, Long> getP50() {
+        return jeOperation(Latenzstatistik::p50);
+    }
+
+    @Override
+    public Map<String, Long> getP99() {
+        return jeOperation(Latenzstatistik::p99);
+    }
+
+    @Override
+    public Map<String, Long> getP999() {
+        return jeOperation(Latenzstatistik::p999);
+    }
+
+    @Override
+    public Map<String, Long> getMaximum() {
+        return jeOperation(Latenzstatistik::maximum);
+    }
+}
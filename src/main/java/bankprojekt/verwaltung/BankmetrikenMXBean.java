@@ -0,0 +1,44 @@
+package bankprojekt.verwaltung;
+
+import java.util.Map;
+
+/**
+ * Management interface of the latency metrics of a bank, see {@link Bankmetriken}.
+ * Every attribute maps the name of an operation to its value; latencies are in nanoseconds.
+ */
+public interface BankmetrikenMXBean {
+    /**
+     * @return the number of executions per operation
+     */
+    Map<String, Long> getAnzahl();
+
+    /**
+     * @return the executions per second per operation, averaged since the metrics were created
+     */
+    Map<String, Double> getDurchsatz();
+
+    /**
+     * @return the mean latency per operation
+     */
+    Map<String, Double> getMittelwert();
+
+    /**
+     * @return the median latency per operation
+     */
+    Map<String, Long> getP50();
+
+    /**
+     * @return the 99th percentile of the latency per operation
+     */
+    Map<String, Long> getP99();
+
+    /**
+     * @return the 99.9th percentile of the latency per operation
+     */
+    Map<String, Long> getP999();
+
+    /**
+     * @return the highest latency per operation
+     */
+    Map<String, Long> getMaximum();
+}
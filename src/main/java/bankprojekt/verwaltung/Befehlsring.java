@@ -0,0 +1,140 @@
+package bankprojekt.verwaltung;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer.
+ * <p>
+ * Every slot carries a sequence number that tells whose turn it is: a producer claims the next position
+ * by compare-and-set on the tail and publishes its element by advancing the sequence of the slot, the consumer
+ * takes the element and releases the slot for the next round. No producer ever waits for another one,
+ * and the consumer reads the slots in order without any compare-and-set.
+ * <p>
+ * When the ring is empty the consumer spins for a short while and then parks; producers unpark it after
+ * publishing. When the ring is full, {@link #einstellen(Object)} backs off until the consumer has made room,
+ * {@link #anbieten(Object)} returns at once.
+ *
+ * @param <E> the type of the elements
+ */
+final class Befehlsring<E> {
+    private static final int SPINS = 200;
+
+    private final int maske;
+    private final AtomicReferenceArray<E> elemente;
+    private final AtomicLongArray sequenzen;
+    private final AtomicLong ende = new AtomicLong();
+    private long anfang;
+
+    private volatile Thread verbraucher;
+    private volatile boolean schlaeft;
+
+    /**
+     * Creates an empty ring.
+     *
+     * @param kapazitaet the number of slots, a power of two
+     * @throws IllegalArgumentException if kapazitaet is not a positive power of two
+     */
+    Befehlsring(int kapazitaet) {
+        if (kapazitaet < 1 || Integer.bitCount(kapazitaet) != 1) {
+            throw new IllegalArgumentException("Die Kapazitaet muss eine Zweierpotenz sein");
+        }
+        maske = kapazitaet - 1;
+        elemente = new AtomicReferenceArray<>(kapazitaet);
+        sequenzen = new AtomicLongArray(kapazitaet);
+        for (int i = 0; i < kapazitaet; i++) {
+            sequenzen.set(i, i);
+        }
+    }
+
+    /**
+     * Appends an element, waiting while the ring is full. May be called by any thread.
+     *
+     * @param element the element
+     */
+    void einstellen(E element) {
+        for (int versuche = 1; !anbieten(element); versuche++) {
+            // voll: dem Verbraucher Zeit geben
+            if (versuche < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Appends an element unless the ring is full. May be called by any thread.
+     *
+     * @param element the element
+     * @return true if the element was appended, false if the ring is full
+     */
+    boolean anbieten(E element) {
+        while (true) {
+            long position = ende.get();
+            int index = (int) position & maske;
+            long abstand = sequenzen.get(index) - position;
+            if (abstand < 0) {
+                return false;
+            }
+            if (abstand == 0 && ende.compareAndSet(position, position + 1)) {
+                elemente.set(index, element);
+                sequenzen.set(index, position + 1);
+                if (schlaeft) {
+                    LockSupport.unpark(verbraucher);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Takes the next element without waiting. Must only be called by the consumer.
+     *
+     * @return the element, or null if the ring is empty
+     */
+    E entnehmen() {
+        int index = (int) anfang & maske;
+        if (sequenzen.get(index) != anfang + 1) {
+            return null;
+        }
+        E element = elemente.get(index);
+        elemente.set(index, null);
+        sequenzen.set(index, anfang + maske + 1);
+        anfang++;
+        return element;
+    }
+
+    /**
+     * Takes the next element, waiting until there is one. Must only be called by the consumer thread.
+     *
+     * @return the element
+     * @throws InterruptedException if the consumer is interrupted while waiting
+     */
+    E warten() throws InterruptedException {
+        verbraucher = Thread.currentThread();
+        for (int versuche = 0; ; versuche++) {
+            E element = entnehmen();
+            if (element != null) {
+                return element;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (versuche < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                schlaeft = true;
+                element = entnehmen();
+                if (element != null) {
+                    schlaeft = false;
+                    return element;
+                }
+                LockSupport.park(this);
+                schlaeft = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Geldbetrag;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Routes transfers between several banks of the same process by their bank code and settles them in cycles.
+ * <p>
+ * A transfer to another bank debits the sender at once and is queued. Every call of {@link #abrechnen()}
+ * is one clearing cycle: all queued transfers are credited, each receiving bank books them in one batch
+ * with a single balance update per account, and the transfers are netted per pair of banks into
+ * one {@link Abrechnung settlement} per pair. A transfer whose recipient does not exist anymore is
+ * returned to its sender in the next cycle; if the sender cannot be credited either, the amount is kept as
+ * {@link #getUnzustellbar() undeliverable}. Returns are not part of the settlements: the money never reached
+ * the recipient's bank, so that bank owes nothing for it. If a bank fails to book its batch, its transfers stay
+ * queued for the next cycle. Until its cycle the amount of a transfer is on its way:
+ * it is missing at the sender's bank and not yet at the recipient's.
+ * <p>
+ * The clearing house does not run cycles by itself; call {@link #abrechnen()} at the interval the banks
+ * agreed on, e.g. from a {@link java.util.concurrent.ScheduledExecutorService}. A clearing house can be used
+ * by several threads at the same time, cycles are executed one after another.
+ */
+public class Clearingstelle {
+    private static final Logger LOGGER = Logger.getLogger(Clearingstelle.class.getName());
+
+    private final Map<Long, Bank> banken = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Zahlung> ausstehend = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger anzahlAusstehend = new AtomicInteger();
+    private final List<Zahlung> unzustellbar = new ArrayList<>();
+
+    /**
+     * A transfer between two banks that has been debited and waits for its clearing cycle.
+     *
+     * @param vonBlz           the bank code of the sender's bank
+     * @param vonKontonr       the account number of the sender
+     * @param vonName          the name of the sender
+     * @param nachBlz          the bank code of the recipient's bank
+     * @param nachKontonr      the account number of the recipient
+     * @param empfaengerName   the name of the recipient
+     * @param betrag           the amount of money
+     * @param verwendungszweck the purpose of the transfer
+     * @param rueckbuchung     whether the transfer returns another transfer that could not be credited
+     */
+    record Zahlung(long vonBlz, long vonKontonr, String vonName, long nachBlz, long nachKontonr,
+                   String empfaengerName, double betrag, String verwendungszweck, boolean rueckbuchung) {
+    }
+
+    /**
+     * The netted result of a clearing cycle for one pair of banks: the paying bank owes the receiving bank
+     * the difference of the transfers between them.
+     *
+     * @param zahlerBlz     the bank code of the bank that pays
+     * @param empfaengerBlz the bank code of the bank that receives
+     * @param betrag        the netted amount, never negative
+     * @param anzahl        the number of transfers between the two banks in both directions
+     */
+    public record Abrechnung(long zahlerBlz, long empfaengerBlz, double betrag, int anzahl) {
+    }
+
+    /**
+     * Connects a bank to the clearing house.
+     *
+     * @param bank the bank
+     * @throws IllegalArgumentException if bank is null or a bank with the same bank code is connected already
+     */
+    public void anmelden(Bank bank) {
+        if (bank == null) {
+            throw new IllegalArgumentException("Invalid bank");
+        }
+        if (banken.putIfAbsent(bank.getBankleitzahl(), bank) != null) {
+            throw new IllegalArgumentException("Bankleitzahl " + bank.getBankleitzahl() + " ist bereits angemeldet");
+        }
+    }
+
+    /**
+     * Returns the connected bank with the given bank code.
+     *
+     * @param bankleitzahl the bank code
+     * @return the bank, or null if no bank with this code is connected
+     */
+    public Bank getBank(long bankleitzahl) {
+        return banken.get(bankleitzahl);
+    }
+
+    /**
+     * Returns the number of transfers waiting for the next clearing cycle.
+     *
+     * @return the number of queued transfers
+     */
+    public int getAnzahlAusstehend() {
+        return anzahlAusstehend.get();
+    }
+
+    /**
+     * Returns the total amount of returned transfers whose original sender could not be credited either,
+     * e.g. because both accounts have been deleted in the meantime.
+     *
+     * @return the sum of undeliverable amounts
+     */
+    public synchronized double getUnzustellbar() {
+        long summe = 0;
+        for (Zahlung zahlung : unzustellbar) {
+            summe = Geldbetrag.addieren(summe, Geldbetrag.inCent(zahlung.betrag()));
+        }
+        return Geldbetrag.alsBetrag(summe);
+    }
+
+    /**
+     * Transfers money between two accounts. Within one bank the transfer is executed at once by
+     * {@link Bank#geldUeberweisen(long, long, double, String)}; to another bank the sender is debited at once
+     * and the recipient is credited in the next clearing cycle.
+     *
+     * @param vonBlz           the bank code of the sender's bank
+     * @param vonKontonr       the account number of the sender
+     * @param nachBlz          the bank code of the recipient's bank
+     * @param nachKontonr      the account number of the recipient
+     * @param betrag           the amount of money
+     * @param verwendungszweck the purpose of the transfer
+     * @return true if the transfer was executed or queued, false if one of the accounts does not exist,
+     * cannot take part in transfers, or the sender cannot be debited
+     * @throws IllegalArgumentException if one of the banks is not connected, if the amount is not positive and
+     *                                  finite, or if the purpose is blank
+     */
+    public boolean ueberweisen(long vonBlz, long vonKontonr, long nachBlz, long nachKontonr,
+                               double betrag, String verwendungszweck) {
+        Bank sender = bankFuer(vonBlz);
+        Bank empfaenger = bankFuer(nachBlz);
+        if (sender == empfaenger) {
+            return sender.geldUeberweisen(vonKontonr, nachKontonr, betrag, verwendungszweck);
+        }
+        if (betrag <= 0 || Double.isNaN(betrag) || Double.isInfinite(betrag)) {
+            throw new IllegalArgumentException("Invalid amount");
+        }
+        if (verwendungszweck == null || verwendungszweck.isBlank()) {
+            throw new IllegalArgumentException("Bitte geben Sie einen Verwendungszweck an!");
+        }
+
+        String empfaengerName = empfaenger.inhaberName(nachKontonr);
+        if (empfaengerName == null) {
+            return false;
+        }
+        String senderName = sender.ueberweisungAbbuchen(vonKontonr, empfaengerName, nachKontonr, nachBlz,
+                betrag, verwendungszweck);
+        if (senderName == null) {
+            return false;
+        }
+        einreihen(new Zahlung(vonBlz, vonKontonr, senderName, nachBlz, nachKontonr, empfaengerName,
+                betrag, verwendungszweck, false));
+        return true;
+    }
+
+    /**
+     * Executes a clearing cycle: credits all queued transfers, one batch per receiving bank, and nets them
+     * per pair of banks. Transfers queued while the cycle runs belong to the next cycle, as do the transfers to
+     * a bank that fails to book them.
+     *
+     * @return one settlement per pair of banks with transfers in this cycle, ordered by bank codes
+     */
+    public synchronized List<Abrechnung> abrechnen() {
+        Map<Long, List<Zahlung>> jeEmpfaenger = new HashMap<>();
+        for (int n = anzahlAusstehend.get(); n > 0; n--) {
+            Zahlung zahlung = ausstehend.poll();
+            anzahlAusstehend.decrementAndGet();
+            jeEmpfaenger.computeIfAbsent(zahlung.nachBlz(), blz -> new ArrayList<>()).add(zahlung);
+        }
+
+        // Salden je Bankpaar, jeweils aus Sicht der Bank mit der kleineren Bankleitzahl
+        Map<List<Long>, long[]> salden = new HashMap<>();
+        Map<List<Long>, Integer> anzahl = new HashMap<>();
+        for (Map.Entry<Long, List<Zahlung>> eintrag : jeEmpfaenger.entrySet()) {
+            List<Zahlung> zahlungen = eintrag.getValue();
+            boolean[] gebucht;
+            try {
+                gebucht = banken.get(eintrag.getKey()).gutschriftenBuchen(zahlungen);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Bank " + eintrag.getKey() + " konnte " + zahlungen.size()
+                        + " Gutschriften nicht buchen, sie bleiben für den nächsten Zyklus vorgemerkt", e);
+                zahlungen.forEach(this::einreihen);
+                continue;
+            }
+            for (int i = 0; i < zahlungen.size(); i++) {
+                Zahlung zahlung = zahlungen.get(i);
+                if (!gebucht[i]) {
+                    zurueckgeben(zahlung);
+                    continue;
+                }
+                if (zahlung.rueckbuchung()) {
+                    continue;
+                }
+                long kleinere = Math.min(zahlung.vonBlz(), zahlung.nachBlz());
+                long groessere = Math.max(zahlung.vonBlz(), zahlung.nachBlz());
+                List<Long> paar = List.of(kleinere, groessere);
+                long[] saldo = salden.computeIfAbsent(paar, p -> new long[1]);
+                long betrag = Geldbetrag.inCent(zahlung.betrag());
+                saldo[0] = Geldbetrag.addieren(saldo[0], zahlung.vonBlz() == kleinere ? betrag : -betrag);
+                anzahl.merge(paar, 1, Integer::sum);
+            }
+        }
+
+        List<Abrechnung> abrechnungen = new ArrayList<>(salden.size());
+        for (Map.Entry<List<Long>, long[]> eintrag : salden.entrySet()) {
+            long kleinere = eintrag.getKey().get(0);
+            long groessere = eintrag.getKey().get(1);
+            double saldo = Geldbetrag.alsBetrag(eintrag.getValue()[0]);
+            int zahlungen = anzahl.get(eintrag.getKey());
+            abrechnungen.add(saldo >= 0
+                    ? new Abrechnung(kleinere, groessere, saldo, zahlungen)
+                    : new Abrechnung(groessere, kleinere, -saldo, zahlungen));
+        }
+        abrechnungen.sort(Comparator.comparingLong((Abrechnung a) -> Math.min(a.zahlerBlz(), a.empfaengerBlz()))
+                .thenComparingLong(a -> Math.max(a.zahlerBlz(), a.empfaengerBlz())));
+        return abrechnungen;
+    }
+
+    private Bank bankFuer(long bankleitzahl) {
+        Bank bank = banken.get(bankleitzahl);
+        if (bank == null) {
+            throw new IllegalArgumentException("Bankleitzahl " + bankleitzahl + " ist nicht angemeldet");
+        }
+        return bank;
+    }
+
+    private void einreihen(Zahlung zahlung) {
+        ausstehend.add(zahlung);
+        anzahlAusstehend.incrementAndGet();
+    }
+
+    /**
+     * Queues a transfer that could not be credited as a transfer back to its sender. A return that cannot be
+     * credited either is kept as undeliverable.
+     */
+    private void zurueckgeben(Zahlung zahlung) {
+        if (zahlung.rueckbuchung()) {
+            unzustellbar.add(zahlung);
+            return;
+        }
+        einreihen(new Zahlung(zahlung.nachBlz(), zahlung.nachKontonr(), zahlung.empfaengerName(),
+                zahlung.vonBlz(), zahlung.vonKontonr(), zahlung.vonName(),
+                zahlung.betrag(), "Rueckbuchung: " + zahlung.verwendungszweck(), true));
+    }
+}
@@ -0,0 +1,594 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kontoart;
+import bankprojekt.verarbeitung.Kontozustand;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Waehrung;
+
+import java.beans.PropertyChangeListener;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead journal of the mutations of a {@link Bank}.
+ * <p>
+ * Every mutation is written as a record holding the state of the affected accounts after the mutation,
+ * so replaying the journal only has to apply the last state of each account and the accounts can be
+ * restored in parallel. The records are appended to memory-mapped segment files. A writer waits until its
+ * record is on disk, but the flush is shared: one waiting thread flushes everything appended so far while
+ * the others wait for it (group commit).
+ * <p>
+ * Each record consists of its length, a CRC32C checksum and the payload. A record that was only partially
+ * written when the process crashed fails the checksum and ends the journal.
+ * <p>
+ * The owners of the accounts are journaled under an id the journal assigns to each {@link Kunde} object,
+ * so customers with the same data stay apart. Changes of their name or address are journaled as well.
+ */
+public final class Journal implements Closeable {
+    /**
+     * default size of a segment file in bytes
+     */
+    public static final int STANDARD_SEGMENTGROESSE = 64 << 20;
+
+    private static final String PRAEFIX = "journal-";
+    private static final String SUFFIX = ".seg";
+    private static final int KOPF = 8;
+    private static final long KEIN_DATUM = Long.MIN_VALUE;
+
+    /**
+     * The kind of mutation a record stands for.
+     */
+    enum Operation {
+        ERSTELLEN, LOESCHEN, EINZAHLEN, ABHEBEN, UEBERWEISEN, SPERREN, WAEHRUNGSWECHSEL, KUNDE_AENDERN
+    }
+
+    /**
+     * The data of an owner.
+     *
+     * @param id the id of the owner in this journal
+     */
+    record Inhaber(long id, String vorname, String nachname, String adresse, LocalDate geburtstag) {
+    }
+
+    /**
+     * A single account of a record.
+     *
+     * @param operation the mutation
+     * @param nummer    the account number
+     * @param zustand   the state of the account after the mutation, null if the account was deleted
+     * @param inhaber   the owner, only set if the account was created or the owner was changed;
+     *                  a change of an owner has no account number and no state
+     */
+    record Eintrag(Operation operation, long nummer, Kontozustand zustand, Inhaber inhaber) {
+    }
+
+    private final Path verzeichnis;
+    private final int segmentGroesse;
+
+    private final ReentrantLock schreibLock = new ReentrantLock();
+    private FileChannel kanal;
+    private MappedByteBuffer segment;
+    private long segmentNummer;
+    /**
+     * position of the first byte of the current segment, positions grow over all segments
+     */
+    private long segmentBasis;
+    /**
+     * position after the last appended record
+     */
+    private long geschrieben;
+    private boolean geschlossen;
+
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition gesichertBedingung = commitLock.newCondition();
+    /**
+     * position up to which all records are on disk
+     */
+    private volatile long gesichert;
+    private boolean flushLaeuft;
+
+    private final ThreadLocal<Kodierer> kodierer = ThreadLocal.withInitial(Kodierer::new);
+
+    /**
+     * the ids of the owners journaled so far, guarded by itself
+     */
+    private final Map<Kunde, Long> kundenIds = new WeakHashMap<>();
+    private long naechsteKundenId = 1;
+    private final PropertyChangeListener kundenBeobachter = evt -> abwarten(kundeGeaendert((Kunde) evt.getSource()));
+
+    private Journal(Path verzeichnis, int segmentGroesse) {
+        this.verzeichnis = verzeichnis;
+        this.segmentGroesse = segmentGroesse;
+    }
+
+    /**
+     * Opens the journal in the given directory with the default segment size, creating it if necessary.
+     *
+     * @param verzeichnis the directory of the segment files
+     * @return the journal
+     * @throws IOException if the directory cannot be read or the last segment cannot be opened
+     */
+    public static Journal oeffnen(Path verzeichnis) throws IOException {
+        return oeffnen(verzeichnis, STANDARD_SEGMENTGROESSE);
+    }
+
+    /**
+     * Opens the journal in the given directory, creating it if necessary.
+     * New records are appended after the last complete record; a partially written record at the end is discarded.
+     *
+     * @param verzeichnis    the directory of the segment files
+     * @param segmentGroesse the size of a new segment file in bytes
+     * @return the journal
+     * @throws IOException              if the directory cannot be read or the last segment cannot be opened
+     * @throws IllegalArgumentException if verzeichnis is null or segmentGroesse is too small
+     */
+    public static Journal oeffnen(Path verzeichnis, int segmentGroesse) throws IOException {
+        if (verzeichnis == null || segmentGroesse < 1024) {
+            throw new IllegalArgumentException("Ungueltige Parameter fuer das Journal");
+        }
+        Files.createDirectories(verzeichnis);
+        Journal journal = new Journal(verzeichnis, segmentGroesse);
+        List<Path> segmente = journal.segmente();
+        if (segmente.isEmpty()) {
+            journal.segmentAnlegen(0, segmentGroesse);
+        } else {
+            Path letztes = segmente.get(segmente.size() - 1);
+            String name = letztes.getFileName().toString();
+            journal.segmentNummer = Long.parseLong(name.substring(PRAEFIX.length(), name.length() - SUFFIX.length()));
+            journal.kanal = FileChannel.open(letztes, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            journal.segment = journal.kanal.map(FileChannel.MapMode.READ_WRITE, 0, journal.kanal.size());
+            int ende = lesen(journal.segment, null);
+            // Reste eines abgebrochenen Schreibvorgangs entfernen, damit sie nie als gueltig gelesen werden
+            for (int i = ende; i < journal.segment.capacity(); i++) {
+                journal.segment.put(i, (byte) 0);
+            }
+            journal.segment.force();
+            journal.geschrieben = ende;
+            journal.gesichert = ende;
+        }
+        return journal;
+    }
+
+    /**
+     * Returns the directory of the segment files.
+     *
+     * @return the directory
+     */
+    public Path getVerzeichnis() {
+        return verzeichnis;
+    }
+
+    private List<Path> segmente() throws IOException {
+        try (Stream<Path> dateien = Files.list(verzeichnis)) {
+            return dateien
+                    .filter(p -> p.getFileName().toString().startsWith(PRAEFIX) && p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void segmentAnlegen(long nummer, int groesse) throws IOException {
+        Path datei = verzeichnis.resolve(String.format("%s%016d%s", PRAEFIX, nummer, SUFFIX));
+        kanal = FileChannel.open(datei, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = kanal.map(FileChannel.MapMode.READ_WRITE, 0, groesse);
+        segmentNummer = nummer;
+    }
+
+    /*
+     * ###############################################
+     * Writing
+     * ###############################################
+     */
+
+    /**
+     * Appends the creation of the given account.
+     *
+     * @param konto the new account
+     * @return the position to wait for with {@link #abwarten(long)}
+     * @throws IllegalArgumentException if the account is not one of the account types offered by the bank
+     */
+    long erstellt(Konto konto) {
+        Kodierer k = kodierer.get().beginnen(Operation.ERSTELLEN, 1);
+        k.konto(konto.getKontonummer(), konto.zustandSichern());
+        k.inhaber(kundeId(konto.getInhaber()), konto.getInhaber());
+        return anhaengen(k.beenden());
+    }
+
+    /**
+     * Appends the current name and address of the given owner.
+     *
+     * @param kunde the owner
+     * @return the position to wait for with {@link #abwarten(long)}
+     */
+    private long kundeGeaendert(Kunde kunde) {
+        Kodierer k = kodierer.get().beginnen(Operation.KUNDE_AENDERN, 1);
+        k.inhaber(kundeId(kunde), kunde);
+        return anhaengen(k.beenden());
+    }
+
+    /**
+     * Returns the id of the given owner, assigning a new one when the owner is journaled for the first time.
+     * From then on changes of the owner are journaled.
+     */
+    private long kundeId(Kunde kunde) {
+        synchronized (kundenIds) {
+            Long id = kundenIds.get(kunde);
+            if (id == null) {
+                id = naechsteKundenId++;
+                kundenIds.put(kunde, id);
+                kunde.anmelden(kundenBeobachter);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Assigns the id under which a restored owner was journaled, so further records of the owner use it again.
+     *
+     * @param kunde the restored owner
+     * @param id    its id in this journal
+     */
+    void kundeZuordnen(Kunde kunde, long id) {
+        synchronized (kundenIds) {
+            kundenIds.put(kunde, id);
+            naechsteKundenId = Math.max(naechsteKundenId, id + 1);
+            kunde.anmelden(kundenBeobachter);
+        }
+    }
+
+    /**
+     * Appends the deletion of the account with the given number.
+     *
+     * @param nummer the account number
+     * @return the position to wait for with {@link #abwarten(long)}
+     */
+    long geloescht(long nummer) {
+        Kodierer k = kodierer.get().beginnen(Operation.LOESCHEN, 1);
+        k.konto(nummer, null);
+        return anhaengen(k.beenden());
+    }
+
+    /**
+     * Appends a mutation of the given accounts as a single record.
+     *
+     * @param operation the mutation
+     * @param konten    the accounts after the mutation
+     * @return the position to wait for with {@link #abwarten(long)}
+     * @throws IllegalArgumentException if an account is not one of the account types offered by the bank
+     */
+    long geaendert(Operation operation, Konto... konten) {
+        Kodierer k = kodierer.get().beginnen(operation, konten.length);
+        for (Konto konto : konten) {
+            k.konto(konto.getKontonummer(), konto.zustandSichern());
+        }
+        return anhaengen(k.beenden());
+    }
+
+    private long anhaengen(ByteBuffer rahmen) {
+        int laenge = rahmen.remaining();
+        schreibLock.lock();
+        try {
+            if (geschlossen) {
+                throw new IllegalStateException("Das Journal ist geschlossen");
+            }
+            int offset = (int) (geschrieben - segmentBasis);
+            if (offset + laenge > segment.capacity()) {
+                segmentWechseln(laenge);
+                offset = 0;
+            }
+            segment.put(offset, rahmen, rahmen.position(), laenge);
+            geschrieben += laenge;
+            return geschrieben;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            schreibLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the current segment durably and starts the next one. Called with the write lock held.
+     */
+    private void segmentWechseln(int mindestens) throws IOException {
+        segment.force();
+        kanal.close();
+        gesichertSetzen(geschrieben);
+        segmentBasis = geschrieben;
+        segmentAnlegen(segmentNummer + 1, Math.max(segmentGroesse, mindestens));
+    }
+
+    private void gesichertSetzen(long position) {
+        commitLock.lock();
+        try {
+            if (position > gesichert) {
+                gesichert = position;
+            }
+            gesichertBedingung.signalAll();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until all records up to the given position are on disk. If no other thread is flushing,
+     * the calling thread flushes all records appended so far, including those of other threads.
+     *
+     * @param position a position returned by one of the append methods
+     * @throws UncheckedIOException if the segment cannot be flushed
+     */
+    void abwarten(long position) {
+        if (gesichert >= position) {
+            return;
+        }
+        commitLock.lock();
+        try {
+            while (gesichert < position) {
+                if (flushLaeuft) {
+                    gesichertBedingung.awaitUninterruptibly();
+                    continue;
+                }
+                flushLaeuft = true;
+                long von = gesichert;
+                long bis = von;
+                commitLock.unlock();
+                try {
+                    bis = erzwingen(von);
+                } finally {
+                    commitLock.lock();
+                    flushLaeuft = false;
+                    if (bis > gesichert) {
+                        gesichert = bis;
+                    }
+                    gesichertBedingung.signalAll();
+                }
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the current segment from the given position up to the last appended record.
+     *
+     * @return the position up to which the records are on disk now
+     */
+    private long erzwingen(long von) {
+        MappedByteBuffer aktuell;
+        long basis;
+        long bis;
+        schreibLock.lock();
+        try {
+            aktuell = segment;
+            basis = segmentBasis;
+            bis = geschrieben;
+        } finally {
+            schreibLock.unlock();
+        }
+        long anfang = Math.max(von, basis);
+        if (bis > anfang) {
+            aktuell.force((int) (anfang - basis), (int) (bis - anfang));
+        }
+        return bis;
+    }
+
+    /**
+     * Flushes all records and closes the current segment file.
+     *
+     * @throws IOException if the segment cannot be flushed or closed
+     */
+    @Override
+    public void close() throws IOException {
+        schreibLock.lock();
+        try {
+            if (geschlossen) {
+                return;
+            }
+            geschlossen = true;
+            segment.force();
+            kanal.close();
+            gesichertSetzen(geschrieben);
+        } finally {
+            schreibLock.unlock();
+        }
+        synchronized (kundenIds) {
+            kundenIds.keySet().forEach(kunde -> kunde.abmelden(kundenBeobachter));
+            kundenIds.clear();
+        }
+    }
+
+    /*
+     * ###############################################
+     * Reading
+     * ###############################################
+     */
+
+    /**
+     * Reads all records of all segments. The segments are decoded in parallel.
+     *
+     * @return the entries in the order they were written
+     * @throws IOException if a segment cannot be read or a segment other than the last one is damaged
+     */
+    List<Eintrag> lesen() throws IOException {
+        List<Path> segmente = segmente();
+        List<List<Eintrag>> teile = new ArrayList<>(segmente.size());
+        for (int i = 0; i < segmente.size(); i++) {
+            teile.add(new ArrayList<>());
+        }
+        try {
+            IntStream.range(0, segmente.size()).parallel().forEach(i -> {
+                try (FileChannel datei = FileChannel.open(segmente.get(i), StandardOpenOption.READ)) {
+                    MappedByteBuffer inhalt = datei.map(FileChannel.MapMode.READ_ONLY, 0, datei.size());
+                    int ende = lesen(inhalt, teile.get(i));
+                    boolean letztes = i == segmente.size() - 1;
+                    if (!letztes && ende + 4 <= inhalt.capacity() && inhalt.getInt(ende) != 0) {
+                        throw new IOException("Journal-Segment " + segmente.get(i) + " ist beschaedigt");
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        List<Eintrag> eintraege = new ArrayList<>();
+        for (List<Eintrag> teil : teile) {
+            eintraege.addAll(teil);
+        }
+        return eintraege;
+    }
+
+    /**
+     * Decodes the records of a segment until the first empty or damaged record.
+     *
+     * @param inhalt    the content of the segment
+     * @param eintraege receives the decoded entries, may be null to only find the end
+     * @return the offset after the last complete record
+     */
+    private static int lesen(ByteBuffer inhalt, List<Eintrag> eintraege) {
+        int offset = 0;
+        CRC32C pruefsumme = new CRC32C();
+        while (offset + KOPF <= inhalt.capacity()) {
+            int laenge = inhalt.getInt(offset);
+            if (laenge <= 0 || laenge > inhalt.capacity() - offset - KOPF) {
+                break;
+            }
+            pruefsumme.reset();
+            pruefsumme.update(inhalt.slice(offset + KOPF, laenge));
+            if ((int) pruefsumme.getValue() != inhalt.getInt(offset + 4)) {
+                break;
+            }
+            if (eintraege != null) {
+                dekodieren(inhalt.slice(offset + KOPF, laenge), eintraege);
+            }
+            offset += KOPF + laenge;
+        }
+        return offset;
+    }
+
+    private static void dekodieren(ByteBuffer b, List<Eintrag> eintraege) {
+        Operation operation = Operation.values()[b.get()];
+        int anzahl = b.getInt();
+        if (operation == Operation.KUNDE_AENDERN) {
+            eintraege.add(new Eintrag(operation, 0, null, inhaber(b)));
+            return;
+        }
+        for (int i = 0; i < anzahl; i++) {
+            long nummer = b.getLong();
+            Kontozustand zustand = null;
+            if (b.get() != 0) {
+                byte art = b.get();
+                double kontostand = b.getDouble();
+                boolean gesperrt = b.get() != 0;
+                Waehrung waehrung = Waehrung.values()[b.get()];
+                double dispo = b.getDouble();
+                double bereitsAbgehoben = b.getDouble();
+                long zeitpunkt = b.getLong();
+                zustand = new Kontozustand(Kontoart.values()[art], nummer, kontostand, gesperrt, waehrung,
+                        dispo, bereitsAbgehoben, zeitpunkt == KEIN_DATUM ? null : LocalDate.ofEpochDay(zeitpunkt));
+            }
+            Inhaber inhaber = operation == Operation.ERSTELLEN ? inhaber(b) : null;
+            eintraege.add(new Eintrag(operation, nummer, zustand, inhaber));
+        }
+    }
+
+    private static Inhaber inhaber(ByteBuffer b) {
+        return new Inhaber(b.getLong(), text(b), text(b), text(b), LocalDate.ofEpochDay(b.getLong()));
+    }
+
+    private static String text(ByteBuffer b) {
+        byte[] bytes = new byte[b.getInt()];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Per-thread buffer that encodes a record.
+     */
+    private static final class Kodierer {
+        private ByteBuffer b = ByteBuffer.allocate(1024);
+        private final CRC32C pruefsumme = new CRC32C();
+
+        Kodierer beginnen(Operation operation, int anzahl) {
+            b.clear();
+            b.position(KOPF);
+            platz(5);
+            b.put((byte) operation.ordinal());
+            b.putInt(anzahl);
+            return this;
+        }
+
+        private void platz(int bytes) {
+            if (b.remaining() < bytes) {
+                ByteBuffer groesser = ByteBuffer.allocate(Math.max(b.capacity() * 2, b.position() + bytes));
+                b.flip();
+                groesser.put(b);
+                b = groesser;
+            }
+        }
+
+        void konto(long nummer, Kontozustand zustand) {
+            platz(51);
+            b.putLong(nummer);
+            if (zustand == null) {
+                b.put((byte) 0);
+                return;
+            }
+            if (zustand.art() == null) {
+                throw new IllegalArgumentException("Konto " + nummer + " kann nicht protokolliert werden");
+            }
+            b.put((byte) 1);
+            b.put((byte) zustand.art().ordinal());
+            b.putDouble(zustand.kontostand());
+            b.put((byte) (zustand.gesperrt() ? 1 : 0));
+            b.put((byte) zustand.waehrung().ordinal());
+            b.putDouble(zustand.dispo());
+            b.putDouble(zustand.bereitsAbgehoben());
+            b.putLong(zustand.zeitpunkt() == null ? KEIN_DATUM : zustand.zeitpunkt().toEpochDay());
+        }
+
+        void inhaber(long id, Kunde kunde) {
+            platz(8);
+            b.putLong(id);
+            text(kunde.getVorname());
+            text(kunde.getNachname());
+            text(kunde.getAdresse());
+            b.putLong(kunde.getGeburtstag().toEpochDay());
+        }
+
+        void text(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            platz(4 + bytes.length + 8);
+            b.putInt(bytes.length);
+            b.put(bytes);
+        }
+
+        ByteBuffer beenden() {
+            int laenge = b.position() - KOPF;
+            pruefsumme.reset();
+            pruefsumme.update(b.slice(KOPF, laenge));
+            b.putInt(0, laenge);
+            b.putInt(4, (int) pruefsumme.getValue());
+            b.flip();
+            return b;
+        }
+    }
+}
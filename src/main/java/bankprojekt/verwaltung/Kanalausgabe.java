@@ -0,0 +1,70 @@
+package bankprojekt.verwaltung;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes characters as UTF-8 to a channel through a fixed buffer, so the memory used does not depend on
+ * the amount of text written. Characters outside the Basic Multilingual Plane are not supported,
+ * reports only contain numbers, names of currencies and fixed text.
+ */
+final class Kanalausgabe implements Appendable {
+    private static final int PUFFERGROESSE = 1 << 13;
+
+    private final WritableByteChannel kanal;
+    private final ByteBuffer puffer = ByteBuffer.allocate(PUFFERGROESSE);
+
+    /**
+     * Creates an output to the given channel.
+     *
+     * @param kanal the channel
+     */
+    Kanalausgabe(WritableByteChannel kanal) {
+        this.kanal = kanal;
+    }
+
+    @Override
+    public Appendable append(CharSequence text) throws IOException {
+        return append(text, 0, text.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence text, int von, int bis) throws IOException {
+        for (int i = von; i < bis; i++) {
+            append(text.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char zeichen) throws IOException {
+        if (puffer.remaining() < 3) {
+            leeren();
+        }
+        if (zeichen < 0x80) {
+            puffer.put((byte) zeichen);
+        } else if (zeichen < 0x800) {
+            puffer.put((byte) (0xC0 | zeichen >> 6));
+            puffer.put((byte) (0x80 | zeichen & 0x3F));
+        } else {
+            puffer.put((byte) (0xE0 | zeichen >> 12));
+            puffer.put((byte) (0x80 | zeichen >> 6 & 0x3F));
+            puffer.put((byte) (0x80 | zeichen & 0x3F));
+        }
+        return this;
+    }
+
+    /**
+     * Writes all buffered bytes to the channel.
+     *
+     * @throws IOException if the channel fails
+     */
+    void leeren() throws IOException {
+        puffer.flip();
+        while (puffer.hasRemaining()) {
+            kanal.write(puffer);
+        }
+        puffer.clear();
+    }
+}
@@ -0,0 +1,92 @@
+package bankprojekt.verwaltung;
+
+import java.util.Arrays;
+
+/**
+ * Assigns consecutive indexes 0, 1, 2, ... to the distinct account numbers of a bulk operation,
+ * so the accounts involved can be addressed through plain arrays. Open-addressing hash table
+ * on primitive keys, not thread-safe.
+ */
+final class KontoIndex {
+    private long[] schluessel;
+    private int[] indexe;
+    private long[] nummern;
+    private int anzahl;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param erwarteteAnzahl the expected number of distinct account numbers
+     */
+    KontoIndex(int erwarteteAnzahl) {
+        int groesse = Integer.highestOneBit(Math.max(8, erwarteteAnzahl * 2) - 1) << 1;
+        schluessel = new long[groesse];
+        indexe = new int[groesse];
+        nummern = new long[Math.max(8, erwarteteAnzahl)];
+    }
+
+    private static int hash(long nummer) {
+        long h = nummer * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the index of the given account number and assigns the next free index if the number is new.
+     *
+     * @param nummer the account number
+     * @return the index of the account number
+     */
+    int index(long nummer) {
+        int maske = indexe.length - 1;
+        int i = hash(nummer) & maske;
+        // indexe speichert Index + 1, damit 0 einen freien Platz markiert
+        while (indexe[i] != 0) {
+            if (schluessel[i] == nummer) {
+                return indexe[i] - 1;
+            }
+            i = (i + 1) & maske;
+        }
+        if (anzahl == nummern.length) {
+            nummern = Arrays.copyOf(nummern, anzahl * 2);
+        }
+        nummern[anzahl] = nummer;
+        schluessel[i] = nummer;
+        indexe[i] = ++anzahl;
+        if (anzahl * 2 > indexe.length) {
+            vergroessern();
+        }
+        return anzahl - 1;
+    }
+
+    private void vergroessern() {
+        schluessel = new long[indexe.length * 2];
+        indexe = new int[indexe.length * 2];
+        int maske = indexe.length - 1;
+        for (int n = 0; n < anzahl; n++) {
+            int i = hash(nummern[n]) & maske;
+            while (indexe[i] != 0) {
+                i = (i + 1) & maske;
+            }
+            schluessel[i] = nummern[n];
+            indexe[i] = n + 1;
+        }
+    }
+
+    /**
+     * Returns the number of distinct account numbers.
+     *
+     * @return the number of distinct account numbers
+     */
+    int anzahl() {
+        return anzahl;
+    }
+
+    /**
+     * Returns the distinct account numbers, the number with index i at position i.
+     *
+     * @return the account numbers
+     */
+    long[] nummern() {
+        return Arrays.copyOf(nummern, anzahl);
+    }
+}
@@ -0,0 +1,155 @@
+package bankprojekt.verwaltung;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of striped locks that serializes balance mutations per account.
+ * Every account number is mapped to one of the stripes, so operations on independent
+ * accounts can run in parallel while operations on the same account are executed one after another.
+ */
+final class KontoLocks {
+    private final ReentrantLock[] locks;
+    private final int maske;
+
+    /**
+     * Creates the stripes with a size depending on the number of available processors.
+     */
+    KontoLocks() {
+        this(Runtime.getRuntime().availableProcessors() * 16);
+    }
+
+    /**
+     * Creates the given number of stripes, rounded up to the next power of two.
+     *
+     * @param anzahl the minimum number of stripes
+     * @throws IllegalArgumentException if anzahl is not positive
+     */
+    KontoLocks(int anzahl) {
+        if (anzahl <= 0) {
+            throw new IllegalArgumentException("Die Anzahl der Locks muss positiv sein");
+        }
+        int groesse = Integer.highestOneBit(anzahl - 1) << 1;
+        if (groesse <= 0) {
+            groesse = 1;
+        }
+        locks = new ReentrantLock[groesse];
+        for (int i = 0; i < groesse; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        maske = groesse - 1;
+    }
+
+    /**
+     * Returns the index of the stripe responsible for the given account number.
+     * Sequential account numbers are mapped to consecutive stripes.
+     *
+     * @param nummer the account number
+     * @return the index of the stripe
+     */
+    int streifen(long nummer) {
+        return (int) (nummer ^ (nummer >>> 32)) & maske;
+    }
+
+    /**
+     * Returns the lock responsible for the given account number.
+     *
+     * @param nummer the account number
+     * @return the lock of the account
+     */
+    ReentrantLock lockFuer(long nummer) {
+        return locks[streifen(nummer)];
+    }
+
+    /**
+     * Acquires the locks of both accounts. The stripes are always locked in ascending order of their index,
+     * so two threads locking the same pair in opposite directions cannot deadlock.
+     * If both accounts share a stripe it is locked only once.
+     *
+     * @param erste  the first account number
+     * @param zweite the second account number
+     */
+    void beideSperren(long erste, long zweite) {
+        int a = streifen(erste);
+        int b = streifen(zweite);
+        locks[Math.min(a, b)].lock();
+        if (a != b) {
+            locks[Math.max(a, b)].lock();
+        }
+    }
+
+    /**
+     * Releases the locks acquired by {@link #beideSperren(long, long)}.
+     *
+     * @param erste  the first account number
+     * @param zweite the second account number
+     */
+    void beideEntsperren(long erste, long zweite) {
+        int a = streifen(erste);
+        int b = streifen(zweite);
+        if (a != b) {
+            locks[Math.max(a, b)].unlock();
+        }
+        locks[Math.min(a, b)].unlock();
+    }
+
+    /**
+     * Acquires the locks of all given accounts in ascending order of their stripe index.
+     *
+     * @param nummern the account numbers
+     * @return the locked stripes, to be passed to {@link #entsperren(int[])}
+     */
+    int[] alleSperren(long[] nummern) {
+        boolean[] benoetigt = new boolean[locks.length];
+        int anzahl = 0;
+        for (long nummer : nummern) {
+            int s = streifen(nummer);
+            if (!benoetigt[s]) {
+                benoetigt[s] = true;
+                anzahl++;
+            }
+        }
+        int[] streifen = new int[anzahl];
+        int n = 0;
+        for (int s = 0; s < locks.length; s++) {
+            if (benoetigt[s]) {
+                locks[s].lock();
+                streifen[n++] = s;
+            }
+        }
+        return streifen;
+    }
+
+    /**
+     * Acquires all stripes in ascending order, e.g. to take a consistent snapshot.
+     *
+     * @return the locked stripes, to be passed to {@link #entsperren(int[])}
+     */
+    int[] allesSperren() {
+        int[] streifen = new int[locks.length];
+        for (int s = 0; s < locks.length; s++) {
+            locks[s].lock();
+            streifen[s] = s;
+        }
+        return streifen;
+    }
+
+    /**
+     * Releases the stripes acquired by {@link #alleSperren(long[])} or {@link #allesSperren()}.
+     *
+     * @param streifen the locked stripes
+     */
+    void entsperren(int[] streifen) {
+        for (int i = streifen.length - 1; i >= 0; i--) {
+            locks[streifen[i]].unlock();
+        }
+    }
+
+    /**
+     * Returns the number of stripes.
+     *
+     * @return the number of stripes
+     */
+    int anzahl() {
+        return locks.length;
+    }
+}
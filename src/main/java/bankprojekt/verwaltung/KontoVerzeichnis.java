@@ -0,0 +1,801 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Konto;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Directory of all accounts of a bank, keyed by the primitive account number.
+ * <p>
+ * Account numbers are handed out sequentially starting at a base number, so the directory stores the accounts
+ * in chunked arrays indexed by {@code nummer - basis}. A lookup is two array accesses without any boxing.
+ * Numbers outside the dense range are kept in a small open-addressing table.
+ * <p>
+ * Lookups never lock. Adding and removing accounts in an existing chunk is done by compare-and-set,
+ * only the allocation of new chunks and changes of the out-of-range table are guarded by a monitor.
+ * The out-of-range table is copied on every change and published through a volatile field, so it is
+ * read without locking as well.
+ * <p>
+ * A {@link #schnappschuss() snapshot} shares all chunks with the original directory. Shared chunks are never
+ * changed again; the first change of a chunk by either directory copies the chunk. For every entry the
+ * directory also records whether it owns the account object or shares it with a snapshot (see {@link Besitz}),
+ * so the bank knows when an account has to be copied before it is changed.
+ */
+final class KontoVerzeichnis implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 20240301L;
+
+    private static final int ABSCHNITT_BITS = 12;
+    private static final int ABSCHNITT_GROESSE = 1 << ABSCHNITT_BITS;
+    private static final int ABSCHNITT_MASKE = ABSCHNITT_GROESSE - 1;
+
+    /**
+     * Largest offset from the base number that is still stored in the chunked arrays.
+     */
+    private static final long MAX_DICHT = 1L << 31;
+
+    /**
+     * the account number stored at index 0
+     */
+    private final long basis;
+
+    private transient volatile AtomicReferenceArray<Abschnitt> abschnitte;
+    /**
+     * the accounts outside the dense range, never changed once published; replaced under the monitor of this directory
+     */
+    private transient volatile LongKontoTabelle ausserhalb;
+    private transient AtomicInteger anzahl;
+
+    /**
+     * identifies the chunks created by this directory
+     */
+    private transient Object kennung;
+
+    /**
+     * identifies the chunks this directory may change in place, replaced by every snapshot
+     */
+    private transient volatile Object marke;
+
+    /**
+     * Who owns the account object of an entry.
+     */
+    enum Besitz {
+        /**
+         * the account belongs to this directory only and can be changed in place
+         */
+        EIGEN,
+        /**
+         * the account belongs to this directory, but snapshots still refer to it
+         * and have to get their own copy before it is changed
+         */
+        GETEILT,
+        /**
+         * the account was inherited from the directory this one is a snapshot of
+         * and has to be copied before it is changed
+         */
+        GEERBT
+    }
+
+    /**
+     * Visits an entry of the directory.
+     */
+    @FunctionalInterface
+    interface Besucher {
+        /**
+         * Called for every account in the directory.
+         *
+         * @param nummer the account number
+         * @param konto  the account
+         */
+        void besuchen(long nummer, Konto konto);
+    }
+
+    /**
+     * Creates an empty directory whose dense range starts at the given account number.
+     *
+     * @param basis the smallest account number of the dense range
+     */
+    KontoVerzeichnis(long basis) {
+        this.basis = basis;
+        initialisieren();
+    }
+
+    private void initialisieren() {
+        abschnitte = new AtomicReferenceArray<>(16);
+        ausserhalb = new LongKontoTabelle();
+        anzahl = new AtomicInteger();
+        kennung = new Object();
+        marke = new Object();
+    }
+
+    private boolean istDicht(long nummer) {
+        long index = nummer - basis;
+        return index >= 0 && index < MAX_DICHT;
+    }
+
+    /**
+     * Returns the chunk for the given index without creating it.
+     */
+    private Abschnitt abschnitt(long index) {
+        AtomicReferenceArray<Abschnitt> tabelle = abschnitte;
+        int a = (int) (index >>> ABSCHNITT_BITS);
+        return a < tabelle.length() ? tabelle.get(a) : null;
+    }
+
+    /**
+     * Returns the chunk for the given index that this directory may change, creating it or copying
+     * a shared chunk if necessary.
+     */
+    private Abschnitt eigenerAbschnitt(long index) {
+        Abschnitt abschnitt = abschnitt(index);
+        if (abschnitt != null && abschnitt.marke == marke) {
+            return abschnitt;
+        }
+        synchronized (this) {
+            int a = (int) (index >>> ABSCHNITT_BITS);
+            AtomicReferenceArray<Abschnitt> tabelle = abschnitte;
+            if (a >= tabelle.length()) {
+                int neueLaenge = tabelle.length();
+                while (neueLaenge <= a) {
+                    neueLaenge *= 2;
+                }
+                AtomicReferenceArray<Abschnitt> neu = new AtomicReferenceArray<>(neueLaenge);
+                for (int i = 0; i < tabelle.length(); i++) {
+                    neu.set(i, tabelle.get(i));
+                }
+                tabelle = neu;
+                abschnitte = neu;
+            }
+            abschnitt = tabelle.get(a);
+            if (abschnitt == null) {
+                abschnitt = new Abschnitt(kennung, marke);
+            } else if (abschnitt.marke != marke) {
+                abschnitt = new Abschnitt(kennung, marke, abschnitt);
+            } else {
+                return abschnitt;
+            }
+            tabelle.set(a, abschnitt);
+            return abschnitt;
+        }
+    }
+
+    /**
+     * Returns the account with the given number.
+     *
+     * @param nummer the account number
+     * @return the account or null if there is no account with this number
+     */
+    Konto get(long nummer) {
+        if (!istDicht(nummer)) {
+            return ausserhalb.get(nummer);
+        }
+        long index = nummer - basis;
+        Abschnitt abschnitt = abschnitt(index);
+        return abschnitt == null ? null : abschnitt.konten.get((int) index & ABSCHNITT_MASKE);
+    }
+
+    /**
+     * Checks if there is an account with the given number.
+     *
+     * @param nummer the account number
+     * @return true if the account exists
+     */
+    boolean enthaelt(long nummer) {
+        return get(nummer) != null;
+    }
+
+    /**
+     * Adds the account under the given number unless the number is already taken.
+     *
+     * @param nummer the account number
+     * @param konto  the account
+     * @return the account already stored under the number, or null if the account was added
+     * @throws IllegalArgumentException if konto is null
+     */
+    Konto putIfAbsent(long nummer, Konto konto) {
+        if (konto == null) {
+            throw new IllegalArgumentException("Das Konto darf nicht null sein");
+        }
+        if (!istDicht(nummer)) {
+            synchronized (this) {
+                Konto vorhanden = ausserhalb.get(nummer);
+                if (vorhanden == null) {
+                    LongKontoTabelle neu = ausserhalb.kopie();
+                    neu.put(nummer, konto);
+                    ausserhalb = neu;
+                    anzahl.incrementAndGet();
+                }
+                return vorhanden;
+            }
+        }
+        long index = nummer - basis;
+        Abschnitt abschnitt = eigenerAbschnitt(index);
+        int i = (int) index & ABSCHNITT_MASKE;
+        while (true) {
+            Konto vorhanden = abschnitt.konten.get(i);
+            if (vorhanden != null) {
+                return vorhanden;
+            }
+            if (abschnitt.konten.compareAndSet(i, null, konto)) {
+                abschnitt.besitzSetzen(i, Besitz.EIGEN);
+                anzahl.incrementAndGet();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Removes the account with the given number.
+     *
+     * @param nummer the account number
+     * @return the removed account or null if there was no account with this number
+     */
+    Konto remove(long nummer) {
+        Konto entfernt;
+        if (!istDicht(nummer)) {
+            synchronized (this) {
+                if (ausserhalb.get(nummer) == null) {
+                    return null;
+                }
+                LongKontoTabelle neu = ausserhalb.kopie();
+                entfernt = neu.remove(nummer);
+                ausserhalb = neu;
+            }
+        } else if (get(nummer) == null) {
+            entfernt = null;
+        } else {
+            long index = nummer - basis;
+            entfernt = eigenerAbschnitt(index).konten.getAndSet((int) index & ABSCHNITT_MASKE, null);
+        }
+        if (entfernt != null) {
+            anzahl.decrementAndGet();
+        }
+        return entfernt;
+    }
+
+    /**
+     * Returns who owns the account with the given number.
+     *
+     * @param nummer the account number
+     * @return the ownership, or null if there is no account with this number
+     */
+    Besitz besitz(long nummer) {
+        if (!istDicht(nummer)) {
+            return ausserhalb.besitz(nummer);
+        }
+        long index = nummer - basis;
+        Abschnitt abschnitt = abschnitt(index);
+        int i = (int) index & ABSCHNITT_MASKE;
+        if (abschnitt == null || abschnitt.konten.get(i) == null) {
+            return null;
+        }
+        if (abschnitt.besitzer != kennung) {
+            return Besitz.GEERBT;
+        }
+        Besitz besitz = abschnitt.besitz(i);
+        if (besitz == Besitz.EIGEN && abschnitt.marke != marke) {
+            // der Abschnitt ist seit einem Schnappschuss mit diesem geteilt
+            return Besitz.GETEILT;
+        }
+        return besitz;
+    }
+
+    /**
+     * Stores the account under the given number as owned by this directory only,
+     * replacing the account stored before.
+     *
+     * @param nummer the account number
+     * @param konto  the account
+     * @throws IllegalArgumentException if konto is null
+     */
+    void ersetzen(long nummer, Konto konto) {
+        if (konto == null) {
+            throw new IllegalArgumentException("Das Konto darf nicht null sein");
+        }
+        if (!istDicht(nummer)) {
+            synchronized (this) {
+                LongKontoTabelle neu = ausserhalb.kopie();
+                if (neu.get(nummer) == null) {
+                    anzahl.incrementAndGet();
+                }
+                neu.put(nummer, konto);
+                ausserhalb = neu;
+            }
+            return;
+        }
+        long index = nummer - basis;
+        Abschnitt abschnitt = eigenerAbschnitt(index);
+        int i = (int) index & ABSCHNITT_MASKE;
+        if (abschnitt.konten.getAndSet(i, konto) == null) {
+            anzahl.incrementAndGet();
+        }
+        abschnitt.besitzSetzen(i, Besitz.EIGEN);
+    }
+
+    /**
+     * Creates a snapshot of this directory in constant time with respect to the number of accounts.
+     * Both directories share all chunks and accounts until they change them.
+     * The caller has to make sure that the directory is not changed concurrently.
+     *
+     * @return the snapshot
+     */
+    synchronized KontoVerzeichnis schnappschuss() {
+        KontoVerzeichnis kopie = new KontoVerzeichnis(basis);
+        AtomicReferenceArray<Abschnitt> tabelle = abschnitte;
+        AtomicReferenceArray<Abschnitt> geteilt = new AtomicReferenceArray<>(tabelle.length());
+        for (int i = 0; i < tabelle.length(); i++) {
+            geteilt.set(i, tabelle.get(i));
+        }
+        kopie.abschnitte = geteilt;
+        kopie.anzahl.set(anzahl.get());
+        LongKontoTabelle eigene = ausserhalb.kopie();
+        kopie.ausserhalb = eigene.schnappschuss();
+        ausserhalb = eigene;
+        // alle bisherigen Abschnitte gelten ab jetzt auch fuer dieses Verzeichnis als geteilt
+        marke = new Object();
+        return kopie;
+    }
+
+    /**
+     * Returns the number of accounts in the directory.
+     *
+     * @return the number of accounts
+     */
+    int size() {
+        return anzahl.get();
+    }
+
+    /**
+     * Visits all accounts in ascending order of their account numbers.
+     * Accounts added or removed concurrently may or may not be visited.
+     *
+     * @param besucher called for every account
+     */
+    void forEach(Besucher besucher) {
+        LongKontoTabelle tabelleAusserhalb = ausserhalb;
+        long[] ausserhalbNummern = tabelleAusserhalb.sortierteSchluessel();
+        Konto[] ausserhalbKonten = new Konto[ausserhalbNummern.length];
+        for (int i = 0; i < ausserhalbNummern.length; i++) {
+            ausserhalbKonten[i] = tabelleAusserhalb.get(ausserhalbNummern[i]);
+        }
+
+        int j = 0;
+        while (j < ausserhalbNummern.length && ausserhalbNummern[j] < basis) {
+            besucher.besuchen(ausserhalbNummern[j], ausserhalbKonten[j]);
+            j++;
+        }
+        AtomicReferenceArray<Abschnitt> tabelle = abschnitte;
+        for (int a = 0; a < tabelle.length(); a++) {
+            Abschnitt abschnitt = tabelle.get(a);
+            if (abschnitt == null) {
+                continue;
+            }
+            long erste = basis + ((long) a << ABSCHNITT_BITS);
+            for (int i = 0; i < ABSCHNITT_GROESSE; i++) {
+                Konto konto = abschnitt.konten.get(i);
+                if (konto != null) {
+                    besucher.besuchen(erste + i, konto);
+                }
+            }
+        }
+        for (; j < ausserhalbNummern.length; j++) {
+            besucher.besuchen(ausserhalbNummern[j], ausserhalbKonten[j]);
+        }
+    }
+
+    /**
+     * Visits at most anzahl accounts with an account number of at least ab, in ascending order of their
+     * account numbers. Accounts added or removed concurrently may or may not be visited.
+     *
+     * @param ab       the smallest account number to visit
+     * @param anzahl   the maximum number of accounts to visit
+     * @param besucher called for every visited account
+     * @return the account number of the next account after the visited ones, -1 if there is none
+     */
+    long forEachAb(long ab, int anzahl, Besucher besucher) {
+        LongKontoTabelle tabelleAusserhalb = ausserhalb;
+        long[] ausserhalbNummern = tabelleAusserhalb.sortierteSchluessel();
+        Konto[] ausserhalbKonten = new Konto[ausserhalbNummern.length];
+        for (int i = 0; i < ausserhalbNummern.length; i++) {
+            ausserhalbKonten[i] = tabelleAusserhalb.get(ausserhalbNummern[i]);
+        }
+
+        int besucht = 0;
+        int j = 0;
+        while (j < ausserhalbNummern.length && ausserhalbNummern[j] < ab) {
+            j++;
+        }
+        for (; j < ausserhalbNummern.length && ausserhalbNummern[j] < basis; j++) {
+            if (besucht == anzahl) {
+                return ausserhalbNummern[j];
+            }
+            besucher.besuchen(ausserhalbNummern[j], ausserhalbKonten[j]);
+            besucht++;
+        }
+        AtomicReferenceArray<Abschnitt> tabelle = abschnitte;
+        long start = Math.max(ab - basis, 0);
+        for (long a = start >>> ABSCHNITT_BITS; a < tabelle.length(); a++) {
+            Abschnitt abschnitt = tabelle.get((int) a);
+            if (abschnitt == null) {
+                continue;
+            }
+            long erste = basis + (a << ABSCHNITT_BITS);
+            int i = a == start >>> ABSCHNITT_BITS ? (int) (start & ABSCHNITT_MASKE) : 0;
+            for (; i < ABSCHNITT_GROESSE; i++) {
+                Konto konto = abschnitt.konten.get(i);
+                if (konto != null) {
+                    if (besucht == anzahl) {
+                        return erste + i;
+                    }
+                    besucher.besuchen(erste + i, konto);
+                    besucht++;
+                }
+            }
+        }
+        for (; j < ausserhalbNummern.length; j++) {
+            if (besucht == anzahl) {
+                return ausserhalbNummern[j];
+            }
+            besucher.besuchen(ausserhalbNummern[j], ausserhalbKonten[j]);
+            besucht++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns all account numbers in ascending order.
+     *
+     * @return the account numbers
+     */
+    long[] nummern() {
+        long[][] ergebnis = {new long[Math.max(16, size())]};
+        int[] laenge = {0};
+        forEach((nummer, konto) -> {
+            if (laenge[0] == ergebnis[0].length) {
+                ergebnis[0] = Arrays.copyOf(ergebnis[0], laenge[0] * 2);
+            }
+            ergebnis[0][laenge[0]++] = nummer;
+        });
+        return Arrays.copyOf(ergebnis[0], laenge[0]);
+    }
+
+    /**
+     * Returns a sequential stream of all accounts in ascending order of their account numbers.
+     * Accounts added or removed concurrently may or may not be included.
+     *
+     * @return the accounts
+     */
+    Stream<Konto> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a spliterator over all accounts in ascending order of their account numbers.
+     * It splits along chunk boundaries, so parallel streams process whole chunks.
+     * Accounts added or removed concurrently may or may not be visited.
+     *
+     * @return the spliterator
+     */
+    Spliterator<Konto> spliterator() {
+        LongKontoTabelle tabelleAusserhalb = ausserhalb;
+        long[] ausserhalbNummern = tabelleAusserhalb.sortierteSchluessel();
+        Konto[] ausserhalbKonten = new Konto[ausserhalbNummern.length];
+        for (int i = 0; i < ausserhalbNummern.length; i++) {
+            ausserhalbKonten[i] = tabelleAusserhalb.get(ausserhalbNummern[i]);
+        }
+        int unten = 0;
+        while (unten < ausserhalbNummern.length && ausserhalbNummern[unten] < basis) {
+            unten++;
+        }
+        AtomicReferenceArray<Abschnitt> tabelle = abschnitte;
+        return new Teiler(tabelle, ausserhalbKonten, unten, 0,
+                unten + ((long) tabelle.length() << ABSCHNITT_BITS) + ausserhalbKonten.length - unten);
+    }
+
+    /**
+     * Spliterator over the accounts of the directory. Positions {@code [0, unten)} are the accounts below
+     * the dense range, followed by one position per slot of the dense chunks and the accounts above the dense range.
+     */
+    private static final class Teiler implements Spliterator<Konto> {
+        private final AtomicReferenceArray<Abschnitt> tabelle;
+        private final Konto[] ausserhalb;
+        private final int unten;
+        private long position;
+        private final long ende;
+
+        private Teiler(AtomicReferenceArray<Abschnitt> tabelle, Konto[] ausserhalb, int unten, long position, long ende) {
+            this.tabelle = tabelle;
+            this.ausserhalb = ausserhalb;
+            this.unten = unten;
+            this.position = position;
+            this.ende = ende;
+        }
+
+        private long dichtesEnde() {
+            return unten + ((long) tabelle.length() << ABSCHNITT_BITS);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Konto> aktion) {
+            while (position < ende) {
+                long p = position++;
+                Konto konto;
+                if (p < unten) {
+                    konto = ausserhalb[(int) p];
+                } else if (p < dichtesEnde()) {
+                    long index = p - unten;
+                    Abschnitt abschnitt = tabelle.get((int) (index >>> ABSCHNITT_BITS));
+                    if (abschnitt == null) {
+                        position = Math.min(ende, p - (index & ABSCHNITT_MASKE) + ABSCHNITT_GROESSE);
+                        continue;
+                    }
+                    konto = abschnitt.konten.get((int) (index & ABSCHNITT_MASKE));
+                } else {
+                    konto = ausserhalb[(int) (p - dichtesEnde() + unten)];
+                }
+                if (konto != null) {
+                    aktion.accept(konto);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<Konto> trySplit() {
+            long mitte = (position + ende) >>> 1;
+            long dichtesEnde = dichtesEnde();
+            if (mitte > unten && mitte < dichtesEnde) {
+                // an einer Abschnittsgrenze teilen, damit jeder Teil ganze Abschnitte bearbeitet
+                mitte = unten + ((mitte - unten) & ~(long) ABSCHNITT_MASKE);
+            }
+            if (mitte <= position || ende - position <= ABSCHNITT_GROESSE) {
+                return null;
+            }
+            Teiler vorne = new Teiler(tabelle, ausserhalb, unten, position, mitte);
+            position = mitte;
+            return vorne;
+        }
+
+        @Override
+        public long estimateSize() {
+            return ende - position;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream oos) throws IOException {
+        oos.defaultWriteObject();
+        long[] nummern = nummern();
+        oos.writeInt(nummern.length);
+        for (long nummer : nummern) {
+            oos.writeLong(nummer);
+            oos.writeObject(get(nummer));
+        }
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
+        ois.defaultReadObject();
+        initialisieren();
+        int n = ois.readInt();
+        for (int i = 0; i < n; i++) {
+            long nummer = ois.readLong();
+            putIfAbsent(nummer, (Konto) ois.readObject());
+        }
+    }
+
+    /**
+     * A chunk of consecutive entries. Two bits per entry record the ownership of the account
+     * as seen by the directory that created the chunk.
+     */
+    private static final class Abschnitt {
+        /**
+         * the identity of the directory that created this chunk
+         */
+        final Object besitzer;
+        /**
+         * the mark of the directory at the time the chunk was created; the chunk is shared once the directory changed its mark
+         */
+        final Object marke;
+        final AtomicReferenceArray<Konto> konten;
+        final AtomicLongArray eigen;
+        final AtomicLongArray geteilt;
+
+        Abschnitt(Object besitzer, Object marke) {
+            this.besitzer = besitzer;
+            this.marke = marke;
+            this.konten = new AtomicReferenceArray<>(ABSCHNITT_GROESSE);
+            this.eigen = new AtomicLongArray(ABSCHNITT_GROESSE / 64);
+            this.geteilt = new AtomicLongArray(ABSCHNITT_GROESSE / 64);
+        }
+
+        /**
+         * Copies a shared chunk. Accounts the copying directory owned before are shared with the snapshot
+         * from now on, all other accounts are inherited.
+         */
+        Abschnitt(Object besitzer, Object marke, Abschnitt vorlage) {
+            this(besitzer, marke);
+            for (int i = 0; i < ABSCHNITT_GROESSE; i++) {
+                konten.set(i, vorlage.konten.get(i));
+            }
+            if (vorlage.besitzer == besitzer) {
+                for (int w = 0; w < ABSCHNITT_GROESSE / 64; w++) {
+                    eigen.set(w, vorlage.eigen.get(w));
+                    geteilt.set(w, vorlage.eigen.get(w));
+                }
+            }
+        }
+
+        Besitz besitz(int i) {
+            long bit = 1L << i;
+            if ((eigen.get(i >>> 6) & bit) == 0) {
+                return Besitz.GEERBT;
+            }
+            return (geteilt.get(i >>> 6) & bit) == 0 ? Besitz.EIGEN : Besitz.GETEILT;
+        }
+
+        void besitzSetzen(int i, Besitz besitz) {
+            long bit = 1L << i;
+            if (besitz == Besitz.GEERBT) {
+                eigen.getAndUpdate(i >>> 6, w -> w & ~bit);
+            } else {
+                eigen.getAndUpdate(i >>> 6, w -> w | bit);
+            }
+            if (besitz == Besitz.GETEILT) {
+                geteilt.getAndUpdate(i >>> 6, w -> w | bit);
+            } else {
+                geteilt.getAndUpdate(i >>> 6, w -> w & ~bit);
+            }
+        }
+    }
+
+    /**
+     * Open-addressing hash table from primitive long keys to accounts, used for numbers
+     * outside of the dense range. Not thread-safe; the directory changes only copies that are not published yet.
+     */
+    private static final class LongKontoTabelle {
+        private long[] schluessel = new long[8];
+        private Konto[] werte = new Konto[8];
+        private Besitz[] besitz = new Besitz[8];
+        private int groesse;
+
+        private static int hash(long schluessel) {
+            long h = schluessel * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private int position(long nummer) {
+            int maske = werte.length - 1;
+            int i = hash(nummer) & maske;
+            while (werte[i] != null && schluessel[i] != nummer) {
+                i = (i + 1) & maske;
+            }
+            return i;
+        }
+
+        Konto get(long nummer) {
+            return werte[position(nummer)];
+        }
+
+        Besitz besitz(long nummer) {
+            return besitz[position(nummer)];
+        }
+
+        void put(long nummer, Konto konto) {
+            put(nummer, konto, Besitz.EIGEN);
+        }
+
+        private void put(long nummer, Konto konto, Besitz neuerBesitz) {
+            int i = position(nummer);
+            if (werte[i] == null) {
+                groesse++;
+            }
+            schluessel[i] = nummer;
+            werte[i] = konto;
+            besitz[i] = neuerBesitz;
+            if (groesse * 2 > werte.length) {
+                vergroessern();
+            }
+        }
+
+        /**
+         * Returns an exact copy, to be changed in place of this table.
+         */
+        LongKontoTabelle kopie() {
+            LongKontoTabelle kopie = new LongKontoTabelle();
+            kopie.schluessel = schluessel.clone();
+            kopie.werte = werte.clone();
+            kopie.besitz = besitz.clone();
+            kopie.groesse = groesse;
+            return kopie;
+        }
+
+        /**
+         * Returns a copy for a snapshot in which all accounts are inherited,
+         * the accounts owned by this table are shared from now on.
+         */
+        LongKontoTabelle schnappschuss() {
+            LongKontoTabelle kopie = new LongKontoTabelle();
+            kopie.schluessel = schluessel.clone();
+            kopie.werte = werte.clone();
+            kopie.besitz = new Besitz[besitz.length];
+            kopie.groesse = groesse;
+            for (int i = 0; i < werte.length; i++) {
+                if (werte[i] != null) {
+                    kopie.besitz[i] = Besitz.GEERBT;
+                    if (besitz[i] == Besitz.EIGEN) {
+                        besitz[i] = Besitz.GETEILT;
+                    }
+                }
+            }
+            return kopie;
+        }
+
+        Konto remove(long nummer) {
+            int maske = werte.length - 1;
+            int i = position(nummer);
+            Konto entfernt = werte[i];
+            if (entfernt == null) {
+                return null;
+            }
+            werte[i] = null;
+            besitz[i] = null;
+            groesse--;
+            // nachfolgende Eintraege zuruecksetzen, damit keine Luecke in der Sondierungskette entsteht
+            int j = (i + 1) & maske;
+            while (werte[j] != null) {
+                int ziel = hash(schluessel[j]) & maske;
+                if (((j - ziel) & maske) >= ((j - i) & maske)) {
+                    schluessel[i] = schluessel[j];
+                    werte[i] = werte[j];
+                    besitz[i] = besitz[j];
+                    werte[j] = null;
+                    besitz[j] = null;
+                    i = j;
+                }
+                j = (j + 1) & maske;
+            }
+            return entfernt;
+        }
+
+        private void vergroessern() {
+            long[] alteSchluessel = schluessel;
+            Konto[] alteWerte = werte;
+            Besitz[] alterBesitz = besitz;
+            schluessel = new long[alteWerte.length * 2];
+            werte = new Konto[alteWerte.length * 2];
+            besitz = new Besitz[alteWerte.length * 2];
+            groesse = 0;
+            for (int i = 0; i < alteWerte.length; i++) {
+                if (alteWerte[i] != null) {
+                    put(alteSchluessel[i], alteWerte[i], alterBesitz[i]);
+                }
+            }
+        }
+
+        long[] sortierteSchluessel() {
+            long[] ergebnis = new long[groesse];
+            int n = 0;
+            for (int i = 0; i < werte.length; i++) {
+                if (werte[i] != null) {
+                    ergebnis[n++] = schluessel[i];
+                }
+            }
+            Arrays.sort(ergebnis);
+            return ergebnis;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Geldbetrag;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kontoart;
+import bankprojekt.verarbeitung.Kontozustand;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Waehrung;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.EnumMap;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Runs evaluations over all accounts of a bank in parallel, on a fork/join pool of its own.
+ * <p>
+ * The accounts are split along the chunks of the account directory, so every task works on whole chunks
+ * of adjacent accounts and the work spreads over all threads of the pool regardless of the size of the bank.
+ * Because the evaluations run on their own pool, long reports do not take threads away from the common pool
+ * used by transactions such as {@link Bank#geldUeberweisenBatch(java.util.List)}.
+ * <p>
+ * Every account is read without its lock while the bank keeps working, so an evaluation is weakly consistent.
+ * For a consistent point-in-time report, evaluate a {@link Bank#clone() snapshot} of the bank.
+ */
+public final class Kontoanalyse implements AutoCloseable {
+    private final ForkJoinPool pool;
+    private final boolean eigenerPool;
+
+    /**
+     * Creates an analysis with a pool of one thread per available processor.
+     */
+    public Kontoanalyse() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an analysis with a pool of the given parallelism.
+     *
+     * @param parallelitaet the number of threads of the pool
+     * @throws IllegalArgumentException if parallelitaet is less than 1
+     */
+    public Kontoanalyse(int parallelitaet) {
+        if (parallelitaet < 1) {
+            throw new IllegalArgumentException("Invalid parallelism");
+        }
+        this.pool = new ForkJoinPool(parallelitaet);
+        this.eigenerPool = true;
+    }
+
+    /**
+     * Creates an analysis that runs on the given pool. The pool is not shut down by {@link #close()}.
+     *
+     * @param pool the pool
+     * @throws IllegalArgumentException if pool is null
+     */
+    public Kontoanalyse(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Invalid pool");
+        }
+        this.pool = pool;
+        this.eigenerPool = false;
+    }
+
+    /**
+     * Returns the parallelism of the pool.
+     *
+     * @return the number of threads the evaluations use
+     */
+    public int getParallelitaet() {
+        return pool.getParallelism();
+    }
+
+    private <R> R ausfuehren(Supplier<R> auswertung) {
+        return pool.invoke(ForkJoinTask.adapt(auswertung::get));
+    }
+
+    /**
+     * Evaluates the states of all accounts of the bank with the given collector, in parallel.
+     *
+     * @param bank       the bank
+     * @param auswertung the collector
+     * @param <R>        the result type
+     * @return the result of the collector
+     * @throws IllegalArgumentException if bank or auswertung is null
+     */
+    public <R> R auswerten(Bank bank, Collector<? super Kontozustand, ?, R> auswertung) {
+        if (bank == null || auswertung == null) {
+            throw new IllegalArgumentException("Invalid evaluation");
+        }
+        return ausfuehren(() -> bank.kontenStream().parallel().map(Konto::zustandSichern).collect(auswertung));
+    }
+
+    /**
+     * Computes count, sum, minimum, average and maximum of all balances of the bank.
+     *
+     * @param bank the bank
+     * @return the statistics of the balances
+     * @throws IllegalArgumentException if bank is null
+     */
+    public DoubleSummaryStatistics kontostaende(Bank bank) {
+        if (bank == null) {
+            throw new IllegalArgumentException("Invalid evaluation");
+        }
+        LongSummaryStatistics cent = ausfuehren(() -> bank.kontenStream().parallel()
+                .mapToLong(Konto::getKontostandCent)
+                .summaryStatistics());
+        return new DoubleSummaryStatistics(cent.getCount(), Geldbetrag.alsBetrag(cent.getMin()),
+                Geldbetrag.alsBetrag(cent.getMax()), Geldbetrag.alsBetrag(cent.getSum()));
+    }
+
+    /**
+     * Sums up the balances of the bank per currency; the sums are in the respective currency.
+     *
+     * @param bank the bank
+     * @return the sum of the balances per currency, only for currencies that are used
+     * @throws IllegalArgumentException if bank is null
+     */
+    public Map<Waehrung, Double> summenJeWaehrung(Bank bank) {
+        if (bank == null) {
+            throw new IllegalArgumentException("Invalid evaluation");
+        }
+        return ausfuehren(() -> bank.kontenStream().parallel()
+                .collect(Collectors.groupingBy(Konto::getAktuelleWaehrung, () -> new EnumMap<>(Waehrung.class),
+                        summeInCent(Konto::getKontostandCent))));
+    }
+
+    /**
+     * Sums up the balances of the bank per kind of account.
+     *
+     * @param bank the bank
+     * @return the sum of the balances per kind of account, only for kinds that are used
+     * @throws IllegalArgumentException if bank is null
+     */
+    public Map<Kontoart, Double> summenJeKontoart(Bank bank) {
+        return auswerten(bank, Collectors.groupingBy(Kontozustand::art, () -> new EnumMap<>(Kontoart.class),
+                summeInCent(zustand -> Geldbetrag.inCent(zustand.kontostand()))));
+    }
+
+    /**
+     * Sums up the balances of the bank per customer, by a full parallel scan.
+     *
+     * @param bank the bank
+     * @return the total balance per customer
+     * @throws IllegalArgumentException if bank is null
+     */
+    public Map<Kunde, Double> kundensalden(Bank bank) {
+        if (bank == null) {
+            throw new IllegalArgumentException("Invalid evaluation");
+        }
+        return ausfuehren(() -> bank.kontenStream().parallel()
+                .collect(Collectors.groupingByConcurrent(Konto::getInhaber,
+                        summeInCent(Konto::getKontostandCent))));
+    }
+
+    /**
+     * Sums up amounts in cents exactly and converts the sum once at the end.
+     */
+    private static <T> Collector<T, ?, Double> summeInCent(ToLongFunction<T> cent) {
+        return Collectors.collectingAndThen(Collectors.summingLong(cent), Geldbetrag::alsBetrag);
+    }
+
+    /**
+     * Shuts the pool down if it was created by this analysis and waits for running evaluations to finish.
+     */
+    @Override
+    public void close() {
+        if (eigenerPool) {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
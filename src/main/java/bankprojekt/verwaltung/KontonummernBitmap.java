@@ -0,0 +1,780 @@
+package bankprojekt.verwaltung;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Compressed bitmap of account numbers in the style of a Roaring bitmap.
+ * <p>
+ * The numbers are grouped by their upper bits into containers of 65536 numbers each. A container stores its
+ * lower 16 bits either as a list of runs (ideal for sequentially issued numbers), as a sorted array (few
+ * numbers) or as a plain bitmap (many scattered numbers) and switches its representation when it grows or
+ * shrinks. Finding the next free or the next taken number skips whole runs and full containers, so listing
+ * and counting the gaps of a set costs time proportional to the number of gaps, not to the size of the range.
+ * <p>
+ * A change locks only the container of its number, so numbers of different containers are added and removed
+ * in parallel; the directory of the containers is replaced copy-on-write when a container is created or
+ * dropped, which happens once per 65536 numbers. Lookups do not lock the directory. Queries that span several
+ * containers see every container in a consistent state, but not necessarily all of them at the same moment.
+ */
+final class KontonummernBitmap {
+    private static final int CONTAINER_GROESSE = 1 << 16;
+
+    /**
+     * Visits a range of consecutive numbers.
+     */
+    @FunctionalInterface
+    interface BereichBesucher {
+        /**
+         * Called for every range.
+         *
+         * @param von the first number of the range
+         * @param bis the last number of the range (inclusive)
+         */
+        void besuchen(long von, long bis);
+    }
+
+    /**
+     * The containers in ascending order of their upper bits. Never changed, only replaced.
+     */
+    private record Verzeichnis(long[] schluessel, Fach[] faecher) {
+        int index(long oben) {
+            return Arrays.binarySearch(schluessel, oben);
+        }
+    }
+
+    /**
+     * Holds the container of one range of 65536 numbers; its monitor guards the container.
+     * A compartment dropped from the directory is marked, so a change that still found it tries again.
+     */
+    private static final class Fach {
+        private Container container = new RunContainer();
+        private boolean entfernt;
+
+        synchronized boolean hinzufuegen(int x) {
+            if (entfernt) {
+                return false;
+            }
+            container = container.hinzufuegen(x);
+            return true;
+        }
+
+        synchronized boolean enthaelt(int x) {
+            return container.enthaelt(x);
+        }
+
+        synchronized int kardinalitaet() {
+            return container.kardinalitaet();
+        }
+
+        synchronized int naechsteFreie(int ab) {
+            return container.naechsteFreie(ab);
+        }
+
+        synchronized int naechsteBelegte(int ab) {
+            return container.naechsteBelegte(ab);
+        }
+
+        synchronized void optimieren() {
+            container = Container.kompakteste(container);
+        }
+
+        synchronized Container kopie() {
+            return container.kopie();
+        }
+    }
+
+    private volatile Verzeichnis verzeichnis = new Verzeichnis(new long[0], new Fach[0]);
+
+    private static long oben(long nummer) {
+        return nummer >> 16;
+    }
+
+    private static int unten(long nummer) {
+        return (int) (nummer & 0xFFFF);
+    }
+
+    private Fach fach(long oben) {
+        Verzeichnis v = verzeichnis;
+        int i = v.index(oben);
+        return i >= 0 ? v.faecher()[i] : null;
+    }
+
+    /**
+     * Returns the compartment for the given upper bits and creates it if necessary.
+     */
+    private synchronized Fach anlegen(long oben) {
+        Verzeichnis v = verzeichnis;
+        int i = v.index(oben);
+        if (i >= 0) {
+            return v.faecher()[i];
+        }
+        i = -i - 1;
+        int anzahl = v.schluessel().length;
+        long[] schluessel = new long[anzahl + 1];
+        Fach[] faecher = new Fach[anzahl + 1];
+        System.arraycopy(v.schluessel(), 0, schluessel, 0, i);
+        System.arraycopy(v.faecher(), 0, faecher, 0, i);
+        System.arraycopy(v.schluessel(), i, schluessel, i + 1, anzahl - i);
+        System.arraycopy(v.faecher(), i, faecher, i + 1, anzahl - i);
+        schluessel[i] = oben;
+        faecher[i] = new Fach();
+        verzeichnis = new Verzeichnis(schluessel, faecher);
+        return faecher[i];
+    }
+
+    /**
+     * Drops the given empty compartment from the directory. Called with the monitor of the compartment held.
+     */
+    private synchronized void austragen(long oben, Fach fach) {
+        Verzeichnis v = verzeichnis;
+        int i = v.index(oben);
+        if (i < 0 || v.faecher()[i] != fach) {
+            return;
+        }
+        int anzahl = v.schluessel().length;
+        long[] schluessel = new long[anzahl - 1];
+        Fach[] faecher = new Fach[anzahl - 1];
+        System.arraycopy(v.schluessel(), 0, schluessel, 0, i);
+        System.arraycopy(v.faecher(), 0, faecher, 0, i);
+        System.arraycopy(v.schluessel(), i + 1, schluessel, i, anzahl - i - 1);
+        System.arraycopy(v.faecher(), i + 1, faecher, i, anzahl - i - 1);
+        verzeichnis = new Verzeichnis(schluessel, faecher);
+    }
+
+    /**
+     * Adds the given number to the set.
+     *
+     * @param nummer the number
+     */
+    void hinzufuegen(long nummer) {
+        long oben = oben(nummer);
+        while (true) {
+            Fach fach = fach(oben);
+            if (fach == null) {
+                fach = anlegen(oben);
+            }
+            if (fach.hinzufuegen(unten(nummer))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the given number from the set.
+     *
+     * @param nummer the number
+     * @return true if the number was in the set
+     */
+    boolean entfernen(long nummer) {
+        long oben = oben(nummer);
+        Fach fach = fach(oben);
+        if (fach == null) {
+            return false;
+        }
+        synchronized (fach) {
+            if (fach.entfernt || !fach.container.enthaelt(unten(nummer))) {
+                return false;
+            }
+            fach.container = fach.container.entfernen(unten(nummer));
+            if (fach.container.kardinalitaet() == 0) {
+                fach.entfernt = true;
+                austragen(oben, fach);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Checks if the given number is in the set.
+     *
+     * @param nummer the number
+     * @return true if the number is in the set
+     */
+    boolean enthaelt(long nummer) {
+        Fach fach = fach(oben(nummer));
+        return fach != null && fach.enthaelt(unten(nummer));
+    }
+
+    /**
+     * Returns the number of elements in the set.
+     *
+     * @return the number of elements
+     */
+    long kardinalitaet() {
+        long summe = 0;
+        for (Fach fach : verzeichnis.faecher()) {
+            summe += fach.kardinalitaet();
+        }
+        return summe;
+    }
+
+    /**
+     * Returns the smallest number greater than or equal to ab that is not in the set.
+     *
+     * @param ab the number to start from
+     * @return the next free number
+     */
+    long naechsteFreie(long ab) {
+        Verzeichnis v = verzeichnis;
+        long oben = oben(ab);
+        int niedrig = unten(ab);
+        int i = v.index(oben);
+        if (i < 0) {
+            return ab;
+        }
+        while (true) {
+            int frei = v.faecher()[i].naechsteFreie(niedrig);
+            if (frei < CONTAINER_GROESSE) {
+                return (oben << 16) | frei;
+            }
+            oben++;
+            i++;
+            niedrig = 0;
+            if (i == v.schluessel().length || v.schluessel()[i] != oben) {
+                return oben << 16;
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest number greater than or equal to ab that is in the set.
+     *
+     * @param ab the number to start from
+     * @return the next number in the set or {@link Long#MAX_VALUE} if there is none
+     */
+    long naechsteBelegte(long ab) {
+        Verzeichnis v = verzeichnis;
+        long oben = oben(ab);
+        int i = v.index(oben);
+        int niedrig = unten(ab);
+        if (i < 0) {
+            i = -i - 1;
+            niedrig = 0;
+        }
+        // ein gerade geleertes Fach kann noch im Verzeichnis stehen, es wird uebersprungen
+        for (; i < v.schluessel().length; i++, niedrig = 0) {
+            int belegt = v.faecher()[i].naechsteBelegte(niedrig);
+            if (belegt < CONTAINER_GROESSE) {
+                return (v.schluessel()[i] << 16) | belegt;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Visits all ranges of numbers between von and bis (inclusive) that are not in the set, in ascending order.
+     *
+     * @param von      the first number to consider
+     * @param bis      the last number to consider
+     * @param besucher called for every range of missing numbers
+     */
+    void lueckenBesuchen(long von, long bis, BereichBesucher besucher) {
+        long x = von;
+        while (x <= bis) {
+            long frei = naechsteFreie(x);
+            if (frei > bis) {
+                return;
+            }
+            long belegt = naechsteBelegte(frei);
+            long ende = belegt > bis ? bis : belegt - 1;
+            besucher.besuchen(frei, ende);
+            if (ende == bis) {
+                return;
+            }
+            x = belegt;
+        }
+    }
+
+    /**
+     * Visits all numbers between von and bis (inclusive) that are not in the set, in ascending order.
+     *
+     * @param von      the first number to consider
+     * @param bis      the last number to consider
+     * @param besucher called for every missing number
+     */
+    void lueckenBesuchen(long von, long bis, LongConsumer besucher) {
+        lueckenBesuchen(von, bis, (BereichBesucher) (anfang, ende) -> {
+            for (long nummer = anfang; nummer <= ende; nummer++) {
+                besucher.accept(nummer);
+            }
+        });
+    }
+
+    /**
+     * Counts the numbers between von and bis (inclusive) that are not in the set.
+     *
+     * @param von the first number to consider
+     * @param bis the last number to consider
+     * @return the number of missing numbers
+     */
+    long anzahlLuecken(long von, long bis) {
+        long[] summe = {0};
+        lueckenBesuchen(von, bis, (BereichBesucher) (anfang, ende) -> summe[0] += ende - anfang + 1);
+        return summe[0];
+    }
+
+    /**
+     * Visits all numbers in the set in ascending order.
+     *
+     * @param besucher called for every number in the set
+     */
+    void forEach(LongConsumer besucher) {
+        Verzeichnis v = verzeichnis;
+        for (int i = 0; i < v.schluessel().length; i++) {
+            long basis = v.schluessel()[i] << 16;
+            Container c = v.faecher()[i].kopie();
+            int x = c.naechsteBelegte(0);
+            while (x < CONTAINER_GROESSE) {
+                int ende = c.naechsteFreie(x);
+                for (int n = x; n < ende; n++) {
+                    besucher.accept(basis | n);
+                }
+                x = ende < CONTAINER_GROESSE ? c.naechsteBelegte(ende) : CONTAINER_GROESSE;
+            }
+        }
+    }
+
+    /**
+     * Converts every container to its most compact representation.
+     */
+    void optimieren() {
+        for (Fach fach : verzeichnis.faecher()) {
+            fach.optimieren();
+        }
+    }
+
+    /**
+     * Returns an independent copy of this set.
+     *
+     * @return the copy
+     */
+    KontonummernBitmap kopie() {
+        Verzeichnis v = verzeichnis;
+        List<Long> schluessel = new ArrayList<>(v.schluessel().length);
+        List<Fach> faecher = new ArrayList<>(v.schluessel().length);
+        for (int i = 0; i < v.schluessel().length; i++) {
+            Fach fach = new Fach();
+            fach.container = v.faecher()[i].kopie();
+            if (fach.container.kardinalitaet() > 0) {
+                schluessel.add(v.schluessel()[i]);
+                faecher.add(fach);
+            }
+        }
+        KontonummernBitmap kopie = new KontonummernBitmap();
+        kopie.verzeichnis = new Verzeichnis(schluessel.stream().mapToLong(Long::longValue).toArray(),
+                faecher.toArray(new Fach[0]));
+        return kopie;
+    }
+
+    /**
+     * Stores the lower 16 bits of the numbers that share the same upper bits.
+     * Modifying methods return the container that replaces this one, which may have a different representation.
+     */
+    private abstract static class Container {
+        /**
+         * maximum number of elements of an array container
+         */
+        static final int MAX_ARRAY = 4096;
+
+        /**
+         * maximum number of runs of a run container, beyond that a bitmap is smaller
+         */
+        static final int MAX_RUNS = 2047;
+
+        abstract Container hinzufuegen(int x);
+
+        abstract Container entfernen(int x);
+
+        abstract boolean enthaelt(int x);
+
+        abstract int kardinalitaet();
+
+        /**
+         * Returns the smallest value greater than or equal to ab that is not contained, or 65536.
+         */
+        abstract int naechsteFreie(int ab);
+
+        /**
+         * Returns the smallest value greater than or equal to ab that is contained, or 65536.
+         */
+        abstract int naechsteBelegte(int ab);
+
+        abstract Container kopie();
+
+        /**
+         * Counts the runs of consecutive values.
+         */
+        int anzahlRuns() {
+            int runs = 0;
+            int x = naechsteBelegte(0);
+            while (x < CONTAINER_GROESSE) {
+                runs++;
+                int ende = naechsteFreie(x);
+                x = ende < CONTAINER_GROESSE ? naechsteBelegte(ende) : CONTAINER_GROESSE;
+            }
+            return runs;
+        }
+
+        /**
+         * Returns the most compact representation of the given container.
+         */
+        static Container kompakteste(Container c) {
+            int runs = c.anzahlRuns();
+            int kardinalitaet = c.kardinalitaet();
+            int runBytes = 4 * runs;
+            int arrayBytes = 2 * kardinalitaet;
+            int bitmapBytes = CONTAINER_GROESSE / 8;
+            if (runBytes <= arrayBytes && runBytes <= bitmapBytes) {
+                return c instanceof RunContainer ? c : RunContainer.aus(c);
+            }
+            if (kardinalitaet <= MAX_ARRAY) {
+                return c instanceof ArrayContainer ? c : ArrayContainer.aus(c);
+            }
+            return c instanceof BitmapContainer ? c : BitmapContainer.aus(c);
+        }
+    }
+
+    /**
+     * Container storing a sorted array of values.
+     */
+    private static final class ArrayContainer extends Container {
+        private char[] werte = new char[8];
+        private int anzahl;
+
+        static ArrayContainer aus(Container c) {
+            ArrayContainer neu = new ArrayContainer();
+            neu.werte = new char[Math.max(8, c.kardinalitaet())];
+            for (int x = c.naechsteBelegte(0); x < CONTAINER_GROESSE; x = x + 1 < CONTAINER_GROESSE ? c.naechsteBelegte(x + 1) : CONTAINER_GROESSE) {
+                neu.werte[neu.anzahl++] = (char) x;
+            }
+            return neu;
+        }
+
+        private int suchen(int x) {
+            return Arrays.binarySearch(werte, 0, anzahl, (char) x);
+        }
+
+        @Override
+        Container hinzufuegen(int x) {
+            int i = suchen(x);
+            if (i >= 0) {
+                return this;
+            }
+            if (anzahl == MAX_ARRAY) {
+                return BitmapContainer.aus(this).hinzufuegen(x);
+            }
+            i = -i - 1;
+            if (anzahl == werte.length) {
+                werte = Arrays.copyOf(werte, Math.min(MAX_ARRAY, anzahl * 2));
+            }
+            System.arraycopy(werte, i, werte, i + 1, anzahl - i);
+            werte[i] = (char) x;
+            anzahl++;
+            return this;
+        }
+
+        @Override
+        Container entfernen(int x) {
+            int i = suchen(x);
+            if (i >= 0) {
+                System.arraycopy(werte, i + 1, werte, i, anzahl - i - 1);
+                anzahl--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean enthaelt(int x) {
+            return suchen(x) >= 0;
+        }
+
+        @Override
+        int kardinalitaet() {
+            return anzahl;
+        }
+
+        @Override
+        int naechsteFreie(int ab) {
+            int i = suchen(ab);
+            if (i < 0) {
+                return ab;
+            }
+            int x = ab;
+            while (i < anzahl && werte[i] == x) {
+                i++;
+                x++;
+            }
+            return x;
+        }
+
+        @Override
+        int naechsteBelegte(int ab) {
+            int i = suchen(ab);
+            if (i >= 0) {
+                return ab;
+            }
+            i = -i - 1;
+            return i < anzahl ? werte[i] : CONTAINER_GROESSE;
+        }
+
+        @Override
+        Container kopie() {
+            ArrayContainer kopie = new ArrayContainer();
+            kopie.werte = werte.clone();
+            kopie.anzahl = anzahl;
+            return kopie;
+        }
+    }
+
+    /**
+     * Container storing one bit per value.
+     */
+    private static final class BitmapContainer extends Container {
+        private final long[] woerter = new long[CONTAINER_GROESSE / 64];
+        private int anzahl;
+
+        static BitmapContainer aus(Container c) {
+            BitmapContainer neu = new BitmapContainer();
+            int x = c.naechsteBelegte(0);
+            while (x < CONTAINER_GROESSE) {
+                int ende = c.naechsteFreie(x);
+                for (int n = x; n < ende; n++) {
+                    neu.woerter[n >>> 6] |= 1L << n;
+                }
+                neu.anzahl += ende - x;
+                x = ende < CONTAINER_GROESSE ? c.naechsteBelegte(ende) : CONTAINER_GROESSE;
+            }
+            return neu;
+        }
+
+        @Override
+        Container hinzufuegen(int x) {
+            long vorher = woerter[x >>> 6];
+            long nachher = vorher | (1L << x);
+            if (vorher != nachher) {
+                woerter[x >>> 6] = nachher;
+                anzahl++;
+                if (anzahl == CONTAINER_GROESSE) {
+                    return RunContainer.aus(this);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        Container entfernen(int x) {
+            long vorher = woerter[x >>> 6];
+            long nachher = vorher & ~(1L << x);
+            if (vorher != nachher) {
+                woerter[x >>> 6] = nachher;
+                anzahl--;
+                if (anzahl <= MAX_ARRAY / 2) {
+                    return ArrayContainer.aus(this);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        boolean enthaelt(int x) {
+            return (woerter[x >>> 6] & (1L << x)) != 0;
+        }
+
+        @Override
+        int kardinalitaet() {
+            return anzahl;
+        }
+
+        @Override
+        int naechsteFreie(int ab) {
+            int w = ab >>> 6;
+            long bits = ~woerter[w] & (-1L << ab);
+            while (bits == 0) {
+                if (++w == woerter.length) {
+                    return CONTAINER_GROESSE;
+                }
+                bits = ~woerter[w];
+            }
+            return (w << 6) + Long.numberOfTrailingZeros(bits);
+        }
+
+        @Override
+        int naechsteBelegte(int ab) {
+            int w = ab >>> 6;
+            long bits = woerter[w] & (-1L << ab);
+            while (bits == 0) {
+                if (++w == woerter.length) {
+                    return CONTAINER_GROESSE;
+                }
+                bits = woerter[w];
+            }
+            return (w << 6) + Long.numberOfTrailingZeros(bits);
+        }
+
+        @Override
+        Container kopie() {
+            BitmapContainer kopie = new BitmapContainer();
+            System.arraycopy(woerter, 0, kopie.woerter, 0, woerter.length);
+            kopie.anzahl = anzahl;
+            return kopie;
+        }
+    }
+
+    /**
+     * Container storing sorted, non-adjacent runs of consecutive values.
+     */
+    private static final class RunContainer extends Container {
+        private char[] anfaenge = new char[4];
+        private char[] laengen = new char[4];
+        private int runs;
+        private int anzahl;
+
+        static RunContainer aus(Container c) {
+            RunContainer neu = new RunContainer();
+            int x = c.naechsteBelegte(0);
+            while (x < CONTAINER_GROESSE) {
+                int ende = c.naechsteFreie(x);
+                neu.einfuegen(neu.runs, x, ende - 1);
+                neu.anzahl += ende - x;
+                x = ende < CONTAINER_GROESSE ? c.naechsteBelegte(ende) : CONTAINER_GROESSE;
+            }
+            return neu;
+        }
+
+        private int ende(int i) {
+            return anfaenge[i] + laengen[i];
+        }
+
+        /**
+         * Returns the index of the last run starting at or before x, or -1.
+         */
+        private int run(int x) {
+            int niedrig = 0;
+            int hoch = runs - 1;
+            while (niedrig <= hoch) {
+                int mitte = (niedrig + hoch) >>> 1;
+                if (anfaenge[mitte] <= x) {
+                    niedrig = mitte + 1;
+                } else {
+                    hoch = mitte - 1;
+                }
+            }
+            return hoch;
+        }
+
+        private void einfuegen(int i, int anfang, int ende) {
+            if (runs == anfaenge.length) {
+                anfaenge = Arrays.copyOf(anfaenge, runs * 2);
+                laengen = Arrays.copyOf(laengen, runs * 2);
+            }
+            System.arraycopy(anfaenge, i, anfaenge, i + 1, runs - i);
+            System.arraycopy(laengen, i, laengen, i + 1, runs - i);
+            anfaenge[i] = (char) anfang;
+            laengen[i] = (char) (ende - anfang);
+            runs++;
+        }
+
+        private void loeschen(int i) {
+            System.arraycopy(anfaenge, i + 1, anfaenge, i, runs - i - 1);
+            System.arraycopy(laengen, i + 1, laengen, i, runs - i - 1);
+            runs--;
+        }
+
+        private Container pruefeGroesse() {
+            if (runs <= MAX_RUNS) {
+                return this;
+            }
+            return anzahl <= MAX_ARRAY ? ArrayContainer.aus(this) : BitmapContainer.aus(this);
+        }
+
+        @Override
+        Container hinzufuegen(int x) {
+            int i = run(x);
+            if (i >= 0 && x <= ende(i)) {
+                return this;
+            }
+            boolean linksAngrenzend = i >= 0 && ende(i) + 1 == x;
+            boolean rechtsAngrenzend = i + 1 < runs && anfaenge[i + 1] - 1 == x;
+            if (linksAngrenzend && rechtsAngrenzend) {
+                laengen[i] = (char) (ende(i + 1) - anfaenge[i]);
+                loeschen(i + 1);
+            } else if (linksAngrenzend) {
+                laengen[i]++;
+            } else if (rechtsAngrenzend) {
+                anfaenge[i + 1]--;
+                laengen[i + 1]++;
+            } else {
+                einfuegen(i + 1, x, x);
+            }
+            anzahl++;
+            return pruefeGroesse();
+        }
+
+        @Override
+        Container entfernen(int x) {
+            int i = run(x);
+            if (i < 0 || x > ende(i)) {
+                return this;
+            }
+            int anfang = anfaenge[i];
+            int ende = ende(i);
+            if (anfang == ende) {
+                loeschen(i);
+            } else if (x == anfang) {
+                anfaenge[i]++;
+                laengen[i]--;
+            } else if (x == ende) {
+                laengen[i]--;
+            } else {
+                laengen[i] = (char) (x - 1 - anfang);
+                einfuegen(i + 1, x + 1, ende);
+            }
+            anzahl--;
+            return pruefeGroesse();
+        }
+
+        @Override
+        boolean enthaelt(int x) {
+            int i = run(x);
+            return i >= 0 && x <= ende(i);
+        }
+
+        @Override
+        int kardinalitaet() {
+            return anzahl;
+        }
+
+        @Override
+        int naechsteFreie(int ab) {
+            int i = run(ab);
+            return i >= 0 && ab <= ende(i) ? ende(i) + 1 : ab;
+        }
+
+        @Override
+        int naechsteBelegte(int ab) {
+            int i = run(ab);
+            if (i >= 0 && ab <= ende(i)) {
+                return ab;
+            }
+            return i + 1 < runs ? anfaenge[i + 1] : CONTAINER_GROESSE;
+        }
+
+        @Override
+        int anzahlRuns() {
+            return runs;
+        }
+
+        @Override
+        Container kopie() {
+            RunContainer kopie = new RunContainer();
+            kopie.anfaenge = anfaenge.clone();
+            kopie.laengen = laengen.clone();
+            kopie.runs = runs;
+            kopie.anzahl = anzahl;
+            return kopie;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package bankprojekt.verwaltung;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Hands out unique account numbers without a global lock.
+ * <p>
+ * Numbers are issued from a small, fixed set of shared slots, each holding a contiguous block of numbers
+ * leased from a shared high-water mark (a single atomic increment). A thread issues a number with a single
+ * compare-and-set on its slot. All threads start at the first slot and move to another slot only when they
+ * collide with another thread, so without contention the numbers are issued densely, one block after another,
+ * however many threads create accounts. A block that cannot be placed in a slot is handed back and leased
+ * again before any new block. Numbers of deleted accounts can optionally be handed out again.
+ * <p>
+ * To let several Bank processes allocate numbers without coordination, the number space can be
+ * partitioned by node: with {@code knotenAnzahl} nodes, node {@code knotenId} only leases every
+ * {@code knotenAnzahl}-th block, starting at block {@code knotenId}.
+ */
+public final class KontonummernVergabe implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 20241102L;
+
+    /**
+     * default number of account numbers leased to a thread at once
+     */
+    public static final int STANDARD_BLOCKGROESSE = 64;
+
+    /**
+     * the number of slots, a power of two
+     */
+    private static final int SLOTS = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+
+    /**
+     * the slot each thread tries first, shared by all allocators; changed when the thread collides on its slot
+     */
+    private static final ThreadLocal<int[]> SONDE = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final long minimum;
+    private final int blockGroesse;
+    private final int knotenId;
+    private final int knotenAnzahl;
+    private final boolean wiederverwenden;
+
+    /**
+     * the number of blocks this node has leased so far
+     */
+    private final AtomicLong geleasteBloecke = new AtomicLong();
+
+    /**
+     * the highest account number issued so far
+     */
+    private transient LongAccumulator hoechsteVergebene;
+
+    /**
+     * per slot the position of the next number to issue, counted in the numbers of this node;
+     * a position at the start of a block means that the slot is used up
+     */
+    private transient AtomicLongArray slots;
+
+    /**
+     * positions of leased blocks, or remainders of blocks, not held by any slot
+     */
+    private transient ConcurrentLinkedQueue<Long> zurueckgegeben;
+
+    private transient ConcurrentLinkedQueue<Long> freigegeben;
+
+    /**
+     * Creates an allocator for a single node that hands out numbers starting at minimum
+     * and never reuses numbers of deleted accounts.
+     *
+     * @param minimum the smallest account number
+     */
+    public KontonummernVergabe(long minimum) {
+        this(minimum, STANDARD_BLOCKGROESSE, false, 0, 1);
+    }
+
+    /**
+     * Creates an allocator.
+     *
+     * @param minimum         the smallest account number
+     * @param blockGroesse    the number of account numbers leased to a thread at once
+     * @param wiederverwenden true, if numbers of deleted accounts should be handed out again
+     * @param knotenId        the id of this node, between 0 and knotenAnzahl - 1
+     * @param knotenAnzahl    the number of nodes sharing the number space
+     * @throws IllegalArgumentException if minimum is negative, blockGroesse or knotenAnzahl is not positive
+     *                                  or knotenId is out of range
+     */
+    public KontonummernVergabe(long minimum, int blockGroesse, boolean wiederverwenden, int knotenId, int knotenAnzahl) {
+        if (minimum < 0 || blockGroesse <= 0 || knotenAnzahl <= 0 || knotenId < 0 || knotenId >= knotenAnzahl) {
+            throw new IllegalArgumentException("Ungueltige Parameter fuer die Kontonummernvergabe");
+        }
+        this.minimum = minimum;
+        this.blockGroesse = blockGroesse;
+        this.wiederverwenden = wiederverwenden;
+        this.knotenId = knotenId;
+        this.knotenAnzahl = knotenAnzahl;
+        initialisieren(minimum - 1);
+    }
+
+    private void initialisieren(long hoechste) {
+        hoechsteVergebene = new LongAccumulator(Long::max, hoechste);
+        slots = new AtomicLongArray(SLOTS);
+        zurueckgegeben = new ConcurrentLinkedQueue<>();
+        freigegeben = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Returns the first account number of the block with the given index of this node.
+     */
+    private long blockAnfang(long blockIndex) {
+        return minimum + (blockIndex * knotenAnzahl + knotenId) * blockGroesse;
+    }
+
+    /**
+     * Returns the account number at the given position in the numbers of this node.
+     */
+    private long nummer(long position) {
+        return blockAnfang(position / blockGroesse) + position % blockGroesse;
+    }
+
+    /**
+     * Returns a new account number that has not been handed out before,
+     * or a released number if reuse is enabled.
+     *
+     * @return the account number
+     */
+    public long naechste() {
+        if (wiederverwenden) {
+            Long wieder = freigegeben.poll();
+            if (wieder != null) {
+                return wieder;
+            }
+        }
+        int[] sonde = SONDE.get();
+        while (true) {
+            int slot = sonde[0] & (SLOTS - 1);
+            long position = slots.get(slot);
+            if (position % blockGroesse != 0) {
+                if (slots.compareAndSet(slot, position, position + 1)) {
+                    return vergeben(position);
+                }
+            } else {
+                Long frei = zurueckgegeben.poll();
+                long neu = frei != null ? frei : geleasteBloecke.getAndIncrement() * blockGroesse;
+                if (slots.compareAndSet(slot, position, neu + 1)) {
+                    return vergeben(neu);
+                }
+                zurueckgegeben.offer(neu);
+            }
+            sonde[0] = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    private long vergeben(long position) {
+        long nummer = nummer(position);
+        hoechsteVergebene.accumulate(nummer);
+        return nummer;
+    }
+
+    /**
+     * Returns the numbers that have been leased but not handed out yet, as ranges. Numbers below
+     * {@link #getHoechsteVergebene()} may be among them, they are not gaps. The result is a snapshot
+     * that may be outdated at once if other threads hand out numbers at the same time.
+     *
+     * @return pairs of the first number of a range and the number after its end, in no particular order
+     */
+    long[] offeneBereiche() {
+        List<Long> positionen = offenePositionen();
+        long[] bereiche = new long[2 * positionen.size()];
+        for (int i = 0; i < positionen.size(); i++) {
+            long position = positionen.get(i);
+            bereiche[2 * i] = nummer(position);
+            bereiche[2 * i + 1] = blockAnfang(position / blockGroesse) + blockGroesse;
+        }
+        return bereiche;
+    }
+
+    /**
+     * Returns the positions of the next number of every leased block that is not used up yet.
+     */
+    private List<Long> offenePositionen() {
+        List<Long> positionen = new ArrayList<>(zurueckgegeben);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            long position = slots.get(slot);
+            if (position % blockGroesse != 0) {
+                positionen.add(position);
+            }
+        }
+        return positionen;
+    }
+
+    /**
+     * Visits the ranges of numbers this node hands out, from the minimum up to bis, in ascending order.
+     * With several nodes the blocks of the other nodes are skipped.
+     *
+     * @param bis      the last number to consider
+     * @param besucher called for every range
+     */
+    void eigeneBereicheBesuchen(long bis, KontonummernBitmap.BereichBesucher besucher) {
+        if (knotenAnzahl == 1) {
+            if (minimum <= bis) {
+                besucher.besuchen(minimum, bis);
+            }
+            return;
+        }
+        for (long block = 0; blockAnfang(block) <= bis; block++) {
+            long anfang = blockAnfang(block);
+            besucher.besuchen(anfang, Math.min(anfang + blockGroesse - 1, bis));
+        }
+    }
+
+    /**
+     * Releases the number of a deleted account. It is handed out again only if reuse is enabled.
+     *
+     * @param nummer the number of the deleted account
+     */
+    public void freigeben(long nummer) {
+        if (wiederverwenden) {
+            freigegeben.offer(nummer);
+        }
+    }
+
+    /**
+     * Marks the given number as taken, e.g. when an account is restored with a known number.
+     * Blocks up to this number are no longer leased.
+     *
+     * @param nummer the account number that is already in use
+     */
+    public void reservieren(long nummer) {
+        if (nummer < minimum) {
+            return;
+        }
+        long blockNummer = (nummer - minimum) / blockGroesse;
+        if (blockNummer >= knotenId) {
+            long naechsterEigenerBlock = (blockNummer - knotenId) / knotenAnzahl + 1;
+            geleasteBloecke.accumulateAndGet(naechsterEigenerBlock, Math::max);
+        }
+        hoechsteVergebene.accumulate(nummer);
+    }
+
+    /**
+     * Returns the highest account number handed out so far.
+     *
+     * @return the highest account number or minimum - 1 if no number has been handed out
+     */
+    public long getHoechsteVergebene() {
+        return hoechsteVergebene.get();
+    }
+
+    /**
+     * Returns the smallest account number.
+     *
+     * @return the smallest account number
+     */
+    public long getMinimum() {
+        return minimum;
+    }
+
+    /**
+     * Returns an independent allocator in the same state, e.g. for a snapshot of a bank.
+     * The numbers leased but not handed out yet are copied as well, so the copy hands out the same numbers next.
+     *
+     * @return the copy
+     */
+    KontonummernVergabe kopie() {
+        KontonummernVergabe kopie = new KontonummernVergabe(minimum, blockGroesse, wiederverwenden, knotenId, knotenAnzahl);
+        kopie.geleasteBloecke.set(geleasteBloecke.get());
+        kopie.hoechsteVergebene.accumulate(hoechsteVergebene.get());
+        kopie.zurueckgegeben.addAll(offenePositionen());
+        kopie.freigegeben.addAll(freigegeben);
+        return kopie;
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream oos) throws IOException {
+        oos.defaultWriteObject();
+        oos.writeLong(hoechsteVergebene.get());
+        List<Long> positionen = offenePositionen();
+        oos.writeInt(positionen.size());
+        for (long position : positionen) {
+            oos.writeLong(position);
+        }
+        List<Long> nummern = new ArrayList<>(freigegeben);
+        oos.writeInt(nummern.size());
+        for (long nummer : nummern) {
+            oos.writeLong(nummer);
+        }
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
+        ois.defaultReadObject();
+        initialisieren(ois.readLong());
+        int offen = ois.readInt();
+        for (int i = 0; i < offen; i++) {
+            zurueckgegeben.offer(ois.readLong());
+        }
+        int n = ois.readInt();
+        for (int i = 0; i < n; i++) {
+            freigegeben.offer(ois.readLong());
+        }
+    }
+}
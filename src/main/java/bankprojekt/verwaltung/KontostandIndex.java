@@ -0,0 +1,140 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Konto;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.lang.ref.WeakReference;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongConsumer;
+
+/**
+ * Secondary index of the accounts of a bank ordered by balance, for threshold and range queries.
+ * <p>
+ * The index holds one entry (balance, account number) per account in a concurrent skip list. It is registered
+ * as listener with every account of the bank and moves the entry of an account whenever its balance changes,
+ * so a query costs time proportional to the number of matching accounts. The bank adds and removes entries
+ * when it creates, deletes or replaces accounts.
+ * <p>
+ * Changes of a single account are serialized by the lock of the account, so its entries never overlap.
+ * Queries are weakly consistent: an account whose balance changes during a query may be missed or seen twice.
+ */
+final class KontostandIndex implements PropertyChangeListener {
+
+    /**
+     * An entry of the index.
+     *
+     * @param kontostand the balance of the account
+     * @param nummer     the account number
+     */
+    private record Eintrag(double kontostand, long nummer) {
+    }
+
+    private static final Comparator<Eintrag> ORDNUNG = Comparator
+            .comparingDouble(Eintrag::kontostand)
+            .thenComparingLong(Eintrag::nummer);
+
+    private final NavigableSet<Eintrag> eintraege = new ConcurrentSkipListSet<>(ORDNUNG);
+    private final KontoVerzeichnis konten;
+    private final WeakReference<Bank> besitzer;
+
+    /**
+     * Creates an empty index for the accounts of the given directory.
+     *
+     * @param konten   the accounts of the bank
+     * @param besitzer the bank, held weakly so that its indexes stop following shared accounts once it is gone
+     */
+    KontostandIndex(KontoVerzeichnis konten, WeakReference<Bank> besitzer) {
+        this.konten = konten;
+        this.besitzer = besitzer;
+    }
+
+    /**
+     * Unregisters from all accounts of the bank. Called once the bank is no longer reachable,
+     * because a snapshot shares its accounts with the bank it was taken of.
+     */
+    void abmelden() {
+        konten.forEach((nummer, konto) -> konto.abmelden(this));
+    }
+
+    /**
+     * Adds an account to the index and registers the index with it.
+     *
+     * @param nummer the account number
+     * @param konto  the account
+     */
+    void hinzufuegen(long nummer, Konto konto) {
+        eintraege.add(new Eintrag(konto.getKontostand(), nummer));
+        konto.anmelden(this);
+    }
+
+    /**
+     * Removes an account from the index and unregisters the index from it.
+     *
+     * @param nummer the account number
+     * @param konto  the account
+     */
+    void entfernen(long nummer, Konto konto) {
+        konto.abmelden(this);
+        eintraege.remove(new Eintrag(konto.getKontostand(), nummer));
+    }
+
+    /**
+     * Registers the index with a copy that replaces an account of the bank. The copy has the same balance,
+     * so the entry stays where it is.
+     *
+     * @param kopie the copy
+     */
+    void ersetzt(Konto kopie) {
+        kopie.anmelden(this);
+    }
+
+    /**
+     * Calls the consumer with the number of every account with a balance of at least minimum.
+     *
+     * @param minimum  the lowest balance
+     * @param besucher called for every account
+     */
+    void abBesuchen(double minimum, LongConsumer besucher) {
+        for (Eintrag eintrag : eintraege.tailSet(new Eintrag(minimum, Long.MIN_VALUE), true)) {
+            besucher.accept(eintrag.nummer());
+        }
+    }
+
+    /**
+     * Calls the consumer with the number of every account with a balance below grenze.
+     *
+     * @param grenze   the balance all visited accounts are below
+     * @param besucher called for every account
+     */
+    void unterBesuchen(double grenze, LongConsumer besucher) {
+        for (Eintrag eintrag : eintraege.headSet(new Eintrag(grenze, Long.MIN_VALUE), false)) {
+            if (eintrag.kontostand() < grenze) {
+                besucher.accept(eintrag.nummer());
+            }
+        }
+    }
+
+    /**
+     * Moves the entry of an account when its balance changes. An account that no longer belongs to the bank,
+     * e.g. because a snapshot of the bank got its own copy, or an account of a bank that is gone is unregistered.
+     *
+     * @param evt the change
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (!"kontostand".equals(evt.getPropertyName())) {
+            return;
+        }
+        Konto konto = (Konto) evt.getSource();
+        long nummer = konto.getKontonummer();
+        if (besitzer.get() == null || konten.get(nummer) != konto) {
+            konto.abmelden(this);
+            return;
+        }
+        eintraege.remove(new Eintrag((Double) evt.getOldValue(), nummer));
+        eintraege.add(new Eintrag((Double) evt.getNewValue(), nummer));
+    }
+}
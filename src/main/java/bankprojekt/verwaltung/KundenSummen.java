@@ -0,0 +1,246 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Geldbetrag;
+import bankprojekt.verarbeitung.Girokonto;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kunde;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals of the accounts of a bank per customer, with the customers ordered by their total balance.
+ * <p>
+ * For every customer the total balance of all accounts, the amount by which their Girokonten are overdrawn
+ * and the number of accounts are kept. The object is registered as listener with every account of the bank
+ * and applies each change of a balance or of an owner as a difference, so no query has to sum up accounts.
+ * The customers are kept in a concurrent skip list ordered by total balance, which answers "customers above X"
+ * and "top K customers" in time proportional to the size of the result.
+ * <p>
+ * The totals are kept in cents, so they stay exact however many changes are applied.
+ * Changes of the same customer are serialized on its totals. Queries are weakly consistent.
+ */
+final class KundenSummen implements PropertyChangeListener {
+
+    /**
+     * The totals of a customer. Guarded by its own monitor.
+     */
+    private static final class Summe {
+        private final long id;
+        private long kontostand;
+        private long ueberziehung;
+        private int konten;
+        private Eintrag eintrag;
+        private boolean entfernt;
+
+        private Summe(long id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * A customer in the order of total balances; the id separates customers with the same total.
+     */
+    private record Eintrag(long kontostand, long id, Kunde kunde) {
+    }
+
+    private static final Comparator<Eintrag> ORDNUNG = Comparator
+            .comparingLong(Eintrag::kontostand)
+            .thenComparingLong(Eintrag::id);
+
+    private final ConcurrentHashMap<Kunde, Summe> summen = new ConcurrentHashMap<>();
+    private final NavigableSet<Eintrag> rangfolge = new ConcurrentSkipListSet<>(ORDNUNG);
+    private final AtomicLong naechsteId = new AtomicLong();
+    private final KontoVerzeichnis konten;
+    private final WeakReference<Bank> besitzer;
+
+    /**
+     * Creates empty totals for the accounts of the given directory.
+     *
+     * @param konten   the accounts of the bank
+     * @param besitzer the bank, held weakly so that its indexes stop following shared accounts once it is gone
+     */
+    KundenSummen(KontoVerzeichnis konten, WeakReference<Bank> besitzer) {
+        this.konten = konten;
+        this.besitzer = besitzer;
+    }
+
+    /**
+     * Unregisters from all accounts of the bank. Called once the bank is no longer reachable,
+     * because a snapshot shares its accounts with the bank it was taken of.
+     */
+    void abmelden() {
+        konten.forEach((nummer, konto) -> konto.abmelden(this));
+    }
+
+    private static long ueberziehung(Konto konto, long kontostand) {
+        return konto instanceof Girokonto && kontostand < 0 ? -kontostand : 0;
+    }
+
+    /**
+     * Adds the given differences to the totals of a customer and moves the customer in the order.
+     * A customer without accounts is dropped.
+     */
+    private void aendern(Kunde kunde, long kontostand, long ueberziehung, int konten) {
+        while (true) {
+            Summe summe = summen.computeIfAbsent(kunde, k -> new Summe(naechsteId.getAndIncrement()));
+            synchronized (summe) {
+                if (summe.entfernt) {
+                    continue;
+                }
+                if (summe.eintrag != null) {
+                    rangfolge.remove(summe.eintrag);
+                }
+                summe.kontostand += kontostand;
+                summe.ueberziehung += ueberziehung;
+                summe.konten += konten;
+                if (summe.konten == 0) {
+                    summe.entfernt = true;
+                    summe.eintrag = null;
+                    summen.remove(kunde);
+                } else {
+                    summe.eintrag = new Eintrag(summe.kontostand, summe.id, kunde);
+                    rangfolge.add(summe.eintrag);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds an account to the totals of its owner and registers with it.
+     *
+     * @param nummer the account number
+     * @param konto  the account
+     */
+    void hinzufuegen(long nummer, Konto konto) {
+        long kontostand = Geldbetrag.inCent(konto.getKontostand());
+        aendern(konto.getInhaber(), kontostand, ueberziehung(konto, kontostand), 1);
+        konto.anmelden(this);
+    }
+
+    /**
+     * Removes an account from the totals of its owner and unregisters from it.
+     *
+     * @param nummer the account number
+     * @param konto  the account
+     */
+    void entfernen(long nummer, Konto konto) {
+        konto.abmelden(this);
+        long kontostand = Geldbetrag.inCent(konto.getKontostand());
+        aendern(konto.getInhaber(), -kontostand, -ueberziehung(konto, kontostand), -1);
+    }
+
+    /**
+     * Registers with a copy that replaces an account of the bank. The copy has the same owner and balance,
+     * so the totals stay as they are.
+     *
+     * @param kopie the copy
+     */
+    void ersetzt(Konto kopie) {
+        kopie.anmelden(this);
+    }
+
+    /**
+     * Returns the total balance of all accounts of the customer.
+     *
+     * @param kunde the customer
+     * @return the total balance, 0 if the customer has no account
+     */
+    double kontostand(Kunde kunde) {
+        Summe summe = summen.get(kunde);
+        if (summe == null) {
+            return 0;
+        }
+        synchronized (summe) {
+            return Geldbetrag.alsBetrag(summe.kontostand);
+        }
+    }
+
+    /**
+     * Returns the amount by which the Girokonten of the customer are overdrawn in total.
+     *
+     * @param kunde the customer
+     * @return the sum of the negative balances of the Girokonten of the customer as a positive amount
+     */
+    double ueberziehung(Kunde kunde) {
+        Summe summe = summen.get(kunde);
+        if (summe == null) {
+            return 0;
+        }
+        synchronized (summe) {
+            return Geldbetrag.alsBetrag(summe.ueberziehung);
+        }
+    }
+
+    /**
+     * Returns the customers whose total balance is greater than minimum, the richest first.
+     *
+     * @param minimum the total balance to exceed
+     * @return the customers
+     */
+    List<Kunde> ueber(double minimum) {
+        List<Kunde> ergebnis = new ArrayList<>();
+        long untergrenze = Math.max(Long.MIN_VALUE + 1, (long) Math.floor(minimum * 100)) - 1;
+        for (Eintrag eintrag : rangfolge.tailSet(new Eintrag(untergrenze, Long.MAX_VALUE, null), false).descendingSet()) {
+            if (Geldbetrag.alsBetrag(eintrag.kontostand()) > minimum) {
+                ergebnis.add(eintrag.kunde());
+            }
+        }
+        return ergebnis;
+    }
+
+    /**
+     * Returns the anzahl customers with the highest total balance, the richest first.
+     *
+     * @param anzahl the maximum number of customers
+     * @return the customers
+     */
+    List<Kunde> reichste(int anzahl) {
+        List<Kunde> ergebnis = new ArrayList<>(Math.min(anzahl, 1024));
+        Iterator<Eintrag> iterator = rangfolge.descendingIterator();
+        while (ergebnis.size() < anzahl && iterator.hasNext()) {
+            ergebnis.add(iterator.next().kunde());
+        }
+        return ergebnis;
+    }
+
+    /**
+     * Applies a change of the balance or of the owner of an account of the bank. An account that no longer
+     * belongs to the bank, e.g. because a snapshot of the bank got its own copy, or an account of a bank that is gone
+     * is unregistered.
+     *
+     * @param evt the change
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        String eigenschaft = evt.getPropertyName();
+        if (!"kontostand".equals(eigenschaft) && !"inhaber".equals(eigenschaft)) {
+            return;
+        }
+        Konto konto = (Konto) evt.getSource();
+        if (besitzer.get() == null || konten.get(konto.getKontonummer()) != konto) {
+            konto.abmelden(this);
+            return;
+        }
+        if ("kontostand".equals(eigenschaft)) {
+            long alt = Geldbetrag.inCent((Double) evt.getOldValue());
+            long neu = Geldbetrag.inCent((Double) evt.getNewValue());
+            aendern(konto.getInhaber(), neu - alt, ueberziehung(konto, neu) - ueberziehung(konto, alt), 0);
+        } else {
+            long kontostand = Geldbetrag.inCent(konto.getKontostand());
+            long ueberziehung = ueberziehung(konto, kontostand);
+            aendern((Kunde) evt.getOldValue(), -kontostand, -ueberziehung, -1);
+            aendern((Kunde) evt.getNewValue(), kontostand, ueberziehung, 1);
+        }
+    }
+}
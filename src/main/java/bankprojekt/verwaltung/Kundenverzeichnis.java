@@ -0,0 +1,227 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kunde;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The customers of a bank, each listed once and sorted by first name in German collation order.
+ * <p>
+ * Every customer with at least one account in the bank has an entry holding the collation keys of their
+ * first and last name and the preformatted line "name: address". The entries are kept in a concurrent skip list
+ * ordered by these keys, so listing the customers neither hashes nor sorts nor formats anything.
+ * The directory is registered as listener with the accounts of the bank, to follow changes of owner,
+ * and with the customers, to update the entry of a customer whose name or address changes.
+ * <p>
+ * Changes of the same customer are serialized on its entry. Listing is weakly consistent.
+ */
+final class Kundenverzeichnis implements PropertyChangeListener {
+
+    /**
+     * The number of lines written before the writer is flushed.
+     */
+    static final int SEITENGROESSE = 4096;
+
+    /**
+     * The entry of a customer. Guarded by its own monitor, except for the line, which is read without it.
+     */
+    private static final class Eintrag {
+        private final long id;
+        private int konten;
+        private Schluessel schluessel;
+        private volatile String zeile;
+        private boolean entfernt;
+
+        private Eintrag(long id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * The sort key of a customer; the id separates customers with the same name.
+     */
+    private record Schluessel(CollationKey vorname, CollationKey nachname, long id) implements Comparable<Schluessel> {
+        @Override
+        public int compareTo(Schluessel other) {
+            int vergleich = vorname.compareTo(other.vorname);
+            if (vergleich == 0) {
+                vergleich = nachname.compareTo(other.nachname);
+            }
+            return vergleich != 0 ? vergleich : Long.compare(id, other.id);
+        }
+    }
+
+    private final Collator collator = Collator.getInstance(Locale.GERMAN);
+    private final ConcurrentHashMap<Kunde, Eintrag> eintraege = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Schluessel, Eintrag> sortiert = new ConcurrentSkipListMap<>();
+    private final AtomicLong naechsteId = new AtomicLong();
+    private final KontoVerzeichnis konten;
+    private final WeakReference<Bank> besitzer;
+
+    /**
+     * Creates an empty directory for the accounts of the given account directory.
+     *
+     * @param konten   the accounts of the bank
+     * @param besitzer the bank, held weakly so that its indexes stop following shared accounts once it is gone
+     */
+    Kundenverzeichnis(KontoVerzeichnis konten, WeakReference<Bank> besitzer) {
+        this.konten = konten;
+        this.besitzer = besitzer;
+    }
+
+    /**
+     * Unregisters from all accounts and customers of the bank. Called once the bank is no longer reachable,
+     * because a snapshot shares its accounts with the bank it was taken of.
+     */
+    void abmelden() {
+        konten.forEach((nummer, konto) -> konto.abmelden(this));
+        eintraege.keySet().forEach(kunde -> kunde.abmelden(this));
+    }
+
+    private Schluessel schluessel(Kunde kunde, long id) {
+        synchronized (collator) {
+            return new Schluessel(collator.getCollationKey(kunde.getVorname()),
+                    collator.getCollationKey(kunde.getNachname()), id);
+        }
+    }
+
+    private static String zeile(Kunde kunde) {
+        return kunde.getName() + ": " + kunde.getAdresse();
+    }
+
+    /**
+     * Changes the number of accounts of a customer by the given difference. A customer gets an entry
+     * with their first account and loses it with their last one.
+     */
+    private void zaehlen(Kunde kunde, int differenz) {
+        while (true) {
+            Eintrag eintrag = eintraege.computeIfAbsent(kunde, k -> new Eintrag(naechsteId.getAndIncrement()));
+            synchronized (eintrag) {
+                if (eintrag.entfernt) {
+                    continue;
+                }
+                eintrag.konten += differenz;
+                if (eintrag.konten <= 0) {
+                    eintrag.entfernt = true;
+                    eintraege.remove(kunde);
+                    if (eintrag.schluessel != null) {
+                        sortiert.remove(eintrag.schluessel);
+                        kunde.abmelden(this);
+                    }
+                } else if (eintrag.schluessel == null) {
+                    eintrag.schluessel = schluessel(kunde, eintrag.id);
+                    eintrag.zeile = zeile(kunde);
+                    sortiert.put(eintrag.schluessel, eintrag);
+                    kunde.anmelden(this);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Counts an account for its owner and registers with it.
+     *
+     * @param nummer the account number
+     * @param konto  the account
+     */
+    void hinzufuegen(long nummer, Konto konto) {
+        zaehlen(konto.getInhaber(), 1);
+        konto.anmelden(this);
+    }
+
+    /**
+     * Stops counting an account for its owner and unregisters from it.
+     *
+     * @param nummer the account number
+     * @param konto  the account
+     */
+    void entfernen(long nummer, Konto konto) {
+        konto.abmelden(this);
+        zaehlen(konto.getInhaber(), -1);
+    }
+
+    /**
+     * Registers with a copy that replaces an account of the bank. The copy has the same owner.
+     *
+     * @param kopie the copy
+     */
+    void ersetzt(Konto kopie) {
+        kopie.anmelden(this);
+    }
+
+    /**
+     * Writes the line "name: address" of every customer to the writer, separated by line separators,
+     * and flushes the writer after every {@value #SEITENGROESSE} lines and at the end.
+     *
+     * @param ziel the writer
+     * @throws IOException if the writer fails
+     */
+    void schreiben(Writer ziel) throws IOException {
+        int zeilen = 0;
+        for (Eintrag eintrag : sortiert.values()) {
+            if (zeilen > 0) {
+                ziel.write(System.lineSeparator());
+                if (zeilen % SEITENGROESSE == 0) {
+                    ziel.flush();
+                }
+            }
+            ziel.write(eintrag.zeile);
+            zeilen++;
+        }
+        ziel.flush();
+    }
+
+    /**
+     * Follows a change of owner of an account of the bank, or of the name or address of a customer.
+     * An account that no longer belongs to the bank, e.g. because a snapshot of the bank got its own copy,
+     * is unregistered.
+     *
+     * @param evt the change
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (evt.getSource() instanceof Konto konto) {
+            if (!"inhaber".equals(evt.getPropertyName())) {
+                return;
+            }
+            if (besitzer.get() == null || konten.get(konto.getKontonummer()) != konto) {
+                konto.abmelden(this);
+                return;
+            }
+            zaehlen((Kunde) evt.getOldValue(), -1);
+            zaehlen((Kunde) evt.getNewValue(), 1);
+        } else if (evt.getSource() instanceof Kunde kunde) {
+            if (besitzer.get() == null) {
+                kunde.abmelden(this);
+                return;
+            }
+            Eintrag eintrag = eintraege.get(kunde);
+            if (eintrag == null) {
+                return;
+            }
+            synchronized (eintrag) {
+                if (eintrag.entfernt) {
+                    return;
+                }
+                if (!"adresse".equals(evt.getPropertyName())) {
+                    sortiert.remove(eintrag.schluessel);
+                    eintrag.schluessel = schluessel(kunde, eintrag.id);
+                    sortiert.put(eintrag.schluessel, eintrag);
+                }
+                eintrag.zeile = zeile(kunde);
+            }
+        }
+    }
+}
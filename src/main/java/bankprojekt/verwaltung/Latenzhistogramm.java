@@ -0,0 +1,129 @@
+package bankprojekt.verwaltung;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of latencies in nanoseconds.
+ * <p>
+ * Every power of two is divided into {@value #UNTERTEILUNG} equal buckets, so a latency is recorded with
+ * a relative error of at most 1/{@value #UNTERTEILUNG}, about 3 percent, whatever its magnitude; latencies
+ * below 2 * {@value #UNTERTEILUNG} nanoseconds are recorded exactly. Latencies above about 18 minutes
+ * are counted in the last bucket, the maximum is kept exactly.
+ * <p>
+ * Recording takes no lock and creates no garbage: it increments a counter in one of several stripes,
+ * chosen by the recording thread, so threads on different cores rarely touch the same counters.
+ * The stripes are merged when the histogram is read.
+ */
+final class Latenzhistogramm {
+    private static final int UNTERTEILUNG_BITS = 5;
+    private static final int UNTERTEILUNG = 1 << UNTERTEILUNG_BITS;
+    private static final int MAX_BITS = 40;
+    private static final int BUCKETS = (MAX_BITS - UNTERTEILUNG_BITS + 1) * UNTERTEILUNG;
+    private static final long MAX_WERT = (1L << MAX_BITS) - 1;
+
+    /**
+     * per stripe: the buckets, followed by the sum and the maximum
+     */
+    private final AtomicLongArray[] streifen;
+    private final int maske;
+
+    /**
+     * Creates an empty histogram with stripes for the available processors.
+     */
+    Latenzhistogramm() {
+        int anzahl = Integer.highestOneBit(Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 16)) * 2 - 1);
+        streifen = new AtomicLongArray[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            streifen[i] = new AtomicLongArray(BUCKETS + 2);
+        }
+        maske = anzahl - 1;
+    }
+
+    /**
+     * Returns the bucket of a latency.
+     *
+     * @param wert the latency, between 0 and {@link #MAX_WERT}
+     * @return the index of the bucket
+     */
+    static int bucket(long wert) {
+        if (wert < 2 * UNTERTEILUNG) {
+            return (int) wert;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(wert) - UNTERTEILUNG_BITS;
+        return (int) (exponent * UNTERTEILUNG + (wert >>> exponent));
+    }
+
+    /**
+     * Returns the highest latency of a bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the highest latency counted in the bucket
+     */
+    static long obergrenze(int bucket) {
+        if (bucket < 2 * UNTERTEILUNG) {
+            return bucket;
+        }
+        int exponent = bucket / UNTERTEILUNG - 1;
+        long mantisse = bucket % UNTERTEILUNG + UNTERTEILUNG;
+        return ((mantisse + 1) << exponent) - 1;
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds, negative values are counted as 0
+     */
+    void erfassen(long nanos) {
+        long wert = Math.max(0, nanos);
+        long id = Thread.currentThread().threadId();
+        AtomicLongArray zaehler = streifen[(int) (id ^ id >>> 16) & maske];
+        zaehler.getAndIncrement(bucket(Math.min(wert, MAX_WERT)));
+        zaehler.getAndAdd(BUCKETS, wert);
+        long max = zaehler.get(BUCKETS + 1);
+        while (wert > max && !zaehler.weakCompareAndSetVolatile(BUCKETS + 1, max, wert)) {
+            max = zaehler.get(BUCKETS + 1);
+        }
+    }
+
+    /**
+     * Merges the stripes and evaluates them. Latencies recorded while merging may be missing,
+     * or be counted but not yet be part of the mean and the maximum.
+     *
+     * @return the statistics of all latencies recorded so far
+     */
+    Latenzstatistik auswerten() {
+        long[] summe = new long[BUCKETS];
+        long anzahl = 0;
+        long gesamt = 0;
+        long max = 0;
+        for (AtomicLongArray zaehler : streifen) {
+            for (int i = 0; i < BUCKETS; i++) {
+                summe[i] += zaehler.get(i);
+            }
+            gesamt += zaehler.get(BUCKETS);
+            max = Math.max(max, zaehler.get(BUCKETS + 1));
+        }
+        for (long n : summe) {
+            anzahl += n;
+        }
+        long[] grenzen = {rang(anzahl, 0.5), rang(anzahl, 0.99), rang(anzahl, 0.999)};
+        long[] perzentile = new long[grenzen.length];
+        long bisher = 0;
+        int p = 0;
+        for (int i = 0; i < BUCKETS && p < grenzen.length; i++) {
+            bisher += summe[i];
+            while (p < grenzen.length && bisher >= grenzen[p] && grenzen[p] > 0) {
+                perzentile[p++] = Math.min(obergrenze(i), max);
+            }
+        }
+        double mittelwert = anzahl == 0 ? 0 : (double) gesamt / anzahl;
+        return new Latenzstatistik(anzahl, mittelwert, perzentile[0], perzentile[1], perzentile[2], max);
+    }
+
+    /**
+     * Returns the rank of a percentile, 1 for the smallest latency.
+     */
+    private static long rang(long anzahl, double anteil) {
+        return anzahl == 0 ? 0 : Math.max(1, (long) Math.ceil(anzahl * anteil));
+    }
+}
@@ -0,0 +1,15 @@
+package bankprojekt.verwaltung;
+
+/**
+ * The latencies of an operation of a bank, recorded since the bank was created or loaded.
+ * The percentiles have a relative error of about 3 percent, count and maximum are exact.
+ *
+ * @param anzahl     the number of executions
+ * @param mittelwert the mean latency in nanoseconds
+ * @param p50        the median latency in nanoseconds
+ * @param p99        the 99th percentile in nanoseconds
+ * @param p999       the 99.9th percentile in nanoseconds
+ * @param maximum    the highest latency in nanoseconds
+ */
+public record Latenzstatistik(long anzahl, double mittelwert, long p50, long p99, long p999, long maximum) {
+}
@@ -0,0 +1,423 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Geldbetrag;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Waehrung;
+import bankprojekt.verarbeitung.factories.KontoFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Executes the transactions of a bank on a fixed set of partitions, each of them owned by a single thread.
+ * <p>
+ * The accounts are partitioned by account number along the lock stripes of the bank, and every transaction
+ * on an account is handed to the thread of its partition through a lock-free ring buffer. As only that thread
+ * ever changes the accounts of its partition, the locks of the bank are never contended and the accounts
+ * stay in the cache of the core that runs the partition. Callers do not wait for the transaction:
+ * every method returns a future that is completed by the partition.
+ * <p>
+ * A transfer within a partition is executed in one step. A transfer between two partitions is executed
+ * in two messages: the partition of the sender debits it and passes the credit on to the partition of the
+ * recipient. If the recipient cannot be credited anymore, a third message reverses the debit, as
+ * {@link Bank#geldUeberweisen(long, long, double, String)} does; if the sender cannot be credited either, the
+ * amount is kept as {@link #getUnzustellbar() undeliverable}. Between the two steps the amount is on
+ * its way, so a sum over all balances can miss transfers in flight; both steps are journaled on their own.
+ * A partition never waits for the ring of another partition, messages that do not fit are kept back
+ * and passed on later, so two partitions sending to each other cannot block.
+ * <p>
+ * A failing transaction completes its future exceptionally, whatever it throws; the partition goes on with
+ * the next one.
+ * <p>
+ * New accounts are created by the calling thread, as their number and so their partition is not known before.
+ * While a bank is run by partitions, it should be changed through them only; changes made directly
+ * are still correct, but contend for the locks of the partitions.
+ */
+public final class PartitionierteBank implements AutoCloseable {
+    private static final int KAPAZITAET = 1 << 12;
+
+    /**
+     * how long {@link #close()} waits for the accepted transactions and for the threads of the partitions
+     */
+    private static final Duration SCHLIESSEN_WARTEZEIT = Duration.ofSeconds(30);
+
+    private final Bank bank;
+    private final Partition[] partitionen;
+
+    /**
+     * transactions accepted and not yet completed
+     */
+    private final LongAdder offen = new LongAdder();
+
+    /**
+     * amounts in cents of reversals whose sender could not be credited
+     */
+    private final LongAdder unzustellbar = new LongAdder();
+    private volatile boolean geschlossen;
+
+    /**
+     * Runs the given bank on one partition per available processor.
+     *
+     * @param bank the bank
+     * @throws IllegalArgumentException if bank is null
+     */
+    public PartitionierteBank(Bank bank) {
+        this(bank, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Runs the given bank on the given number of partitions.
+     *
+     * @param bank   the bank
+     * @param anzahl the number of partitions, each with a thread of its own
+     * @throws IllegalArgumentException if bank is null or anzahl is less than 1
+     */
+    public PartitionierteBank(Bank bank, int anzahl) {
+        if (bank == null) {
+            throw new IllegalArgumentException("Invalid bank");
+        }
+        if (anzahl < 1) {
+            throw new IllegalArgumentException("Invalid number of partitions");
+        }
+        this.bank = bank;
+        this.partitionen = new Partition[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            partitionen[i] = new Partition(i);
+        }
+    }
+
+    /**
+     * Returns the bank run by the partitions.
+     *
+     * @return the bank
+     */
+    public Bank getBank() {
+        return bank;
+    }
+
+    /**
+     * Returns the number of partitions.
+     *
+     * @return the number of partitions
+     */
+    public int getAnzahlPartitionen() {
+        return partitionen.length;
+    }
+
+    /**
+     * Returns the total amount of transfers whose recipient could not be credited and whose debit could not be
+     * reversed either, e.g. because the sender has been deleted in the meantime.
+     *
+     * @return the sum of undeliverable amounts
+     */
+    public double getUnzustellbar() {
+        return Geldbetrag.alsBetrag(unzustellbar.sum());
+    }
+
+    /**
+     * Creates a new bank account, on the calling thread.
+     *
+     * @param factory the factory to create the account
+     * @param inhaber the owner of the account
+     * @return the account number of the new account
+     * @throws IllegalArgumentException if the factory is null
+     * @throws IllegalStateException    if the partitions are closed
+     */
+    public long kontoErstellen(KontoFactory factory, Kunde inhaber) {
+        if (geschlossen) {
+            throw new IllegalStateException("Die Partitionen sind geschlossen");
+        }
+        return bank.kontoErstellen(factory, inhaber);
+    }
+
+    /**
+     * Retrieves the balance of an account on its partition, after all transactions sent to it before.
+     *
+     * @param nummer the account number
+     * @return the balance; fails with {@link KontonummerDoesNotExistException} if the account does not exist
+     * @throws IllegalStateException if the partitions are closed
+     */
+    public CompletableFuture<Double> getKontostand(long nummer) {
+        return senden(nummer, () -> bank.getKontostand(nummer));
+    }
+
+    /**
+     * Deposits money into an account, see {@link Bank#geldEinzahlen(long, double)}.
+     *
+     * @param auf    the account number
+     * @param betrag the amount
+     * @return completed when the money is deposited; fails with {@link KontonummerDoesNotExistException}
+     * if the account does not exist
+     * @throws IllegalArgumentException if the amount is not positive and finite
+     * @throws IllegalStateException    if the partitions are closed
+     */
+    public CompletableFuture<Void> geldEinzahlen(long auf, double betrag) {
+        validiereBetrag(betrag);
+        return senden(auf, () -> {
+            bank.geldEinzahlen(auf, betrag);
+            return null;
+        });
+    }
+
+    /**
+     * Withdraws money from an account, see {@link Bank#geldAbheben(long, double)}.
+     *
+     * @param nummer the account number
+     * @param betrag the amount
+     * @return whether the money was withdrawn; fails with {@link KontonummerDoesNotExistException}
+     * if the account does not exist, or with {@link bankprojekt.verarbeitung.GesperrtException} if it is locked
+     * @throws IllegalArgumentException if the amount is not positive and finite
+     * @throws IllegalStateException    if the partitions are closed
+     */
+    public CompletableFuture<Boolean> geldAbheben(long nummer, double betrag) {
+        validiereBetrag(betrag);
+        return senden(nummer, () -> bank.geldAbheben(nummer, betrag));
+    }
+
+    /**
+     * Changes the currency of an account, see {@link Bank#waehrungswechsel(long, Waehrung)}.
+     *
+     * @param nummer the account number
+     * @param neu    the new currency
+     * @return the version of the exchange rates used; fails with {@link KontonummerDoesNotExistException}
+     * if the account does not exist
+     * @throws IllegalArgumentException if the currency is null
+     * @throws IllegalStateException    if the partitions are closed
+     */
+    public CompletableFuture<Long> waehrungswechsel(long nummer, Waehrung neu) {
+        if (neu == null) {
+            throw new IllegalArgumentException("Invalid currency");
+        }
+        return senden(nummer, () -> bank.waehrungswechsel(nummer, neu));
+    }
+
+    /**
+     * Deletes an account, see {@link Bank#kontoLoeschen(long)}.
+     *
+     * @param nummer the account number
+     * @return whether the account was deleted
+     * @throws IllegalStateException if the partitions are closed
+     */
+    public CompletableFuture<Boolean> kontoLoeschen(long nummer) {
+        return senden(nummer, () -> bank.kontoLoeschen(nummer));
+    }
+
+    /**
+     * Transfers money from one account to another, see {@link Bank#geldUeberweisen(long, long, double, String)}.
+     * Between two partitions the transfer is executed in two steps, see above.
+     *
+     * @param vonKontonr       the account number of the sender
+     * @param nachKontonr      the account number of the recipient
+     * @param betrag           the amount
+     * @param verwendungszweck the purpose of the transfer
+     * @return whether the money was transferred, false if the debit was reversed; fails with
+     * {@link IllegalStateException} if the debit could not be reversed and the amount is undeliverable
+     * @throws IllegalArgumentException if the amount is not positive and finite, or if the purpose is blank
+     * @throws IllegalStateException    if the partitions are closed
+     */
+    public CompletableFuture<Boolean> geldUeberweisen(long vonKontonr, long nachKontonr, double betrag,
+                                                      String verwendungszweck) {
+        validiereBetrag(betrag);
+        if (verwendungszweck == null || verwendungszweck.isBlank()) {
+            throw new IllegalArgumentException("Bitte geben Sie einen Verwendungszweck an!");
+        }
+        Partition sender = partitionFuer(vonKontonr);
+        Partition empfaenger = partitionFuer(nachKontonr);
+        if (sender == empfaenger) {
+            return senden(vonKontonr, () -> bank.geldUeberweisen(vonKontonr, nachKontonr, betrag, verwendungszweck));
+        }
+
+        CompletableFuture<Boolean> ergebnis = annehmen();
+        sender.ring.einstellen(() -> schritt(ergebnis, () -> {
+            Bank.Abbuchung abbuchung = bank.ueberweisungAbbuchen(vonKontonr, nachKontonr, betrag, verwendungszweck);
+            if (abbuchung == null) {
+                ergebnis.complete(false);
+                return;
+            }
+            sender.weiterleiten(empfaenger, () -> schritt(ergebnis, () -> {
+                if (bank.ueberweisungGutschreiben(nachKontonr, vonKontonr, abbuchung.senderName(),
+                        betrag, verwendungszweck)) {
+                    ergebnis.complete(true);
+                    return;
+                }
+                // Gutschrift fehlgeschlagen: Belastung des Senders zuruecknehmen
+                empfaenger.weiterleiten(sender, () -> schritt(ergebnis, () -> {
+                    boolean zurueckgebucht = false;
+                    try {
+                        zurueckgebucht = bank.ueberweisungGutschreiben(vonKontonr, nachKontonr,
+                                abbuchung.empfaengerName(), betrag, "Rueckbuchung: " + verwendungszweck);
+                    } finally {
+                        if (!zurueckgebucht) {
+                            unzustellbar.add(Geldbetrag.inCent(betrag));
+                        }
+                    }
+                    if (zurueckgebucht) {
+                        ergebnis.complete(false);
+                    } else {
+                        ergebnis.completeExceptionally(new IllegalStateException("Rueckbuchung von " + betrag
+                                + " an Konto " + vonKontonr + " fehlgeschlagen, der Betrag ist unzustellbar"));
+                    }
+                }));
+            }));
+        }));
+        return ergebnis;
+    }
+
+    /**
+     * Stops accepting transactions, waits until all accepted transactions are completed and stops the threads
+     * of the partitions. Waits at most 30 seconds for the transactions and as long for the threads;
+     * transactions still running then are left to the partitions, whose threads are daemons.
+     */
+    @Override
+    public void close() {
+        if (geschlossen) {
+            return;
+        }
+        geschlossen = true;
+        long frist = System.nanoTime() + SCHLIESSEN_WARTEZEIT.toNanos();
+        while (offen.sum() != 0 && System.nanoTime() - frist < 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        for (Partition partition : partitionen) {
+            partition.ring.einstellen(partition::anhalten);
+        }
+        for (Partition partition : partitionen) {
+            try {
+                partition.thread.join(SCHLIESSEN_WARTEZEIT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * A transaction executed on a partition.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    private interface Befehl<T> {
+        T ausfuehren() throws Exception;
+    }
+
+    private static void validiereBetrag(double betrag) {
+        if (betrag <= 0 || Double.isNaN(betrag) || Double.isInfinite(betrag)) {
+            throw new IllegalArgumentException("Invalid amount");
+        }
+    }
+
+    private Partition partitionFuer(long nummer) {
+        return partitionen[bank.partition(nummer, partitionen.length)];
+    }
+
+    /**
+     * Accepts a transaction, so that {@link #close()} waits for it.
+     *
+     * @return the future of the transaction
+     */
+    private <T> CompletableFuture<T> annehmen() {
+        offen.increment();
+        if (geschlossen) {
+            offen.decrement();
+            throw new IllegalStateException("Die Partitionen sind geschlossen");
+        }
+        CompletableFuture<T> ergebnis = new CompletableFuture<>();
+        ergebnis.whenComplete((wert, fehler) -> offen.decrement());
+        return ergebnis;
+    }
+
+    private <T> CompletableFuture<T> senden(long nummer, Befehl<T> befehl) {
+        CompletableFuture<T> ergebnis = annehmen();
+        partitionFuer(nummer).ring.einstellen(() -> {
+            try {
+                ergebnis.complete(befehl.ausfuehren());
+            } catch (Throwable e) {
+                ergebnis.completeExceptionally(e);
+            }
+        });
+        return ergebnis;
+    }
+
+    /**
+     * Executes a step of a transfer; an unexpected failure completes the transfer.
+     */
+    private static void schritt(CompletableFuture<Boolean> ergebnis, Runnable schritt) {
+        try {
+            schritt.run();
+        } catch (Throwable e) {
+            ergebnis.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * A partition of the accounts with the thread that owns them.
+     */
+    private static final class Partition implements Runnable {
+        private final Befehlsring<Runnable> ring = new Befehlsring<>(KAPAZITAET);
+        private final Thread thread;
+
+        /**
+         * messages to other partitions whose rings were full, only used by the thread of this partition
+         */
+        private final ArrayDeque<Weiterleitung> rueckstau = new ArrayDeque<>();
+        private boolean laeuft = true;
+
+        private record Weiterleitung(Partition ziel, Runnable nachricht) {
+        }
+
+        Partition(int index) {
+            thread = new Thread(this, "Partition-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Passes a message on to another partition. Called by the thread of this partition only,
+         * never waits for the other partition.
+         */
+        void weiterleiten(Partition ziel, Runnable nachricht) {
+            if (!rueckstau.isEmpty() || !ziel.ring.anbieten(nachricht)) {
+                rueckstau.add(new Weiterleitung(ziel, nachricht));
+            }
+        }
+
+        void anhalten() {
+            laeuft = false;
+        }
+
+        /**
+         * Executes a message; a failure is reported, but does not stop the partition.
+         */
+        private void ausfuehren(Runnable befehl) {
+            try {
+                befehl.run();
+            } catch (Throwable e) {
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (laeuft) {
+                    while (!rueckstau.isEmpty() && rueckstau.peek().ziel().ring.anbieten(rueckstau.peek().nachricht())) {
+                        rueckstau.poll();
+                    }
+                    Runnable befehl = rueckstau.isEmpty() ? ring.warten() : ring.entnehmen();
+                    if (befehl == null) {
+                        Thread.yield();
+                    } else {
+                        ausfuehren(befehl);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Konto;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.lang.ref.WeakReference;
+
+/**
+ * Locks an account of a bank the moment its balance falls below a threshold.
+ * <p>
+ * The watcher is registered as listener with every account of the bank. The change of the balance is reported
+ * while the bank still holds the lock of the account, so the account is locked as part of the same operation
+ * and the journal record of the operation already contains the lock. While the watcher is switched off,
+ * its threshold is minus infinity and no balance is below it.
+ */
+final class Sperrwaechter implements PropertyChangeListener {
+    private final KontoVerzeichnis konten;
+    private final WeakReference<Bank> besitzer;
+    private volatile double grenze = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Creates a switched off watcher for the accounts of the given directory.
+     *
+     * @param konten   the accounts of the bank
+     * @param besitzer the bank, held weakly so that its indexes stop following shared accounts once it is gone
+     */
+    Sperrwaechter(KontoVerzeichnis konten, WeakReference<Bank> besitzer) {
+        this.konten = konten;
+        this.besitzer = besitzer;
+    }
+
+    /**
+     * Unregisters from all accounts of the bank. Called once the bank is no longer reachable,
+     * because a snapshot shares its accounts with the bank it was taken of.
+     */
+    void abmelden() {
+        konten.forEach((nummer, konto) -> konto.abmelden(this));
+    }
+
+    /**
+     * Sets the threshold; accounts with a balance below it are locked from now on.
+     *
+     * @param grenze the threshold, minus infinity to switch the watcher off
+     */
+    void setGrenze(double grenze) {
+        this.grenze = grenze;
+    }
+
+    /**
+     * Returns the threshold.
+     *
+     * @return the threshold, minus infinity if the watcher is switched off
+     */
+    double getGrenze() {
+        return grenze;
+    }
+
+    /**
+     * Registers with an account.
+     *
+     * @param nummer the account number
+     * @param konto  the account
+     */
+    void hinzufuegen(long nummer, Konto konto) {
+        konto.anmelden(this);
+    }
+
+    /**
+     * Unregisters from an account.
+     *
+     * @param nummer the account number
+     * @param konto  the account
+     */
+    void entfernen(long nummer, Konto konto) {
+        konto.abmelden(this);
+    }
+
+    /**
+     * Registers with a copy that replaces an account of the bank.
+     *
+     * @param kopie the copy
+     */
+    void ersetzt(Konto kopie) {
+        kopie.anmelden(this);
+    }
+
+    /**
+     * Locks an account of the bank whose balance falls below the threshold. An account that no longer belongs
+     * to the bank, e.g. because a snapshot of the bank got its own copy, or an account of a bank that is gone
+     * is unregistered and never locked.
+     *
+     * @param evt the change
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (!"kontostand".equals(evt.getPropertyName())) {
+            return;
+        }
+        Konto konto = (Konto) evt.getSource();
+        if (besitzer.get() == null || konten.get(konto.getKontonummer()) != konto) {
+            konto.abmelden(this);
+            return;
+        }
+        if ((Double) evt.getNewValue() < grenze && !konto.isGesperrt()) {
+            konto.sperren();
+        }
+    }
+}
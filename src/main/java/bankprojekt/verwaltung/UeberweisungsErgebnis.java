@@ -0,0 +1,27 @@
+package bankprojekt.verwaltung;
+
+/**
+ * The outcome of a single transfer of a batch.
+ */
+public enum UeberweisungsErgebnis {
+    /**
+     * the transfer has been booked
+     */
+    AUSGEFUEHRT,
+    /**
+     * the sender or the recipient does not exist
+     */
+    KONTO_FEHLT,
+    /**
+     * the sender or the recipient does not support transfers
+     */
+    NICHT_UEBERWEISUNGSFAEHIG,
+    /**
+     * the sender is locked
+     */
+    GESPERRT,
+    /**
+     * the balance of the sender does not cover the transfer
+     */
+    NICHT_GEDECKT
+}
@@ -0,0 +1,13 @@
+package bankprojekt.verwaltung;
+
+/**
+ * A single transfer between two accounts of the same bank, as part of a batch
+ * submitted to {@link Bank#geldUeberweisenBatch(java.util.List)}.
+ *
+ * @param vonKontonr       the account number of the sender
+ * @param nachKontonr      the account number of the recipient
+ * @param betrag           the amount of money to transfer
+ * @param verwendungszweck the purpose of the money transfer
+ */
+public record Ueberweisungsauftrag(long vonKontonr, long nachKontonr, double betrag, String verwendungszweck) {
+}
@@ -0,0 +1,199 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Geldbetrag;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Ueberweisungsfaehig;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The working state of {@link Bank#geldUeberweisenBatch(java.util.List)}: the accounts involved, the outgoing
+ * transfers of every sender in batch order and the netted debit and credit of every account, all in cents.
+ * <p>
+ * The checks run on a snapshot of the accounts that is read without locks, so they can be spread over
+ * several threads. Once the accounts are locked, {@link #nachpruefen(KontoVerzeichnis)} compares the snapshot
+ * with the locked state and repeats only the checks that are no longer valid. Not thread-safe.
+ */
+final class Ueberweisungsstapel {
+    private final Ueberweisungsauftrag[] auftrag;
+    private final long[] betrag;
+    private final int[] von;
+    private final int[] nach;
+    private final long[] nummern;
+    private final Konto[] konto;
+    private final long[] stand;
+    private final boolean[] gesperrt;
+    private final long[] belastung;
+    private final long[] gutschrift;
+    private final UeberweisungsErgebnis[] ergebnisse;
+    private int[] anfang;
+    private int[] ausgehend;
+
+    /**
+     * Resolves the accounts of a validated batch to indexes.
+     *
+     * @param auftrag the transfers, none of them null and all amounts valid
+     * @param anzahlKonten the number of accounts of the bank, bounds the size of the index
+     */
+    Ueberweisungsstapel(Ueberweisungsauftrag[] auftrag, int anzahlKonten) {
+        int n = auftrag.length;
+        this.auftrag = auftrag;
+        this.betrag = new long[n];
+        this.von = new int[n];
+        this.nach = new int[n];
+        KontoIndex index = new KontoIndex(Math.min(2 * n, anzahlKonten));
+        for (int i = 0; i < n; i++) {
+            betrag[i] = Geldbetrag.inCent(auftrag[i].betrag());
+            von[i] = index.index(auftrag[i].vonKontonr());
+            nach[i] = index.index(auftrag[i].nachKontonr());
+        }
+        this.nummern = index.nummern();
+        this.konto = new Konto[nummern.length];
+        this.stand = new long[nummern.length];
+        this.gesperrt = new boolean[nummern.length];
+        this.belastung = new long[nummern.length];
+        this.gutschrift = new long[nummern.length];
+        this.ergebnisse = new UeberweisungsErgebnis[n];
+    }
+
+    /**
+     * @return the distinct account numbers of the batch, the position is the index of the account
+     */
+    long[] nummern() {
+        return nummern;
+    }
+
+    /**
+     * Reads the accounts of the batch and checks every transfer against them.
+     *
+     * @param konten the accounts of the bank
+     * @param parallel whether the senders may be checked by several threads
+     */
+    void pruefen(KontoVerzeichnis konten, boolean parallel) {
+        for (int k = 0; k < nummern.length; k++) {
+            konto[k] = konten.get(nummern[k]);
+            if (konto[k] != null) {
+                stand[k] = konto[k].getKontostandCent();
+                gesperrt[k] = konto[k].isGesperrt();
+            }
+        }
+
+        // ausgehende Ueberweisungen je Sender in der Reihenfolge des Stapels
+        Arrays.fill(ergebnisse, null);
+        anfang = new int[nummern.length + 1];
+        for (int i = 0; i < auftrag.length; i++) {
+            if (konto[von[i]] == null || konto[nach[i]] == null) {
+                ergebnisse[i] = UeberweisungsErgebnis.KONTO_FEHLT;
+            } else if (!(konto[von[i]] instanceof Ueberweisungsfaehig) || !(konto[nach[i]] instanceof Ueberweisungsfaehig)) {
+                ergebnisse[i] = UeberweisungsErgebnis.NICHT_UEBERWEISUNGSFAEHIG;
+            } else {
+                anfang[von[i] + 1]++;
+            }
+        }
+        for (int k = 0; k < nummern.length; k++) {
+            anfang[k + 1] += anfang[k];
+        }
+        ausgehend = new int[anfang[nummern.length]];
+        int[] naechster = Arrays.copyOf(anfang, nummern.length);
+        for (int i = 0; i < auftrag.length; i++) {
+            if (ergebnisse[i] == null) {
+                ausgehend[naechster[von[i]]++] = i;
+            }
+        }
+
+        IntStream sender = IntStream.range(0, nummern.length);
+        (parallel ? sender.parallel() : sender).forEach(this::senderPruefen);
+    }
+
+    /**
+     * Compares the snapshot with the accounts as they are now and repeats the checks that are no longer valid.
+     * Must be called while all accounts of the batch are locked.
+     *
+     * @param konten the accounts of the bank
+     */
+    void nachpruefen(KontoVerzeichnis konten) {
+        for (int k = 0; k < nummern.length; k++) {
+            if (konten.get(nummern[k]) != konto[k]) {
+                // ein Konto wurde angelegt, geloescht oder kopiert, der ganze Stapel wird neu geprueft
+                pruefen(konten, false);
+                return;
+            }
+        }
+        for (int k = 0; k < nummern.length; k++) {
+            if (anfang[k + 1] == anfang[k]) {
+                continue;
+            }
+            if (konto[k].getKontostandCent() != stand[k] || konto[k].isGesperrt() != gesperrt[k]
+                    || !((Ueberweisungsfaehig) konto[k]).ueberweisungMoeglich(Geldbetrag.alsBetrag(belastung[k]))) {
+                stand[k] = konto[k].getKontostandCent();
+                gesperrt[k] = konto[k].isGesperrt();
+                senderPruefen(k);
+            }
+        }
+    }
+
+    private void senderPruefen(int k) {
+        if (anfang[k + 1] == anfang[k]) {
+            belastung[k] = 0;
+            return;
+        }
+        Ueberweisungsfaehig sender = (Ueberweisungsfaehig) konto[k];
+        long summe = 0;
+        for (int j = anfang[k]; j < anfang[k + 1]; j++) {
+            int i = ausgehend[j];
+            long neu = Geldbetrag.addieren(summe, betrag[i]);
+            if (sender.ueberweisungMoeglich(Geldbetrag.alsBetrag(neu))) {
+                summe = neu;
+                ergebnisse[i] = UeberweisungsErgebnis.AUSGEFUEHRT;
+            } else {
+                ergebnisse[i] = konto[k].isGesperrt()
+                        ? UeberweisungsErgebnis.GESPERRT : UeberweisungsErgebnis.NICHT_GEDECKT;
+            }
+        }
+        belastung[k] = summe;
+    }
+
+    /**
+     * Nets the credits of the executed transfers. Must be called after the last check.
+     */
+    void gutschriftenSummieren() {
+        Arrays.fill(gutschrift, 0);
+        for (int i = 0; i < auftrag.length; i++) {
+            if (ergebnisse[i] == UeberweisungsErgebnis.AUSGEFUEHRT) {
+                gutschrift[nach[i]] = Geldbetrag.addieren(gutschrift[nach[i]], betrag[i]);
+            }
+        }
+    }
+
+    /**
+     * @param k the index of an account
+     * @return whether the batch changes the balance of the account
+     */
+    boolean betroffen(int k) {
+        return konto[k] instanceof Ueberweisungsfaehig && (belastung[k] != 0 || gutschrift[k] != 0);
+    }
+
+    /**
+     * @param k the index of an account
+     * @return the sum of the executed outgoing transfers of the account in cents
+     */
+    long belastung(int k) {
+        return belastung[k];
+    }
+
+    /**
+     * @param k the index of an account
+     * @return the sum of the executed incoming transfers of the account in cents
+     */
+    long gutschrift(int k) {
+        return gutschrift[k];
+    }
+
+    /**
+     * @return the outcome of every transfer, at the same index as in the batch
+     */
+    UeberweisungsErgebnis[] ergebnisse() {
+        return ergebnisse;
+    }
+}
@@ -0,0 +1,11 @@
+package bankprojekt.verwaltung;
+
+/**
+ * The outcome of a bulk currency migration, see {@link Bank#waehrungUmstellen(bankprojekt.verarbeitung.Waehrung,
+ * bankprojekt.verarbeitung.Waehrung)}.
+ *
+ * @param anzahl      the number of accounts migrated
+ * @param kursVersion the version of the {@link bankprojekt.verarbeitung.Wechselkurse} used for all of them
+ */
+public record Waehrungsumstellung(int anzahl, long kursVersion) {
+}
@@ -0,0 +1,100 @@
+package bankprojekt.verwaltung;
+
+import java.io.IOException;
+
+/**
+ * Writes numbers to an {@link Appendable} digit by digit, without creating strings.
+ * <p>
+ * Amounts are written exactly as {@link Double#toString(double)} would write them. Balances are almost
+ * always short decimals like 1234.5 or 0.07, which are found by scaling with powers of ten: the shortest
+ * decimal that converts back to the same double is the one with the fewest fractional digits.
+ * Amounts with more than {@value #MAX_STELLEN} fractional digits, and amounts that {@code Double.toString}
+ * writes in scientific notation, fall back to {@code Double.toString}.
+ */
+final class Zahlenformat {
+    private static final int MAX_STELLEN = 9;
+    private static final long[] ZEHNERPOTENZEN = new long[MAX_STELLEN + 1];
+    private static final long MAX_EXAKT = 1L << 53;
+
+    static {
+        ZEHNERPOTENZEN[0] = 1;
+        for (int i = 1; i < ZEHNERPOTENZEN.length; i++) {
+            ZEHNERPOTENZEN[i] = 10 * ZEHNERPOTENZEN[i - 1];
+        }
+    }
+
+    private Zahlenformat() {
+    }
+
+    /**
+     * Writes the decimal digits of a number, with a leading minus sign if it is negative.
+     *
+     * @param zahl the number
+     * @param ziel where to write to
+     * @throws IOException if ziel fails
+     */
+    static void zahl(long zahl, Appendable ziel) throws IOException {
+        if (zahl < 0) {
+            ziel.append('-');
+            if (zahl == Long.MIN_VALUE) {
+                ziel.append("9223372036854775808");
+                return;
+            }
+            zahl = -zahl;
+        }
+        ziffern(zahl, 1, ziel);
+    }
+
+    /**
+     * Writes a non-negative number with at least the given number of digits, padded with leading zeros.
+     */
+    private static void ziffern(long zahl, int mindestens, Appendable ziel) throws IOException {
+        long stelle = 1;
+        int anzahl = 1;
+        while (stelle <= zahl / 10) {
+            stelle *= 10;
+            anzahl++;
+        }
+        for (; anzahl < mindestens; mindestens--) {
+            ziel.append('0');
+        }
+        for (; stelle > 0; stelle /= 10) {
+            ziel.append((char) ('0' + zahl / stelle % 10));
+        }
+    }
+
+    /**
+     * Writes an amount in the form of {@link Double#toString(double)}.
+     *
+     * @param betrag the amount
+     * @param ziel   where to write to
+     * @throws IOException if ziel fails
+     */
+    static void betrag(double betrag, Appendable ziel) throws IOException {
+        double wert = Math.abs(betrag);
+        if (wert == 0) {
+            ziel.append(Double.doubleToRawLongBits(betrag) < 0 ? "-0.0" : "0.0");
+            return;
+        }
+        if (wert >= 1e-3 && wert < 1e7) {
+            for (int stellen = 0; stellen <= MAX_STELLEN; stellen++) {
+                long skala = ZEHNERPOTENZEN[stellen];
+                long ziffern = Math.round(wert * skala);
+                if (ziffern < MAX_EXAKT && (double) ziffern / skala == wert) {
+                    if (betrag < 0) {
+                        ziel.append('-');
+                    }
+                    ziffern(ziffern / skala, 1, ziel);
+                    ziel.append('.');
+                    if (stellen == 0) {
+                        ziel.append('0');
+                    } else {
+                        ziffern(ziffern % skala, stellen, ziel);
+                    }
+                    return;
+                }
+            }
+        }
+        ziel.append(Double.toString(betrag));
+    }
+}
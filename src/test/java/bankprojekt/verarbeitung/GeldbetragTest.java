@@ -0,0 +1,40 @@
+package bankprojekt.verarbeitung;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeldbetragTest {
+
+    @Test
+    void testRundenAufCent() {
+        assertEquals(29L, Geldbetrag.inCent(0.29));
+        assertEquals(30L, Geldbetrag.inCent(0.1 + 0.2));
+        assertEquals(-123456L, Geldbetrag.inCent(-1234.56));
+        assertEquals(0.29, Geldbetrag.alsBetrag(29));
+        assertThrows(IllegalArgumentException.class, () -> Geldbetrag.inCent(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> Geldbetrag.inCent(Double.POSITIVE_INFINITY));
+        assertThrows(ArithmeticException.class, () -> Geldbetrag.addieren(Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    void testUmrechnungSchneidetAb() {
+        assertEquals(19558L, Waehrung.BGN.euroCentInWaehrungUmrechnen(10000));
+        assertEquals(10000L, Waehrung.BGN.waehrungCentInEuroUmrechnen(19558));
+        assertEquals(9999L, Waehrung.BGN.waehrungCentInEuroUmrechnen(19557));
+        assertEquals(195.58, Waehrung.BGN.euroInWaehrungUmrechnen(100));
+        assertThrows(IllegalArgumentException.class, () -> Waehrung.DKK.euroCentInWaehrungUmrechnen(-1));
+    }
+
+    @Test
+    void testKeineRundungsfehlerImKontostand() {
+        Girokonto giro = new Girokonto(new Kunde("Sebastian", "Gey", "hier", LocalDate.parse("1996-09-15")), 1L, 0);
+        for (int i = 0; i < 1000; i++) {
+            giro.einzahlen(0.1);
+        }
+        assertEquals(10000L, giro.getKontostandCent());
+        assertEquals(100.0, giro.getKontostand());
+    }
+}
@@ -6,7 +6,7 @@ import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 class GiroTest {
     Girokonto girokonto1, girokonto2;
@@ -32,4 +32,19 @@ class GiroTest {
         girokonto1.setDispo(200);
         assertEquals(200, girokonto1.getDispo());
     }
+
+    @Test
+    void testUeberweisungenSaldieren() {
+        assertTrue(girokonto2.ueberweisungMoeglich(1000));
+        assertFalse(girokonto2.ueberweisungMoeglich(1000.01));
+
+        girokonto2.ueberweisungenSaldieren(700, 200);
+        assertEquals(-500, girokonto2.getKontostand());
+        assertFalse(girokonto2.ueberweisungMoeglich(501));
+
+        girokonto2.sperren();
+        assertFalse(girokonto2.ueberweisungMoeglich(1));
+        Assertions.assertThrowsExactly(IllegalArgumentException.class,
+                () -> girokonto2.ueberweisungenSaldieren(-1, 0));
+    }
 }
@@ -73,6 +73,28 @@ class KontoObserverTests {
         verify(mockListener, times(1)).propertyChange(any(PropertyChangeEvent.class));
     }
 
+    @Test
+    void testEinzahlenOhneAenderung() {
+        System.out.println("Testing deposit of nothing");
+        konto.einzahlen(0);
+        verify(mockListener, never()).propertyChange(any(PropertyChangeEvent.class));
+    }
+
+    @Test
+    void testVorzeichenwechsel() throws GesperrtException {
+        System.out.println("Testing withdraw into the negative");
+        ArgumentCaptor<PropertyChangeEvent> eventCaptor = ArgumentCaptor.forClass(PropertyChangeEvent.class);
+        konto.abheben(600);
+        verify(mockListener, times(2)).propertyChange(eventCaptor.capture());
+
+        Optional<PropertyChangeEvent> positivEvent = eventCaptor.getAllValues().stream()
+                .filter(e -> "kontostandPositiv".equals(e.getPropertyName()))
+                .findFirst();
+
+        assertTrue(positivEvent.isPresent());
+        assertEquals(false, positivEvent.get().getNewValue());
+    }
+
     @Test
     void waehrungWechsel() {
         System.out.println("Testing currency change");
@@ -0,0 +1,147 @@
+package bankprojekt.verarbeitung;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.beans.PropertyChangeEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KontospaltenTest {
+    Kontospalten spalten;
+    Kunde kunde;
+
+    @BeforeEach
+    void setup() {
+        spalten = new Kontospalten();
+        kunde = new Kunde("Sebastian", "Gey", "hier", LocalDate.parse("1996-09-15"));
+    }
+
+    @Test
+    void testGirokontoVerhaeltSichWieAufDemHeap() throws GesperrtException {
+        Girokonto giro = new Girokonto(kunde, 1L, 500, spalten);
+        giro.einzahlen(100);
+        assertTrue(giro.abheben(550));
+        assertFalse(giro.abheben(100));
+        assertEquals(-450, giro.getKontostand());
+        assertFalse(giro.isKontostandPositiv());
+
+        giro.einzahlen(450);
+        giro.waehrungswechsel(Waehrung.BGN);
+        assertEquals(Waehrung.BGN, giro.getAktuelleWaehrung());
+        assertEquals(Waehrung.BGN.euroInWaehrungUmrechnen(500), giro.getDispo(), 1e-9);
+
+        giro.sperren();
+        assertTrue(giro.isGesperrt());
+        assertThrowsExactly(GesperrtException.class, () -> giro.abheben(1));
+        assertEquals(1, spalten.getAnzahl());
+    }
+
+    @Test
+    void testZeilenSindUnabhaengig() {
+        List<Konto> konten = new ArrayList<>();
+        for (int i = 0; i < 40000; i++) {
+            konten.add(i % 2 == 0 ? new Girokonto(kunde, i, i, spalten) : new Sparbuch(kunde, i, spalten));
+            konten.get(i).einzahlen(i);
+        }
+        for (int i = 0; i < konten.size(); i++) {
+            assertEquals(i, konten.get(i).getKontostand());
+        }
+        assertEquals(40000, spalten.getAnzahl());
+        assertTrue(spalten.getBelegterSpeicher() >= 40000L * 34);
+    }
+
+    @Test
+    void testSparbuchMerktSichAbhebungen() throws GesperrtException {
+        Sparbuch spar = new Sparbuch(kunde, 2L, spalten);
+        spar.einzahlen(5000);
+        assertTrue(spar.abheben(1500));
+        assertEquals(1500, spar.getBereitsAbgehoben());
+        assertFalse(spar.abheben(600));
+
+        Kontozustand zustand = spar.zustandSichern();
+        assertEquals(LocalDate.now(), zustand.zeitpunkt());
+        assertEquals(1500, zustand.bereitsAbgehoben());
+    }
+
+    @Test
+    void testPropertiesUndBeobachterBleibenSynchron() {
+        Girokonto giro = new Girokonto(kunde, 3L, 500, spalten);
+        List<PropertyChangeEvent> ereignisse = new ArrayList<>();
+        giro.anmelden(ereignisse::add);
+
+        giro.einzahlen(20);
+        assertEquals(1, ereignisse.size());
+        assertEquals(20, giro.kontostandProperty().get());
+
+        giro.gesperrtProperty().set(true);
+        assertTrue(giro.isGesperrt());
+        giro.entsperren();
+        assertFalse(giro.gesperrtProperty().get());
+    }
+
+    @Test
+    void testKopieUndSerialisierung() throws Exception {
+        Girokonto giro = new Girokonto(kunde, 4L, 300, spalten);
+        giro.einzahlen(42);
+
+        Konto kopie = giro.kopie();
+        kopie.einzahlen(1);
+        assertEquals(42, giro.getKontostand());
+        assertEquals(43, kopie.getKontostand());
+        assertEquals(2, spalten.getAnzahl());
+
+        ByteArrayOutputStream puffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(puffer)) {
+            oos.writeObject(giro);
+        }
+        Girokonto gelesen;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(puffer.toByteArray()))) {
+            gelesen = (Girokonto) ois.readObject();
+        }
+        assertEquals(42, gelesen.getKontostand());
+        assertEquals(300, gelesen.getDispo());
+        assertEquals(2, spalten.getAnzahl());
+    }
+
+    @Test
+    void testZeilenWerdenWiederverwendet() throws Exception {
+        Girokonto giro = new Girokonto(kunde, 6L, 300, spalten);
+        giro.einzahlen(42);
+        giro.sperren();
+        for (int i = 0; i < 1000; i++) {
+            Girokonto kopie = giro.kopie();
+            kopie.einzahlen(1);
+            giro = kopie;
+        }
+        long speicher = spalten.getBelegterSpeicher();
+        for (int versuch = 0; versuch < 200 && spalten.getAnzahl() > 1; versuch++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(1, spalten.getAnzahl());
+        assertEquals(1042, giro.getKontostand());
+
+        Sparbuch neu = new Sparbuch(kunde, 7L, spalten);
+        assertEquals(0, neu.getKontostand());
+        assertFalse(neu.isGesperrt());
+        assertEquals(Waehrung.EUR, neu.getAktuelleWaehrung());
+        assertEquals(0, neu.getBereitsAbgehoben());
+        assertEquals(2, spalten.getAnzahl());
+        assertEquals(speicher, spalten.getBelegterSpeicher());
+        assertEquals(1042, giro.getKontostand());
+    }
+
+    @Test
+    void testOhneSpaltenUngueltig() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> new Girokonto(kunde, 5L, 0, null));
+        assertThrowsExactly(IllegalArgumentException.class, () -> new Sparbuch(kunde, 5L, null));
+    }
+}
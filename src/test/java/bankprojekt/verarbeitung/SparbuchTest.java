@@ -6,8 +6,10 @@ import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SparbuchTest {
     Sparbuch sparbuch1, sparbuch2;
@@ -33,4 +35,17 @@ class SparbuchTest {
 
         assertEquals(expectedString, sparbuch1.toString());
     }
+
+    @Test
+    void testAbhebenMitFestenKursen() throws GesperrtException {
+        sparbuch2.einzahlen(5000);
+        Wechselkurse kurse = Wechselkurse.standardkurseVeroeffentlichen();
+        Wechselkurse.veroeffentlichen(Map.of(Waehrung.DKK, 1.0));
+        try {
+            assertTrue(sparbuch2.abheben(14920.80, Waehrung.DKK, kurse));
+            assertEquals(3000, sparbuch2.getKontostand());
+        } finally {
+            Wechselkurse.standardkurseVeroeffentlichen();
+        }
+    }
 }
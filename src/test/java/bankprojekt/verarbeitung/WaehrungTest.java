@@ -0,0 +1,68 @@
+package bankprojekt.verarbeitung;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaehrungTest {
+
+    @Test
+    void testDirekteUmrechnung() {
+        assertEquals(74604L, Waehrung.EUR.umrechnen(10000, Waehrung.DKK));
+        assertEquals(10000L, Waehrung.DKK.umrechnen(74604, Waehrung.EUR));
+        // 100 BGN = 100 / 1.9558 * 7.4604 DKK = 381.4500...
+        assertEquals(38145L, Waehrung.BGN.umrechnen(10000, Waehrung.DKK));
+        assertEquals(-38145L, Waehrung.BGN.umrechnen(-10000, Waehrung.DKK));
+        assertEquals(12345L, Waehrung.MKD.umrechnen(12345, Waehrung.MKD));
+        for (Waehrung waehrung : Waehrung.values()) {
+            assertEquals(waehrung.euroCentInWaehrungUmrechnen(987654321L), Waehrung.EUR.umrechnen(987654321L, waehrung));
+            assertEquals(waehrung.waehrungCentInEuroUmrechnen(987654321L), waehrung.umrechnen(987654321L, Waehrung.EUR));
+        }
+    }
+
+    @Test
+    void testGrosseBetraege() {
+        long gross = Long.MAX_VALUE / 10000;
+        assertEquals(gross / 616200 * 19558 + gross % 616200 * 19558 / 616200, Waehrung.MKD.umrechnen(gross, Waehrung.BGN));
+        assertThrows(ArithmeticException.class, () -> Waehrung.EUR.umrechnen(Long.MAX_VALUE / 2, Waehrung.MKD));
+        assertThrows(ArithmeticException.class, () -> Waehrung.EUR.umrechnen(Long.MIN_VALUE, Waehrung.BGN));
+    }
+
+    @Test
+    void testUmrechnungVonFeldern() {
+        Random zufall = new Random(4711);
+        long[] betraege = new long[1000];
+        for (int i = 0; i < betraege.length; i++) {
+            betraege[i] = zufall.nextLong(-100_000_000_00L, 100_000_000_00L);
+        }
+        betraege[17] = Long.MAX_VALUE / 100;
+        for (Waehrung von : Waehrung.values()) {
+            for (Waehrung nach : Waehrung.values()) {
+                long[] umgerechnet = betraege.clone();
+                von.umrechnen(umgerechnet, 1, umgerechnet.length, nach);
+                assertEquals(betraege[0], umgerechnet[0]);
+                for (int i = 1; i < betraege.length; i++) {
+                    assertEquals(von.umrechnen(betraege[i], nach), umgerechnet[i]);
+                }
+            }
+        }
+
+        long[] zuGross = {1, Long.MAX_VALUE};
+        assertThrows(ArithmeticException.class, () -> Waehrung.EUR.umrechnen(zuGross, Waehrung.MKD));
+        assertArrayEquals(new long[]{1, Long.MAX_VALUE}, zuGross);
+    }
+
+    @Test
+    void testWaehrungswechselMitUeberzogenemKonto() throws GesperrtException {
+        Girokonto giro = new Girokonto(new Kunde("Sebastian", "Gey", "hier", LocalDate.parse("1996-09-15")), 1L, 500);
+        assertTrue(giro.abheben(100));
+
+        giro.waehrungswechsel(Waehrung.BGN);
+
+        assertEquals(-195.58, giro.getKontostand());
+        assertEquals(977.9, giro.getDispo());
+    }
+}
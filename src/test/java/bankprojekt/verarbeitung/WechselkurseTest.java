@@ -0,0 +1,113 @@
+package bankprojekt.verarbeitung;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WechselkurseTest {
+
+    @AfterEach
+    void tearDown() {
+        Wechselkurse.standardkurseVeroeffentlichen();
+    }
+
+    @Test
+    void testVeroeffentlichen() {
+        Wechselkurse alt = Wechselkurse.aktuell();
+
+        Wechselkurse neu = Wechselkurse.veroeffentlichen(Map.of(Waehrung.BGN, 2.0));
+
+        assertSame(neu, Wechselkurse.aktuell());
+        assertEquals(alt.getVersion() + 1, neu.getVersion());
+        assertEquals(2.0, neu.getEuroKurs(Waehrung.BGN));
+        assertEquals(alt.getEuroKurs(Waehrung.DKK), neu.getEuroKurs(Waehrung.DKK));
+        assertEquals(1.9558, alt.getEuroKurs(Waehrung.BGN));
+        assertEquals(19558L, alt.umrechnen(10000, Waehrung.EUR, Waehrung.BGN));
+        assertEquals(20000L, neu.umrechnen(10000, Waehrung.EUR, Waehrung.BGN));
+        assertEquals(20000L, Waehrung.EUR.umrechnen(10000, Waehrung.BGN));
+        assertEquals(2.0, Waehrung.BGN.euroInWaehrungUmrechnen(1));
+    }
+
+    @Test
+    void testUngueltigeKurse() {
+        long version = Wechselkurse.aktuell().getVersion();
+        assertThrows(IllegalArgumentException.class, () -> Wechselkurse.veroeffentlichen(null));
+        assertThrows(IllegalArgumentException.class, () -> Wechselkurse.veroeffentlichen(Map.of(Waehrung.BGN, 0.0)));
+        assertThrows(IllegalArgumentException.class, () -> Wechselkurse.veroeffentlichen(Map.of(Waehrung.BGN, Double.NaN)));
+        assertThrows(IllegalArgumentException.class, () -> Wechselkurse.veroeffentlichen(Map.of(Waehrung.DKK, 0.00001)));
+        assertThrows(IllegalArgumentException.class, () -> Wechselkurse.veroeffentlichen(Map.of(Waehrung.EUR, 1.1)));
+        assertEquals(version, Wechselkurse.aktuell().getVersion());
+    }
+
+    @Test
+    void testLaden() throws IOException {
+        Path datei = Files.createTempFile("kurse", ".properties");
+        try {
+            Files.writeString(datei, "# Kurse vom Tag\nBGN = 1.95\nMKD=61.5\n");
+            Wechselkurse kurse = Wechselkurse.laden(datei);
+            assertEquals(1.95, kurse.getEuroKurs(Waehrung.BGN));
+            assertEquals(61.5, kurse.getEuroKurs(Waehrung.MKD));
+            assertEquals(7.4604, kurse.getEuroKurs(Waehrung.DKK));
+
+            Files.writeString(datei, "XYZ=1\n");
+            assertThrows(IllegalArgumentException.class, () -> Wechselkurse.laden(datei));
+            assertSame(kurse, Wechselkurse.aktuell());
+        } finally {
+            Files.delete(datei);
+        }
+    }
+
+    @Test
+    void testWaehrungswechselMitEinerTabelle() {
+        Girokonto giro = new Girokonto(new Kunde("Sebastian", "Gey", "hier", LocalDate.parse("1996-09-15")), 1L, 500);
+        giro.einzahlen(100);
+        Wechselkurse kurse = Wechselkurse.aktuell();
+        Wechselkurse.veroeffentlichen(Map.of(Waehrung.BGN, 3.0));
+
+        giro.waehrungswechsel(Waehrung.BGN, kurse);
+
+        assertEquals(195.58, giro.getKontostand());
+        assertEquals(977.9, giro.getDispo());
+        giro.waehrungswechsel(Waehrung.EUR);
+        assertEquals(65.19, giro.getKontostand());
+        assertEquals(325.96, giro.getDispo());
+    }
+
+    @Test
+    void testLesenWaehrendVeroeffentlicht() throws InterruptedException {
+        AtomicBoolean fertig = new AtomicBoolean();
+        AtomicReference<String> fehler = new AtomicReference<>();
+        Thread leser = Thread.ofPlatform().start(() -> {
+            long letzteVersion = 0;
+            while (!fertig.get()) {
+                Wechselkurse kurse = Wechselkurse.aktuell();
+                if (kurse.getVersion() < letzteVersion) {
+                    fehler.set("Version " + kurse.getVersion() + " nach " + letzteVersion);
+                }
+                letzteVersion = kurse.getVersion();
+                // in jeder Tabelle passen die Kreuzkurse zu den Kursen zum Euro
+                long bgn = kurse.umrechnen(1_000_000, Waehrung.EUR, Waehrung.BGN);
+                if (bgn != Math.round(kurse.getEuroKurs(Waehrung.BGN) * 10_000) * 100) {
+                    fehler.set("Tabelle " + kurse + " rechnet 10000 EUR in " + bgn + " Cent BGN um");
+                }
+            }
+        });
+        for (int i = 1; i <= 1000; i++) {
+            Wechselkurse.veroeffentlichen(Map.of(Waehrung.BGN, 1.9 + i / 10_000.0));
+        }
+        fertig.set(true);
+        leser.join();
+
+        assertNull(fehler.get());
+        assertEquals(1.9 + 1000 / 10_000.0, Wechselkurse.aktuell().getEuroKurs(Waehrung.BGN), 1e-9);
+    }
+}
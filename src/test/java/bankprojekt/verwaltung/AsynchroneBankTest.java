@@ -0,0 +1,104 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.factories.GirokontoFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsynchroneBankTest {
+    Bank bank;
+    AsynchroneBank async;
+    long kontoNummer1;
+    long kontoNummer2;
+
+    @BeforeEach
+    void setup() {
+        bank = new Bank(12312L);
+        async = new AsynchroneBank(bank, 8);
+        Kunde kunde = new Kunde("Max", "Mustermann", "Home", LocalDate.parse("2001-10-29"));
+        kontoNummer1 = bank.kontoErstellen(new GirokontoFactory(), kunde);
+        kontoNummer2 = bank.kontoErstellen(new GirokontoFactory(), kunde);
+    }
+
+    @AfterEach
+    void tearDown() {
+        async.close();
+    }
+
+    @Test
+    @DisplayName("Asynchronous operations complete with the results of the bank")
+    void testOperationen() throws Exception {
+        async.geldEinzahlenAsync(kontoNummer1, 100).get();
+
+        assertTrue(async.geldUeberweisenAsync(kontoNummer1, kontoNummer2, 40, "Miete").get());
+        assertTrue(async.geldAbhebenAsync(kontoNummer2, 10).get());
+
+        assertEquals(60.0, (double) async.getKontostandAsync(kontoNummer1).get());
+        assertEquals(30.0, (double) async.getKontostandAsync(kontoNummer2).get());
+    }
+
+    @Test
+    @DisplayName("Exceptions of the bank complete the future exceptionally")
+    void testFehler() {
+        ExecutionException fehler = assertThrows(ExecutionException.class,
+                () -> async.geldEinzahlenAsync(1L, 10).get());
+        assertInstanceOf(KontonummerDoesNotExistException.class, fehler.getCause());
+
+        fehler = assertThrows(ExecutionException.class, () -> async.geldAbhebenAsync(kontoNummer1, -1).get());
+        assertInstanceOf(IllegalArgumentException.class, fehler.getCause());
+    }
+
+    @Test
+    @DisplayName("Errors thrown by an operation complete the future exceptionally as well")
+    void testErrorBeendetZukunft() {
+        ExecutionException fehler = assertThrows(ExecutionException.class, () -> async.ausfuehren(b -> {
+            throw new StackOverflowError();
+        }).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(StackOverflowError.class, fehler.getCause());
+    }
+
+    @Test
+    @DisplayName("No more operations than the bound work on the bank at the same time")
+    void testBegrenzteNebenlaeufigkeit() throws Exception {
+        AtomicInteger aktiv = new AtomicInteger();
+        AtomicInteger hoechstens = new AtomicInteger();
+        List<CompletableFuture<Double>> operationen = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            operationen.add(async.ausfuehren(b -> {
+                hoechstens.accumulateAndGet(aktiv.incrementAndGet(), Math::max);
+                Thread.sleep(2);
+                aktiv.decrementAndGet();
+                b.geldEinzahlen(kontoNummer1, 1);
+                return b.getKontostand(kontoNummer1);
+            }));
+        }
+
+        List<Double> kontostaende = AsynchroneBank.alle(operationen).get();
+
+        assertEquals(200, kontostaende.size());
+        assertTrue(hoechstens.get() <= 8);
+        assertEquals(200.0, bank.getKontostand(kontoNummer1));
+    }
+
+    @Test
+    @DisplayName("Combining operations fails if one of them fails")
+    void testAlleMitFehler() {
+        List<CompletableFuture<Boolean>> operationen = List.of(
+                async.geldAbhebenAsync(kontoNummer1, 10),
+                async.geldAbhebenAsync(1L, 10));
+
+        assertThrows(ExecutionException.class, () -> AsynchroneBank.alle(operationen).get());
+    }
+}
@@ -0,0 +1,209 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.GesperrtException;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.factories.GirokontoFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BankNebenlaeufigkeitTest {
+    private static final int ANZAHL_KONTEN = 2000;
+    private static final int OPERATIONEN_PRO_THREAD = 50_000;
+
+    Bank bank;
+    Kunde kunde;
+    long[] kontonummern;
+
+    @BeforeEach
+    void setup() {
+        bank = new Bank(12312L);
+        kunde = new Kunde("Max", "Mustermann", "Home", LocalDate.parse("2001-10-29"));
+        kontonummern = new long[ANZAHL_KONTEN];
+        for (int i = 0; i < ANZAHL_KONTEN; i++) {
+            kontonummern[i] = bank.kontoErstellen(new GirokontoFactory(), kunde);
+        }
+    }
+
+    /**
+     * Runs the given task on the given number of threads at the same time and returns the elapsed time in nanoseconds.
+     */
+    private long parallelAusfuehren(int threads, Callable<Void> aufgabe) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CyclicBarrier start = new CyclicBarrier(threads + 1);
+            List<Future<Void>> ergebnisse = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                ergebnisse.add(executor.submit(() -> {
+                    start.await();
+                    return aufgabe.call();
+                }));
+            }
+            start.await();
+            long beginn = System.nanoTime();
+            for (Future<Void> ergebnis : ergebnisse) {
+                ergebnis.get();
+            }
+            return System.nanoTime() - beginn;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent deposits and withdrawals on shared accounts must not lose updates")
+    void testParalleleEinzahlungenUndAbhebungen() throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+        parallelAusfuehren(threads, () -> {
+            ThreadLocalRandom zufall = ThreadLocalRandom.current();
+            for (int i = 0; i < OPERATIONEN_PRO_THREAD; i++) {
+                long nummer = kontonummern[zufall.nextInt(16)];
+                bank.geldEinzahlen(nummer, 3);
+                assertTrue(bank.geldAbheben(nummer, 1));
+            }
+            return null;
+        });
+
+        double summe = 0;
+        for (int i = 0; i < 16; i++) {
+            summe += bank.getKontostand(kontonummern[i]);
+        }
+        assertEquals(2.0 * threads * OPERATIONEN_PRO_THREAD, summe);
+    }
+
+    @Test
+    @DisplayName("Accounts created by many threads leave no gaps in the account numbers")
+    void testKontoErstellenOhneLuecken() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < ANZAHL_KONTEN; i++) {
+                executor.submit(() -> bank.kontoErstellen(new GirokontoFactory(), kunde));
+            }
+        }
+
+        assertEquals(2 * ANZAHL_KONTEN, bank.getAlleKontonummern().size());
+        assertEquals(0, bank.getAnzahlKontonummernLuecken());
+        assertEquals(List.of(), bank.getKontonummernLuecken());
+        assertTrue(bank.kontoLoeschen(kontonummern[5]));
+        assertEquals(List.of(kontonummern[5]), bank.getKontonummernLuecken());
+        assertEquals(1, bank.getAnzahlKontonummernLuecken());
+    }
+
+    @Test
+    @DisplayName("Deleting accounts while other threads use them must not lose the deletion")
+    void testKontoLoeschenWaehrendBuchungen() throws Exception {
+        parallelAusfuehren(4, () -> {
+            for (int i = 0; i < OPERATIONEN_PRO_THREAD; i++) {
+                long nummer = kontonummern[ThreadLocalRandom.current().nextInt(ANZAHL_KONTEN)];
+                try {
+                    bank.geldEinzahlen(nummer, 1);
+                } catch (KontonummerDoesNotExistException e) {
+                    // das Konto wurde gerade geloescht
+                }
+                if (i % 100 == 0) {
+                    bank.kontoLoeschen(nummer);
+                }
+            }
+            return null;
+        });
+
+        for (long nummer : bank.getAlleKontonummern()) {
+            assertTrue(bank.getKontostand(nummer) >= 0);
+        }
+        assertTrue(bank.getAlleKontonummern().size() < ANZAHL_KONTEN);
+    }
+
+    @Test
+    @DisplayName("Transfers in both directions between hot account pairs neither deadlock nor lose money")
+    void testUeberweisungenZwischenHeissenKontopaaren() throws Exception {
+        // der Durchsatz je Threadzahl wird von HeisseKontenBenchmark im Projekt benchmarks gemessen
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int heisseKonten = 4;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            parallelAusfuehren(threads, () -> {
+                ThreadLocalRandom zufall = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONEN_PRO_THREAD; i++) {
+                    int von = zufall.nextInt(heisseKonten);
+                    int nach = (von + 1 + zufall.nextInt(heisseKonten - 1)) % heisseKonten;
+                    bank.geldUeberweisen(kontonummern[von], kontonummern[nach], 1 + zufall.nextInt(100), "Miete");
+                }
+                return null;
+            });
+        }
+
+        double summe = 0;
+        for (int i = 0; i < heisseKonten; i++) {
+            double kontostand = bank.getKontostand(kontonummern[i]);
+            assertTrue(kontostand >= -1000);
+            summe += kontostand;
+        }
+        assertEquals(0.0, summe);
+    }
+
+    @Test
+    @DisplayName("A batch of transfers books the same balances as single transfers")
+    void testUeberweisungsstapelGegenEinzelueberweisungen() throws Exception {
+        int anzahl = 200_000;
+        Random zufall = new Random(4711);
+        List<Ueberweisungsauftrag> auftraege = new ArrayList<>(anzahl);
+        for (int i = 0; i < anzahl; i++) {
+            auftraege.add(new Ueberweisungsauftrag(kontonummern[zufall.nextInt(ANZAHL_KONTEN)],
+                    kontonummern[zufall.nextInt(ANZAHL_KONTEN)], 1 + zufall.nextInt(10), "Lohn"));
+        }
+        Bank einzeln = bank.clone();
+
+        // der Durchsatz beider Wege wird von UeberweisungsstapelBenchmark im Projekt benchmarks gemessen
+        for (Ueberweisungsauftrag auftrag : auftraege) {
+            einzeln.geldUeberweisen(auftrag.vonKontonr(), auftrag.nachKontonr(), auftrag.betrag(), auftrag.verwendungszweck());
+        }
+        UeberweisungsErgebnis[] ergebnisse = bank.geldUeberweisenBatch(auftraege);
+
+        // bei Dispo 1000 und Betraegen bis 10 ist jede Ueberweisung gedeckt
+        for (UeberweisungsErgebnis ergebnis : ergebnisse) {
+            assertEquals(UeberweisungsErgebnis.AUSGEFUEHRT, ergebnis);
+        }
+        for (long nummer : kontonummern) {
+            assertEquals(einzeln.getKontostand(nummer), bank.getKontostand(nummer));
+        }
+    }
+
+    @Test
+    @DisplayName("Deposits and withdrawals on random accounts lose no update with a growing number of threads")
+    void testKeineVerlorenenBuchungenMitMehrerenThreads() throws Exception {
+        // der Durchsatz je Threadzahl wird von DurchsatzBenchmark im Projekt benchmarks gemessen
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            parallelAusfuehren(threads, () -> {
+                ThreadLocalRandom zufall = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONEN_PRO_THREAD; i++) {
+                    long nummer = kontonummern[zufall.nextInt(ANZAHL_KONTEN)];
+                    bank.geldEinzahlen(nummer, 2);
+                    try {
+                        bank.geldAbheben(nummer, 1);
+                    } catch (GesperrtException e) {
+                        fail(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        double summe = 0;
+        for (long nummer : kontonummern) {
+            summe += bank.getKontostand(nummer);
+        }
+        long operationen = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            operationen += (long) threads * OPERATIONEN_PRO_THREAD;
+        }
+        assertEquals(operationen, summe);
+    }
+}
@@ -2,6 +2,8 @@ package bankprojekt.verwaltung;
 
 import bankprojekt.verarbeitung.GesperrtException;
 import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Waehrung;
+import bankprojekt.verarbeitung.Wechselkurse;
 import bankprojekt.verarbeitung.factories.GirokontoFactory;
 import bankprojekt.verarbeitung.factories.SparbuchFactory;
 import org.junit.jupiter.api.Assertions;
@@ -9,7 +11,18 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -130,6 +143,40 @@ class BankTest {
         Assertions.assertThrowsExactly(IllegalArgumentException.class, () -> b1.geldUeberweisen(kontoNummer3, kontoNummer1, 500, " "));
     }
 
+    @Test
+    void testGeldUeberweisenBatch() throws KontonummerDoesNotExistException {
+        UeberweisungsErgebnis[] ergebnisse = b1.geldUeberweisenBatch(List.of(
+                new Ueberweisungsauftrag(kontoNummer1, kontoNummer2, 300, "Lohn"),
+                new Ueberweisungsauftrag(kontoNummer2, kontoNummer1, 50, "Miete"),
+                new Ueberweisungsauftrag(kontoNummer1, kontoNummer2, 1100, "Lohn"),
+                new Ueberweisungsauftrag(kontoNummer1, kontoNummer2, 1300, "Lohn"),
+                new Ueberweisungsauftrag(kontoNummer1, kontoNummer3, 10, "Sparen"),
+                new Ueberweisungsauftrag(kontoNummer1, 1218651L, 10, "Test")));
+
+        assertArrayEquals(new UeberweisungsErgebnis[]{
+                UeberweisungsErgebnis.AUSGEFUEHRT,
+                UeberweisungsErgebnis.AUSGEFUEHRT,
+                UeberweisungsErgebnis.AUSGEFUEHRT,
+                UeberweisungsErgebnis.NICHT_GEDECKT,
+                UeberweisungsErgebnis.NICHT_UEBERWEISUNGSFAEHIG,
+                UeberweisungsErgebnis.KONTO_FEHLT}, ergebnisse);
+        assertEquals(-850, b1.getKontostand(kontoNummer1));
+        assertEquals(1350, b1.getKontostand(kontoNummer2));
+        assertEquals(0, b1.getKontostand(kontoNummer3));
+    }
+
+    @Test
+    void testGeldUeberweisenBatchUngueltigerAuftrag() throws KontonummerDoesNotExistException {
+        Assertions.assertThrowsExactly(IllegalArgumentException.class, () -> b1.geldUeberweisenBatch(List.of(
+                new Ueberweisungsauftrag(kontoNummer1, kontoNummer2, 100, "Lohn"),
+                new Ueberweisungsauftrag(kontoNummer1, kontoNummer2, -5, "Lohn"))));
+        Assertions.assertThrowsExactly(IllegalArgumentException.class, () -> b1.geldUeberweisenBatch(List.of(
+                new Ueberweisungsauftrag(kontoNummer1, kontoNummer2, 100, " "))));
+
+        assertEquals(500, b1.getKontostand(kontoNummer1));
+        assertEquals(0, b1.getKontostand(kontoNummer2));
+    }
+
     @Test
     void testGetAlleKonten() throws KontonummerDoesNotExistException {
         String exprectedString = "------------------------------" + System.lineSeparator() +
@@ -156,4 +203,320 @@ class BankTest {
 
         assertNotEquals(originalBank.getKontostand(kontoNummer1), clonedBank.getKontostand(kontoNummer1));
     }
+
+    @Test
+    void testCloneIstUnabhaengigInBeideRichtungen() throws Exception {
+        Bank schnappschuss = b1.clone();
+        Bank schnappschussDesSchnappschusses = schnappschuss.clone();
+
+        schnappschuss.geldEinzahlen(kontoNummer2, 100);
+        b1.geldEinzahlen(kontoNummer1, 1);
+        assertTrue(b1.geldUeberweisen(kontoNummer1, kontoNummer2, 50, "Miete"));
+        b1.waehrungswechsel(kontoNummer1, Waehrung.BGN);
+        assertTrue(b1.kontoLoeschen(kontoNummer3));
+        schnappschussDesSchnappschusses.geldEinzahlen(kontoNummer3, 10);
+
+        assertEquals(500, schnappschuss.getKontostand(kontoNummer1));
+        assertEquals(100, schnappschuss.getKontostand(kontoNummer2));
+        assertEquals(0, schnappschuss.getKontostand(kontoNummer3));
+        assertEquals(500, schnappschussDesSchnappschusses.getKontostand(kontoNummer1));
+        assertEquals(0, schnappschussDesSchnappschusses.getKontostand(kontoNummer2));
+        assertEquals(10, schnappschussDesSchnappschusses.getKontostand(kontoNummer3));
+        assertEquals(50, b1.getKontostand(kontoNummer2));
+        assertThrows(KontonummerDoesNotExistException.class, () -> b1.getKontostand(kontoNummer3));
+        assertEquals(List.of(kontoNummer1, kontoNummer2, kontoNummer3), schnappschuss.getAlleKontonummern());
+    }
+
+    @Test
+    void testKontostandIndexFolgtAllenAenderungen() throws Exception {
+        assertEquals(List.of(kunde1), b1.getKundenMitVollemKonto(100));
+
+        b1.geldEinzahlen(kontoNummer2, 300);
+        assertTrue(b1.geldUeberweisen(kontoNummer1, kontoNummer2, 400, "Miete"));
+        assertEquals(List.of(kunde2), b1.getKundenMitVollemKonto(600));
+        assertEquals(List.of(kunde1, kunde2), b1.getKundenMitVollemKonto(100));
+
+        assertTrue(b1.geldAbheben(kontoNummer1, 300));
+        assertEquals(Wechselkurse.aktuell().getVersion(), b1.waehrungswechsel(kontoNummer2, Waehrung.BGN));
+        assertEquals(List.of(kunde2), b1.getKundenMitVollemKonto(1000));
+        assertEquals(List.of(kunde1, kunde2, kunde1), b1.getKundenMitVollemKonto(-1000));
+
+        b1.pleitegeierSperren();
+        Assertions.assertThrowsExactly(GesperrtException.class, () -> b1.geldAbheben(kontoNummer1, 1));
+        assertTrue(b1.kontoLoeschen(kontoNummer2));
+        assertEquals(List.of(), b1.getKundenMitVollemKonto(1000));
+        long neu = b1.kontoErstellen(new SparbuchFactory(), kunde2);
+        b1.geldEinzahlen(neu, 2000);
+        assertEquals(List.of(kunde2), b1.getKundenMitVollemKonto(1000));
+    }
+
+    @Test
+    void testKontostandIndexMitSchnappschuss() throws Exception {
+        assertEquals(List.of(kunde1), b1.getKundenMitVollemKonto(100));
+        Bank schnappschuss = b1.clone();
+        assertEquals(List.of(kunde1), schnappschuss.getKundenMitVollemKonto(100));
+
+        b1.geldEinzahlen(kontoNummer2, 1000);
+        schnappschuss.geldEinzahlen(kontoNummer3, 2000);
+        assertTrue(b1.geldAbheben(kontoNummer1, 600));
+        b1.geldEinzahlen(kontoNummer1, 5);
+
+        assertEquals(List.of(kunde2), b1.getKundenMitVollemKonto(100));
+        assertEquals(List.of(kunde1, kunde1), schnappschuss.getKundenMitVollemKonto(100));
+        schnappschuss.pleitegeierSperren();
+        assertTrue(schnappschuss.geldAbheben(kontoNummer1, 1));
+        b1.pleitegeierSperren();
+        Assertions.assertThrowsExactly(GesperrtException.class, () -> b1.geldAbheben(kontoNummer1, 1));
+    }
+
+    @Test
+    void testWaehrungUmstellen() throws Exception {
+        assertEquals(List.of(kunde1), b1.getKundenMitVollemKonto(100));
+        assertEquals(500, b1.getKundensaldo(kunde1));
+        b1.waehrungswechsel(kontoNummer1, Waehrung.BGN);
+        b1.waehrungswechsel(kontoNummer3, Waehrung.BGN);
+        assertEquals(977.9, b1.getKontostand(kontoNummer1));
+        Bank schnappschuss = b1.clone();
+
+        Waehrungsumstellung umstellung = b1.waehrungUmstellen(Waehrung.BGN, Waehrung.EUR);
+
+        assertEquals(new Waehrungsumstellung(2, Wechselkurse.aktuell().getVersion()), umstellung);
+        assertEquals(500, b1.getKontostand(kontoNummer1));
+        assertFalse(b1.getAlleKonten().contains("BGN"));
+        assertEquals(List.of(kunde1), b1.getKundenMitVollemKonto(100));
+        assertEquals(List.of(), b1.getKundenMitVollemKonto(501));
+        assertEquals(500, b1.getKundensaldo(kunde1));
+        assertEquals(977.9, schnappschuss.getKontostand(kontoNummer1));
+        assertEquals(0, b1.waehrungUmstellen(Waehrung.BGN, Waehrung.EUR).anzahl());
+        assertEquals(0, b1.waehrungUmstellen(Waehrung.EUR, Waehrung.EUR).anzahl());
+        Assertions.assertThrowsExactly(IllegalArgumentException.class, () -> b1.waehrungUmstellen(null, Waehrung.EUR));
+    }
+
+    @Test
+    void testWaehrungUmstellenVieleKonten() throws Exception {
+        long[] nummern = new long[1000];
+        for (int i = 0; i < nummern.length; i++) {
+            nummern[i] = b2.kontoErstellen(new GirokontoFactory(), i % 2 == 0 ? kunde1 : kunde2);
+            b2.geldEinzahlen(nummern[i], 100);
+            if (i % 3 != 0) {
+                b2.waehrungswechsel(nummern[i], Waehrung.MKD);
+            }
+        }
+
+        assertEquals(666, b2.waehrungUmstellen(Waehrung.MKD, Waehrung.DKK).anzahl());
+
+        for (int i = 0; i < nummern.length; i++) {
+            assertEquals(i % 3 != 0 ? 746.04 : 100, b2.getKontostand(nummern[i]));
+        }
+        assertEquals(333 * 746.04 + 167 * 100, b2.getKundensaldo(kunde2), 1e-6);
+    }
+
+    @Test
+    void testKundenSummenFolgenAllenAenderungen() throws Exception {
+        assertEquals(List.of(kunde1), b1.getAlleReichenKunden(100));
+        assertEquals(List.of(kunde1, kunde2), b1.getReichsteKunden(5));
+
+        b1.geldEinzahlen(kontoNummer3, 300);
+        assertTrue(b1.geldUeberweisen(kontoNummer1, kontoNummer2, 1200, "Miete"));
+        assertEquals(-400, b1.getKundensaldo(kunde1));
+        assertEquals(700, b1.getUeberziehung(kunde1));
+        assertEquals(1200, b1.getKundensaldo(kunde2));
+        assertEquals(List.of(kunde2), b1.getReichsteKunden(1));
+        assertEquals(List.of(kunde2), b1.getAlleReichenKunden(-400));
+        assertEquals(List.of(kunde2, kunde1), b1.getAlleReichenKunden(-401));
+
+        b1.geldEinzahlen(kontoNummer1, 1000);
+        assertEquals(0, b1.getUeberziehung(kunde1));
+        assertEquals(600, b1.getKundensaldo(kunde1));
+
+        assertTrue(b1.kontoLoeschen(kontoNummer2));
+        assertEquals(0, b1.getKundensaldo(kunde2));
+        assertEquals(List.of(kunde1), b1.getReichsteKunden(5));
+        assertEquals(List.of(), b1.getReichsteKunden(0));
+        Assertions.assertThrowsExactly(IllegalArgumentException.class, () -> b1.getReichsteKunden(-1));
+    }
+
+    @Test
+    void testKundenSummenMitSchnappschuss() throws Exception {
+        assertEquals(500, b1.getKundensaldo(kunde1));
+        Bank schnappschuss = b1.clone();
+
+        b1.geldEinzahlen(kontoNummer2, 1000);
+        schnappschuss.geldEinzahlen(kontoNummer3, 50);
+
+        assertEquals(List.of(kunde2, kunde1), b1.getReichsteKunden(2));
+        assertEquals(500, b1.getKundensaldo(kunde1));
+        assertEquals(550, schnappschuss.getKundensaldo(kunde1));
+        assertEquals(0, schnappschuss.getKundensaldo(kunde2));
+    }
+
+    @Test
+    void testKundenadressenDeutschSortiertUndAktuell() throws Exception {
+        Kunde oelaf = new Kunde("Ölaf", "Berg", "Bergweg 1", LocalDate.parse("1970-01-01"));
+        Kunde anna = new Kunde("anna", "Adler", "Adlerweg 2", LocalDate.parse("1980-01-01"));
+        long nummerOelaf = b1.kontoErstellen(new GirokontoFactory(), oelaf);
+        b1.kontoErstellen(new SparbuchFactory(), anna);
+        String n = System.lineSeparator();
+
+        assertEquals("Adler, anna: Adlerweg 2" + n + "Doe, John: Work" + n + "Mustermann, Max: Home" + n
+                + "Berg, Ölaf: Bergweg 1", b1.getKundenadressen());
+
+        kunde2.setVorname("Zacharias");
+        anna.setAdresse("Neuer Weg 3");
+        assertTrue(b1.kontoLoeschen(nummerOelaf));
+        String erwartet = "Adler, anna: Neuer Weg 3" + n + "Mustermann, Max: Home" + n + "Doe, Zacharias: Work";
+        assertEquals(erwartet, b1.getKundenadressen());
+
+        StringWriter geschrieben = new StringWriter();
+        b1.kundenadressenSchreiben(geschrieben);
+        assertEquals(erwartet, geschrieben.toString());
+    }
+
+    @Test
+    void testKontenSeitenweiseSchreiben() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            b1.geldEinzahlen(b1.kontoErstellen(new GirokontoFactory(), kunde2), 0.1 * (i + 1));
+        }
+        assertTrue(b1.kontoLoeschen(kontoNummer2));
+        String alle = b1.getAlleKonten();
+
+        StringBuilder seiten = new StringBuilder();
+        int anzahlSeiten = 0;
+        long ab = 0;
+        do {
+            ab = b1.kontenSchreiben(seiten, ab, 4);
+            anzahlSeiten++;
+        } while (ab != -1);
+        assertEquals(3, anzahlSeiten);
+        String linie = "------------------------------";
+        assertEquals(alle, linie + System.lineSeparator() + "Liste aller Konten:" + System.lineSeparator() + seiten + linie);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertEquals(-1, b1.kontenSchreiben(Channels.newChannel(bytes), 0, 100));
+        assertEquals(seiten.toString(), bytes.toString(StandardCharsets.UTF_8));
+        assertEquals(kontoNummer3 + 1, b1.kontenSchreiben(new StringBuilder(), kontoNummer2, 1));
+        Assertions.assertThrowsExactly(IllegalArgumentException.class, () -> b1.kontenSchreiben(new StringBuilder(), -1, 1));
+    }
+
+    @Test
+    void testPleitegeierLaufendSperren() throws Exception {
+        assertTrue(b1.geldAbheben(kontoNummer2, 300));
+        b1.pleitegeierLaufendSperren(-200);
+        Assertions.assertThrowsExactly(GesperrtException.class, () -> b1.geldAbheben(kontoNummer2, 1));
+
+        assertTrue(b1.geldAbheben(kontoNummer1, 650));
+        assertTrue(b1.geldAbheben(kontoNummer1, 1));
+        assertTrue(b1.geldUeberweisen(kontoNummer1, kontoNummer2, 100, "Miete"));
+        Assertions.assertThrowsExactly(GesperrtException.class, () -> b1.geldAbheben(kontoNummer1, 1));
+        assertEquals(-251, b1.getKontostand(kontoNummer1));
+
+        long neu = b1.kontoErstellen(new GirokontoFactory(), kunde2);
+        b1.pleitegeierLaufendSperrenBeenden();
+        assertTrue(b1.geldAbheben(neu, 500));
+        assertTrue(b1.geldAbheben(neu, 1));
+    }
+
+    @Test
+    void testMetriken() throws Exception {
+        long vorher = b1.getMetriken().getStatistik(Bankmetriken.Operation.GELD_EINZAHLEN).anzahl();
+        for (int i = 0; i < 100; i++) {
+            b1.geldEinzahlen(kontoNummer1, 1);
+        }
+        Assertions.assertThrowsExactly(KontonummerDoesNotExistException.class, () -> b1.geldEinzahlen(1L, 1));
+
+        Latenzstatistik statistik = b1.getMetriken().getStatistik(Bankmetriken.Operation.GELD_EINZAHLEN);
+        assertEquals(vorher + 101, statistik.anzahl());
+        assertTrue(statistik.p50() <= statistik.p99() && statistik.p99() <= statistik.maximum());
+
+        ObjectName name = b1.getMetriken().registrieren(b1.getBankleitzahl());
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            CompositeData eintrag = ((TabularData) server.getAttribute(name, "Anzahl"))
+                    .get(new Object[]{"GELD_EINZAHLEN"});
+            assertEquals(vorher + 101, (long) (Long) eintrag.get("value"));
+        } finally {
+            b1.getMetriken().abmelden();
+        }
+    }
+
+    @Test
+    void testMetrikenDerAbfragen() throws Exception {
+        Bank schnappschuss = b1.clone();
+        assertEquals(0, schnappschuss.getMetriken().getStatistik(Bankmetriken.Operation.REICHSTE_KUNDEN).anzahl());
+
+        schnappschuss.getReichsteKunden(1);
+        schnappschuss.getKundensaldo(kunde1);
+        schnappschuss.getAlleKonten();
+        schnappschuss.getKontonummernLuecken();
+
+        Bankmetriken metriken = schnappschuss.getMetriken();
+        assertEquals(1, metriken.getStatistik(Bankmetriken.Operation.REICHSTE_KUNDEN).anzahl());
+        assertEquals(1, metriken.getStatistik(Bankmetriken.Operation.KUNDENSALDO).anzahl());
+        assertEquals(1, metriken.getStatistik(Bankmetriken.Operation.ALLE_KONTEN).anzahl());
+        assertEquals(0, metriken.getStatistik(Bankmetriken.Operation.KONTEN_SCHREIBEN).anzahl());
+        assertEquals(1, metriken.getStatistik(Bankmetriken.Operation.KONTONUMMERN_LUECKEN).anzahl());
+        assertEquals(0, metriken.getStatistiken().get(Bankmetriken.Operation.GELD_EINZAHLEN).anzahl());
+    }
+
+    @Test
+    void testIndexeEinesVerworfenenSchnappschusses() throws Exception {
+        Bank schnappschuss = b1.clone();
+        schnappschuss.pleitegeierLaufendSperren(-200);
+        assertEquals(List.of(kunde1), schnappschuss.getReichsteKunden(1));
+        schnappschuss.getKundensaldo(kunde2);
+        schnappschuss.getKundenadressen();
+
+        WeakReference<Bank> verweis = new WeakReference<>(schnappschuss);
+        schnappschuss = null;
+        for (int i = 0; i < 100 && verweis.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(verweis.get());
+
+        // die Konten gehoeren jetzt allein b1 und werden ohne Kopie geaendert
+        assertTrue(b1.geldAbheben(kontoNummer2, 300));
+        assertTrue(b1.geldAbheben(kontoNummer2, 1));
+        assertTrue(b1.geldUeberweisen(kontoNummer1, kontoNummer2, 500, "Miete"));
+        assertEquals(List.of(kunde2), b1.getReichsteKunden(1));
+        assertEquals(199, b1.getKundensaldo(kunde2));
+    }
+
+    @Test
+    void testKontonummernLueckenImSchnappschuss() throws Exception {
+        KontonummernVergabe vergabe = new KontonummernVergabe(10000000L, 10, false, 0, 1);
+        Bank bank = new Bank(12312L, vergabe);
+        for (int i = 0; i < 3; i++) {
+            bank.kontoErstellen(new GirokontoFactory(), kunde1);
+        }
+        // die Nummern 3 bis 9 sind geleast, aber noch nicht vergeben
+        vergabe.reservieren(10000000L + 12);
+
+        Bank schnappschuss = bank.clone();
+
+        assertEquals(List.of(10000010L, 10000011L, 10000012L), bank.getKontonummernLuecken());
+        assertEquals(bank.getKontonummernLuecken(), schnappschuss.getKontonummernLuecken());
+        assertEquals(3, schnappschuss.getAnzahlKontonummernLuecken());
+    }
+
+    @Test
+    void testKontonummernLueckenMitMehrerenKnoten() throws Exception {
+        Bank bank = new Bank(12312L, new KontonummernVergabe(10000000L, 10, false, 1, 3));
+        long[] nummern = new long[12];
+        for (int i = 0; i < nummern.length; i++) {
+            nummern[i] = bank.kontoErstellen(new GirokontoFactory(), kunde1);
+        }
+        assertEquals(10000010L, nummern[0]);
+        assertEquals(10000041L, nummern[11]);
+        assertEquals(List.of(), bank.getKontonummernLuecken());
+        assertEquals(0, bank.getAnzahlKontonummernLuecken());
+
+        bank.kontoLoeschen(nummern[3]);
+        Bank schnappschuss = bank.clone();
+
+        assertEquals(List.of(nummern[3]), bank.getKontonummernLuecken());
+        assertEquals(1, bank.getAnzahlKontonummernLuecken());
+        assertEquals(List.of(nummern[3]), schnappschuss.getKontonummernLuecken());
+        assertEquals(1, schnappschuss.getAnzahlKontonummernLuecken());
+    }
 }
@@ -0,0 +1,121 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Aktie;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Waehrung;
+import bankprojekt.verarbeitung.factories.GirokontoFactory;
+import bankprojekt.verarbeitung.factories.SparbuchFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BankarchivTest {
+    Bank bank;
+    Kunde kunde1, kunde2;
+
+    @BeforeEach
+    void setup() {
+        bank = new Bank(12312L);
+        kunde1 = new Kunde("Max", "Mustermann", "Home", LocalDate.parse("2001-10-29"));
+        kunde2 = new Kunde("Jürgen", "Doe", "Work", LocalDate.parse("1985-07-12"));
+    }
+
+    private static byte[] archivieren(Bank bank) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Bankarchiv.schreiben(bank, Channels.newChannel(bos));
+        return bos.toByteArray();
+    }
+
+    private static Bank laden(byte[] archiv) throws IOException {
+        return Bankarchiv.lesen(Channels.newChannel(new ByteArrayInputStream(archiv)));
+    }
+
+    @Test
+    void testSchreibenUndLesen() throws Exception {
+        long giro = bank.kontoErstellen(new GirokontoFactory(), kunde1);
+        long spar = bank.kontoErstellen(new SparbuchFactory(), kunde2);
+        long geloescht = bank.kontoErstellen(new GirokontoFactory(), kunde1);
+        long gesperrt = bank.kontoErstellen(new GirokontoFactory(), kunde2);
+        bank.geldEinzahlen(giro, 123.45);
+        bank.geldEinzahlen(spar, 300);
+        assertTrue(bank.geldAbheben(spar, 100));
+        assertTrue(bank.geldAbheben(gesperrt, 50));
+        bank.pleitegeierSperren();
+        bank.waehrungswechsel(giro, Waehrung.BGN);
+        assertTrue(bank.kontoLoeschen(geloescht));
+
+        Bank geladen = laden(archivieren(bank));
+
+        assertEquals(bank.getBankleitzahl(), geladen.getBankleitzahl());
+        assertEquals(bank.getAlleKontonummern(), geladen.getAlleKontonummern());
+        assertEquals(bank.getAlleKonten(), geladen.getAlleKonten());
+        assertEquals(bank.getKontonummernLuecken(), geladen.getKontonummernLuecken());
+        assertEquals(bank.getKundenadressen(), geladen.getKundenadressen());
+        assertThrows(Exception.class, () -> geladen.geldAbheben(gesperrt, 1));
+        assertFalse(geladen.geldAbheben(spar, 199.6));
+        assertTrue(geladen.kontoErstellen(new GirokontoFactory(), kunde1) > gesperrt);
+    }
+
+    @Test
+    void testDepotWirdArchiviert() throws Exception {
+        long nummer = bank.kontoErstellen(new GirokontoFactory(), kunde1);
+        Aktie aktie = new Aktie("Beispiel AG", "BSP123", 42);
+        bank.kontenBesuchen((n, konto) -> konto.depotEinbuchen(aktie, 7));
+
+        Bank geladen = laden(archivieren(bank));
+
+        List<Map<Aktie, Integer>> depots = new ArrayList<>();
+        geladen.kontenBesuchen((n, konto) -> depots.add(konto.getDepot()));
+        assertEquals(1, depots.size());
+        Map.Entry<Aktie, Integer> position = depots.get(0).entrySet().iterator().next();
+        assertEquals("BSP123", position.getKey().getWertpapierNr());
+        assertEquals(7, (int) position.getValue());
+        assertEquals(nummer, (long) geladen.getAlleKontonummern().get(0));
+    }
+
+    @Test
+    void testBeschaedigtesArchivWirdErkannt() throws Exception {
+        long nummer = bank.kontoErstellen(new GirokontoFactory(), kunde1);
+        bank.geldEinzahlen(nummer, 10);
+        byte[] archiv = archivieren(bank);
+
+        byte[] verfaelscht = archiv.clone();
+        verfaelscht[verfaelscht.length - 20] ^= 1;
+        assertThrows(StreamCorruptedException.class, () -> laden(verfaelscht));
+
+        byte[] abgeschnitten = Arrays.copyOf(archiv, archiv.length - 5);
+        assertThrows(EOFException.class, () -> laden(abgeschnitten));
+
+        byte[] fremd = "kein Archiv, sondern nur ein wenig Text".getBytes();
+        assertThrows(StreamCorruptedException.class, () -> laden(fremd));
+    }
+
+    @Test
+    void testKleinerAlsJavaSerialisierung() throws Exception {
+        for (int i = 0; i < 100_000; i++) {
+            long nummer = bank.kontoErstellen(i % 3 == 0 ? new SparbuchFactory() : new GirokontoFactory(),
+                    i % 2 == 0 ? kunde1 : kunde2);
+            bank.geldEinzahlen(nummer, i % 1000 + 1);
+        }
+
+        // die Dauer beider Formate wird von ArchivBenchmark im Projekt benchmarks gemessen
+        byte[] archiv = archivieren(bank);
+        Bank geladen = laden(archiv);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(bank);
+        }
+
+        assertEquals(bank.getAlleKonten(), geladen.getAlleKonten());
+        assertTrue(archiv.length * 2 < bos.size());
+    }
+}
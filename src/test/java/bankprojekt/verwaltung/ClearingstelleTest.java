@@ -0,0 +1,113 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.factories.GirokontoFactory;
+import bankprojekt.verarbeitung.factories.SparbuchFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClearingstelleTest {
+    private static final long BLZ_A = 10010010L;
+    private static final long BLZ_B = 20020020L;
+
+    Clearingstelle clearingstelle;
+    Bank bankA;
+    Bank bankB;
+    long kontoA;
+    long kontoB;
+
+    @BeforeEach
+    void setup() throws Exception {
+        clearingstelle = new Clearingstelle();
+        bankA = new Bank(BLZ_A);
+        bankB = new Bank(BLZ_B);
+        clearingstelle.anmelden(bankA);
+        clearingstelle.anmelden(bankB);
+        Kunde kunde = new Kunde("Max", "Mustermann", "Home", LocalDate.parse("2001-10-29"));
+        kontoA = bankA.kontoErstellen(new GirokontoFactory(), kunde);
+        kontoB = bankB.kontoErstellen(new GirokontoFactory(), kunde);
+        bankA.geldEinzahlen(kontoA, 1000);
+        bankB.geldEinzahlen(kontoB, 1000);
+    }
+
+    @Test
+    @DisplayName("A transfer to another bank debits at once and credits in the clearing cycle")
+    void testUeberweisungZwischenBanken() throws Exception {
+        assertTrue(clearingstelle.ueberweisen(BLZ_A, kontoA, BLZ_B, kontoB, 100, "Miete"));
+
+        assertEquals(900.0, bankA.getKontostand(kontoA));
+        assertEquals(1000.0, bankB.getKontostand(kontoB));
+        assertEquals(1, clearingstelle.getAnzahlAusstehend());
+
+        List<Clearingstelle.Abrechnung> abrechnungen = clearingstelle.abrechnen();
+
+        assertEquals(1100.0, bankB.getKontostand(kontoB));
+        assertEquals(List.of(new Clearingstelle.Abrechnung(BLZ_A, BLZ_B, 100, 1)), abrechnungen);
+        assertEquals(0, clearingstelle.getAnzahlAusstehend());
+    }
+
+    @Test
+    @DisplayName("Transfers in both directions are netted into one settlement per pair of banks")
+    void testSaldierung() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(clearingstelle.ueberweisen(BLZ_A, kontoA, BLZ_B, kontoB, 30, "Hin"));
+            assertTrue(clearingstelle.ueberweisen(BLZ_B, kontoB, BLZ_A, kontoA, 50, "Her"));
+        }
+
+        List<Clearingstelle.Abrechnung> abrechnungen = clearingstelle.abrechnen();
+
+        assertEquals(List.of(new Clearingstelle.Abrechnung(BLZ_B, BLZ_A, 200, 20)), abrechnungen);
+        assertTrue(clearingstelle.abrechnen().isEmpty());
+    }
+
+    @Test
+    @DisplayName("A transfer to an account deleted before the cycle is returned in the next cycle")
+    void testRueckbuchung() throws Exception {
+        assertTrue(clearingstelle.ueberweisen(BLZ_A, kontoA, BLZ_B, kontoB, 100, "Miete"));
+        bankB.kontoLoeschen(kontoB);
+
+        assertTrue(clearingstelle.abrechnen().isEmpty());
+        assertEquals(900.0, bankA.getKontostand(kontoA));
+
+        assertTrue(clearingstelle.abrechnen().isEmpty());
+        assertEquals(1000.0, bankA.getKontostand(kontoA));
+        assertEquals(0.0, clearingstelle.getUnzustellbar());
+    }
+
+    @Test
+    @DisplayName("Transfers a bank fails to book stay queued for the next cycle")
+    void testBuchungFehlgeschlagen() throws Exception {
+        bankA.geldEinzahlen(kontoA, 5e16);
+        bankB.geldEinzahlen(kontoB, 5e16);
+        assertTrue(clearingstelle.ueberweisen(BLZ_A, kontoA, BLZ_B, kontoB, 5e16, "Zu viel"));
+
+        assertTrue(clearingstelle.abrechnen().isEmpty());
+        assertEquals(1, clearingstelle.getAnzahlAusstehend());
+        assertEquals(5e16 + 1000, bankB.getKontostand(kontoB));
+
+        assertTrue(bankB.geldAbheben(kontoB, 5e16));
+        assertEquals(List.of(new Clearingstelle.Abrechnung(BLZ_A, BLZ_B, 5e16, 1)), clearingstelle.abrechnen());
+        assertEquals(5e16 + 1000, bankB.getKontostand(kontoB));
+        assertEquals(0, clearingstelle.getAnzahlAusstehend());
+    }
+
+    @Test
+    @DisplayName("Transfers that cannot be booked are refused, unknown banks are rejected")
+    void testAbgelehnt() {
+        Kunde kunde = new Kunde("Erika", "Mustermann", "Home", LocalDate.parse("2000-01-01"));
+        long sparbuch = bankB.kontoErstellen(new SparbuchFactory(), kunde);
+
+        assertFalse(clearingstelle.ueberweisen(BLZ_A, kontoA, BLZ_B, sparbuch, 10, "Sparen"));
+        assertFalse(clearingstelle.ueberweisen(BLZ_A, kontoA, BLZ_B, kontoB, 5000, "Zu viel"));
+        assertThrows(IllegalArgumentException.class,
+                () -> clearingstelle.ueberweisen(BLZ_A, kontoA, 99999999L, kontoB, 10, "Unbekannt"));
+        assertThrows(IllegalArgumentException.class, () -> clearingstelle.anmelden(new Bank(BLZ_A)));
+        assertEquals(0, clearingstelle.getAnzahlAusstehend());
+    }
+}
@@ -0,0 +1,213 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.GesperrtException;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Waehrung;
+import bankprojekt.verarbeitung.factories.GirokontoFactory;
+import bankprojekt.verarbeitung.factories.SparbuchFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+    private static final int SEGMENTGROESSE = 4096;
+
+    Path verzeichnis;
+    Kunde kunde;
+
+    @BeforeEach
+    void setup() throws IOException {
+        verzeichnis = Files.createTempDirectory("journal");
+        kunde = new Kunde("Max", "Mustermann", "Home", LocalDate.parse("2001-10-29"));
+    }
+
+    @AfterEach
+    void aufraeumen() throws IOException {
+        try (Stream<Path> dateien = Files.walk(verzeichnis)) {
+            for (Path datei : dateien.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(datei);
+            }
+        }
+    }
+
+    private Bank neuStarten(Journal alt) throws IOException {
+        alt.close();
+        return Bank.wiederherstellen(12312L, Journal.oeffnen(verzeichnis, SEGMENTGROESSE));
+    }
+
+    @Test
+    void testWiederherstellenNachAllenOperationen() throws Exception {
+        Journal journal = Journal.oeffnen(verzeichnis, SEGMENTGROESSE);
+        Bank bank = Bank.wiederherstellen(12312L, journal);
+
+        long giro1 = bank.kontoErstellen(new GirokontoFactory(), kunde);
+        long giro2 = bank.kontoErstellen(new GirokontoFactory(), kunde);
+        long spar = bank.kontoErstellen(new SparbuchFactory(), kunde);
+        long geloescht = bank.kontoErstellen(new GirokontoFactory(), kunde);
+        bank.geldEinzahlen(giro1, 500);
+        bank.geldEinzahlen(spar, 300);
+        assertTrue(bank.geldAbheben(spar, 100));
+        assertTrue(bank.geldUeberweisen(giro1, giro2, 200, "Miete"));
+        bank.geldUeberweisenBatch(List.of(new Ueberweisungsauftrag(giro2, giro1, 50, "Lohn")));
+        assertTrue(bank.geldAbheben(giro2, 900));
+        bank.pleitegeierSperren();
+        bank.waehrungswechsel(giro1, Waehrung.BGN);
+        assertTrue(bank.kontoLoeschen(geloescht));
+        for (int i = 0; i < 200; i++) {
+            bank.geldEinzahlen(giro1, 1);
+        }
+
+        Bank wiederhergestellt = neuStarten(journal);
+
+        assertEquals(bank.getAlleKontonummern(), wiederhergestellt.getAlleKontonummern());
+        for (long nummer : bank.getAlleKontonummern()) {
+            assertEquals(bank.getKontostand(nummer), wiederhergestellt.getKontostand(nummer));
+        }
+        assertEquals(bank.getKontonummernLuecken(), wiederhergestellt.getKontonummernLuecken());
+        assertThrowsExactly(GesperrtException.class, () -> wiederhergestellt.geldAbheben(giro2, 1));
+        assertFalse(wiederhergestellt.geldAbheben(spar, 199.6));
+        assertTrue(wiederhergestellt.getAlleKonten().contains(giro1 + ", Kontostand: " + bank.getKontostand(giro1) + " BGN"));
+        assertTrue(wiederhergestellt.kontoErstellen(new GirokontoFactory(), kunde) > geloescht);
+    }
+
+    @Test
+    void testWiederherstellenNachWaehrungsumstellung() throws Exception {
+        Journal journal = Journal.oeffnen(verzeichnis, SEGMENTGROESSE);
+        Bank bank = Bank.wiederherstellen(12312L, journal);
+        List<Long> nummern = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long nummer = bank.kontoErstellen(i % 2 == 0 ? new GirokontoFactory() : new SparbuchFactory(), kunde);
+            bank.geldEinzahlen(nummer, i + 1);
+            bank.waehrungswechsel(nummer, Waehrung.BGN);
+            nummern.add(nummer);
+        }
+
+        assertEquals(200, bank.waehrungUmstellen(Waehrung.BGN, Waehrung.EUR).anzahl());
+        Bank wiederhergestellt = neuStarten(journal);
+
+        for (long nummer : nummern) {
+            assertEquals(bank.getKontostand(nummer), wiederhergestellt.getKontostand(nummer));
+        }
+        assertFalse(wiederhergestellt.getAlleKonten().contains("BGN"));
+    }
+
+    @Test
+    void testWeiterschreibenNachWiederherstellen() throws Exception {
+        Journal journal = Journal.oeffnen(verzeichnis, SEGMENTGROESSE);
+        Bank bank = Bank.wiederherstellen(12312L, journal);
+        long nummer = bank.kontoErstellen(new GirokontoFactory(), kunde);
+        bank.geldEinzahlen(nummer, 10);
+
+        Bank zweiter = neuStarten(journal);
+        zweiter.geldEinzahlen(nummer, 5);
+        Bank dritter = neuStarten(journal);
+
+        assertEquals(15, dritter.getKontostand(nummer));
+    }
+
+    @Test
+    void testKundenBleibenGetrenntUndAenderungenWerdenProtokolliert() throws Exception {
+        Journal journal = Journal.oeffnen(verzeichnis, SEGMENTGROESSE);
+        Bank bank = Bank.wiederherstellen(12312L, journal);
+        Kunde zwilling = new Kunde("Max", "Mustermann", "Home", LocalDate.parse("2001-10-29"));
+        bank.geldEinzahlen(bank.kontoErstellen(new GirokontoFactory(), kunde), 20);
+        bank.geldEinzahlen(bank.kontoErstellen(new GirokontoFactory(), zwilling), 10);
+        kunde.setAdresse("Work");
+
+        Bank zweiter = neuStarten(journal);
+        List<Kunde> kunden = zweiter.getReichsteKunden(5);
+        assertEquals(2, kunden.size());
+        assertEquals("Work", kunden.get(0).getAdresse());
+        assertEquals("Home", kunden.get(1).getAdresse());
+
+        kunden.get(1).setNachname("Musterfrau");
+        Bank dritter = neuStarten(journal);
+        kunden = dritter.getReichsteKunden(5);
+        assertEquals("Mustermann", kunden.get(0).getNachname());
+        assertEquals("Musterfrau", kunden.get(1).getNachname());
+    }
+
+    @Test
+    void testUnvollstaendigerDatensatzWirdVerworfen() throws Exception {
+        Journal journal = Journal.oeffnen(verzeichnis, SEGMENTGROESSE);
+        Bank bank = Bank.wiederherstellen(12312L, journal);
+        long nummer = bank.kontoErstellen(new GirokontoFactory(), kunde);
+        bank.geldEinzahlen(nummer, 10);
+        journal.close();
+
+        // Absturz mitten im Schreiben eines Datensatzes nachstellen: Laenge gesetzt, Pruefsumme falsch
+        Path letztes;
+        try (Stream<Path> dateien = Files.list(verzeichnis)) {
+            letztes = dateien.sorted().reduce((a, b) -> b).orElseThrow();
+        }
+        try (FileChannel kanal = FileChannel.open(letztes, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer inhalt = ByteBuffer.allocate((int) kanal.size());
+            kanal.read(inhalt, 0);
+            int ende = 0;
+            while (inhalt.getInt(ende) != 0) {
+                ende += 8 + inhalt.getInt(ende);
+            }
+            kanal.write(ByteBuffer.allocate(12).putInt(4).putInt(0xBADF00D).putInt(42).flip(), ende);
+        }
+
+        Journal neu = Journal.oeffnen(verzeichnis, SEGMENTGROESSE);
+        Bank wiederhergestellt = Bank.wiederherstellen(12312L, neu);
+        assertEquals(10, wiederhergestellt.getKontostand(nummer));
+
+        wiederhergestellt.geldEinzahlen(nummer, 1);
+        assertEquals(11, neuStarten(neu).getKontostand(nummer));
+    }
+
+    @Test
+    void testParalleleSchreiberTeilenSichDasSichern() throws Exception {
+        Journal journal = Journal.oeffnen(verzeichnis, 1 << 20);
+        Bank bank = Bank.wiederherstellen(12312L, journal);
+        long[] nummern = new long[64];
+        for (int i = 0; i < nummern.length; i++) {
+            nummern[i] = bank.kontoErstellen(new GirokontoFactory(), kunde);
+        }
+
+        int threads = 8;
+        int proThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> ergebnisse = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int start = t;
+            ergebnisse.add(executor.submit(() -> {
+                for (int i = 0; i < proThread; i++) {
+                    bank.geldEinzahlen(nummern[(start + i) % nummern.length], 1);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> ergebnis : ergebnisse) {
+            ergebnis.get();
+        }
+        executor.shutdown();
+
+        journal.close();
+        Bank wiederhergestellt = Bank.wiederherstellen(12312L, Journal.oeffnen(verzeichnis, 1 << 20));
+        double summe = 0;
+        for (long nummer : nummern) {
+            summe += wiederhergestellt.getKontostand(nummer);
+        }
+        assertEquals(threads * proThread, summe);
+    }
+}
@@ -0,0 +1,176 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Girokonto;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kunde;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KontoVerzeichnisTest {
+    private static final long BASIS = 10000000L;
+
+    KontoVerzeichnis verzeichnis;
+    Kunde kunde;
+
+    @BeforeEach
+    void setup() {
+        verzeichnis = new KontoVerzeichnis(BASIS);
+        kunde = new Kunde("Max", "Mustermann", "Home", LocalDate.parse("2001-10-29"));
+    }
+
+    private Konto konto(long nummer) {
+        return new Girokonto(kunde, nummer, 100);
+    }
+
+    @Test
+    void testPutIfAbsentUndGet() {
+        Konto konto = konto(BASIS + 5);
+
+        assertNull(verzeichnis.putIfAbsent(BASIS + 5, konto));
+        assertSame(konto, verzeichnis.putIfAbsent(BASIS + 5, konto(BASIS + 5)));
+        assertSame(konto, verzeichnis.get(BASIS + 5));
+        assertNull(verzeichnis.get(BASIS + 6));
+        assertNull(verzeichnis.get(BASIS + 1_000_000));
+        assertEquals(1, verzeichnis.size());
+    }
+
+    @Test
+    void testNummernAusserhalbDesDichtenBereichs() {
+        long[] nummern = {BASIS - 1, 42L, -7L, BASIS + (1L << 40), Long.MAX_VALUE};
+        for (long nummer : nummern) {
+            assertNull(verzeichnis.putIfAbsent(nummer, konto(nummer)));
+        }
+        for (long nummer : nummern) {
+            assertEquals(nummer, verzeichnis.get(nummer).getKontonummer());
+        }
+        assertEquals(nummern.length, verzeichnis.size());
+
+        assertNotNull(verzeichnis.remove(42L));
+        assertNull(verzeichnis.get(42L));
+        assertEquals(BASIS - 1, verzeichnis.get(BASIS - 1).getKontonummer());
+        assertEquals(nummern.length - 1, verzeichnis.size());
+    }
+
+    @Test
+    void testNummernAusserhalbLesenWaehrendAenderungen() throws Exception {
+        Konto fest = konto(42L);
+        verzeichnis.putIfAbsent(42L, fest);
+        Thread schreiber = new Thread(() -> {
+            for (long nummer = 1; nummer <= 2000; nummer++) {
+                verzeichnis.putIfAbsent(-nummer, konto(-nummer));
+            }
+            for (long nummer = 1; nummer <= 2000; nummer++) {
+                verzeichnis.remove(-nummer);
+            }
+        });
+        schreiber.start();
+        while (schreiber.isAlive()) {
+            assertSame(fest, verzeichnis.get(42L));
+        }
+        schreiber.join();
+
+        assertSame(fest, verzeichnis.get(42L));
+        assertEquals(1, verzeichnis.size());
+    }
+
+    @Test
+    void testRemove() {
+        verzeichnis.putIfAbsent(BASIS, konto(BASIS));
+
+        assertNotNull(verzeichnis.remove(BASIS));
+        assertNull(verzeichnis.remove(BASIS));
+        assertFalse(verzeichnis.enthaelt(BASIS));
+        assertEquals(0, verzeichnis.size());
+    }
+
+    @Test
+    void testForEachAufsteigendSortiert() {
+        long[] nummern = {BASIS + 9000, Long.MAX_VALUE, BASIS, 5L, BASIS + 4096, BASIS + 3};
+        for (long nummer : nummern) {
+            verzeichnis.putIfAbsent(nummer, konto(nummer));
+        }
+
+        List<Long> besucht = new ArrayList<>();
+        verzeichnis.forEach((nummer, konto) -> {
+            assertEquals(nummer, konto.getKontonummer());
+            besucht.add(nummer);
+        });
+
+        assertEquals(List.of(5L, BASIS, BASIS + 3, BASIS + 4096, BASIS + 9000, Long.MAX_VALUE), besucht);
+        assertArrayEquals(new long[]{5L, BASIS, BASIS + 3, BASIS + 4096, BASIS + 9000, Long.MAX_VALUE}, verzeichnis.nummern());
+    }
+
+    @Test
+    void testParallelerStreamInReihenfolge() {
+        List<Long> erwartet = new ArrayList<>();
+        for (long nummer : new long[]{3L, 7L}) {
+            verzeichnis.putIfAbsent(nummer, konto(nummer));
+            erwartet.add(nummer);
+        }
+        for (long nummer = BASIS + 5000; nummer < BASIS + 60_000; nummer += 3) {
+            verzeichnis.putIfAbsent(nummer, konto(nummer));
+            erwartet.add(nummer);
+        }
+        verzeichnis.putIfAbsent(Long.MAX_VALUE, konto(Long.MAX_VALUE));
+        erwartet.add(Long.MAX_VALUE);
+
+        assertEquals(erwartet, verzeichnis.stream().parallel().map(Konto::getKontonummer).toList());
+        assertNotNull(verzeichnis.spliterator().trySplit());
+    }
+
+    @Test
+    void testViele() {
+        for (long nummer = BASIS; nummer < BASIS + 100_000; nummer++) {
+            verzeichnis.putIfAbsent(nummer, konto(nummer));
+        }
+        for (long nummer = BASIS; nummer < BASIS + 100_000; nummer += 2) {
+            verzeichnis.remove(nummer);
+        }
+        assertEquals(50_000, verzeichnis.size());
+        assertEquals(50_000, verzeichnis.stream().count());
+        assertTrue(verzeichnis.stream().allMatch(konto -> konto.getKontonummer() % 2 == 1));
+    }
+
+    @Test
+    void testSchnappschussTeiltKontenBisZurAenderung() {
+        long ausserhalb = 42L;
+        for (long nummer = BASIS; nummer < BASIS + 10_000; nummer++) {
+            verzeichnis.putIfAbsent(nummer, konto(nummer));
+        }
+        verzeichnis.putIfAbsent(ausserhalb, konto(ausserhalb));
+        assertEquals(KontoVerzeichnis.Besitz.EIGEN, verzeichnis.besitz(BASIS));
+
+        KontoVerzeichnis schnappschuss = verzeichnis.schnappschuss();
+        assertEquals(10_001, schnappschuss.size());
+        assertSame(verzeichnis.get(BASIS + 7), schnappschuss.get(BASIS + 7));
+        assertEquals(KontoVerzeichnis.Besitz.GETEILT, verzeichnis.besitz(BASIS + 7));
+        assertEquals(KontoVerzeichnis.Besitz.GEERBT, schnappschuss.besitz(BASIS + 7));
+        assertEquals(KontoVerzeichnis.Besitz.GETEILT, verzeichnis.besitz(ausserhalb));
+        assertEquals(KontoVerzeichnis.Besitz.GEERBT, schnappschuss.besitz(ausserhalb));
+
+        Konto ersatz = konto(BASIS + 7);
+        schnappschuss.ersetzen(BASIS + 7, ersatz);
+        schnappschuss.remove(BASIS + 8);
+        assertNull(verzeichnis.putIfAbsent(BASIS + 20_000, konto(BASIS + 20_000)));
+
+        assertSame(ersatz, schnappschuss.get(BASIS + 7));
+        assertEquals(KontoVerzeichnis.Besitz.EIGEN, schnappschuss.besitz(BASIS + 7));
+        assertEquals(KontoVerzeichnis.Besitz.GEERBT, schnappschuss.besitz(BASIS + 9));
+        assertNotSame(ersatz, verzeichnis.get(BASIS + 7));
+        assertNotNull(verzeichnis.get(BASIS + 8));
+        assertNull(schnappschuss.get(BASIS + 20_000));
+        assertEquals(10_002, verzeichnis.size());
+        assertEquals(10_000, schnappschuss.size());
+
+        verzeichnis.ersetzen(BASIS + 9, konto(BASIS + 9));
+        assertEquals(KontoVerzeichnis.Besitz.EIGEN, verzeichnis.besitz(BASIS + 9));
+        assertEquals(KontoVerzeichnis.Besitz.GETEILT, verzeichnis.besitz(BASIS + 10));
+        assertEquals(KontoVerzeichnis.Besitz.EIGEN, verzeichnis.besitz(BASIS + 20_000));
+    }
+}
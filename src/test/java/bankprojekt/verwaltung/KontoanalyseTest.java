@@ -0,0 +1,95 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Kontoart;
+import bankprojekt.verarbeitung.Kontozustand;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Waehrung;
+import bankprojekt.verarbeitung.factories.GirokontoFactory;
+import bankprojekt.verarbeitung.factories.SparbuchFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KontoanalyseTest {
+    private static final int ANZAHL = 20_000;
+
+    Bank bank;
+    Kunde arm, reich;
+    Kontoanalyse analyse;
+
+    @BeforeEach
+    void setup() throws KontonummerDoesNotExistException {
+        bank = new Bank(12312L);
+        arm = new Kunde("Max", "Mustermann", "Home", LocalDate.parse("2001-10-29"));
+        reich = new Kunde("John", "Doe", "Work", LocalDate.parse("1985-07-12"));
+        for (int i = 0; i < ANZAHL; i++) {
+            long nummer = bank.kontoErstellen(i % 2 == 0 ? new GirokontoFactory() : new SparbuchFactory(), i % 4 == 0 ? reich : arm);
+            bank.geldEinzahlen(nummer, 1 + i % 4);
+        }
+        analyse = new Kontoanalyse(4);
+    }
+
+    @AfterEach
+    void aufraeumen() {
+        analyse.close();
+    }
+
+    @Test
+    void testKontostaende() {
+        DoubleSummaryStatistics statistik = analyse.kontostaende(bank);
+        assertEquals(ANZAHL, statistik.getCount());
+        assertEquals(ANZAHL / 4 * 10, statistik.getSum());
+        assertEquals(1, statistik.getMin());
+        assertEquals(4, statistik.getMax());
+    }
+
+    @Test
+    void testSummenJeArtUndWaehrung() throws Exception {
+        bank.waehrungswechsel(bank.getAlleKontonummern().get(1), Waehrung.BGN);
+
+        Map<Kontoart, Double> jeArt = analyse.summenJeKontoart(bank);
+        assertEquals(ANZAHL / 4 * (1 + 3), (double) jeArt.get(Kontoart.GIROKONTO));
+        assertEquals(2, analyse.summenJeWaehrung(bank).size());
+        assertEquals(Waehrung.BGN.euroInWaehrungUmrechnen(2), (double) analyse.summenJeWaehrung(bank).get(Waehrung.BGN));
+    }
+
+    @Test
+    void testKundensaldenUndEigeneAuswertung() {
+        Map<Kunde, Double> salden = analyse.kundensalden(bank);
+        assertEquals(ANZAHL / 4, (double) salden.get(reich));
+        assertEquals(ANZAHL / 4 * 9, (double) salden.get(arm));
+
+        List<Long> nummern = analyse.auswerten(bank, Collectors.mapping(Kontozustand::nummer, Collectors.toList()));
+        assertEquals(bank.getAlleKontonummern(), nummern);
+    }
+
+    @Test
+    void testSummenInCentExakt() throws KontonummerDoesNotExistException {
+        Bank klein = new Bank(12313L);
+        for (int i = 0; i < 10; i++) {
+            klein.geldEinzahlen(klein.kontoErstellen(new GirokontoFactory(), arm), 0.1);
+        }
+
+        assertEquals(1.0, analyse.kontostaende(klein).getSum());
+        assertEquals(0.1, analyse.kontostaende(klein).getMax());
+        assertEquals(1.0, (double) analyse.summenJeWaehrung(klein).get(Waehrung.EUR));
+        assertEquals(1.0, (double) analyse.summenJeKontoart(klein).get(Kontoart.GIROKONTO));
+        assertEquals(1.0, (double) analyse.kundensalden(klein).get(arm));
+        assertEquals(0, analyse.kontostaende(new Bank(12314L)).getCount());
+    }
+
+    @Test
+    void testEigenerPool() {
+        assertEquals(4, analyse.getParallelitaet());
+        assertThrowsExactly(IllegalArgumentException.class, () -> new Kontoanalyse(0));
+        assertThrowsExactly(IllegalArgumentException.class, () -> analyse.kontostaende(null));
+    }
+}
@@ -0,0 +1,126 @@
+package bankprojekt.verwaltung;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KontonummernBitmapTest {
+    private static final long MINIMUM = 10000000L;
+
+    private static List<Long> luecken(KontonummernBitmap bitmap, long von, long bis) {
+        List<Long> luecken = new ArrayList<>();
+        bitmap.lueckenBesuchen(von, bis, (long nummer) -> luecken.add(nummer));
+        return luecken;
+    }
+
+    @Test
+    void testFortlaufendeNummernOhneLuecken() {
+        KontonummernBitmap bitmap = new KontonummernBitmap();
+        for (long nummer = MINIMUM; nummer < MINIMUM + 200_000; nummer++) {
+            bitmap.hinzufuegen(nummer);
+        }
+
+        assertEquals(200_000, bitmap.kardinalitaet());
+        assertTrue(luecken(bitmap, MINIMUM, MINIMUM + 199_999).isEmpty());
+        assertEquals(0, bitmap.anzahlLuecken(MINIMUM, MINIMUM + 199_999));
+        assertEquals(MINIMUM + 200_000, bitmap.naechsteFreie(MINIMUM));
+    }
+
+    @Test
+    void testLueckenUndNaechsteFreie() {
+        KontonummernBitmap bitmap = new KontonummernBitmap();
+        for (long nummer = MINIMUM; nummer < MINIMUM + 100_000; nummer++) {
+            bitmap.hinzufuegen(nummer);
+        }
+        bitmap.entfernen(MINIMUM + 5);
+        bitmap.entfernen(MINIMUM + 70_000);
+        bitmap.entfernen(MINIMUM + 70_001);
+
+        assertEquals(List.of(MINIMUM + 5, MINIMUM + 70_000, MINIMUM + 70_001), luecken(bitmap, MINIMUM, MINIMUM + 99_999));
+        assertEquals(3, bitmap.anzahlLuecken(MINIMUM, MINIMUM + 99_999));
+        assertEquals(MINIMUM + 5, bitmap.naechsteFreie(MINIMUM));
+        assertEquals(MINIMUM + 70_000, bitmap.naechsteFreie(MINIMUM + 6));
+        assertEquals(MINIMUM + 70_002, bitmap.naechsteBelegte(MINIMUM + 70_000));
+        assertFalse(bitmap.entfernen(MINIMUM + 5));
+    }
+
+    @Test
+    void testLeereBitmap() {
+        KontonummernBitmap bitmap = new KontonummernBitmap();
+
+        assertEquals(MINIMUM, bitmap.naechsteFreie(MINIMUM));
+        assertEquals(Long.MAX_VALUE, bitmap.naechsteBelegte(MINIMUM));
+        assertEquals(11, bitmap.anzahlLuecken(MINIMUM, MINIMUM + 10));
+        assertTrue(luecken(bitmap, MINIMUM, MINIMUM - 1).isEmpty());
+    }
+
+    @Test
+    void testZufaelligeOperationenWieTreeSet() {
+        Random zufall = new Random(42);
+        KontonummernBitmap bitmap = new KontonummernBitmap();
+        TreeSet<Long> erwartet = new TreeSet<>();
+        long bereich = 300_000;
+
+        for (int i = 0; i < 200_000; i++) {
+            long nummer = MINIMUM + (i % 3 == 0 ? zufall.nextLong(bereich) : zufall.nextLong(5000));
+            if (zufall.nextInt(3) == 0) {
+                assertEquals(erwartet.remove(nummer), bitmap.entfernen(nummer));
+            } else {
+                erwartet.add(nummer);
+                bitmap.hinzufuegen(nummer);
+            }
+            if (i % 50_000 == 0) {
+                bitmap.optimieren();
+            }
+        }
+
+        assertEquals(erwartet.size(), bitmap.kardinalitaet());
+        List<Long> alle = new ArrayList<>();
+        bitmap.forEach(alle::add);
+        assertEquals(new ArrayList<>(erwartet), alle);
+
+        List<Long> erwarteteLuecken = new ArrayList<>();
+        for (long nummer = MINIMUM; nummer < MINIMUM + bereich; nummer++) {
+            if (!erwartet.contains(nummer)) {
+                erwarteteLuecken.add(nummer);
+            }
+        }
+        assertEquals(erwarteteLuecken, luecken(bitmap, MINIMUM, MINIMUM + bereich - 1));
+        assertEquals(erwarteteLuecken.size(), bitmap.anzahlLuecken(MINIMUM, MINIMUM + bereich - 1));
+
+        KontonummernBitmap kopie = bitmap.kopie();
+        bitmap.entfernen(erwartet.first());
+        assertTrue(kopie.enthaelt(erwartet.first()));
+    }
+
+    @Test
+    void testParalleleAenderungen() throws Exception {
+        KontonummernBitmap bitmap = new KontonummernBitmap();
+        int threads = 8;
+        List<Thread> laeufer = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long basis = MINIMUM + t * 40_000L;
+            laeufer.add(Thread.ofPlatform().start(() -> {
+                for (int runde = 0; runde < 20; runde++) {
+                    for (long nummer = basis; nummer < basis + 40_000; nummer++) {
+                        bitmap.hinzufuegen(nummer);
+                    }
+                    if (runde < 19) {
+                        for (long nummer = basis; nummer < basis + 40_000; nummer++) {
+                            assertTrue(bitmap.entfernen(nummer));
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread thread : laeufer) {
+            thread.join();
+        }
+
+        assertEquals(threads * 40_000L, bitmap.kardinalitaet());
+        assertEquals(0, bitmap.anzahlLuecken(MINIMUM, MINIMUM + threads * 40_000L - 1));
+        assertEquals(MINIMUM + threads * 40_000L, bitmap.naechsteFreie(MINIMUM));
+    }
+}
@@ -0,0 +1,154 @@
+package bankprojekt.verwaltung;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KontonummernVergabeTest {
+    private static final long MINIMUM = 10000000L;
+
+    @Test
+    void testFortlaufendInEinemThread() {
+        KontonummernVergabe vergabe = new KontonummernVergabe(MINIMUM);
+        assertEquals(MINIMUM - 1, vergabe.getHoechsteVergebene());
+
+        for (long erwartet = MINIMUM; erwartet < MINIMUM + 1000; erwartet++) {
+            assertEquals(erwartet, vergabe.naechste());
+        }
+        assertEquals(MINIMUM + 999, vergabe.getHoechsteVergebene());
+    }
+
+    @Test
+    void testEindeutigMitMehrerenThreads() throws Exception {
+        KontonummernVergabe vergabe = new KontonummernVergabe(MINIMUM, 16, false, 0, 1);
+        int threads = 8;
+        int proThread = 10_000;
+        Set<Long> nummern = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> ergebnisse = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            ergebnisse.add(executor.submit(() -> {
+                for (int i = 0; i < proThread; i++) {
+                    assertTrue(nummern.add(vergabe.naechste()));
+                }
+            }));
+        }
+        for (Future<?> ergebnis : ergebnisse) {
+            ergebnis.get();
+        }
+        executor.shutdown();
+
+        assertEquals(threads * proThread, nummern.size());
+        assertEquals((long) Collections.max(nummern), vergabe.getHoechsteVergebene());
+    }
+
+    @Test
+    void testDichtMitKurzlebigenThreads() throws Exception {
+        KontonummernVergabe vergabe = new KontonummernVergabe(MINIMUM);
+        List<Long> nummern = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            Thread.ofVirtual().start(() -> nummern.add(vergabe.naechste())).join();
+        }
+
+        for (int i = 0; i < 200; i++) {
+            assertEquals(MINIMUM + i, (long) nummern.get(i));
+        }
+        assertArrayEquals(new long[]{MINIMUM + 200, MINIMUM + 256}, vergabe.offeneBereiche());
+    }
+
+    @Test
+    void testOffeneBereicheBleibenBeimSerialisieren() throws Exception {
+        KontonummernVergabe vergabe = new KontonummernVergabe(MINIMUM, 10, false, 0, 1);
+        vergabe.naechste();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream aus = new ObjectOutputStream(bytes)) {
+            aus.writeObject(vergabe);
+        }
+        KontonummernVergabe gelesen;
+        try (ObjectInputStream ein = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            gelesen = (KontonummernVergabe) ein.readObject();
+        }
+
+        assertEquals(MINIMUM + 1, gelesen.naechste());
+        assertEquals(MINIMUM + 2, gelesen.naechste());
+    }
+
+    @Test
+    void testKopieUebernimmtOffeneBereiche() {
+        KontonummernVergabe vergabe = new KontonummernVergabe(MINIMUM, 10, false, 0, 1);
+        vergabe.naechste();
+
+        KontonummernVergabe kopie = vergabe.kopie();
+
+        assertArrayEquals(vergabe.offeneBereiche(), kopie.offeneBereiche());
+        assertEquals(MINIMUM + 1, kopie.naechste());
+        assertEquals(MINIMUM + 1, vergabe.naechste());
+    }
+
+    @Test
+    void testWiederverwendung() {
+        KontonummernVergabe vergabe = new KontonummernVergabe(MINIMUM, 4, true, 0, 1);
+        long erste = vergabe.naechste();
+        vergabe.naechste();
+
+        vergabe.freigeben(erste);
+
+        assertEquals(erste, vergabe.naechste());
+        assertEquals(MINIMUM + 2, vergabe.naechste());
+    }
+
+    @Test
+    void testOhneWiederverwendung() {
+        KontonummernVergabe vergabe = new KontonummernVergabe(MINIMUM);
+        long erste = vergabe.naechste();
+
+        vergabe.freigeben(erste);
+
+        assertEquals(MINIMUM + 1, vergabe.naechste());
+    }
+
+    @Test
+    void testKnotenTeilenSichDenNummernraum() {
+        KontonummernVergabe knoten0 = new KontonummernVergabe(MINIMUM, 10, false, 0, 3);
+        KontonummernVergabe knoten1 = new KontonummernVergabe(MINIMUM, 10, false, 1, 3);
+        KontonummernVergabe knoten2 = new KontonummernVergabe(MINIMUM, 10, false, 2, 3);
+        Set<Long> nummern = new HashSet<>();
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(nummern.add(knoten0.naechste()));
+            assertTrue(nummern.add(knoten1.naechste()));
+            assertTrue(nummern.add(knoten2.naechste()));
+        }
+
+        assertEquals(MINIMUM + 10, new KontonummernVergabe(MINIMUM, 10, false, 1, 3).naechste());
+        assertEquals(300, nummern.size());
+    }
+
+    @Test
+    void testReservieren() {
+        KontonummernVergabe vergabe = new KontonummernVergabe(MINIMUM, 10, false, 0, 1);
+
+        vergabe.reservieren(MINIMUM + 25);
+
+        assertEquals(MINIMUM + 30, vergabe.naechste());
+        assertEquals(MINIMUM + 30, vergabe.getHoechsteVergebene());
+    }
+
+    @Test
+    void testUngueltigeParameter() {
+        Assertions.assertThrowsExactly(IllegalArgumentException.class, () -> new KontonummernVergabe(-1));
+        Assertions.assertThrowsExactly(IllegalArgumentException.class, () -> new KontonummernVergabe(MINIMUM, 0, false, 0, 1));
+        Assertions.assertThrowsExactly(IllegalArgumentException.class, () -> new KontonummernVergabe(MINIMUM, 8, false, 2, 2));
+    }
+}
@@ -0,0 +1,63 @@
+package bankprojekt.verwaltung;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatenzhistogrammTest {
+
+    @Test
+    @DisplayName("Every latency falls into a bucket whose bounds are within about 3 percent of it")
+    void testBuckets() {
+        for (long wert = 0; wert < 1L << 39; wert = wert * 5 / 4 + 1) {
+            int bucket = Latenzhistogramm.bucket(wert);
+            long obergrenze = Latenzhistogramm.obergrenze(bucket);
+            long untergrenze = bucket == 0 ? 0 : Latenzhistogramm.obergrenze(bucket - 1) + 1;
+            assertTrue(untergrenze <= wert && wert <= obergrenze, "Wert " + wert);
+            assertTrue(obergrenze - untergrenze <= Math.max(0, wert / 32), "Wert " + wert);
+        }
+    }
+
+    @Test
+    @DisplayName("The percentiles of a uniform distribution are found within the precision of the buckets")
+    void testPerzentile() {
+        Latenzhistogramm histogramm = new Latenzhistogramm();
+        for (long wert = 1; wert <= 100_000; wert++) {
+            histogramm.erfassen(wert * 1000);
+        }
+
+        Latenzstatistik statistik = histogramm.auswerten();
+
+        assertEquals(100_000L, statistik.anzahl());
+        assertEquals(50_000_500.0, statistik.mittelwert(), 1);
+        assertEquals(50_000_000.0, (double) statistik.p50(), 50_000_000 * 0.035);
+        assertEquals(99_000_000.0, (double) statistik.p99(), 99_000_000 * 0.035);
+        assertEquals(99_900_000.0, (double) statistik.p999(), 99_900_000 * 0.035);
+        assertEquals(100_000_000L, statistik.maximum());
+    }
+
+    @Test
+    @DisplayName("Latencies recorded by several threads are merged on read")
+    void testMehrereThreads() throws InterruptedException {
+        Latenzhistogramm histogramm = new Latenzhistogramm();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogramm.erfassen(100);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Latenzstatistik statistik = histogramm.auswerten();
+
+        assertEquals(40_000L, statistik.anzahl());
+        assertEquals(100L, statistik.maximum());
+        assertTrue(statistik.p50() >= 96 && statistik.p50() <= 100);
+    }
+}
@@ -0,0 +1,182 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.factories.GirokontoFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionierteBankTest {
+    private static final int ANZAHL_KONTEN = 64;
+
+    Bank bank;
+    PartitionierteBank partitionen;
+    long[] kontonummern;
+
+    @BeforeEach
+    void setup() {
+        bank = new Bank(12312L);
+        partitionen = new PartitionierteBank(bank, 4);
+        Kunde kunde = new Kunde("Max", "Mustermann", "Home", LocalDate.parse("2001-10-29"));
+        kontonummern = new long[ANZAHL_KONTEN];
+        for (int i = 0; i < ANZAHL_KONTEN; i++) {
+            kontonummern[i] = partitionen.kontoErstellen(new GirokontoFactory(), kunde);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        partitionen.close();
+    }
+
+    private long inAndererPartition(long nummer) {
+        for (long andere : kontonummern) {
+            if (bank.partition(andere, 4) != bank.partition(nummer, 4)) {
+                return andere;
+            }
+        }
+        throw new AssertionError("Alle Konten in einer Partition");
+    }
+
+    @Test
+    @DisplayName("Transactions sent to the partitions are executed in order per account")
+    void testEinzahlenUndAbheben() throws Exception {
+        long nummer = kontonummern[0];
+        partitionen.geldEinzahlen(nummer, 100);
+        CompletableFuture<Boolean> abgehoben = partitionen.geldAbheben(nummer, 30);
+
+        assertTrue(abgehoben.get());
+        assertEquals(70.0, (double) partitionen.getKontostand(nummer).get());
+    }
+
+    @Test
+    @DisplayName("A transfer between two partitions debits the sender and credits the recipient")
+    void testUeberweisungZwischenPartitionen() throws Exception {
+        long von = kontonummern[0];
+        long nach = inAndererPartition(von);
+        partitionen.geldEinzahlen(von, 100).get();
+
+        assertTrue(partitionen.geldUeberweisen(von, nach, 40, "Miete").get());
+
+        assertEquals(60.0, (double) partitionen.getKontostand(von).get());
+        assertEquals(40.0, (double) partitionen.getKontostand(nach).get());
+    }
+
+    @Test
+    @DisplayName("A transfer to a deleted account is refused and leaves the sender unchanged")
+    void testUeberweisungAnGeloeschtesKonto() throws Exception {
+        long von = kontonummern[0];
+        long nach = inAndererPartition(von);
+        partitionen.geldEinzahlen(von, 100).get();
+
+        assertTrue(partitionen.kontoLoeschen(nach).get());
+
+        assertFalse(partitionen.geldUeberweisen(von, nach, 40, "Miete").get());
+        assertEquals(100.0, (double) partitionen.getKontostand(von).get());
+    }
+
+    private Konto konto(long nummer) {
+        return bank.kontenStream().filter(k -> k.getKontonummer() == nummer).findFirst().orElseThrow();
+    }
+
+    @Test
+    @DisplayName("A reversal that cannot be credited fails the transfer and keeps the amount as undeliverable")
+    void testRueckbuchungFehlgeschlagen() throws Exception {
+        long von = kontonummern[0];
+        long nach = inAndererPartition(von);
+        partitionen.geldEinzahlen(von, 100).get();
+        AtomicBoolean geloescht = new AtomicBoolean();
+        // waehrend der Belastung: Empfaenger und Sender loeschen, bevor Gutschrift und Rueckbuchung ankommen
+        konto(von).anmelden(evt -> {
+            if ("kontostand".equals(evt.getPropertyName()) && !geloescht.getAndSet(true)) {
+                partitionen.kontoLoeschen(nach);
+                partitionen.kontoLoeschen(von);
+            }
+        });
+
+        ExecutionException fehler = assertThrows(ExecutionException.class,
+                () -> partitionen.geldUeberweisen(von, nach, 40, "Miete").get());
+
+        assertInstanceOf(IllegalStateException.class, fehler.getCause());
+        assertEquals(40.0, partitionen.getUnzustellbar());
+    }
+
+    @Test
+    @DisplayName("An Error completes the future and leaves the partition running")
+    void testErrorHaeltPartitionNichtAn() throws Exception {
+        long nummer = kontonummern[0];
+        konto(nummer).anmelden(evt -> {
+            throw new AssertionError("Listener defekt");
+        });
+
+        ExecutionException fehler = assertThrows(ExecutionException.class,
+                () -> partitionen.geldEinzahlen(nummer, 10).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, fehler.getCause());
+
+        assertEquals(10.0, (double) partitionen.getKontostand(nummer).get(5, TimeUnit.SECONDS));
+        partitionen.close();
+        assertThrows(IllegalStateException.class, () -> partitionen.geldEinzahlen(nummer, 10));
+    }
+
+    @Test
+    @DisplayName("Concurrent transfers between all partitions neither create nor lose money")
+    void testParalleleUeberweisungen() throws Exception {
+        for (long nummer : kontonummern) {
+            partitionen.geldEinzahlen(nummer, 1000);
+        }
+        List<CompletableFuture<Boolean>> ergebnisse = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom zufall = ThreadLocalRandom.current();
+                for (int i = 0; i < 20_000; i++) {
+                    long von = kontonummern[zufall.nextInt(ANZAHL_KONTEN)];
+                    long nach = kontonummern[zufall.nextInt(ANZAHL_KONTEN)];
+                    ergebnisse.add(partitionen.geldUeberweisen(von, nach, 1 + zufall.nextInt(50), "Test"));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        partitionen.close();
+
+        for (CompletableFuture<Boolean> ergebnis : ergebnisse) {
+            assertTrue(ergebnis.isDone());
+        }
+        double summe = 0;
+        for (long nummer : kontonummern) {
+            summe += bank.getKontostand(nummer);
+        }
+        assertEquals(1000.0 * ANZAHL_KONTEN, summe, 1e-6);
+    }
+
+    @Test
+    @DisplayName("Closed partitions reject new transactions, failures complete the future")
+    void testGeschlossenUndFehler() {
+        ExecutionException fehler = assertThrows(ExecutionException.class,
+                () -> partitionen.geldEinzahlen(1L, 10).get());
+        assertInstanceOf(KontonummerDoesNotExistException.class, fehler.getCause());
+        assertThrows(IllegalArgumentException.class, () -> partitionen.geldAbheben(kontonummern[0], -1));
+
+        partitionen.close();
+
+        assertThrows(IllegalStateException.class, () -> partitionen.geldEinzahlen(kontonummern[0], 10));
+    }
+}
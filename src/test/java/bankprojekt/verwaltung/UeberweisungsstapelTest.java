@@ -0,0 +1,76 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Girokonto;
+import bankprojekt.verarbeitung.Kunde;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UeberweisungsstapelTest {
+    private static final long BASIS = 10000000L;
+
+    KontoVerzeichnis verzeichnis;
+    Girokonto sender;
+    Girokonto empfaenger;
+
+    @BeforeEach
+    void setup() {
+        Kunde kunde = new Kunde("Max", "Mustermann", "Home", LocalDate.parse("2001-10-29"));
+        verzeichnis = new KontoVerzeichnis(BASIS);
+        sender = new Girokonto(kunde, BASIS, 0);
+        empfaenger = new Girokonto(kunde, BASIS + 1, 0);
+        verzeichnis.putIfAbsent(BASIS, sender);
+        verzeichnis.putIfAbsent(BASIS + 1, empfaenger);
+        sender.einzahlen(100);
+    }
+
+    private Ueberweisungsstapel stapel(double... betraege) {
+        Ueberweisungsauftrag[] auftrag = new Ueberweisungsauftrag[betraege.length];
+        for (int i = 0; i < betraege.length; i++) {
+            auftrag[i] = new Ueberweisungsauftrag(BASIS, BASIS + 1, betraege[i], "Test");
+        }
+        return new Ueberweisungsstapel(auftrag, verzeichnis.size());
+    }
+
+    @Test
+    void testUnveraendertBleibtGeprueft() {
+        Ueberweisungsstapel stapel = stapel(60, 60, 40);
+        stapel.pruefen(verzeichnis, true);
+        stapel.nachpruefen(verzeichnis);
+        stapel.gutschriftenSummieren();
+
+        assertArrayEquals(new UeberweisungsErgebnis[]{UeberweisungsErgebnis.AUSGEFUEHRT,
+                UeberweisungsErgebnis.NICHT_GEDECKT, UeberweisungsErgebnis.AUSGEFUEHRT}, stapel.ergebnisse());
+        assertEquals(10000, stapel.belastung(0));
+        assertEquals(10000, stapel.gutschrift(1));
+    }
+
+    @Test
+    void testKontostandGeaendertWirdNachgeprueft() throws Exception {
+        Ueberweisungsstapel stapel = stapel(60, 40);
+        stapel.pruefen(verzeichnis, true);
+        sender.abheben(50);
+        stapel.nachpruefen(verzeichnis);
+        stapel.gutschriftenSummieren();
+
+        assertArrayEquals(new UeberweisungsErgebnis[]{UeberweisungsErgebnis.NICHT_GEDECKT,
+                UeberweisungsErgebnis.AUSGEFUEHRT}, stapel.ergebnisse());
+        assertEquals(4000, stapel.belastung(0));
+        assertEquals(4000, stapel.gutschrift(1));
+    }
+
+    @Test
+    void testKontoGeloeschtWirdNachgeprueft() {
+        Ueberweisungsstapel stapel = stapel(60);
+        stapel.pruefen(verzeichnis, true);
+        verzeichnis.remove(BASIS + 1);
+        stapel.nachpruefen(verzeichnis);
+        stapel.gutschriftenSummieren();
+
+        assertArrayEquals(new UeberweisungsErgebnis[]{UeberweisungsErgebnis.KONTO_FEHLT}, stapel.ergebnisse());
+        assertFalse(stapel.betroffen(0));
+    }
+}
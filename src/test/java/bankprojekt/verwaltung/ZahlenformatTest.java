@@ -0,0 +1,52 @@
+package bankprojekt.verwaltung;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ZahlenformatTest {
+
+    private static String betrag(double betrag) throws IOException {
+        StringBuilder ziel = new StringBuilder();
+        Zahlenformat.betrag(betrag, ziel);
+        return ziel.toString();
+    }
+
+    private static String zahl(long zahl) throws IOException {
+        StringBuilder ziel = new StringBuilder();
+        Zahlenformat.zahl(zahl, ziel);
+        return ziel.toString();
+    }
+
+    @Test
+    void testBetragWieDoubleToString() throws IOException {
+        double[] werte = {0.0, -0.0, 500.0, 0.1, 0.1 + 0.2, -1234.56, 0.001, 9.99e-4, 9_999_999.99, 1e7,
+                1.95583, 1e-300, Double.MAX_VALUE, Double.NaN, Double.NEGATIVE_INFINITY};
+        for (double wert : werte) {
+            assertEquals(Double.toString(wert), betrag(wert));
+        }
+    }
+
+    @Test
+    void testZufaelligeBetraege() throws IOException {
+        Random zufall = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            double wert = switch (i % 3) {
+                case 0 -> Math.round(zufall.nextDouble() * 1e9) / 100.0;
+                case 1 -> -Math.round(zufall.nextDouble() * 1e6) / 100.0 * 1.95583;
+                default -> zufall.nextDouble() * Math.pow(10, zufall.nextInt(12) - 4);
+            };
+            assertEquals(Double.toString(wert), betrag(wert));
+        }
+    }
+
+    @Test
+    void testZahl() throws IOException {
+        for (long wert : new long[]{0, 7, 10, 10000000L, -42, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(Long.toString(wert), zahl(wert));
+        }
+    }
+}